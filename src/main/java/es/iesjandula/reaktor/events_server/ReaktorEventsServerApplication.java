@@ -2,6 +2,7 @@ package es.iesjandula.reaktor.events_server;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
@@ -12,6 +13,10 @@ import org.springframework.scheduling.annotation.EnableScheduling;
  * componentes dentro del paquete "es.iesjandula". También habilita la
  * programación de tareas (scheduling) automáticas.
  * </p>
+ * <p>
+ * Las fases del arranque se registran en un {@link BufferingApplicationStartup}
+ * para poder informar del tiempo hasta que la aplicación está lista.
+ * </p>
  * 
  */
 @SpringBootApplication
@@ -20,6 +25,8 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 { "es.iesjandula" })
 public class ReaktorEventsServerApplication
 {
+	/** Número máximo de pasos del arranque que se registran */
+	private static final int CAPACIDAD_REGISTRO_ARRANQUE = 4096 ;
 
 	/**
 	 * Método principal que lanza la aplicación Spring Boot.
@@ -28,7 +35,9 @@ public class ReaktorEventsServerApplication
 	 */
 	public static void main(String[] args) 
 	{
-		SpringApplication.run(ReaktorEventsServerApplication.class, args);
+		SpringApplication application = new SpringApplication(ReaktorEventsServerApplication.class) ;
+		application.setApplicationStartup(new BufferingApplicationStartup(CAPACIDAD_REGISTRO_ARRANQUE)) ;
+		application.run(args) ;
 	}
 
 }
@@ -0,0 +1,26 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO utilizado para informar al cliente del resultado de un borrado masivo de eventos.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BorradoMasivoResponseDto
+{
+    /**
+     * Número de eventos eliminados.
+     */
+    private long eventosEliminados;
+
+    /**
+     * Número de lotes (sentencias) ejecutados.
+     */
+    private int lotes;
+}
@@ -0,0 +1,38 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con la vista de calendario: los eventos de un rango ya repartidos en celdas.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CalendarioResponseDto
+{
+    /**
+     * Tamaño de las celdas.
+     */
+    private GranularidadCalendario granularidad;
+
+    /**
+     * Zona horaria en la que se han calculado los límites de las celdas.
+     */
+    private String zona;
+
+    /**
+     * Número total de eventos distintos del rango.
+     */
+    private int totalEventos;
+
+    /**
+     * Celdas del rango, ordenadas y consecutivas.
+     */
+    private List<CeldaCalendarioDto> celdas;
+}
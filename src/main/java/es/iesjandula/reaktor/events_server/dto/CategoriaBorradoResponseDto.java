@@ -0,0 +1,51 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO utilizado para informar al cliente del resultado de eliminar una categoría.
+ *
+ * <p>Indica el modo aplicado a sus eventos, cuántos eventos se han visto afectados
+ * y en cuántos lotes se ha realizado la operación, con el progreso tras cada lote.</p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategoriaBorradoResponseDto
+{
+    /**
+     * Nombre de la categoría eliminada.
+     */
+    private String nombre;
+
+    /**
+     * Modo aplicado a los eventos de la categoría (nulo si no tenía eventos).
+     */
+    private ModoBorradoCategoria modo;
+
+    /**
+     * Categoría a la que se han reasignado los eventos, si procede.
+     */
+    private String categoriaDestino;
+
+    /**
+     * Número de eventos reasignados o eliminados.
+     */
+    private long eventosAfectados;
+
+    /**
+     * Número de lotes (sentencias) ejecutados sobre los eventos.
+     */
+    private int lotes;
+
+    /**
+     * Progreso de la operación tras cada lote.
+     */
+    private List<ProgresoLoteDto> progreso;
+}
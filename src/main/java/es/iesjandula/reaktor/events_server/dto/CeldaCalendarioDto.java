@@ -0,0 +1,38 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con una celda (día, semana o mes) de la vista de calendario.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CeldaCalendarioDto
+{
+    /**
+     * Inicio de la celda en milisegundos.
+     */
+    private long inicio;
+
+    /**
+     * Fin de la celda en milisegundos (excluido).
+     */
+    private long fin;
+
+    /**
+     * Número de eventos que caen en la celda.
+     */
+    private int total;
+
+    /**
+     * Tramos de los eventos de la celda, ordenados por fecha de inicio.
+     */
+    private List<TramoEventoDto> eventos;
+}
@@ -0,0 +1,26 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO utilizado para informar de un error en una línea concreta de un fichero importado.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorLineaImportacionDto
+{
+    /**
+     * Número de línea del fichero (la cabecera es la línea 1).
+     */
+    private long linea;
+
+    /**
+     * Descripción del error.
+     */
+    private String mensaje;
+}
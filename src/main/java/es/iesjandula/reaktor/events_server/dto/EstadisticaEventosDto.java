@@ -0,0 +1,40 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO utilizado para recoger el número de eventos de un grupo
+ * (categoría, profesor o mes) en las consultas agregadas.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticaEventosDto
+{
+    /**
+     * Clave del grupo: nombre de categoría, email del profesor o mes en formato yyyy-MM.
+     */
+    private String clave;
+
+    /**
+     * Número de eventos del grupo.
+     */
+    private Long total;
+
+    /**
+     * Constructor usado en las consultas agrupadas por mes.
+     *
+     * @param anio Año del grupo.
+     * @param mes Mes del grupo (1-12).
+     * @param total Número de eventos del grupo.
+     */
+    public EstadisticaEventosDto(Integer anio, Integer mes, Long total)
+    {
+        this.clave = String.format("%04d-%02d", anio, mes);
+        this.total = total;
+    }
+}
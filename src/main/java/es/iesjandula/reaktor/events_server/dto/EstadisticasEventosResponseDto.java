@@ -0,0 +1,34 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO utilizado para enviar al cliente los contadores de eventos
+ * por categoría, por profesor y por mes.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EstadisticasEventosResponseDto
+{
+    /**
+     * Número de eventos por nombre de categoría.
+     */
+    private Map<String, Long> porCategoria;
+
+    /**
+     * Número de eventos por email del profesor propietario.
+     */
+    private Map<String, Long> porProfesor;
+
+    /**
+     * Número de eventos por mes de inicio (yyyy-MM).
+     */
+    private Map<String, Long> porMes;
+}
@@ -0,0 +1,19 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+/**
+ * Resultado de buscar un evento por su clave dentro de una consulta múltiple.
+ */
+public enum EstadoConsultaEvento
+{
+	/** El evento existe y el usuario puede verlo */
+	ENCONTRADO,
+
+	/** No existe ningún evento con esa clave */
+	NO_ENCONTRADO,
+
+	/** El evento pertenece a otro usuario y el usuario no tiene permiso para verlo */
+	NO_PERMITIDO,
+
+	/** La clave está incompleta (título vacío o fecha no válida) */
+	CLAVE_INVALIDA
+}
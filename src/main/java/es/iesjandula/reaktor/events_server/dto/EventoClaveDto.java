@@ -0,0 +1,31 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con la clave compuesta de un evento, usado en la consulta de varios eventos a la vez.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventoClaveDto
+{
+    /**
+     * Título del evento.
+     */
+    private String titulo;
+
+    /**
+     * Fecha de inicio del evento en milisegundos.
+     */
+    private Long fechaInicio;
+
+    /**
+     * Email del propietario del evento. Si no se indica, se usa el del usuario autenticado.
+     */
+    private String usuarioEmail;
+}
@@ -42,5 +42,10 @@ public class EventoRequestDto
      */
     private Long fechaFin;
     
+    /**
+     * Versión del evento leída por el cliente. Solo se usa al modificar un evento, para
+     * detectar si otro usuario lo ha cambiado antes.
+     */
+    private Long version;
 
 }
@@ -1,6 +1,6 @@
 package es.iesjandula.reaktor.events_server.dto;
 
-import java.util.Date;
+import java.time.Instant;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -25,12 +25,12 @@ public class EventoResponseDto
 	private String titulo;
 	
     /**
-     * Fecha y hora de inicio del evento.
+     * Fecha y hora de inicio del evento en milisegundos desde epoch.
      */
-    private Long fechaInicio;
+    private long fechaInicio;
     
     /**
-     * Fecha y hora de fin del evento.
+     * Fecha y hora de fin del evento en milisegundos desde epoch, o null si no tiene.
      */
     private Long fechaFin;
     
@@ -58,15 +58,25 @@ public class EventoResponseDto
      */
     private String usuarioApellidos;
     
-    public EventoResponseDto(String titulo, Date fechaInicio, Date fechaFin, String nombre, String usuarioEmail, String usuarioNombre, String usuarioApellidos) {
+    /**
+     * Versión del evento. Se envía en las modificaciones para detectar cambios concurrentes.
+     */
+    private long version;
+    
+    public EventoResponseDto(String titulo, Instant fechaInicio, Instant fechaFin, String nombre, String usuarioEmail, String usuarioNombre, String usuarioApellidos) {
         this.titulo = titulo;
-        this.fechaInicio = fechaInicio != null ? fechaInicio.getTime() : null;
-        this.fechaFin = fechaFin != null ? fechaFin.getTime() : null;
+        this.fechaInicio = fechaInicio != null ? fechaInicio.toEpochMilli() : 0L;
+        this.fechaFin = fechaFin != null ? fechaFin.toEpochMilli() : null;
         this.nombre = nombre;
         this.usuarioNombre = usuarioNombre;
         this.usuarioEmail = usuarioEmail;
         this.usuarioApellidos= usuarioApellidos;
     }
     
+    public EventoResponseDto(String titulo, Instant fechaInicio, Instant fechaFin, String nombre, String usuarioEmail, String usuarioNombre, String usuarioApellidos, long version) {
+        this(titulo, fechaInicio, fechaFin, nombre, usuarioEmail, usuarioNombre, usuarioApellidos);
+        this.version = version;
+    }
+    
     
 }
@@ -0,0 +1,16 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+/**
+ * Tamaño de las celdas de la vista de calendario.
+ */
+public enum GranularidadCalendario
+{
+	/** Una celda por día */
+	DIA,
+
+	/** Una celda por semana, de lunes a domingo */
+	SEMANA,
+
+	/** Una celda por mes natural */
+	MES
+}
@@ -0,0 +1,26 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con un hueco en el que todos los usuarios consultados están libres.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HuecoLibreDto
+{
+    /**
+     * Inicio del hueco en milisegundos.
+     */
+    private long inicio;
+
+    /**
+     * Fin del hueco en milisegundos.
+     */
+    private long fin;
+}
@@ -0,0 +1,64 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con los datos de una búsqueda de huecos libres comunes a varios usuarios.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class HuecosLibresRequestDto
+{
+    /**
+     * Emails de los usuarios que tienen que estar libres.
+     */
+    private List<String> usuariosEmail;
+
+    /**
+     * Inicio del rango de búsqueda en milisegundos.
+     */
+    private Long desde;
+
+    /**
+     * Fin del rango de búsqueda en milisegundos.
+     */
+    private Long hasta;
+
+    /**
+     * Duración del hueco en minutos.
+     */
+    private Integer duracionMinutos;
+
+    /**
+     * Hora de inicio de la jornada (HH:mm). Por defecto 08:00.
+     */
+    private String horaInicio;
+
+    /**
+     * Hora de fin de la jornada (HH:mm). Por defecto 15:00.
+     */
+    private String horaFin;
+
+    /**
+     * Días laborables. Por defecto de lunes a viernes.
+     */
+    private List<DayOfWeek> dias;
+
+    /**
+     * Zona horaria del horario. Por defecto Europe/Madrid.
+     */
+    private String zona;
+
+    /**
+     * Número máximo de huecos devueltos. Por defecto 10.
+     */
+    private Integer maxResultados;
+}
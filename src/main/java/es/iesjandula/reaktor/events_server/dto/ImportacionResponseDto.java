@@ -0,0 +1,41 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO utilizado para informar al cliente del resultado de una importación de eventos.
+ *
+ * <p>Incluye los totales de la importación y la lista de errores por línea,
+ * que se recorta para no devolver respuestas enormes con ficheros muy erróneos.</p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacionResponseDto
+{
+    /**
+     * Número de líneas de datos leídas (sin contar la cabecera ni las líneas vacías).
+     */
+    private long lineasLeidas;
+
+    /**
+     * Número de eventos creados.
+     */
+    private long eventosCreados;
+
+    /**
+     * Número de líneas que no se han podido importar.
+     */
+    private long lineasConError;
+
+    /**
+     * Errores por línea (como mucho los primeros que se hayan encontrado).
+     */
+    private List<ErrorLineaImportacionDto> errores;
+}
@@ -0,0 +1,13 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+/**
+ * Modo en el que se tratan los eventos de una categoría cuando esta se elimina.
+ */
+public enum ModoBorradoCategoria
+{
+	/** Los eventos pasan a pertenecer a otra categoría existente */
+	REASIGNAR,
+
+	/** Los eventos se eliminan junto con la categoría */
+	ELIMINAR
+}
@@ -0,0 +1,36 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con el progreso de una operación masiva tras cada lote.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProgresoLoteDto
+{
+    /**
+     * Número del lote, empezando por 1.
+     */
+    private int lote;
+
+    /**
+     * Número de eventos tratados en el lote.
+     */
+    private int eventosLote;
+
+    /**
+     * Número de eventos tratados hasta este lote, incluido.
+     */
+    private long eventosProcesados;
+
+    /**
+     * Número de eventos que había que tratar al empezar.
+     */
+    private long totalEventos;
+}
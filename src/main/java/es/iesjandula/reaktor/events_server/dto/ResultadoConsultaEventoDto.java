@@ -0,0 +1,31 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con el resultado de una de las claves de una consulta múltiple de eventos.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoConsultaEventoDto
+{
+    /**
+     * Clave solicitada.
+     */
+    private EventoClaveDto clave;
+
+    /**
+     * Resultado de la búsqueda.
+     */
+    private EstadoConsultaEvento estado;
+
+    /**
+     * Evento encontrado (solo si el estado es ENCONTRADO).
+     */
+    private EventoResponseDto evento;
+}
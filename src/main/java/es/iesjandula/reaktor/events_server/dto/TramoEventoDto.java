@@ -0,0 +1,64 @@
+package es.iesjandula.reaktor.events_server.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * DTO con la parte de un evento que cae dentro de una celda del calendario.
+ * 
+ * <p>Los eventos que ocupan varias celdas aparecen en cada una de ellas con un tramo
+ * recortado a los límites de la celda.</p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TramoEventoDto
+{
+    /**
+     * Título del evento.
+     */
+    private String titulo;
+
+    /**
+     * Nombre de la categoría del evento.
+     */
+    private String nombre;
+
+    /**
+     * Email del usuario propietario del evento.
+     */
+    private String usuarioEmail;
+
+    /**
+     * Fecha de inicio del evento completo en milisegundos.
+     */
+    private long fechaInicio;
+
+    /**
+     * Fecha de fin del evento completo en milisegundos.
+     */
+    private long fechaFin;
+
+    /**
+     * Inicio del tramo dentro de la celda en milisegundos.
+     */
+    private long inicioTramo;
+
+    /**
+     * Fin del tramo dentro de la celda en milisegundos.
+     */
+    private long finTramo;
+
+    /**
+     * Indica si el evento empieza en una celda anterior.
+     */
+    private boolean continuaAntes;
+
+    /**
+     * Indica si el evento termina en una celda posterior.
+     */
+    private boolean continuaDespues;
+}
@@ -1,6 +1,6 @@
 package es.iesjandula.reaktor.events_server.models;
 
-import java.util.Date;
+import java.time.Instant;
 
 import es.iesjandula.reaktor.events_server.models.ids.EventoId;
 import jakarta.persistence.Column;
@@ -9,6 +9,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -41,7 +42,7 @@ public class Evento
      * Forma parte de la clave primaria compuesta.
      */
 	@Column
-    private Date fechaFin;
+    private Instant fechaFin;
 
     /**
      * Nombre del usuario.
@@ -62,4 +63,12 @@ public class Evento
     @ManyToOne
     @JoinColumn(name = "nombre")
     private Categoria categoria;
+
+    /**
+     * Versión del evento para el control de concurrencia optimista.
+     * Se incrementa con cada modificación.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
 }
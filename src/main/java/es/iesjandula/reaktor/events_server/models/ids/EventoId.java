@@ -2,7 +2,7 @@ package es.iesjandula.reaktor.events_server.models.ids;
 
 import java.io.Serializable;
 
-import java.util.Date;
+import java.time.Instant;
 
 import jakarta.persistence.Embeddable;
 import lombok.AllArgsConstructor;
@@ -39,7 +39,7 @@ public class EventoId implements Serializable
 	 * Fecha de inicio del evento.
 	 * Forma parte de la clave primaria compuesta.
 	 */
-	private Date fechaInicio;
+	private Instant fechaInicio;
 	
 	/**
 	 * Correo electrónico del usuario.
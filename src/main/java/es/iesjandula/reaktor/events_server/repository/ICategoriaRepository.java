@@ -2,11 +2,16 @@ package es.iesjandula.reaktor.events_server.repository;
 
 import java.util.List;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import es.iesjandula.reaktor.events_server.dto.CategoriaResponseDto;
 import es.iesjandula.reaktor.events_server.models.Categoria;
+import es.iesjandula.reaktor.events_server.utils.Constants;
 
 /**
  * Repositorio JPA para la entidad Categoria.
@@ -26,7 +31,21 @@ public interface ICategoriaRepository extends JpaRepository<Categoria, String>
     * 
     * @return Lista de CategoriaResponseDto con el nombre y color de cada categoría.
     */
+	@Cacheable(cacheNames = Constants.CACHE_CATEGORIAS, key = "'" + Constants.CACHE_CLAVE_TODOS + "'")
+	@Transactional(readOnly = true)
 	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.CategoriaResponseDto(c.nombre, c.color)" + 
 			"FROM Categoria c")
 	List<CategoriaResponseDto> buscarCategorias();
+	
+	/**
+	 * Elimina una categoría con una sentencia directa, sin cargar la entidad
+	 * ni su colección de eventos.
+	 * 
+	 * @param nombre Nombre de la categoría.
+	 * @return Número de categorías eliminadas.
+	 */
+	@Modifying
+	@Transactional
+	@Query("DELETE FROM Categoria c WHERE c.nombre = :nombre")
+	int eliminarCategoria(@Param("nombre") String nombre);
 }
@@ -1,14 +1,27 @@
 package es.iesjandula.reaktor.events_server.repository;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import es.iesjandula.reaktor.events_server.dto.EstadisticaEventosDto;
 import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
 import es.iesjandula.reaktor.events_server.models.Evento;
 import es.iesjandula.reaktor.events_server.models.ids.EventoId;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import jakarta.persistence.QueryHint;
 
 /**
  * Repositorio JPA para la entidad Evento.
@@ -27,11 +40,28 @@ public interface IEventoRepository extends JpaRepository<Evento, EventoId>
      * 
      * @return Lista de EventoResponseDto con los datos de cada evento.
      */
+	@Cacheable(cacheNames = Constants.CACHE_EVENTOS, key = "'" + Constants.CACHE_CLAVE_TODOS + "'")
+	@Transactional(readOnly = true)
 	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" + 
-			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos)" + 
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version)" + 
 			"FROM Evento e")
 	List<EventoResponseDto> buscarEventos();
-	
+
+	/**
+	 * Recupera todos los eventos de la base de datos actual ordenados por fecha de inicio.
+	 *
+	 * <p>No se cachea: con los eventos repartidos en fragmentos cada base de datos devuelve
+	 * una parte distinta del total y todas compartirían la misma clave de caché.</p>
+	 *
+	 * @return Lista de EventoResponseDto ordenada por fecha de inicio.
+	 */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" +
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version)" +
+			"FROM Evento e " +
+			"ORDER BY e.eventoId.fechaInicio")
+	List<EventoResponseDto> buscarEventosOrdenados();
+
 	   /**
      * Recupera todos los eventos asociados a un usuario específico
      * identificado por su correo electrónico y los transforma
@@ -41,11 +71,237 @@ public interface IEventoRepository extends JpaRepository<Evento, EventoId>
      * @param email Correo electrónico del usuario cuyos eventos se desean recuperar.
      * @return Lista de EventoResponseDto con los eventos del usuario.
      */
+	@Cacheable(cacheNames = Constants.CACHE_EVENTOS, key = "#p0")
+	@Transactional(readOnly = true)
 	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" + 
-			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos)" + 
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version)" + 
 			"FROM Evento e " + 
 			"WHERE e.eventoId.usuarioEmail = :email" )
 	List<EventoResponseDto> buscarEventosPorUsuario(@Param("email") String email);
 	
+    /**
+     * Recupera en una sola consulta los eventos cuyos campos de clave están en las listas
+     * indicadas. El resultado es un superconjunto de las claves pedidas (combina títulos,
+     * fechas y propietarios de claves distintas), así que hay que filtrarlo por clave exacta.
+     * 
+     * @param titulos Títulos de las claves.
+     * @param fechasInicio Fechas de inicio de las claves.
+     * @param emails Emails de los propietarios de las claves.
+     * @return Lista de EventoResponseDto candidatos.
+     */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" + 
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version) " + 
+			"FROM Evento e " + 
+			"WHERE e.eventoId.usuarioEmail IN :emails AND e.eventoId.fechaInicio IN :fechasInicio AND e.eventoId.titulo IN :titulos")
+	List<EventoResponseDto> buscarEventosPorClaves(@Param("titulos") Collection<String> titulos, @Param("fechasInicio") Collection<Instant> fechasInicio,
+												   @Param("emails") Collection<String> emails);
+	
+    /**
+     * Recupera los eventos que se solapan con un rango de fechas, opcionalmente de una
+     * categoría, ordenados por fecha de inicio.
+     * 
+     * @param desde Los eventos terminan en o después de esta fecha.
+     * @param hasta Los eventos empiezan antes de esta fecha.
+     * @param categoria Nombre de la categoría (opcional).
+     * @return Lista de EventoResponseDto con los eventos del rango.
+     */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" + 
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version) " + 
+			"FROM Evento e " + 
+			"WHERE e.eventoId.fechaInicio < :hasta AND e.fechaFin >= :desde " + 
+			"AND (:categoria IS NULL OR e.categoria.nombre = :categoria) " + 
+			"ORDER BY e.eventoId.fechaInicio")
+	List<EventoResponseDto> buscarEventosEnRango(@Param("desde") Instant desde, @Param("hasta") Instant hasta, @Param("categoria") String categoria);
+	
+    /**
+     * Recupera los eventos de varios usuarios que se solapan con un rango.
+     * Se resuelve por completo con el índice por propietario y fecha de inicio.
+     * 
+     * @param emails Emails de los usuarios.
+     * @param desde Los eventos terminan después de esta fecha.
+     * @param hasta Los eventos empiezan antes de esta fecha.
+     * @return Lista de EventoResponseDto con los eventos de los usuarios en el rango.
+     */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" + 
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version) " + 
+			"FROM Evento e " + 
+			"WHERE e.eventoId.usuarioEmail IN :emails AND e.eventoId.fechaInicio < :hasta AND e.fechaFin > :desde")
+	List<EventoResponseDto> buscarEventosDeUsuariosEnRango(@Param("emails") Collection<String> emails, @Param("desde") Instant desde, @Param("hasta") Instant hasta);
+	
+    /**
+     * Recupera una página de eventos en el orden de la clave primaria, a partir de la clave
+     * indicada (excluida). Permite recorrer todos los eventos por páginas sin OFFSET: cada
+     * página empieza donde terminó la anterior.
+     * 
+     * @param fechaInicio Fecha de inicio del último evento de la página anterior.
+     * @param titulo Título del último evento de la página anterior.
+     * @param usuarioEmail Email del último evento de la página anterior.
+     * @param pageable Tamaño de la página.
+     * @return Lista de EventoResponseDto de la página.
+     */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" + 
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version) " + 
+			"FROM Evento e " + 
+			"WHERE e.eventoId.fechaInicio > :fechaInicio " + 
+			"OR (e.eventoId.fechaInicio = :fechaInicio AND (e.eventoId.titulo > :titulo " + 
+			"OR (e.eventoId.titulo = :titulo AND e.eventoId.usuarioEmail > :usuarioEmail))) " + 
+			"ORDER BY e.eventoId.fechaInicio, e.eventoId.titulo, e.eventoId.usuarioEmail")
+	List<EventoResponseDto> buscarEventosDespuesDe(@Param("fechaInicio") Instant fechaInicio, @Param("titulo") String titulo,
+												   @Param("usuarioEmail") String usuarioEmail, Pageable pageable);
+	
+    /**
+     * Recorre con un cursor de solo avance los eventos que se solapan con un rango de fechas,
+     * opcionalmente de una categoría, ordenados por fecha de inicio.
+     * 
+     * <p>El tamaño de fetch Integer.MIN_VALUE hace que el driver de MySQL entregue las filas
+     * de una en una en lugar de cargar todo el resultado en memoria. El Stream debe
+     * consumirse y cerrarse dentro de una transacción.</p>
+     * 
+     * <p>Los eventos sin fecha de fin se incluyen si empiezan dentro del rango, para que la
+     * exportación no los pierda.</p>
+     * 
+     * @param desde Los eventos terminan en o después de esta fecha.
+     * @param hasta Los eventos empiezan antes de esta fecha.
+     * @param categoria Nombre de la categoría (opcional).
+     * @return Stream de EventoResponseDto con los eventos del rango.
+     */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+				  @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EventoResponseDto(" + 
+			"e.eventoId.titulo, e.eventoId.fechaInicio, e.fechaFin, e.categoria.nombre, e.eventoId.usuarioEmail, e.usuarioNombre, e.usuarioApellidos, e.version) " + 
+			"FROM Evento e " + 
+			"WHERE e.eventoId.fechaInicio < :hasta " + 
+			"AND (e.fechaFin >= :desde OR (e.fechaFin IS NULL AND e.eventoId.fechaInicio >= :desde)) " + 
+			"AND (:categoria IS NULL OR e.categoria.nombre = :categoria) " + 
+			"ORDER BY e.eventoId.fechaInicio")
+	Stream<EventoResponseDto> recorrerEventosEnRango(@Param("desde") Instant desde, @Param("hasta") Instant hasta, @Param("categoria") String categoria);
+	
+    /**
+     * Cuenta los eventos que pertenecen a una categoría sin cargarlos.
+     * 
+     * @param nombre Nombre de la categoría.
+     * @return Número de eventos de la categoría.
+     */
+	@Query("SELECT COUNT(e) FROM Evento e WHERE e.categoria.nombre = :nombre")
+	long contarEventosPorCategoria(@Param("nombre") String nombre);
+	
+    /**
+     * Cuenta los eventos de cada categoría.
+     * 
+     * @return Lista con el nombre de cada categoría y su número de eventos.
+     */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EstadisticaEventosDto(e.categoria.nombre, COUNT(e)) " + 
+			"FROM Evento e " + 
+			"GROUP BY e.categoria.nombre")
+	List<EstadisticaEventosDto> contarEventosAgrupadosPorCategoria();
+	
+    /**
+     * Cuenta los eventos de cada profesor.
+     * 
+     * @return Lista con el email de cada profesor y su número de eventos.
+     */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EstadisticaEventosDto(e.eventoId.usuarioEmail, COUNT(e)) " + 
+			"FROM Evento e " + 
+			"GROUP BY e.eventoId.usuarioEmail")
+	List<EstadisticaEventosDto> contarEventosAgrupadosPorUsuario();
+	
+    /**
+     * Cuenta los eventos que empiezan en cada mes.
+     * 
+     * @return Lista con cada mes (yyyy-MM) y su número de eventos.
+     */
+	@Transactional(readOnly = true)
+	@Query("SELECT new es.iesjandula.reaktor.events_server.dto.EstadisticaEventosDto(" + 
+			"YEAR(e.eventoId.fechaInicio), MONTH(e.eventoId.fechaInicio), COUNT(e)) " + 
+			"FROM Evento e " + 
+			"GROUP BY YEAR(e.eventoId.fechaInicio), MONTH(e.eventoId.fechaInicio)")
+	List<EstadisticaEventosDto> contarEventosAgrupadosPorMes();
+	
+    /**
+     * Reasigna a otra categoría, como mucho, un lote de eventos de la categoría origen.
+     * 
+     * <p>Se ejecuta como una única sentencia en su propia transacción, sin cargar
+     * los eventos en el contexto de persistencia.</p>
+     * 
+     * @param origen Nombre de la categoría origen.
+     * @param destino Nombre de la categoría destino.
+     * @param limite Número máximo de eventos a modificar.
+     * @return Número de eventos modificados.
+     */
+	@Modifying
+	@Transactional
+	@Query(value = "UPDATE evento SET nombre = :destino, version = version + 1 WHERE nombre = :origen LIMIT :limite", nativeQuery = true)
+	int reasignarCategoriaLote(@Param("origen") String origen, @Param("destino") String destino, @Param("limite") int limite);
+	
+    /**
+     * Modifica un evento, incluidos los campos de su clave, si su versión no ha cambiado.
+     * 
+     * <p>Se ejecuta como una única sentencia en su propia transacción, sin cargar el evento,
+     * e incrementa la versión. Si otro usuario lo ha modificado antes no se actualiza ninguna
+     * fila.</p>
+     * 
+     * @param titulo Título actual del evento.
+     * @param fechaInicio Fecha de inicio actual del evento.
+     * @param usuarioEmail Correo del propietario del evento.
+     * @param version Versión leída por el cliente.
+     * @param nuevoTitulo Nuevo título.
+     * @param nuevaFechaInicio Nueva fecha de inicio.
+     * @param nuevaFechaFin Nueva fecha de fin.
+     * @param categoria Nombre de la nueva categoría.
+     * @return Número de eventos modificados (0 o 1).
+     */
+	@Modifying(clearAutomatically = true)
+	@Transactional
+	@Query(value = "UPDATE evento " + 
+			"SET titulo = :nuevoTitulo, fecha_inicio = :nuevaFechaInicio, fecha_fin = :nuevaFechaFin, nombre = :categoria, version = version + 1 " + 
+			"WHERE titulo = :titulo AND fecha_inicio = :fechaInicio AND usuario_email = :usuarioEmail AND version = :version", nativeQuery = true)
+	int actualizarEvento(@Param("titulo") String titulo, @Param("fechaInicio") Instant fechaInicio, @Param("usuarioEmail") String usuarioEmail,
+						 @Param("version") long version, @Param("nuevoTitulo") String nuevoTitulo, @Param("nuevaFechaInicio") Instant nuevaFechaInicio,
+						 @Param("nuevaFechaFin") Instant nuevaFechaFin, @Param("categoria") String categoria);
+	
+    /**
+     * Elimina, como mucho, un lote de eventos de una categoría.
+     * 
+     * <p>Se ejecuta como una única sentencia en su propia transacción, sin cargar
+     * los eventos en el contexto de persistencia.</p>
+     * 
+     * @param nombre Nombre de la categoría.
+     * @param limite Número máximo de eventos a eliminar.
+     * @return Número de eventos eliminados.
+     */
+	@Modifying
+	@Transactional
+	@Query(value = "DELETE FROM evento WHERE nombre = :nombre LIMIT :limite", nativeQuery = true)
+	int eliminarPorCategoriaLote(@Param("nombre") String nombre, @Param("limite") int limite);
+	
+    /**
+     * Elimina, como mucho, un lote de eventos que cumplen los filtros indicados.
+     * 
+     * <p>Los filtros de propietario y categoría se ignoran cuando son nulos. Se ejecuta como
+     * una única sentencia en su propia transacción, sin cargar los eventos.</p>
+     * 
+     * @param email Correo del propietario de los eventos (opcional).
+     * @param categoria Nombre de la categoría de los eventos (opcional).
+     * @param desde Fecha a partir de la cual empiezan los eventos (incluida).
+     * @param hasta Fecha antes de la cual empiezan los eventos (excluida).
+     * @param limite Número máximo de eventos a eliminar.
+     * @return Número de eventos eliminados.
+     */
+	@Modifying
+	@Transactional
+	@Query(value = "DELETE FROM evento " + 
+			"WHERE (:email IS NULL OR usuario_email = :email) " + 
+			"AND (:categoria IS NULL OR nombre = :categoria) " + 
+			"AND fecha_inicio >= :desde AND fecha_inicio < :hasta " + 
+			"LIMIT :limite", nativeQuery = true)
+	int eliminarEventosLote(@Param("email") String email, @Param("categoria") String categoria,
+							@Param("desde") Instant desde, @Param("hasta") Instant hasta, @Param("limite") int limite);
+	
 }
 
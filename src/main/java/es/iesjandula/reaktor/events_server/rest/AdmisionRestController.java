@@ -0,0 +1,55 @@
+package es.iesjandula.reaktor.events_server.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.services.CalentamientoService;
+import es.iesjandula.reaktor.events_server.services.ControlAdmisionService;
+
+/**
+ * Controlador REST con los contadores del control de admisión.
+ *
+ * <p>Permite consultar cuántas peticiones se han admitido y rechazado para ajustar los límites,
+ * y si la instancia ha terminado el calentamiento y está lista para recibir tráfico.</p>
+ */
+@RequestMapping("/events/admision")
+@RestController
+public class AdmisionRestController
+{
+	@Autowired
+	private ControlAdmisionService controlAdmisionService ;
+
+	@Autowired
+	private CalentamientoService calentamientoService ;
+
+    /**
+     * Endpoint para obtener los contadores de admisión y los límites configurados.
+     *
+     * @return ResponseEntity con los contadores
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_ADMINISTRADOR + "')")
+    @GetMapping(value = "/")
+    public ResponseEntity<?> obtenerContadores()
+    {
+		return ResponseEntity.ok(this.controlAdmisionService.obtenerContadores()) ;
+    }
+
+    /**
+     * Endpoint de disponibilidad para el balanceador: responde 200 cuando la instancia ha
+     * terminado el calentamiento y 503 mientras tanto.
+     *
+     * @return ResponseEntity con el estado del calentamiento
+     */
+    @GetMapping(value = "/listo")
+    public ResponseEntity<?> obtenerDisponibilidad()
+    {
+		HttpStatus estado = this.calentamientoService.isListo() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE ;
+		return ResponseEntity.status(estado).body(this.calentamientoService.obtenerContadores()) ;
+    }
+}
@@ -5,21 +5,31 @@ import java.util.List;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
 import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.dto.CategoriaBorradoResponseDto;
 import es.iesjandula.reaktor.events_server.dto.CategoriaRequestDto;
 import es.iesjandula.reaktor.events_server.dto.CategoriaResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ModoBorradoCategoria;
 import es.iesjandula.reaktor.events_server.models.Categoria;
 import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.services.CacheInvalidacionService;
+import es.iesjandula.reaktor.events_server.services.CategoriaBorradoService;
+import es.iesjandula.reaktor.events_server.services.FragmentosEventos;
 import es.iesjandula.reaktor.events_server.utils.EventsServerException;
 import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.MaximoSentencias;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -35,11 +45,24 @@ public class CategoriaRestController
 {
 	@Autowired
 	private ICategoriaRepository categoriaRepository;
+	
+	@Autowired
+	private IEventoRepository eventoRepository;
+	
+	@Autowired
+	private CategoriaBorradoService categoriaBorradoService;
+	
+	@Autowired
+	private CacheInvalidacionService cacheInvalidacionService;
+	
+	@Autowired
+	private FragmentosEventos fragmentosEventos;
 
     /**
      * Crea una nueva categoría o intenta modificar una existente.
      *
      * <p>Verifica que el nombre no sea nulo o vacío y que la categoría no exista previamente.
+     * Con fragmentos, si una creación anterior falló a medias, repetirla la crea en los que falta.
      * Si ocurre algún error de validación, se devuelve un ResponseEntity con código 400.
      * Para errores del servidor se devuelve código 500.</p>
      *
@@ -48,90 +71,83 @@ public class CategoriaRestController
      */
     @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
 	@PostMapping(value = "/", consumes = "application/json")
-	public ResponseEntity<?> crearCategoria(@RequestBody CategoriaRequestDto categoriaRequestDto)
+	public ResponseEntity<?> crearCategoria(@RequestBody CategoriaRequestDto categoriaRequestDto) throws EventsServerException
 	{
-		try
+		//Comprueba que el nombre de la categoría no sea nulo ni esté vacío antes de continuar
+		if (categoriaRequestDto.getNombre() == null || categoriaRequestDto.getNombre().isEmpty())
 		{
-			//Comprueba que el nombre de la categoría no sea nulo ni esté vacío antes de continuar
-			if (categoriaRequestDto.getNombre() == null || categoriaRequestDto.getNombre().isEmpty())
-			{
-				log.error(Constants.ERR_CATEGORIA_NOMBRE_NULO_VACIO);
-				throw new EventsServerException(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NOMBRE_NULO_VACIO);
-			}
-			
-			//Comprueba si ya existe una categoría con el mismo nombre en la base de datos
-			if (this.categoriaRepository.existsById(categoriaRequestDto.getNombre()))
-			{
-				log.error(Constants.ERR_CATEGORIA_EXISTE);
-				throw new EventsServerException(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_EXISTE);
-			}
-
-			Categoria categoria = new Categoria();
-			categoria.setNombre(categoriaRequestDto.getNombre());
-			categoria.setColor(categoriaRequestDto.getColor());
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NOMBRE_NULO_VACIO);
+		}
 
-			this.categoriaRepository.saveAndFlush(categoria);
-			log.info(Constants.ELEMENTO_AGREGADO);
-			return ResponseEntity.ok().build();
-		} 
-		catch (EventsServerException exception)
+		//Comprueba si ya existe una categoría con el mismo nombre en la base de datos (en todos los fragmentos)
+		if (!this.fragmentosEventos.enTodos(() -> this.categoriaRepository.existsById(categoriaRequestDto.getNombre())).contains(false))
 		{
-			return ResponseEntity.badRequest().body(exception.getBodyExceptionMessage());
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_EXISTE);
 		}
-   	 	catch (Exception exception)
-        {
-    		EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR);
-    		log.error("Error genérico al crear categoría", exception);
-            return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage());
-    		
-        }
+
+		Categoria categoria = new Categoria();
+		categoria.setNombre(categoriaRequestDto.getNombre());
+		categoria.setColor(categoriaRequestDto.getColor());
+
+		//Con los eventos repartidos en fragmentos, cada fragmento guarda su copia de las categorías.
+		//Si una creación anterior falló a medias, se crea solo en los fragmentos que no la tienen
+		this.fragmentosEventos.enTodos(() -> this.categoriaRepository.existsById(categoria.getNombre()) ? null : this.categoriaRepository.saveAndFlush(categoria));
+		this.cacheInvalidacionService.invalidarCategoria(categoria.getNombre());
+		log.info(Constants.ELEMENTO_AGREGADO);
+		return ResponseEntity.ok().build();
 	}
 
     
     /**
      * Elimina una categoría existente por su nombre.
      *
-     * <p>Si la categoría no existe, devuelve un error 400. En caso de errores del servidor,
-     * devuelve código 500.</p>
+     * <p>Si la categoría tiene eventos es obligatorio indicar el modo de borrado:
+     * reasignarlos a otra categoría o eliminarlos. En ambos casos solo puede hacerlo un
+     * administrador y los eventos se procesan por lotes con sentencias masivas. La respuesta
+     * incluye el progreso tras cada lote.</p>
+     *
+     * <p>Si la categoría no existe, devuelve un error 400. Si se crean eventos en ella
+     * mientras se elimina, devuelve 409 y basta con repetir la operación. Con fragmentos,
+     * repetir un borrado que falló a medias lo termina en los que falta. En caso de errores
+     * del servidor, devuelve código 500.</p>
      *
+     * @param usuario Usuario autenticado.
      * @param nombre Nombre de la categoría a eliminar.
-     * @return ResponseEntity indicando éxito o error de la operación.
+     * @param modo Modo a aplicar a los eventos de la categoría (obligatorio si tiene eventos).
+     * @param categoriaDestino Categoría a la que se reasignan los eventos en modo REASIGNAR.
+     * @return ResponseEntity con el resumen de la operación o el error producido.
      */
     @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
 	@DeleteMapping(value = "/{nombre}")
-	public ResponseEntity<?> eliminarCategoria(@PathVariable String nombre)
+	public ResponseEntity<?> eliminarCategoria(@AuthenticationPrincipal DtoUsuarioExtended usuario,
+											   @PathVariable String nombre,
+											   @RequestParam(required = false) ModoBorradoCategoria modo,
+											   @RequestParam(required = false) String categoriaDestino) throws EventsServerException
 	{
-		try
+		//Comprueba que el nombre de la categoría no sea nulo ni esté vacío antes de continuar
+		if (nombre == null || nombre.isEmpty())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NOMBRE_NULO_VACIO);
+		}
+
+		//Comprueba si la categoría a eliminar NO existe en ningún fragmento (un borrado que falló a medias la deja en algunos)
+		if (!this.fragmentosEventos.enTodos(() -> this.categoriaRepository.existsById(nombre)).contains(true))
 		{
-			//Comprueba que el nombre de la categoría no sea nulo ni esté vacío antes de continuar
-			if (nombre == null || nombre.isEmpty())
-			{
-				log.error(Constants.ERR_CATEGORIA_NOMBRE_NULO_VACIO);
-				throw new EventsServerException(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NOMBRE_NULO_VACIO);
-			}
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NO_EXISTE);
+		}
 
-			//Comprueba si la categoría a eliminar NO existe en la base de datos
-			if (!this.categoriaRepository.existsById(nombre))
-			{
-				log.error(Constants.ERR_CATEGORIA_NO_EXISTE);
-				throw new EventsServerException(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NO_EXISTE);
-			}
+		long totalEventos = this.fragmentosEventos.enTodos(() -> this.eventoRepository.contarEventosPorCategoria(nombre)).stream().mapToLong(Long::longValue).sum();
 
-			this.categoriaRepository.deleteById(nombre);
-			log.info(Constants.ELEMENTO_ELIMINADO);
-			return ResponseEntity.ok().build();
-		} 
-		catch (EventsServerException exception)
+		//Si la categoría tiene eventos, valida el modo de borrado y los permisos
+		if (totalEventos > 0)
 		{
-			return ResponseEntity.badRequest().body(exception.getBodyExceptionMessage());
+			this.validarBorradoConEventos(usuario, nombre, modo, categoriaDestino);
 		}
-   	 	catch (Exception exception)
-        {
-    		EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR);
-    		log.error("Error genérico al eliminar categoria", exception);
-            return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage());
-    		
-        }
+
+		CategoriaBorradoResponseDto resultado = this.categoriaBorradoService.eliminar(nombre, totalEventos > 0 ? modo : null, categoriaDestino, totalEventos);
+		this.cacheInvalidacionService.invalidarCategoria(nombre);
+		log.info(Constants.ELEMENTO_ELIMINADO);
+		return ResponseEntity.ok(resultado);
 	}
 
     /**
@@ -144,18 +160,40 @@ public class CategoriaRestController
      */
     @PreAuthorize("hasRole('" + BaseConstants.ROLE_PROFESOR + "')")
 	@GetMapping(value = "/")
+	@MaximoSentencias(1)
 	public ResponseEntity<?> obtenerCategorias()
 	{
-    	try 
-    	{
 		List<CategoriaResponseDto> categorias = this.categoriaRepository.buscarCategorias();
 		return ResponseEntity.ok(categorias);
-		} 
-   	 	catch (Exception exception)
-        {
-    		EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR);
-    		log.error("Error genérico al obtener categorías", exception);
-            return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage());	
-        }
 	} 
+    
+    /**
+     * Valida el borrado de una categoría que tiene eventos asociados.
+     *
+     * @param usuario Usuario autenticado.
+     * @param nombre Nombre de la categoría a eliminar.
+     * @param modo Modo de borrado indicado.
+     * @param categoriaDestino Categoría destino indicada.
+     * @throws EventsServerException si falta el modo, el usuario no es administrador o el destino no es válido.
+     */
+    private void validarBorradoConEventos(DtoUsuarioExtended usuario, String nombre, ModoBorradoCategoria modo, String categoriaDestino) throws EventsServerException
+    {
+    	//Sin modo no se sabe qué hacer con los eventos
+		if (modo == null)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CON_EVENTOS_CODE, Constants.ERR_CATEGORIA_CON_EVENTOS);
+		}
+		
+		//Reasignar o eliminar eventos de otros usuarios solo lo puede hacer un administrador
+		if (!usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR))
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_CODE, Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC);
+		}
+		
+		//La categoría destino debe existir y ser distinta de la eliminada
+		if (modo == ModoBorradoCategoria.REASIGNAR && (categoriaDestino == null || categoriaDestino.equals(nombre) || !this.categoriaRepository.existsById(categoriaDestino)))
+		{
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_DESTINO_INVALIDA_CODE, Constants.ERR_CATEGORIA_DESTINO_INVALIDA);
+		}
+    }
 }
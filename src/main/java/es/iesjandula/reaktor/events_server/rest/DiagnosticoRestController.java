@@ -0,0 +1,51 @@
+package es.iesjandula.reaktor.events_server.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.services.DiagnosticoHibernateService;
+
+/**
+ * Controlador REST de diagnóstico del acceso a base de datos.
+ *
+ * <p>Expone por endpoint las sentencias SQL, entidades cargadas y flushes por petición,
+ * y las estadísticas globales de Hibernate.</p>
+ */
+@RequestMapping("/events/diagnostico")
+@RestController
+public class DiagnosticoRestController
+{
+	@Autowired
+	private DiagnosticoHibernateService diagnosticoHibernateService ;
+
+    /**
+     * Endpoint para obtener el resumen de diagnóstico.
+     *
+     * @return ResponseEntity con los acumulados por endpoint y las estadísticas de Hibernate
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_ADMINISTRADOR + "')")
+    @GetMapping(value = "/")
+    public ResponseEntity<?> obtenerDiagnostico()
+    {
+		return ResponseEntity.ok(this.diagnosticoHibernateService.obtenerResumen()) ;
+    }
+
+    /**
+     * Endpoint para vaciar los acumulados de diagnóstico.
+     *
+     * @return ResponseEntity vacío si se han vaciado correctamente
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_ADMINISTRADOR + "')")
+    @PostMapping(value = "/reiniciar")
+    public ResponseEntity<?> reiniciarDiagnostico()
+    {
+		this.diagnosticoHibernateService.reiniciar() ;
+		return ResponseEntity.ok().build() ;
+    }
+}
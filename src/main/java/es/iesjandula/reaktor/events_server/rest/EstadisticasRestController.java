@@ -0,0 +1,94 @@
+package es.iesjandula.reaktor.events_server.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.services.EstadisticasEventosService;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import es.iesjandula.reaktor.events_server.utils.MaximoSentencias;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Controlador REST con las estadísticas de eventos para los paneles de dirección.
+ *
+ * <p>Las lecturas se sirven desde los contadores en memoria, sin recorrer la tabla de eventos.</p>
+ */
+@Slf4j
+@RequestMapping("/events/stats")
+@RestController
+public class EstadisticasRestController
+{
+	@Autowired
+	private EstadisticasEventosService estadisticasEventosService ;
+
+    /**
+     * Endpoint para obtener todos los contadores de eventos por categoría, profesor y mes.
+     *
+     * @return ResponseEntity con los contadores
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_ADMINISTRADOR + "', '" + BaseConstants.ROLE_DIRECCION + "')")
+    @GetMapping(value = "/")
+    @MaximoSentencias(0)
+    public ResponseEntity<?> obtenerEstadisticas()
+    {
+		return ResponseEntity.ok(this.estadisticasEventosService.obtenerTodas()) ;
+    }
+
+    /**
+     * Endpoint para obtener un único contador: el de una categoría, un profesor o un mes.
+     *
+     * @param categoria Nombre de la categoría
+     * @param profesor Email del profesor
+     * @param mes Mes en formato yyyy-MM
+     * @return ResponseEntity con el número de eventos del contador pedido
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_ADMINISTRADOR + "', '" + BaseConstants.ROLE_DIRECCION + "')")
+    @GetMapping(value = "/contador")
+    @MaximoSentencias(0)
+    public ResponseEntity<?> obtenerContador(@RequestParam(required = false) String categoria,
+    										 @RequestParam(required = false) String profesor,
+    										 @RequestParam(required = false) String mes) throws EventsServerException
+    {
+		long total ;
+		if (categoria != null)
+		{
+			total = this.estadisticasEventosService.contarPorCategoria(categoria) ;
+		}
+		else if (profesor != null)
+		{
+			total = this.estadisticasEventosService.contarPorProfesor(profesor) ;
+		}
+		else if (mes != null)
+		{
+			total = this.estadisticasEventosService.contarPorMes(mes) ;
+		}
+		else
+		{
+			throw EventsServerException.preasignada(Constants.ERR_ESTADISTICAS_CONTADOR_CODE, Constants.ERR_ESTADISTICAS_CONTADOR) ;
+		}
+
+		return ResponseEntity.ok(total) ;
+    }
+
+    /**
+     * Endpoint para reconstruir desde cero los contadores a partir de la base de datos.
+     *
+     * @return ResponseEntity con los contadores reconstruidos
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_ADMINISTRADOR + "')")
+    @PostMapping(value = "/reconstruir")
+    public ResponseEntity<?> reconstruirEstadisticas()
+    {
+		this.estadisticasEventosService.reconstruir() ;
+		log.info(Constants.ELEMENTO_MODIFICADO) ;
+		return ResponseEntity.ok(this.estadisticasEventosService.obtenerTodas()) ;
+    }
+}
@@ -0,0 +1,77 @@
+package es.iesjandula.reaktor.events_server.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.dto.CategoriaResponseDto;
+import es.iesjandula.reaktor.events_server.dto.EventoClaveDto;
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ResultadoConsultaEventoDto;
+import es.iesjandula.reaktor.events_server.services.LecturaReactivaEventosService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Controlador REST de lectura de eventos y categorías como flujos reactivos.
+ *
+ * <p>Las consultas no ocupan el hilo de la petición. Con "Accept: application/x-ndjson" los
+ * eventos se envían uno por línea según se leen y la siguiente página solo se consulta
+ * cuando el cliente ha recibido la anterior; con "application/json" se devuelve la lista
+ * completa.</p>
+ */
+@RequestMapping("/events/reactive")
+@RestController
+public class EventoReactivoRestController
+{
+    // Servicio de lectura reactiva
+    @Autowired
+    private LecturaReactivaEventosService lecturaReactivaEventosService ;
+
+    /**
+     * Endpoint para obtener los eventos visibles para el usuario como flujo.
+     *
+     * @param usuario Usuario autenticado
+     * @return Flux con los eventos: todos para administración y los propios para el resto
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @GetMapping(value = "/eventos", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<EventoResponseDto> obtenerEventos(@AuthenticationPrincipal DtoUsuarioExtended usuario)
+    {
+    	return this.lecturaReactivaEventosService.listarEventos(usuario) ;
+    }
+
+    /**
+     * Endpoint para obtener un evento por su clave.
+     *
+     * @param clave Clave del evento; si no se indica el email se usa el del usuario
+     * @param usuario Usuario autenticado
+     * @return Mono con el resultado de la búsqueda y su estado
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @PostMapping(value = "/evento", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResultadoConsultaEventoDto> obtenerEvento(@RequestBody EventoClaveDto clave, @AuthenticationPrincipal DtoUsuarioExtended usuario)
+    {
+    	return this.lecturaReactivaEventosService.obtenerEvento(clave, usuario) ;
+    }
+
+    /**
+     * Endpoint para obtener las categorías como flujo.
+     *
+     * @return Flux con las categorías
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @GetMapping(value = "/categorias", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<CategoriaResponseDto> obtenerCategorias()
+    {
+    	return this.lecturaReactivaEventosService.listarCategorias() ;
+    }
+}
@@ -1,32 +1,66 @@
 package es.iesjandula.reaktor.events_server.rest;
 
-import java.util.Date;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
 import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.dto.BorradoMasivoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.CalendarioResponseDto;
+import es.iesjandula.reaktor.events_server.dto.EventoClaveDto;
 import es.iesjandula.reaktor.events_server.dto.EventoRequestDto;
 import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.GranularidadCalendario;
+import es.iesjandula.reaktor.events_server.dto.HuecoLibreDto;
+import es.iesjandula.reaktor.events_server.dto.HuecosLibresRequestDto;
+import es.iesjandula.reaktor.events_server.dto.ImportacionResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ResultadoConsultaEventoDto;
 import es.iesjandula.reaktor.events_server.models.Categoria;
 import es.iesjandula.reaktor.events_server.models.Evento;
 import es.iesjandula.reaktor.events_server.models.ids.EventoId;
 import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
 import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.services.CalendarioEventosService;
+import es.iesjandula.reaktor.events_server.services.EventoActualizacionService;
+import es.iesjandula.reaktor.events_server.services.EventoBorradoMasivoService;
+import es.iesjandula.reaktor.events_server.services.EventoCambioNotificacion;
+import es.iesjandula.reaktor.events_server.services.EventoConsultaMultipleService;
+import es.iesjandula.reaktor.events_server.services.EventoExportacionService;
+import es.iesjandula.reaktor.events_server.services.EventoImportacionService;
+import es.iesjandula.reaktor.events_server.services.HuecosLibresService;
+import es.iesjandula.reaktor.events_server.services.IndiceTitulosEventos;
+import es.iesjandula.reaktor.events_server.services.LecturaEventosService;
+import es.iesjandula.reaktor.events_server.services.LecturasCoalescidasService;
 import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventoValidador;
 import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import es.iesjandula.reaktor.events_server.utils.FragmentoPropietario;
+import es.iesjandula.reaktor.events_server.utils.LecturaCoalescida;
+import es.iesjandula.reaktor.events_server.utils.MaximoSentencias;
+import es.iesjandula.reaktor.events_server.utils.MedicionSentencias;
+import es.iesjandula.reaktor.events_server.utils.config.MonitorSentenciasHibernate;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -40,6 +74,10 @@ import lombok.extern.slf4j.Slf4j;
 @RestController
 public class EventoRestController
 {
+	//Prefijos de las claves de coalescencia de los listados
+	private static final String CLAVE_COALESCENCIA_EVENTOS = "eventos:" ;
+	private static final String CLAVE_COALESCENCIA_EVENTOS_USUARIO = "eventosUsuario:" ;
+	
 	//Repositorio para manejar la entidad Evento
     @Autowired
     private IEventoRepository eventoRepository ;
@@ -48,6 +86,50 @@ public class EventoRestController
     @Autowired
     private ICategoriaRepository categoriaRepository ;
     
+    //Índice en memoria de los títulos de los eventos
+    @Autowired
+    private IndiceTitulosEventos indiceTitulosEventos ;
+    
+    //Servicio de borrado masivo de eventos
+    @Autowired
+    private EventoBorradoMasivoService eventoBorradoMasivoService ;
+    
+    //Servicio de importación de eventos desde CSV
+    @Autowired
+    private EventoImportacionService eventoImportacionService ;
+    
+    //Servicio de exportación de eventos a CSV
+    @Autowired
+    private EventoExportacionService eventoExportacionService ;
+    
+    //Servicio de la vista de calendario por días, semanas o meses
+    @Autowired
+    private CalendarioEventosService calendarioEventosService ;
+    
+    //Servicio de consulta de varios eventos por clave
+    @Autowired
+    private EventoConsultaMultipleService eventoConsultaMultipleService ;
+    
+    //Servicio de búsqueda de huecos libres comunes
+    @Autowired
+    private HuecosLibresService huecosLibresService ;
+    
+    //Servicio de modificación de eventos con control de versión
+    @Autowired
+    private EventoActualizacionService eventoActualizacionService ;
+    
+    //Servicio que agrupa las lecturas simultáneas idénticas
+    @Autowired
+    private LecturasCoalescidasService lecturasCoalescidasService ;
+    
+    //Lecturas de eventos desde el almacén en memoria o desde la base de datos
+    @Autowired
+    private LecturaEventosService lecturaEventosService ;
+    
+    //Publicador de las notificaciones de cambios en los eventos
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher ;
+    
     /**
      * Endpoint para crear un nuevo evento.
      * 
@@ -60,60 +142,97 @@ public class EventoRestController
      */
     @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
     @PostMapping(value = "/", consumes = "application/json")
-    public ResponseEntity<?> crearEvento(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestBody EventoRequestDto eventoRequestDto)
+    @MaximoSentencias(5)
+    @FragmentoPropietario
+    public ResponseEntity<?> crearEvento(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestBody EventoRequestDto eventoRequestDto) throws EventsServerException
     {
-        try
-        {
-        	// Validamos los datos de entrada
-            validarCrearEvento( eventoRequestDto.getTitulo(), eventoRequestDto.getFechaInicio(), eventoRequestDto.getFechaFin(), eventoRequestDto.getNombre()) ;
-        
-            // Hacemos la conversión de Long a Date para su registro.
-        	Date fechaInicio = this.toDate(eventoRequestDto.getFechaInicio()) ;
-            Date fechaFin = this.toDate(eventoRequestDto.getFechaFin()) ;
-            
-            
-            //Recogemos los atributos principales del Evento
-            EventoId eventoId = new EventoId(eventoRequestDto.getTitulo(), fechaInicio, usuario.getEmail()) ;
-
-            // Comprobamos si ya existe un evento con el mismo ID compuesto en la base de datos
-            if (this.eventoRepository.existsById(eventoId))
-            {
-                log.error(Constants.ERR_EVENTO_EXISTE) ;
-                throw new EventsServerException(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_EXISTE) ;
-            }
-           
-            Optional<Categoria> categoriaOpt = this.categoriaRepository.findById(eventoRequestDto.getNombre()) ;
-
-            // Comprobamos si la categoría asociada al evento existe en la base de datos
-            if (!categoriaOpt.isPresent())
-            {
-                log.error(Constants.ERR_CATEGORIA_NO_EXISTE);
-                throw new EventsServerException(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NO_EXISTE) ;
-            }
-
-            Evento evento = new Evento() ;
-            evento.setEventoId(eventoId) ;
-            evento.setCategoria(categoriaOpt.get()) ;
-            evento.setUsuarioNombre(usuario.getNombre());
-            evento.setUsuarioApellidos(usuario.getApellidos());
-            evento.setFechaFin(fechaFin);
-
-            this.eventoRepository.saveAndFlush(evento) ;
-            log.info(Constants.ELEMENTO_AGREGADO) ;
-            return ResponseEntity.ok().build() ;
-        }
-        catch (EventsServerException exception)
+    	// Validamos los datos de entrada
+        EventoValidador.validarCrearEvento( eventoRequestDto.getTitulo(), eventoRequestDto.getFechaInicio(), eventoRequestDto.getFechaFin(), eventoRequestDto.getNombre()) ;
+
+        // Hacemos la conversión de Long a Instant para su registro.
+    	Instant fechaInicio = this.toInstant(eventoRequestDto.getFechaInicio()) ;
+        Instant fechaFin = this.toInstant(eventoRequestDto.getFechaFin()) ;
+
+
+        //Recogemos los atributos principales del Evento
+        EventoId eventoId = new EventoId(eventoRequestDto.getTitulo(), fechaInicio, usuario.getEmail()) ;
+
+        // Comprobamos si ya existe un evento con el mismo ID compuesto en la base de datos
+        if (this.eventoRepository.existsById(eventoId))
         {
-            return ResponseEntity.badRequest().body(exception.getBodyExceptionMessage()) ;
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_EXISTE) ;
         }
-   	 	catch (Exception exception)
+
+        Optional<Categoria> categoriaOpt = this.categoriaRepository.findById(eventoRequestDto.getNombre()) ;
+
+        // Comprobamos si la categoría asociada al evento existe en la base de datos
+        if (!categoriaOpt.isPresent())
         {
-   	 		
-    		EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR, exception) ;
-    		log.error("Error genérico al crear evento", exception);
-            return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage()) ;
-    		
+            throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NO_EXISTE) ;
         }
+
+        Evento evento = new Evento() ;
+        evento.setEventoId(eventoId) ;
+        evento.setCategoria(categoriaOpt.get()) ;
+        evento.setUsuarioNombre(usuario.getNombre());
+        evento.setUsuarioApellidos(usuario.getApellidos());
+        evento.setFechaFin(fechaFin);
+
+        this.eventoRepository.saveAndFlush(evento) ;
+        this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.creado(this.toResponseDto(evento))) ;
+        log.info(Constants.ELEMENTO_AGREGADO) ;
+        return ResponseEntity.ok().build() ;
+    }
+
+    /**
+     * Endpoint para importar eventos desde un fichero CSV.
+     * 
+     * <p>Los eventos se crean a nombre del usuario autenticado. Las líneas con errores no
+     * detienen la importación: se informan en la respuesta junto a su número de línea.</p>
+     * 
+     * @param usuario Usuario autenticado
+     * @param fichero Fichero CSV con cabecera titulo, categoria, fechaInicio y fechaFin
+     * @return ResponseEntity con el resumen de la importación
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @PostMapping(value = "/importar", consumes = "multipart/form-data")
+    @FragmentoPropietario
+    public ResponseEntity<?> importarEventos(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestParam MultipartFile fichero) throws IOException, EventsServerException
+    {
+    	ImportacionResponseDto resultado = this.eventoImportacionService.importar(fichero.getInputStream(), usuario) ;
+
+    	log.info(Constants.ELEMENTO_AGREGADO) ;
+    	return ResponseEntity.ok(resultado) ;
+    }
+
+    /**
+     * Endpoint para modificar un evento, incluidos su título y sus fechas.
+     * 
+     * <p>Los campos que no llegan en el cuerpo conservan su valor. El cuerpo debe incluir la
+     * versión del evento que se ha leído: si otro usuario lo ha modificado después, se
+     * responde 409 y no se aplica el cambio.</p>
+     * 
+     * @param usuario Usuario autenticado
+     * @param titulo Título actual del evento
+     * @param fechaInicio Fecha de inicio actual en milisegundos
+     * @param usuarioEmail Propietario del evento (opcional; por defecto, el usuario autenticado)
+     * @param eventoRequestDto DTO con los nuevos valores y la versión leída
+     * @return ResponseEntity con el evento modificado y su nueva versión
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @PatchMapping(value = "/", consumes = "application/json")
+    @MaximoSentencias(4)
+    @FragmentoPropietario(propietarioEnPeticion = true)
+    public ResponseEntity<?> actualizarEvento(@AuthenticationPrincipal DtoUsuarioExtended usuario,
+    										  @RequestHeader String titulo,
+    										  @RequestHeader Long fechaInicio,
+    										  @RequestHeader(required = false) String usuarioEmail,
+    										  @RequestBody EventoRequestDto eventoRequestDto) throws EventsServerException
+    {
+    	EventoResponseDto eventoResponseDto = this.eventoActualizacionService.actualizar(titulo, fechaInicio, usuarioEmail, eventoRequestDto, usuario) ;
+
+    	log.info(Constants.ELEMENTO_MODIFICADO) ;
+    	return ResponseEntity.ok(eventoResponseDto) ;
     }
 
     /**
@@ -125,83 +244,136 @@ public class EventoRestController
      */
     @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
     @DeleteMapping(value="/")
-    public ResponseEntity<?> eliminarEvento(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestHeader String titulo, @RequestHeader Long fechaInicio)
+    @FragmentoPropietario
+    public ResponseEntity<?> eliminarEvento(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestHeader String titulo, @RequestHeader Long fechaInicio) throws EventsServerException
     {
-        try
+    	// Validamos el título
+    	if (titulo == null || titulo.isEmpty())
         {
-        	// Validamos el título
-        	if (titulo == null || titulo.isEmpty())
-            {
-                log.error(Constants.ERR_EVENTO_TITULO_NULO_VACIO);
-                throw new EventsServerException( Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
-            }
-        	
-        	// Hacemos la conversión de Long a Date para su registro.
-        	Date fechaInicioDate = this.toDate(fechaInicio) ;
-            
-            // Montamos el evento 
-            EventoId eventoId = new EventoId(titulo, fechaInicioDate, usuario.getEmail()) ;
-            
-            //Buscar evento
-            Optional<Evento> optionalEvento = eventoRepository.findById(eventoId);
-            // Comprobamos si el evento que se desea eliminar NO existe en la base de datos
-            if (!optionalEvento.isPresent())
-            {
-                log.error(Constants.ERR_EVENTO_NO_EXISTE);
-                throw new EventsServerException(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_NO_EXISTE);
-            }
-            Evento evento = optionalEvento.get();
-
-            // Control de permisos
-            // ADMIN puede borrar cualquier evento
-            // PROFESOR solo los suyos
-            if (!usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR)
-                    && !usuario.getEmail().equals(evento.getEventoId().getUsuarioEmail()))
-            {
-                log.error(Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC);
-                throw new EventsServerException( Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_CODE, Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC) ;
-            }
-
-            //Eliminar evento
-            eventoRepository.delete(evento);
-
-            log.info(Constants.ELEMENTO_ELIMINADO, eventoId);
-            return ResponseEntity.ok().build() ;
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
         }
-        catch (EventsServerException exception)
+
+    	// Hacemos la conversión de Long a Instant para su registro.
+    	Instant fechaInicioInstant = this.toInstant(fechaInicio) ;
+
+        // Montamos el evento
+        EventoId eventoId = new EventoId(titulo, fechaInicioInstant, usuario.getEmail()) ;
+
+        //Buscar evento
+        Optional<Evento> optionalEvento = eventoRepository.findById(eventoId);
+        // Comprobamos si el evento que se desea eliminar NO existe en la base de datos
+        if (!optionalEvento.isPresent())
         {
-            return ResponseEntity.badRequest().body(exception.getBodyExceptionMessage()) ;
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_NO_EXISTE);
         }
-   	 	catch (Exception exception)
+        Evento evento = optionalEvento.get();
+
+        // Control de permisos
+        // ADMIN puede borrar cualquier evento
+        // PROFESOR solo los suyos
+        if (!usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR)
+                && !usuario.getEmail().equals(evento.getEventoId().getUsuarioEmail()))
         {
-    		EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR) ;
-    		log.error("Error genérico al eliminar evento", exception);
-            return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage()) ;
-    		
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_CODE, Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC) ;
         }
+
+        //Eliminar evento
+        eventoRepository.delete(evento);
+        this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.eliminado(this.toResponseDto(evento))) ;
+
+        log.info(Constants.ELEMENTO_ELIMINADO, eventoId);
+        return ResponseEntity.ok().build() ;
     }
 
     /**
-     * Endpoint para obtener todos los eventos.
+     * Endpoint para eliminar en bloque los eventos que cumplen unos filtros.
      * 
-     * @return ResponseEntity con la lista de eventos
+     * <p>Mantiene las reglas de permisos de la eliminación individual: un administrador
+     * puede borrar eventos de cualquier usuario y un profesor solo los suyos. Los eventos
+     * se eliminan por lotes con sentencias masivas.</p>
+     * 
+     * @param usuario Usuario autenticado
+     * @param desde Eventos que empiezan a partir de esta fecha en milisegundos (opcional)
+     * @param hasta Eventos que empiezan antes de esta fecha en milisegundos (opcional)
+     * @param usuarioEmail Propietario de los eventos (opcional; para un profesor, siempre él mismo)
+     * @param categoria Categoría de los eventos (opcional)
+     * @return ResponseEntity con el número de eventos eliminados
      */
     @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
-    @GetMapping(value="/")
-    public ResponseEntity<?> obtenerEventos()
+    @DeleteMapping(value="/lote")
+    @FragmentoPropietario(propietarioEnPeticion = true)
+    public ResponseEntity<?> eliminarEventos(@AuthenticationPrincipal DtoUsuarioExtended usuario,
+    										 @RequestParam(required = false) Long desde,
+    										 @RequestParam(required = false) Long hasta,
+    										 @RequestParam(required = false) String usuarioEmail,
+    										 @RequestParam(required = false) String categoria) throws EventsServerException
     {
-    	try
+    	// Se exige al menos un filtro para no vaciar el calendario por error
+    	if (desde == null && hasta == null && usuarioEmail == null && categoria == null)
     	{
-	    	List<EventoResponseDto> eventos = this.eventoRepository.buscarEventos() ;
-	        return ResponseEntity.ok(eventos) ;
+    		throw EventsServerException.preasignada(Constants.ERR_EVENTO_BORRADO_SIN_FILTROS_CODE, Constants.ERR_EVENTO_BORRADO_SIN_FILTROS) ;
     	}
-	 	catch (Exception exception)
+
+    	if (desde != null && hasta != null && hasta < desde)
     	{
-			EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR) ;
-			log.error("Error genérico al obtener el/los evento/s", exception);
-	        return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage()) ;	
+    		throw EventsServerException.preasignada(Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
     	}
+
+        // Control de permisos
+        // ADMIN puede borrar eventos de cualquier usuario
+        // PROFESOR solo los suyos
+    	String propietario = usuarioEmail ;
+    	if (!usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR))
+    	{
+    		if (usuarioEmail != null && !usuario.getEmail().equals(usuarioEmail))
+    		{
+    			throw EventsServerException.preasignada(Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_CODE, Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC) ;
+    		}
+    		propietario = usuario.getEmail() ;
+    	}
+
+    	BorradoMasivoResponseDto resultado = this.eventoBorradoMasivoService.eliminar(propietario, categoria, desde, hasta) ;
+
+    	log.info(Constants.ELEMENTO_ELIMINADO) ;
+    	return ResponseEntity.ok(resultado) ;
     }
+
+    /**
+     * Endpoint para obtener todos los eventos.
+     * 
+     * <p>Las peticiones simultáneas comparten una sola consulta y una sola serialización.</p>
+     * 
+     * @return ResponseEntity con la lista de eventos
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @GetMapping(value="/")
+    @MaximoSentencias(1)
+    @LecturaCoalescida
+    public ResponseEntity<?> obtenerEventos() throws Exception
+    {
+		byte[] eventos = this.lecturasCoalescidasService.leer(CLAVE_COALESCENCIA_EVENTOS + Constants.CACHE_CLAVE_TODOS, () -> this.lecturaEventosService.buscarEventos()) ;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(eventos) ;
+    }
+    /**
+     * Endpoint para obtener varios eventos por su ID compuesto en una sola petición.
+     * 
+     * <p>Aplica a cada clave las mismas reglas de permisos que /filtro y devuelve un resultado
+     * por clave (encontrado, no encontrado, no permitido o clave inválida) en el mismo orden.
+     * Si una clave no indica propietario se usa el email del usuario autenticado.</p>
+     * 
+     * @param usuario Usuario autenticado
+     * @param claves Claves de los eventos
+     * @return ResponseEntity con el resultado de cada clave
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @PostMapping(value = "/multi", consumes = "application/json")
+    @MaximoSentencias(1)
+    public ResponseEntity<?> obtenerEventosPorIds(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestBody List<EventoClaveDto> claves) throws EventsServerException
+    {
+		List<ResultadoConsultaEventoDto> resultados = this.eventoConsultaMultipleService.consultar(claves, usuario) ;
+		return ResponseEntity.ok(resultados) ;
+    }
+    
     /**
      * Endpoint para obtener un evento específico por su ID compuesto.
      * 
@@ -211,154 +383,260 @@ public class EventoRestController
      */
     @PreAuthorize("hasAnyRole('"+BaseConstants.ROLE_PROFESOR+"')")
     @GetMapping("/filtro")
-    public ResponseEntity<?> obtenerEventoPorId(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestHeader String titulo,@RequestHeader Long fechaInicio)
+    @MaximoSentencias(1)
+    @FragmentoPropietario
+    public ResponseEntity<?> obtenerEventoPorId(@AuthenticationPrincipal DtoUsuarioExtended usuario, @RequestHeader String titulo,@RequestHeader Long fechaInicio) throws EventsServerException
     {
     	
-        try
+        if (titulo == null || titulo.isEmpty())
         {
-            if (titulo == null || titulo.isEmpty())
-            {
-                log.error(Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
-                throw new EventsServerException( Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
-            }
-            
-        	// Hacemos la conversión de Long a Date para su registro.
-        	Date fechaInicioDate = this.toDate(fechaInicio) ;
-            
-            // Montamos el evento
-            EventoId eventoId = new EventoId( titulo, fechaInicioDate, usuario.getEmail()) ;
-            
-            //Buscamos el evento
-            Optional<Evento> optionalEvento = eventoRepository.findById(eventoId) ;
-
-            // Comprobamos si el evento buscado no existe en la base de datos
-            if (!optionalEvento.isPresent())
-            {
-                log.error(Constants.ERR_EVENTO_NO_EXISTE) ;
-                throw new EventsServerException(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_NO_EXISTE) ;
-            }
-
-            Evento evento = optionalEvento.get() ; 
-            
-            //Control de permisos
-            // ADMIN y DIRECCIÓN → cualquier evento
-            // PROFESOR → solo los suyos
-            if ( usuario.getRoles().contains(BaseConstants.ROLE_PROFESOR) && !usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR)
-                && !usuario.getRoles().contains(BaseConstants.ROLE_DIRECCION) && !usuario.getEmail().equals(evento.getEventoId().getUsuarioEmail()))
-            {
-                log.error(Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC);
-                throw new EventsServerException( Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_CODE, Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC) ;
-            }
-            
-            //Conversion del ResponseDto (Date → Long)
-            EventoResponseDto eventoResponseDto = new EventoResponseDto() ;
-            eventoResponseDto.setTitulo(evento.getEventoId().getTitulo()) ;
-            eventoResponseDto.setFechaInicio(evento.getEventoId().getFechaInicio().getTime()) ;
-            eventoResponseDto.setFechaFin(evento.getFechaFin().getTime()) ;
-            return ResponseEntity.ok(eventoResponseDto) ;
-        } 
-        catch (EventsServerException exception)  
-        { 
-        	return ResponseEntity.badRequest().body(exception.getBodyExceptionMessage()) ;
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
         }
-   	 	catch (Exception exception)
+
+    	// Hacemos la conversión de Long a Instant para su registro.
+    	Instant fechaInicioInstant = this.toInstant(fechaInicio) ;
+
+        // Montamos el evento
+        EventoId eventoId = new EventoId( titulo, fechaInicioInstant, usuario.getEmail()) ;
+
+        //Buscamos el evento
+        Optional<EventoResponseDto> optionalEvento = this.lecturaEventosService.buscarEvento(eventoId) ;
+
+        // Comprobamos si el evento buscado no existe
+        if (!optionalEvento.isPresent())
+        {
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_NO_EXISTE) ;
+        }
+
+        EventoResponseDto evento = optionalEvento.get() ;
+
+        //Control de permisos
+        // ADMIN y DIRECCIÓN → cualquier evento
+        // PROFESOR → solo los suyos
+        if ( usuario.getRoles().contains(BaseConstants.ROLE_PROFESOR) && !usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR)
+            && !usuario.getRoles().contains(BaseConstants.ROLE_DIRECCION) && !usuario.getEmail().equals(evento.getUsuarioEmail()))
         {
-    		EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR) ;
-    		log.error("Error genérico obtener el/los evento/s", exception) ;
-    		return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage()) ;
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_CODE, Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC) ;
         }
+
+        //Respuesta solo con la clave, las fechas y la versión
+        EventoResponseDto eventoResponseDto = new EventoResponseDto() ;
+        eventoResponseDto.setTitulo(evento.getTitulo()) ;
+        eventoResponseDto.setFechaInicio(evento.getFechaInicio()) ;
+        eventoResponseDto.setFechaFin(evento.getFechaFin()) ;
+        eventoResponseDto.setVersion(evento.getVersion()) ;
+        return ResponseEntity.ok(eventoResponseDto) ;
     }
     
     /**
      * Endpoint para obtener todos los eventos de un usuario específico.
      * 
+     * <p>Las peticiones simultáneas con el mismo alcance (todos los eventos o los de un
+     * mismo usuario) comparten una sola consulta y una sola serialización.</p>
+     * 
      * @param usuario Usuario autenticado
      * @return ResponseEntity con la lista de eventos del usuario
      */
     @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
     @GetMapping("/{email}")
-    public ResponseEntity<?> obtenerEventosPorUsuario(@AuthenticationPrincipal DtoUsuarioExtended usuario)
+    @MaximoSentencias(1)
+    @LecturaCoalescida
+    @FragmentoPropietario
+    public ResponseEntity<?> obtenerEventosPorUsuario(@AuthenticationPrincipal DtoUsuarioExtended usuario) throws Exception
     {
-    	try
-        {
-    		 // Obtenemos los eventos filtrados según el rol
-            List<EventoResponseDto> eventosDto = obtenerEventosSegunRol(usuario) ;
+		 // Obtenemos los eventos filtrados según el rol, compartiendo la lectura con las peticiones simultáneas del mismo alcance
+		String alcance = usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR) ? Constants.CACHE_CLAVE_TODOS : usuario.getEmail() ;
+        byte[] eventosDto = this.lecturasCoalescidasService.leer(CLAVE_COALESCENCIA_EVENTOS_USUARIO + alcance, () -> obtenerEventosSegunRol(usuario)) ;
 
-            return ResponseEntity.ok(eventosDto) ;
-        }
-        catch (EventsServerException exception)
-        {
-            return ResponseEntity.badRequest().body(exception.getBodyExceptionMessage()) ;
-        }
-    	 catch (Exception exception)
-        {
-    		EventsServerException calendarioException= new EventsServerException(Constants.ERR_SERVIDOR_CODE,Constants.ERR_SERVIDOR) ;
-    		log.error("Error genérico obtener el/los evento/s por usuario", exception);
-            return ResponseEntity.status(500).body(calendarioException.getBodyExceptionMessage()) ;
-    		
-        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(eventosDto) ;
     
     }
     
     /**
-     * Método auxiliar para convertir un Long (milisegundos) a Date.
+     * Endpoint para buscar eventos por texto en el título, sin distinguir tildes ni mayúsculas.
+     * 
+     * <p>La búsqueda se resuelve sobre el índice en memoria de títulos, sin consultar la base de datos.</p>
+     * 
+     * @param texto Texto a buscar dentro del título
+     * @param usuarioEmail Filtro opcional por propietario del evento
+     * @param desde Filtro opcional: eventos que terminan a partir de esta fecha (milisegundos)
+     * @param hasta Filtro opcional: eventos que empiezan antes de esta fecha (milisegundos)
+     * @param limite Número máximo de resultados
+     * @return ResponseEntity con la lista de eventos encontrados
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @GetMapping("/buscar")
+    @MaximoSentencias(0)
+    public ResponseEntity<?> buscarEventos(@RequestParam String texto,
+    									   @RequestParam(required = false) String usuarioEmail,
+    									   @RequestParam(required = false) Long desde,
+    									   @RequestParam(required = false) Long hasta,
+    									   @RequestParam(defaultValue = "50") int limite) throws EventsServerException
+    {
+		if (IndiceTitulosEventos.normalizar(texto).isEmpty())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_BUSQUEDA_VACIA_CODE, Constants.ERR_EVENTO_BUSQUEDA_VACIA) ;
+		}
+
+		List<EventoResponseDto> eventos = this.indiceTitulosEventos.buscar(texto, usuarioEmail, desde, hasta, this.acotarLimite(limite)) ;
+		return ResponseEntity.ok(eventos) ;
+    }
+    
+    /**
+     * Endpoint de autocompletado para la caja de búsqueda.
+     * 
+     * <p>Devuelve títulos de eventos con alguna palabra que empieza por el prefijo indicado.</p>
+     * 
+     * @param prefijo Texto escrito hasta el momento
+     * @param limite Número máximo de sugerencias
+     * @return ResponseEntity con la lista de títulos sugeridos
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @GetMapping("/autocompletar")
+    @MaximoSentencias(0)
+    public ResponseEntity<?> autocompletarTitulos(@RequestParam String prefijo, @RequestParam(defaultValue = "10") int limite)
+    {
+		List<String> sugerencias = this.indiceTitulosEventos.autocompletar(prefijo, this.acotarLimite(limite)) ;
+		return ResponseEntity.ok(sugerencias) ;
+    }
+    
+    /**
+     * Endpoint con la vista de calendario.
+     * 
+     * <p>Devuelve los eventos del rango ya repartidos en celdas de un día, una semana o un mes
+     * calculadas en la zona horaria indicada. Los eventos de varios días aparecen partidos en
+     * cada celda que ocupan y cada celda incluye su número de eventos.</p>
+     * 
+     * @param desde Inicio del rango (milisegundos)
+     * @param hasta Fin del rango (milisegundos)
+     * @param granularidad Tamaño de las celdas: DIA, SEMANA o MES
+     * @param zona Zona horaria de las celdas
+     * @param categoria Filtro opcional: nombre de la categoría
+     * @return ResponseEntity con las celdas del calendario
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @GetMapping("/calendario")
+    @MaximoSentencias(1)
+    public ResponseEntity<?> obtenerCalendario(@RequestParam Long desde,
+    										   @RequestParam Long hasta,
+    										   @RequestParam(defaultValue = "DIA") GranularidadCalendario granularidad,
+    										   @RequestParam(defaultValue = "Europe/Madrid") String zona,
+    										   @RequestParam(required = false) String categoria) throws EventsServerException
+    {
+		String nombreCategoria = categoria != null && !categoria.isBlank() ? categoria : null ;
+		CalendarioResponseDto calendario = this.calendarioEventosService.calcular(desde, hasta, granularidad, zona, nombreCategoria) ;
+		return ResponseEntity.ok(calendario) ;
+    }
+    
+    /**
+     * Endpoint para buscar huecos en los que varios usuarios están libres a la vez.
+     * 
+     * <p>Devuelve los primeros huecos de la duración pedida, dentro del horario y los días
+     * laborables indicados, en los que ninguno de los usuarios tiene eventos.</p>
+     * 
+     * @param huecosLibresRequestDto Usuarios, rango, duración y horario
+     * @return ResponseEntity con la lista de huecos libres
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @PostMapping(value = "/huecos", consumes = "application/json")
+    @MaximoSentencias(1)
+    public ResponseEntity<?> buscarHuecosLibres(@RequestBody HuecosLibresRequestDto huecosLibresRequestDto) throws EventsServerException
+    {
+		List<HuecoLibreDto> huecos = this.huecosLibresService.buscar(huecosLibresRequestDto) ;
+		return ResponseEntity.ok(huecos) ;
+    }
+    
+    /**
+     * Endpoint para exportar eventos a un fichero CSV.
+     * 
+     * <p>El fichero se genera mientras se envía: las filas se leen de la base de datos con un
+     * cursor y se escriben en la respuesta una a una, sin cargar la exportación en memoria.
+     * Se exportan los eventos que se solapan con el rango indicado.</p>
+     * 
+     * @param desde Filtro opcional: eventos que terminan en o después de esta fecha (milisegundos)
+     * @param hasta Filtro opcional: eventos que empiezan antes de esta fecha (milisegundos)
+     * @param categoria Filtro opcional: nombre de la categoría
+     * @param formato Formato del fichero (solo csv)
+     * @return ResponseEntity con el fichero CSV
+     */
+    @PreAuthorize("hasAnyRole('" + BaseConstants.ROLE_PROFESOR + "')")
+    @GetMapping("/exportar")
+    public ResponseEntity<?> exportarEventos(@RequestParam(required = false) Long desde,
+    										 @RequestParam(required = false) Long hasta,
+    										 @RequestParam(required = false) String categoria,
+    										 @RequestParam(defaultValue = "csv") String formato) throws EventsServerException
+    {
+		if (!"csv".equalsIgnoreCase(formato))
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_EXPORTACION_FORMATO_CODE, Constants.ERR_EVENTO_EXPORTACION_FORMATO) ;
+		}
+
+		if (desde != null && hasta != null && desde >= hasta)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
+		}
+
+		String nombreCategoria = categoria != null && !categoria.isBlank() ? categoria : null ;
+		// Las sentencias del hilo que escribe el fichero se cuentan en la medición de la petición
+		MedicionSentencias medicion = MonitorSentenciasHibernate.actual() ;
+		StreamingResponseBody cuerpo = salida ->
+		{
+			try (MedicionSentencias medicionHilo = MonitorSentenciasHibernate.iniciarDentroDe(medicion))
+			{
+				this.eventoExportacionService.exportarCsv(salida, desde, hasta, nombreCategoria) ;
+			}
+		} ;
+
+		return ResponseEntity.ok()
+							 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"eventos.csv\"")
+							 .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+							 .body(cuerpo) ;
+    }
+    
+    /**
+     * Método auxiliar para convertir un Long (milisegundos) a Instant.
      * 
      * @param fecha Fecha en milisegundos
-     * @return Objeto Date correspondiente
+     * @return Objeto Instant correspondiente
      * @throws EventsServerException Si la fecha es nula o menor/igual a 0
      */
-    private Date toDate(Long fecha) throws EventsServerException
+    private Instant toInstant(Long fecha) throws EventsServerException
     {
         // Comprobamos que la fecha no sea nula ni menor o igual que 0
     	if(fecha == null || fecha <= 0)
     	{
-    		log.error(Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
-            throw new EventsServerException(Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
+    		throw EventsServerException.preasignada(Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
     	}
-    	return new Date(fecha) ;
+    	return Instant.ofEpochMilli(fecha) ;
     } 
     
     /**
-     * Valida los datos necesarios para crear un evento.
-     *
-     * @param titulo        Título del evento
-     * @param fechaInicio   Fecha de inicio en milisegundos
-     * @param fechaFin      Fecha de fin en milisegundos
-     * @param nombreCategoria Nombre de la categoría
-     * @throws EventsServerException si los datos no son válidos
+     * Método auxiliar para convertir un evento en su DTO de respuesta.
+     * 
+     * @param evento Evento a convertir
+     * @return EventoResponseDto con los datos del evento
      */
-    private void validarCrearEvento(String titulo, Long fechaInicio, Long fechaFin, String nombreCategoria) throws EventsServerException
+    private EventoResponseDto toResponseDto(Evento evento)
     {
-        // Validamos el título
-        if (titulo == null || titulo.isEmpty())
-        {
-            log.error(Constants.ERR_EVENTO_TITULO_NULO_VACIO);
-            throw new EventsServerException(Constants.ERR_EVENTO_TITULO_NULO_VACIO_CODE, Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
-        }
-
-        // Validamos fechas
-        if (fechaInicio == null || fechaInicio <= 0 || fechaFin == null || fechaFin <= 0)
-        {
-            log.error(Constants.ERR_EVENTO_FECHAS_INVALIDAS);
-            throw new EventsServerException( Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS ) ;
-        }
-
-        // Validamos orden de fechas
-        if (fechaFin < fechaInicio)
-        {
-            log.error(Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
-            throw new EventsServerException( Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS ) ;
-        }
-        // Validamos categoría
-        if (nombreCategoria == null || nombreCategoria.isEmpty())
-        {
-            log.error(Constants.ERR_CATEGORIA_NO_EXISTE) ;
-            throw new EventsServerException( Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NO_EXISTE) ;
-        }
-       
+    	String nombreCategoria = evento.getCategoria() != null ? evento.getCategoria().getNombre() : null ;
+    	
+    	return new EventoResponseDto(evento.getEventoId().getTitulo(), evento.getEventoId().getFechaInicio(), evento.getFechaFin(),
+    								 nombreCategoria, evento.getEventoId().getUsuarioEmail(), evento.getUsuarioNombre(), evento.getUsuarioApellidos(), evento.getVersion()) ;
+    }
+    
+    /**
+     * Método auxiliar para limitar el número de resultados pedidos por el cliente.
+     * 
+     * @param limite Límite solicitado
+     * @return Límite entre 1 y el máximo permitido
+     */
+    private int acotarLimite(int limite)
+    {
+    	return Math.max(1, Math.min(limite, Constants.MAX_RESULTADOS_BUSQUEDA)) ;
     }
     
     
+    
     /**
      * Método privado que decide qué eventos devolver según el rol del usuario.
      * <p>
@@ -376,17 +654,16 @@ public class EventoRestController
 
         if (usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR))
         {
-            eventosDto = this.eventoRepository.buscarEventos() ;
+            eventosDto = this.lecturaEventosService.buscarEventos() ;
         }
         else
         {
-            eventosDto = this.eventoRepository.buscarEventosPorUsuario(usuario.getEmail()) ;
+            eventosDto = this.lecturaEventosService.buscarEventosPorUsuario(usuario.getEmail()) ;
         }
 
         if (eventosDto == null || eventosDto.isEmpty())
         {
-            log.error(Constants.ERR_EVENTO_NO_EXISTE) ;
-            throw new EventsServerException(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_NO_EXISTE) ;
+            throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_NO_EXISTE) ;
         }
 
         return eventosDto;
@@ -0,0 +1,135 @@
+package es.iesjandula.reaktor.events_server.rest;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
+
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import es.iesjandula.reaktor.events_server.utils.RegistroErroresLimitado;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Gestión centralizada de los errores de los controladores REST.
+ *
+ * <p>Los errores esperados ({@link EventsServerException}) se responden con su cuerpo ya
+ * construido y el estado HTTP que corresponde a su código (400 salvo excepciones). El resto
+ * se responde con un 500 genérico. En ambos casos el log se limita: un mismo error en el
+ * mismo endpoint se registra como mucho una vez por intervalo, indicando las repeticiones
+ * omitidas.</p>
+ *
+ * <p>Los errores de seguridad se dejan pasar para que los resuelva Spring Security, y los
+ * errores propios de Spring MVC (cabeceras o parámetros ausentes, cuerpos ilegibles...) los
+ * resuelve {@link ResponseEntityExceptionHandler} con su estado habitual.</p>
+ */
+@Slf4j
+@RestControllerAdvice
+public class ManejadorErroresRest extends ResponseEntityExceptionHandler
+{
+	/** Estados HTTP de los códigos de error que no se responden con 400 */
+	private static final Map<Integer, HttpStatus> ESTADOS = Map.of(Constants.ERR_EVENTO_CONFLICTO_VERSION_CODE, HttpStatus.CONFLICT,
+																   Constants.ERR_CATEGORIA_EVENTOS_NUEVOS_CODE, HttpStatus.CONFLICT,
+																   Constants.ERR_ADMISION_SATURADO_CODE, HttpStatus.SERVICE_UNAVAILABLE,
+																   Constants.ERR_SERVIDOR_CODE, HttpStatus.INTERNAL_SERVER_ERROR) ;
+
+	/** Respuesta de los errores no esperados */
+	private static final ResponseEntity<Object> RESPUESTA_ERROR_SERVIDOR =
+			ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+						  .body(EventsServerException.preasignada(Constants.ERR_SERVIDOR_CODE, Constants.ERR_SERVIDOR).getBodyExceptionMessage()) ;
+
+	/** Milisegundos mínimos entre dos registros del mismo error en el mismo endpoint */
+	@Value("${reaktor.errores.intervalo-registro-ms:10000}")
+	private long intervaloRegistroMs ;
+
+	/** Limitador del registro de errores repetidos */
+	private RegistroErroresLimitado registroErrores ;
+
+	/**
+	 * Crea el limitador con el intervalo configurado.
+	 */
+	@PostConstruct
+	public void inicializar()
+	{
+		this.registroErrores = new RegistroErroresLimitado(this.intervaloRegistroMs) ;
+	}
+
+	/**
+	 * @param exception error esperado
+	 * @param handlerMethod método del controlador en el que se ha producido
+	 * @return respuesta con el cuerpo del error y el estado de su código
+	 */
+	@ExceptionHandler(EventsServerException.class)
+	public ResponseEntity<Object> manejarEventsServerException(EventsServerException exception, HandlerMethod handlerMethod)
+	{
+		String endpoint = nombreEndpoint(handlerMethod) ;
+		long omitidos   = this.registroErrores.comprobar(endpoint + ':' + exception.getMensaje()) ;
+		if (omitidos >= 0)
+		{
+			if (exception.getCause() != null)
+			{
+				log.error("{}: {} ({} repeticiones omitidas)", endpoint, exception.getMensaje(), omitidos, exception.getCause()) ;
+			}
+			else
+			{
+				log.error("{}: {} ({} repeticiones omitidas)", endpoint, exception.getMensaje(), omitidos) ;
+			}
+		}
+
+		HttpStatus estado = ESTADOS.getOrDefault(exception.getCodigo(), HttpStatus.BAD_REQUEST) ;
+		if (estado == HttpStatus.SERVICE_UNAVAILABLE)
+		{
+			// Como en los rechazos del control de admisión
+			return ResponseEntity.status(estado).header(HttpHeaders.RETRY_AFTER, "1").body(exception.getBodyExceptionMessage()) ;
+		}
+		return ResponseEntity.status(estado).body(exception.getBodyExceptionMessage()) ;
+	}
+
+	/**
+	 * Deja que Spring Security resuelva los errores de autenticación y autorización.
+	 *
+	 * @param exception error de seguridad
+	 * @throws Exception el mismo error
+	 */
+	@ExceptionHandler({ AccessDeniedException.class, AuthenticationException.class })
+	public void relanzarErrorSeguridad(Exception exception) throws Exception
+	{
+		throw exception ;
+	}
+
+	/**
+	 * @param exception error no esperado
+	 * @param handlerMethod método del controlador en el que se ha producido
+	 * @return respuesta 500 genérica
+	 */
+	@ExceptionHandler(Exception.class)
+	public ResponseEntity<Object> manejarException(Exception exception, HandlerMethod handlerMethod)
+	{
+		String endpoint = nombreEndpoint(handlerMethod) ;
+		long omitidos   = this.registroErrores.comprobar(endpoint + ':' + exception.getClass().getName()) ;
+		if (omitidos >= 0)
+		{
+			log.error("Error genérico en {} ({} repeticiones omitidas)", endpoint, omitidos, exception) ;
+		}
+
+		return RESPUESTA_ERROR_SERVIDOR ;
+	}
+
+	/**
+	 * @param handlerMethod método del controlador
+	 * @return nombre del endpoint (Controlador.metodo)
+	 */
+	private static String nombreEndpoint(HandlerMethod handlerMethod)
+	{
+		return handlerMethod != null ? handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName() : "desconocido" ;
+	}
+}
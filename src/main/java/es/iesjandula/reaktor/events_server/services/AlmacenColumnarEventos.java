@@ -0,0 +1,686 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Almacén en memoria, por columnas, de todos los eventos.
+ *
+ * <p>Cada campo se guarda en un array de tipos primitivos: las fechas en long[] y los textos
+ * (título, propietario, nombre, apellidos y categoría) como identificadores int[] de un
+ * diccionario de cadenas, de modo que cada texto repetido se guarda una sola vez. Las filas
+ * están ordenadas por fecha de inicio: los rangos se resuelven con una búsqueda binaria y
+ * los filtros por propietario o categoría comparan enteros.</p>
+ *
+ * <p>Solo se usa si está activado. Se construye al arrancar a partir del repositorio, por
+ * páginas, y se mantiene escuchando las notificaciones {@link EventoCambioNotificacion}
+ * que se publican después de cada escritura en la base de datos. Hasta que está construido
+ * las lecturas siguen yendo a la base de datos. Las escrituras de otras instancias llegan
+ * por la invalidación de cachés y provocan una reconstrucción completa, así que se ven con
+ * unos segundos de retraso.</p>
+ *
+ * <p>Las reconstrucciones se hacen en un hilo propio y las que se piden mientras hay una
+ * esperando se juntan en ella. Los cambios que llegan durante la lectura se guardan y se
+ * aplican a las columnas nuevas antes de sustituir las actuales; la versión de cada evento
+ * evita aplicar dos veces un cambio que la lectura ya ha visto.</p>
+ */
+@Slf4j
+@Service
+public class AlmacenColumnarEventos
+{
+	/** Eventos leídos por página al construir el almacén */
+	private static final int TAMANIO_PAGINA = 5000 ;
+
+	/** Identificador de los textos nulos */
+	private static final int NULO = -1 ;
+
+	/** Fecha de fin de los eventos que no tienen; no cumple ninguna condición fin >= desde */
+	private static final long SIN_FIN = Long.MIN_VALUE ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	/** Si se mantiene el almacén y se sirven las lecturas desde él */
+	@Value("${reaktor.almacen-columnar.activado:false}")
+	private boolean activado ;
+
+	/** Cerrojo que protege las columnas */
+	private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock() ;
+
+	/** Columnas actuales, o null si aún no se ha construido */
+	private Columnas columnas ;
+
+	/** Indica si el almacén está construido y puede servir lecturas */
+	private volatile boolean disponible ;
+
+	/** Cambios recibidos durante la reconstrucción en curso, o null si no hay ninguna */
+	private List<EventoCambioNotificacion> cambiosDuranteReconstruccion ;
+
+	/** Indica si hay una reconstrucción pedida que aún no ha empezado */
+	private final AtomicBoolean reconstruccionPendiente = new AtomicBoolean() ;
+
+	/** Hilo en el que se hacen las reconstrucciones, una detrás de otra */
+	private final ExecutorService reconstructor = Executors.newSingleThreadExecutor(tarea ->
+	{
+		Thread hilo = new Thread(tarea, "almacen-columnar") ;
+		hilo.setDaemon(true) ;
+		return hilo ;
+	}) ;
+
+	/**
+	 * Construye el almacén una vez arrancada la aplicación, si está activado.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void inicializar()
+	{
+		if (this.activado)
+		{
+			this.solicitarReconstruccion() ;
+		}
+	}
+
+	/**
+	 * Actualiza el almacén tras un cambio en los eventos.
+	 *
+	 * @param notificacion cambio producido
+	 */
+	@EventListener
+	public void onEventoCambio(EventoCambioNotificacion notificacion)
+	{
+		if (!this.activado)
+		{
+			return ;
+		}
+
+		switch (notificacion.getTipo())
+		{
+			case CREADO:
+			case ELIMINADO:
+				this.escribir(() ->
+				{
+					if (this.columnas != null)
+					{
+						this.columnas.aplicar(notificacion) ;
+					}
+					if (this.cambiosDuranteReconstruccion != null)
+					{
+						this.cambiosDuranteReconstruccion.add(notificacion) ;
+					}
+				}) ;
+				break ;
+			default:
+				this.solicitarReconstruccion() ;
+				break ;
+		}
+	}
+
+	/**
+	 * Pide una reconstrucción en segundo plano. Si ya hay una pedida que no ha empezado,
+	 * esta se junta con ella.
+	 */
+	public void solicitarReconstruccion()
+	{
+		if (this.reconstruccionPendiente.compareAndSet(false, true))
+		{
+			this.reconstructor.execute(() ->
+			{
+				// Las peticiones que lleguen a partir de aquí necesitan otra lectura
+				this.reconstruccionPendiente.set(false) ;
+				try
+				{
+					this.reconstruir() ;
+				}
+				catch (RuntimeException runtimeException)
+				{
+					this.escribir(() -> this.cambiosDuranteReconstruccion = null) ;
+					log.error("No se ha podido reconstruir el almacén columnar", runtimeException) ;
+				}
+			}) ;
+		}
+	}
+
+	/**
+	 * Vuelve a cargar todos los eventos desde base de datos. Las columnas nuevas se montan
+	 * aparte y se sustituyen de golpe, así que las lecturas no esperan a la carga.
+	 */
+	private void reconstruir()
+	{
+		long inicio = System.currentTimeMillis() ;
+		Columnas nuevas = new Columnas(TAMANIO_PAGINA) ;
+
+		// Desde aquí se guardan los cambios, porque la lectura puede no verlos
+		this.escribir(() -> this.cambiosDuranteReconstruccion = new ArrayList<>()) ;
+
+		// Con fragmentos se leen todos en paralelo y se mezclan por fecha de inicio
+		List<EventoResponseDto> eventos = this.fragmentosEventos.reunirOrdenado(this::leerEventos, Comparator.comparingLong(EventoResponseDto::getFechaInicio)) ;
+		for (EventoResponseDto evento : eventos)
+		{
+			nuevas.insertar(evento) ;
+		}
+
+		this.escribir(() ->
+		{
+			for (EventoCambioNotificacion cambio : this.cambiosDuranteReconstruccion)
+			{
+				nuevas.aplicar(cambio) ;
+			}
+			this.cambiosDuranteReconstruccion = null ;
+			this.columnas = nuevas ;
+		}) ;
+		this.disponible = true ;
+
+		log.info("Almacén columnar construido con {} eventos y {} textos distintos (~{} KB) en {} ms",
+				 nuevas.tamanio, nuevas.diccionario.size(), nuevas.bytesEstimados() / 1024, System.currentTimeMillis() - inicio) ;
+	}
+
+	/**
+	 * Lee por páginas todos los eventos de la base de datos actual.
+	 *
+	 * @return eventos en el orden de la clave primaria, que empieza por la fecha de inicio
+	 */
+	private List<EventoResponseDto> leerEventos()
+	{
+		List<EventoResponseDto> eventos = new ArrayList<>() ;
+
+		List<EventoResponseDto> pagina = this.eventoRepository.buscarEventosDespuesDe(Instant.EPOCH, "", "", PageRequest.of(0, TAMANIO_PAGINA)) ;
+		while (!pagina.isEmpty())
+		{
+			eventos.addAll(pagina) ;
+
+			EventoResponseDto ultimo = pagina.get(pagina.size() - 1) ;
+			pagina = pagina.size() < TAMANIO_PAGINA ? List.of() :
+					 this.eventoRepository.buscarEventosDespuesDe(Instant.ofEpochMilli(ultimo.getFechaInicio()), ultimo.getTitulo(), ultimo.getUsuarioEmail(), PageRequest.of(0, TAMANIO_PAGINA)) ;
+		}
+		return eventos ;
+	}
+
+	/**
+	 * @return true si el almacén está construido y puede servir lecturas
+	 */
+	public boolean isDisponible()
+	{
+		return this.disponible ;
+	}
+
+	/**
+	 * @return todos los eventos, ordenados por fecha de inicio
+	 */
+	public List<EventoResponseDto> buscarEventos()
+	{
+		this.cerrojo.readLock().lock() ;
+		try
+		{
+			List<EventoResponseDto> resultado = new ArrayList<>(this.columnas.tamanio) ;
+			for (int i = 0 ; i < this.columnas.tamanio ; i++)
+			{
+				resultado.add(this.columnas.fila(i)) ;
+			}
+			return resultado ;
+		}
+		finally
+		{
+			this.cerrojo.readLock().unlock() ;
+		}
+	}
+
+	/**
+	 * @param email email del propietario
+	 * @return eventos del propietario, ordenados por fecha de inicio
+	 */
+	public List<EventoResponseDto> buscarEventosPorUsuario(String email)
+	{
+		List<EventoResponseDto> resultado = new ArrayList<>() ;
+
+		this.cerrojo.readLock().lock() ;
+		try
+		{
+			int propietario = this.columnas.diccionario.buscar(email) ;
+			if (propietario == NULO)
+			{
+				return resultado ;
+			}
+
+			for (int i = 0 ; i < this.columnas.tamanio ; i++)
+			{
+				if (this.columnas.propietario[i] == propietario)
+				{
+					resultado.add(this.columnas.fila(i)) ;
+				}
+			}
+			return resultado ;
+		}
+		finally
+		{
+			this.cerrojo.readLock().unlock() ;
+		}
+	}
+
+	/**
+	 * @param titulo título del evento
+	 * @param fechaInicio fecha de inicio en milisegundos
+	 * @param email email del propietario
+	 * @return el evento con esa clave, o null si no existe
+	 */
+	public EventoResponseDto buscarEvento(String titulo, long fechaInicio, String email)
+	{
+		this.cerrojo.readLock().lock() ;
+		try
+		{
+			int posicion = this.columnas.posicion(titulo, fechaInicio, email) ;
+			return posicion >= 0 ? this.columnas.fila(posicion) : null ;
+		}
+		finally
+		{
+			this.cerrojo.readLock().unlock() ;
+		}
+	}
+
+	/**
+	 * Eventos que se solapan con un rango, con la misma condición que
+	 * {@link IEventoRepository#buscarEventosEnRango}.
+	 *
+	 * @param desde los eventos terminan en o después de esta fecha (milisegundos)
+	 * @param hasta los eventos empiezan antes de esta fecha (milisegundos)
+	 * @param categoria nombre de la categoría (opcional)
+	 * @return eventos del rango ordenados por fecha de inicio
+	 */
+	public List<EventoResponseDto> buscarEventosEnRango(long desde, long hasta, String categoria)
+	{
+		List<EventoResponseDto> resultado = new ArrayList<>() ;
+
+		this.cerrojo.readLock().lock() ;
+		try
+		{
+			Columnas actuales = this.columnas ;
+
+			int idCategoria = categoria != null ? actuales.diccionario.buscar(categoria) : NULO ;
+			if (categoria != null && idCategoria == NULO)
+			{
+				return resultado ;
+			}
+
+			// Ningún evento que empiece antes de desde - duracionMaxima puede llegar a desde
+			int fin = actuales.primeraPosicionDesde(hasta) ;
+			for (int i = actuales.primeraPosicionDesde(desde - actuales.duracionMaxima) ; i < fin ; i++)
+			{
+				if (actuales.fin[i] >= desde && (categoria == null || actuales.categoria[i] == idCategoria))
+				{
+					resultado.add(actuales.fila(i)) ;
+				}
+			}
+			return resultado ;
+		}
+		finally
+		{
+			this.cerrojo.readLock().unlock() ;
+		}
+	}
+
+	/**
+	 * @return número de eventos, textos distintos y memoria estimada del almacén
+	 */
+	public Map<String, Object> obtenerContadores()
+	{
+		Map<String, Object> contadores = new HashMap<>() ;
+		contadores.put("activado", this.activado) ;
+		contadores.put("disponible", this.disponible) ;
+
+		this.cerrojo.readLock().lock() ;
+		try
+		{
+			if (this.columnas != null)
+			{
+				contadores.put("eventos", this.columnas.tamanio) ;
+				contadores.put("textos", this.columnas.diccionario.size()) ;
+				contadores.put("bytesEstimados", this.columnas.bytesEstimados()) ;
+			}
+		}
+		finally
+		{
+			this.cerrojo.readLock().unlock() ;
+		}
+		return contadores ;
+	}
+
+	/**
+	 * @param escritura cambio de las columnas, hecho con el cerrojo de escritura
+	 */
+	private void escribir(Runnable escritura)
+	{
+		this.cerrojo.writeLock().lock() ;
+		try
+		{
+			escritura.run() ;
+		}
+		finally
+		{
+			this.cerrojo.writeLock().unlock() ;
+		}
+	}
+
+	/**
+	 * Columnas de los eventos, ordenadas por fecha de inicio. No es segura entre hilos: el
+	 * almacén la protege con su cerrojo.
+	 */
+	private static class Columnas
+	{
+		/** Textos de las columnas de texto */
+		private final DiccionarioCadenas diccionario = new DiccionarioCadenas() ;
+
+		/** Número de eventos */
+		private int tamanio ;
+
+		/** Mayor duración de los eventos guardados, para acotar las búsquedas por rango */
+		private long duracionMaxima ;
+
+		private long[] inicio ;
+		private long[] fin ;
+		private long[] version ;
+		private int[] titulo ;
+		private int[] propietario ;
+		private int[] nombre ;
+		private int[] apellidos ;
+		private int[] categoria ;
+
+		/**
+		 * @param capacidad capacidad inicial
+		 */
+		private Columnas(int capacidad)
+		{
+			this.inicio      = new long[capacidad] ;
+			this.fin         = new long[capacidad] ;
+			this.version     = new long[capacidad] ;
+			this.titulo      = new int[capacidad] ;
+			this.propietario = new int[capacidad] ;
+			this.nombre      = new int[capacidad] ;
+			this.apellidos   = new int[capacidad] ;
+			this.categoria   = new int[capacidad] ;
+		}
+
+		/**
+		 * @param notificacion creación o borrado de un evento
+		 */
+		private void aplicar(EventoCambioNotificacion notificacion)
+		{
+			if (notificacion.getTipo() == EventoCambioNotificacion.Tipo.CREADO)
+			{
+				this.insertar(notificacion.getEvento()) ;
+			}
+			else
+			{
+				this.eliminar(notificacion.getEvento()) ;
+			}
+		}
+
+		/**
+		 * Inserta el evento en su posición por fecha de inicio. Si ya estaba con la misma
+		 * versión o una posterior no hace nada; si estaba con una anterior, lo sustituye.
+		 *
+		 * @param evento evento a insertar
+		 */
+		private void insertar(EventoResponseDto evento)
+		{
+			int existente = this.posicion(evento.getTitulo(), evento.getFechaInicio(), evento.getUsuarioEmail()) ;
+			if (existente >= 0)
+			{
+				if (this.version[existente] >= evento.getVersion())
+				{
+					return ;
+				}
+				this.quitar(existente) ;
+			}
+
+			if (this.tamanio == this.inicio.length)
+			{
+				this.ampliar() ;
+			}
+
+			// Tras los que empiezan a la misma hora o antes: en la carga inicial siempre es el final
+			int posicion = this.primeraPosicionDesde(evento.getFechaInicio() + 1) ;
+			this.desplazar(posicion, posicion + 1, this.tamanio - posicion) ;
+
+			this.inicio[posicion]      = evento.getFechaInicio() ;
+			this.fin[posicion]         = evento.getFechaFin() != null ? evento.getFechaFin() : SIN_FIN ;
+			this.version[posicion]     = evento.getVersion() ;
+			this.titulo[posicion]      = this.diccionario.obtener(evento.getTitulo()) ;
+			this.propietario[posicion] = this.diccionario.obtener(evento.getUsuarioEmail()) ;
+			this.nombre[posicion]      = this.diccionario.obtener(evento.getUsuarioNombre()) ;
+			this.apellidos[posicion]   = this.diccionario.obtener(evento.getUsuarioApellidos()) ;
+			this.categoria[posicion]   = this.diccionario.obtener(evento.getNombre()) ;
+			this.tamanio++ ;
+
+			if (evento.getFechaFin() != null)
+			{
+				this.duracionMaxima = Math.max(this.duracionMaxima, evento.getFechaFin() - evento.getFechaInicio()) ;
+			}
+		}
+
+		/**
+		 * Elimina el evento, si está y no es de una versión posterior a la borrada. Sus
+		 * textos se quedan en el diccionario hasta la siguiente reconstrucción.
+		 *
+		 * @param evento evento a eliminar (título, fecha de inicio, email y versión)
+		 */
+		private void eliminar(EventoResponseDto evento)
+		{
+			int posicion = this.posicion(evento.getTitulo(), evento.getFechaInicio(), evento.getUsuarioEmail()) ;
+			if (posicion >= 0 && this.version[posicion] <= evento.getVersion())
+			{
+				this.quitar(posicion) ;
+			}
+		}
+
+		/**
+		 * @param posicion posición de la fila que se quita
+		 */
+		private void quitar(int posicion)
+		{
+			this.desplazar(posicion + 1, posicion, this.tamanio - posicion - 1) ;
+			this.tamanio-- ;
+		}
+
+		/**
+		 * @param titulo título
+		 * @param fechaInicio fecha de inicio en milisegundos
+		 * @param email email del propietario
+		 * @return posición del evento con esa clave, o -1 si no está
+		 */
+		private int posicion(String titulo, long fechaInicio, String email)
+		{
+			int idTitulo      = this.diccionario.buscar(titulo) ;
+			int idPropietario = this.diccionario.buscar(email) ;
+			if (idTitulo == NULO || idPropietario == NULO)
+			{
+				return -1 ;
+			}
+
+			for (int i = this.primeraPosicionDesde(fechaInicio) ; i < this.tamanio && this.inicio[i] == fechaInicio ; i++)
+			{
+				if (this.titulo[i] == idTitulo && this.propietario[i] == idPropietario)
+				{
+					return i ;
+				}
+			}
+			return -1 ;
+		}
+
+		/**
+		 * @param fecha fecha en milisegundos
+		 * @return primera posición cuya fecha de inicio es igual o posterior a la indicada
+		 */
+		private int primeraPosicionDesde(long fecha)
+		{
+			int izquierda = 0 ;
+			int derecha   = this.tamanio ;
+			while (izquierda < derecha)
+			{
+				int medio = (izquierda + derecha) >>> 1 ;
+				if (this.inicio[medio] < fecha)
+				{
+					izquierda = medio + 1 ;
+				}
+				else
+				{
+					derecha = medio ;
+				}
+			}
+			return izquierda ;
+		}
+
+		/**
+		 * @param posicion posición de la fila
+		 * @return la fila como DTO de respuesta
+		 */
+		private EventoResponseDto fila(int posicion)
+		{
+			EventoResponseDto evento = new EventoResponseDto() ;
+			evento.setTitulo(this.diccionario.texto(this.titulo[posicion])) ;
+			evento.setFechaInicio(this.inicio[posicion]) ;
+			evento.setFechaFin(this.fin[posicion] != SIN_FIN ? this.fin[posicion] : null) ;
+			evento.setNombre(this.diccionario.texto(this.categoria[posicion])) ;
+			evento.setUsuarioEmail(this.diccionario.texto(this.propietario[posicion])) ;
+			evento.setUsuarioNombre(this.diccionario.texto(this.nombre[posicion])) ;
+			evento.setUsuarioApellidos(this.diccionario.texto(this.apellidos[posicion])) ;
+			evento.setVersion(this.version[posicion]) ;
+			return evento ;
+		}
+
+		/**
+		 * @return memoria aproximada de las columnas y los textos
+		 */
+		private long bytesEstimados()
+		{
+			return (long) this.inicio.length * (3 * Long.BYTES + 5 * Integer.BYTES) + this.diccionario.bytesEstimados() ;
+		}
+
+		/**
+		 * Mueve un tramo de filas dentro de todas las columnas.
+		 *
+		 * @param origen primera fila del tramo
+		 * @param destino nueva posición de la primera fila
+		 * @param filas número de filas del tramo
+		 */
+		private void desplazar(int origen, int destino, int filas)
+		{
+			if (filas <= 0)
+			{
+				return ;
+			}
+			System.arraycopy(this.inicio, origen, this.inicio, destino, filas) ;
+			System.arraycopy(this.fin, origen, this.fin, destino, filas) ;
+			System.arraycopy(this.version, origen, this.version, destino, filas) ;
+			System.arraycopy(this.titulo, origen, this.titulo, destino, filas) ;
+			System.arraycopy(this.propietario, origen, this.propietario, destino, filas) ;
+			System.arraycopy(this.nombre, origen, this.nombre, destino, filas) ;
+			System.arraycopy(this.apellidos, origen, this.apellidos, destino, filas) ;
+			System.arraycopy(this.categoria, origen, this.categoria, destino, filas) ;
+		}
+
+		/**
+		 * Amplía la capacidad de las columnas a la mitad más.
+		 */
+		private void ampliar()
+		{
+			int capacidad = this.inicio.length + (this.inicio.length >> 1) + 1 ;
+			this.inicio      = Arrays.copyOf(this.inicio, capacidad) ;
+			this.fin         = Arrays.copyOf(this.fin, capacidad) ;
+			this.version     = Arrays.copyOf(this.version, capacidad) ;
+			this.titulo      = Arrays.copyOf(this.titulo, capacidad) ;
+			this.propietario = Arrays.copyOf(this.propietario, capacidad) ;
+			this.nombre      = Arrays.copyOf(this.nombre, capacidad) ;
+			this.apellidos   = Arrays.copyOf(this.apellidos, capacidad) ;
+			this.categoria   = Arrays.copyOf(this.categoria, capacidad) ;
+		}
+	}
+
+	/**
+	 * Diccionario de textos: cada texto distinto recibe un identificador entero.
+	 */
+	private static class DiccionarioCadenas
+	{
+		/** Texto → identificador */
+		private final Map<String, Integer> identificadores = new HashMap<>() ;
+
+		/** Identificador → texto */
+		private final List<String> textos = new ArrayList<>() ;
+
+		/** Caracteres de todos los textos */
+		private long caracteres ;
+
+		/**
+		 * @param texto texto (puede ser nulo)
+		 * @return identificador del texto, que se añade si no estaba
+		 */
+		private int obtener(String texto)
+		{
+			if (texto == null)
+			{
+				return NULO ;
+			}
+			return this.identificadores.computeIfAbsent(texto, nuevo ->
+			{
+				this.textos.add(nuevo) ;
+				this.caracteres += nuevo.length() ;
+				return this.textos.size() - 1 ;
+			}) ;
+		}
+
+		/**
+		 * @param texto texto (puede ser nulo)
+		 * @return identificador del texto, o -1 si no está
+		 */
+		private int buscar(String texto)
+		{
+			Integer identificador = texto != null ? this.identificadores.get(texto) : null ;
+			return identificador != null ? identificador : NULO ;
+		}
+
+		/**
+		 * @param identificador identificador
+		 * @return texto del identificador, o null
+		 */
+		private String texto(int identificador)
+		{
+			return identificador != NULO ? this.textos.get(identificador) : null ;
+		}
+
+		/**
+		 * @return número de textos distintos
+		 */
+		private int size()
+		{
+			return this.textos.size() ;
+		}
+
+		/**
+		 * @return memoria aproximada de los textos y de su índice
+		 */
+		private long bytesEstimados()
+		{
+			return this.caracteres + (long) this.textos.size() * 96 ;
+		}
+	}
+}
@@ -0,0 +1,343 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Invalidación de las cachés en memoria de esta instancia y del resto de instancias.
+ *
+ * <p>Cada invalidación se aplica al momento en la caché local y se encola para difundirse
+ * por el {@link ICanalInvalidacionCache}. Las invalidaciones pendientes se agrupan y se
+ * envían en un único mensaje compacto cada pocos milisegundos. Cada mensaje lleva el
+ * identificador de la instancia origen y un número de versión creciente: los mensajes
+ * con una versión ya vista se descartan y, si se detecta un hueco (mensajes perdidos),
+ * se vacían todas las cachés por seguridad.</p>
+ *
+ * <p>Formato del mensaje (UTF-8, una entrada por línea): origen, versión y después
+ * "C:clave" para categorías o "E:email" para eventos ("E:*" invalida todos).</p>
+ *
+ * <p>Las estructuras en memoria (índice de títulos, estadísticas, almacén columnar) solo
+ * se actualizan con los cambios locales, así que cuando llegan cambios de eventos de otra
+ * instancia se publica una notificación {@link EventoCambioNotificacion.Tipo#REMOTO} para
+ * que se reconstruyan desde base de datos. Se publica una sola vez por cada ráfaga de
+ * mensajes y pasado un tiempo desde el primero, el de la tolerancia de retraso de la
+ * réplica, para que la reconstrucción lea el cambio aunque vaya a la réplica.</p>
+ */
+@Slf4j
+@Service
+public class CacheInvalidacionService
+{
+	/** Separador de líneas del mensaje */
+	private static final String SEPARADOR = "\n" ;
+
+	/** Prefijo de las entradas de categorías */
+	private static final String PREFIJO_CATEGORIA = "C:" ;
+
+	/** Prefijo de las entradas de eventos */
+	private static final String PREFIJO_EVENTO = "E:" ;
+
+	/** Clave que invalida todos los listados de eventos */
+	private static final String CLAVE_TODOS_EVENTOS = "*" ;
+
+	@Autowired
+	private CacheManager cacheManager ;
+
+	@Autowired
+	private ICanalInvalidacionCache canalInvalidacionCache ;
+
+	@Autowired
+	private ApplicationEventPublisher applicationEventPublisher ;
+
+	/** Tiempo desde el primer cambio recibido hasta la reconstrucción de las estructuras en memoria */
+	@Value("${reaktor.cache.invalidacion.espera-reconstruccion-ms:2000}")
+	private long esperaReconstruccionMs ;
+
+	/** Identificador de esta instancia */
+	private final String origen = UUID.randomUUID().toString() ;
+
+	/** Versión del último mensaje enviado por esta instancia */
+	private final AtomicLong version = new AtomicLong() ;
+
+	/** Última versión recibida de cada instancia */
+	private final Map<String, Long> ultimaVersionPorOrigen = new ConcurrentHashMap<>() ;
+
+	/** Entradas pendientes de difundir */
+	private final ConcurrentLinkedQueue<String> pendientes = new ConcurrentLinkedQueue<>() ;
+
+	/** Mensajes enviados */
+	private final AtomicLong mensajesEnviados = new AtomicLong() ;
+
+	/** Mensajes recibidos de otras instancias y aplicados */
+	private final AtomicLong mensajesAplicados = new AtomicLong() ;
+
+	/** Mensajes descartados por tener una versión ya vista */
+	private final AtomicLong mensajesDescartados = new AtomicLong() ;
+
+	/** Mensajes descartados por no tener un formato válido */
+	private final AtomicLong mensajesMalformados = new AtomicLong() ;
+
+	/** Momento del primer cambio de eventos recibido sin reconstruir, o 0 si no hay ninguno */
+	private final AtomicLong reconstruccionPendienteDesde = new AtomicLong() ;
+
+	/** Reconstrucciones lanzadas por cambios de otras instancias */
+	private final AtomicLong reconstrucciones = new AtomicLong() ;
+
+	/**
+	 * Registra esta instancia como receptora del canal.
+	 */
+	@PostConstruct
+	public void inicializar()
+	{
+		this.canalInvalidacionCache.suscribir(this::recibir) ;
+	}
+
+	/**
+	 * Invalida los listados de eventos afectados por un cambio. Se ejecuta antes que el
+	 * resto de receptores para que las reconstrucciones no lean listados caducados.
+	 *
+	 * @param notificacion cambio producido
+	 */
+	@Order(Ordered.HIGHEST_PRECEDENCE)
+	@EventListener
+	public void onEventoCambio(EventoCambioNotificacion notificacion)
+	{
+		// Los cambios de otras instancias ya se han aplicado al recibirlos
+		if (notificacion.getTipo() == EventoCambioNotificacion.Tipo.REMOTO)
+		{
+			return ;
+		}
+
+		if (notificacion.getTipo() == EventoCambioNotificacion.Tipo.MASIVO || notificacion.getEvento().getUsuarioEmail() == null)
+		{
+			this.invalidarEventos(CLAVE_TODOS_EVENTOS) ;
+		}
+		else
+		{
+			this.invalidarEventos(notificacion.getEvento().getUsuarioEmail()) ;
+		}
+	}
+
+	/**
+	 * Invalida en todas las instancias los listados de eventos de un usuario y el listado completo.
+	 *
+	 * @param usuarioEmail email del usuario, o "*" para todos los listados
+	 */
+	public void invalidarEventos(String usuarioEmail)
+	{
+		this.aplicar(PREFIJO_EVENTO + usuarioEmail) ;
+		this.pendientes.add(PREFIJO_EVENTO + usuarioEmail) ;
+	}
+
+	/**
+	 * Invalida en todas las instancias el listado de categorías.
+	 *
+	 * @param nombre nombre de la categoría modificada
+	 */
+	public void invalidarCategoria(String nombre)
+	{
+		this.aplicar(PREFIJO_CATEGORIA + nombre) ;
+		this.pendientes.add(PREFIJO_CATEGORIA + nombre) ;
+	}
+
+	/**
+	 * Envía en un único mensaje todas las invalidaciones pendientes.
+	 */
+	@Scheduled(fixedDelayString = "${reaktor.cache.invalidacion.lote-ms:200}")
+	public void enviarPendientes()
+	{
+		Set<String> entradas = new LinkedHashSet<>() ;
+		String entrada ;
+		while ((entrada = this.pendientes.poll()) != null)
+		{
+			entradas.add(entrada) ;
+		}
+
+		if (entradas.isEmpty())
+		{
+			return ;
+		}
+
+		StringBuilder mensaje = new StringBuilder() ;
+		mensaje.append(this.origen).append(SEPARADOR).append(this.version.incrementAndGet()) ;
+		for (String pendiente : entradas)
+		{
+			mensaje.append(SEPARADOR).append(pendiente) ;
+		}
+
+		try
+		{
+			this.canalInvalidacionCache.publicar(mensaje.toString().getBytes(StandardCharsets.UTF_8)) ;
+			this.mensajesEnviados.incrementAndGet() ;
+		}
+		catch (Exception exception)
+		{
+			log.error("No se ha podido difundir la invalidación de caché", exception) ;
+		}
+	}
+
+	/**
+	 * Procesa un mensaje recibido por el canal.
+	 *
+	 * @param contenido mensaje serializado
+	 */
+	public void recibir(byte[] contenido)
+	{
+		String[] lineas = new String(contenido, StandardCharsets.UTF_8).split(SEPARADOR) ;
+		if (lineas.length < 2 || this.origen.equals(lineas[0]))
+		{
+			return ;
+		}
+
+		long versionRecibida ;
+		try
+		{
+			versionRecibida = Long.parseLong(lineas[1].trim()) ;
+		}
+		catch (NumberFormatException numberFormatException)
+		{
+			// Se confirma y se descarta: reencolarlo solo haría que volviese a fallar indefinidamente
+			this.mensajesMalformados.incrementAndGet() ;
+			log.warn("Se descarta un mensaje de invalidación con versión no válida de la instancia {}: {}", lineas[0], lineas[1]) ;
+			return ;
+		}
+
+		Long anterior = this.ultimaVersionPorOrigen.get(lineas[0]) ;
+
+		if (anterior != null && versionRecibida <= anterior)
+		{
+			this.mensajesDescartados.incrementAndGet() ;
+			return ;
+		}
+		this.ultimaVersionPorOrigen.merge(lineas[0], versionRecibida, Math::max) ;
+
+		if (anterior != null && versionRecibida > anterior + 1)
+		{
+			log.warn("Se han perdido mensajes de invalidación de la instancia {}, se vacían todas las cachés", lineas[0]) ;
+			this.vaciarTodas() ;
+			this.reconstruccionPendienteDesde.compareAndSet(0L, System.currentTimeMillis()) ;
+		}
+		else
+		{
+			for (int i = 2 ; i < lineas.length ; i++)
+			{
+				this.aplicar(lineas[i]) ;
+				if (lineas[i].startsWith(PREFIJO_EVENTO))
+				{
+					this.reconstruccionPendienteDesde.compareAndSet(0L, System.currentTimeMillis()) ;
+				}
+			}
+		}
+
+		this.mensajesAplicados.incrementAndGet() ;
+	}
+
+	/**
+	 * Pide la reconstrucción de las estructuras en memoria si han llegado cambios de
+	 * eventos de otras instancias y ya ha pasado la espera desde el primero. Los cambios
+	 * que lleguen durante la reconstrucción provocan otra.
+	 */
+	@Scheduled(fixedDelayString = "${reaktor.cache.invalidacion.lote-ms:200}")
+	public void reconstruirPendientes()
+	{
+		long desde = this.reconstruccionPendienteDesde.get() ;
+		if (desde == 0L || System.currentTimeMillis() - desde < this.esperaReconstruccionMs ||
+			!this.reconstruccionPendienteDesde.compareAndSet(desde, 0L))
+		{
+			return ;
+		}
+
+		this.reconstrucciones.incrementAndGet() ;
+		this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.remoto()) ;
+	}
+
+	/**
+	 * @return contadores de mensajes enviados, aplicados, descartados y malformados, y de reconstrucciones
+	 */
+	public Map<String, Long> obtenerContadores()
+	{
+		return Map.of("enviados", this.mensajesEnviados.get(),
+					  "aplicados", this.mensajesAplicados.get(),
+					  "descartados", this.mensajesDescartados.get(),
+					  "malformados", this.mensajesMalformados.get(),
+					  "reconstrucciones", this.reconstrucciones.get()) ;
+	}
+
+	/**
+	 * Aplica una entrada de invalidación sobre las cachés locales.
+	 *
+	 * @param entrada entrada con prefijo de tipo y clave
+	 */
+	private void aplicar(String entrada)
+	{
+		if (entrada.startsWith(PREFIJO_CATEGORIA))
+		{
+			this.evictar(Constants.CACHE_CATEGORIAS, Constants.CACHE_CLAVE_TODOS) ;
+		}
+		else if (entrada.startsWith(PREFIJO_EVENTO))
+		{
+			String clave = entrada.substring(PREFIJO_EVENTO.length()) ;
+			if (CLAVE_TODOS_EVENTOS.equals(clave))
+			{
+				Cache cache = this.cacheManager.getCache(Constants.CACHE_EVENTOS) ;
+				if (cache != null)
+				{
+					cache.clear() ;
+				}
+			}
+			else
+			{
+				this.evictar(Constants.CACHE_EVENTOS, Constants.CACHE_CLAVE_TODOS) ;
+				this.evictar(Constants.CACHE_EVENTOS, clave) ;
+			}
+		}
+	}
+
+	/**
+	 * @param nombreCache nombre de la caché
+	 * @param clave clave a eliminar
+	 */
+	private void evictar(String nombreCache, String clave)
+	{
+		Cache cache = this.cacheManager.getCache(nombreCache) ;
+		if (cache != null)
+		{
+			cache.evict(clave) ;
+		}
+	}
+
+	/**
+	 * Vacía todas las cachés locales.
+	 */
+	private void vaciarTodas()
+	{
+		for (String nombreCache : this.cacheManager.getCacheNames())
+		{
+			Cache cache = this.cacheManager.getCache(nombreCache) ;
+			if (cache != null)
+			{
+				cache.clear() ;
+			}
+		}
+	}
+}
@@ -0,0 +1,188 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.CalendarioResponseDto;
+import es.iesjandula.reaktor.events_server.dto.CeldaCalendarioDto;
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.GranularidadCalendario;
+import es.iesjandula.reaktor.events_server.dto.TramoEventoDto;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+
+/**
+ * Servicio que construye la vista de calendario: los eventos de un rango repartidos en
+ * celdas de un día, una semana o un mes.
+ *
+ * <p>Los límites de las celdas se calculan una sola vez en la zona horaria pedida (así se
+ * respetan los cambios de hora) y se recorren los eventos del rango en una única pasada:
+ * la celda de inicio de cada evento se localiza con búsqueda binaria y los eventos de
+ * varios días se parten en un tramo por cada celda que ocupan.</p>
+ */
+@Service
+public class CalendarioEventosService
+{
+	@Autowired
+	private LecturaEventosService lecturaEventosService ;
+
+	/**
+	 * Construye la vista de calendario.
+	 *
+	 * @param desde inicio del rango en milisegundos; se amplía al inicio de su celda
+	 * @param hasta fin del rango en milisegundos; se amplía al fin de su celda
+	 * @param granularidad tamaño de las celdas
+	 * @param zona zona horaria de las celdas
+	 * @param categoria nombre de la categoría (opcional)
+	 * @return celdas del rango con sus eventos y recuentos
+	 * @throws EventsServerException si los parámetros no son válidos o el rango es demasiado amplio
+	 */
+	public CalendarioResponseDto calcular(Long desde, Long hasta, GranularidadCalendario granularidad, String zona, String categoria) throws EventsServerException
+	{
+		if (desde == null || hasta == null || desde >= hasta || granularidad == null)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_CALENDARIO_PARAMETROS_CODE, Constants.ERR_EVENTO_CALENDARIO_PARAMETROS) ;
+		}
+
+		ZoneId zonaId ;
+		try
+		{
+			zonaId = ZoneId.of(zona) ;
+		}
+		catch (DateTimeException dateTimeException)
+		{
+			throw new EventsServerException(Constants.ERR_EVENTO_CALENDARIO_PARAMETROS_CODE, Constants.ERR_EVENTO_CALENDARIO_PARAMETROS, dateTimeException) ;
+		}
+
+		long[] limites = calcularLimites(desde, hasta, granularidad, zonaId) ;
+		int numeroCeldas = limites.length - 1 ;
+
+		List<EventoResponseDto> eventos = this.lecturaEventosService.buscarEventosEnRango(Instant.ofEpochMilli(limites[0]), Instant.ofEpochMilli(limites[numeroCeldas]), categoria) ;
+
+		@SuppressWarnings("unchecked")
+		List<TramoEventoDto>[] tramos = new List[numeroCeldas] ;
+		for (EventoResponseDto evento : eventos)
+		{
+			repartir(evento, limites, tramos) ;
+		}
+
+		List<CeldaCalendarioDto> celdas = new ArrayList<>(numeroCeldas) ;
+		for (int i = 0 ; i < numeroCeldas ; i++)
+		{
+			List<TramoEventoDto> tramosCelda = tramos[i] != null ? tramos[i] : Collections.emptyList() ;
+			celdas.add(new CeldaCalendarioDto(limites[i], limites[i + 1], tramosCelda.size(), tramosCelda)) ;
+		}
+
+		return new CalendarioResponseDto(granularidad, zonaId.getId(), eventos.size(), celdas) ;
+	}
+
+	/**
+	 * Calcula los límites de las celdas que cubren el rango.
+	 *
+	 * @param desde inicio del rango en milisegundos
+	 * @param hasta fin del rango en milisegundos
+	 * @param granularidad tamaño de las celdas
+	 * @param zona zona horaria de las celdas
+	 * @return límites ordenados; la celda i va de limites[i] (incluido) a limites[i + 1] (excluido)
+	 * @throws EventsServerException si el rango genera más celdas de las permitidas
+	 */
+	private static long[] calcularLimites(long desde, long hasta, GranularidadCalendario granularidad, ZoneId zona) throws EventsServerException
+	{
+		LocalDate fecha = Instant.ofEpochMilli(desde).atZone(zona).toLocalDate() ;
+		if (granularidad == GranularidadCalendario.SEMANA)
+		{
+			fecha = fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)) ;
+		}
+		else if (granularidad == GranularidadCalendario.MES)
+		{
+			fecha = fecha.withDayOfMonth(1) ;
+		}
+
+		long[] limites = new long[16] ;
+		int total = 0 ;
+		long limite ;
+		do
+		{
+			if (total > Constants.MAX_CELDAS_CALENDARIO)
+			{
+				throw EventsServerException.preasignada(Constants.ERR_EVENTO_CALENDARIO_RANGO_CODE, Constants.ERR_EVENTO_CALENDARIO_RANGO) ;
+			}
+			if (total == limites.length)
+			{
+				limites = Arrays.copyOf(limites, total * 2) ;
+			}
+
+			// atStartOfDay tiene en cuenta los días que no empiezan a las 00:00 por un cambio de hora
+			limite = fecha.atStartOfDay(zona).toInstant().toEpochMilli() ;
+			limites[total++] = limite ;
+			fecha = siguiente(fecha, granularidad) ;
+		}
+		while (limite < hasta) ;
+
+		return Arrays.copyOf(limites, total) ;
+	}
+
+	/**
+	 * @param fecha inicio de una celda
+	 * @param granularidad tamaño de las celdas
+	 * @return inicio de la celda siguiente
+	 */
+	private static LocalDate siguiente(LocalDate fecha, GranularidadCalendario granularidad)
+	{
+		switch (granularidad)
+		{
+			case SEMANA:
+				return fecha.plusWeeks(1) ;
+			case MES:
+				return fecha.plusMonths(1) ;
+			default:
+				return fecha.plusDays(1) ;
+		}
+	}
+
+	/**
+	 * Añade un tramo del evento a cada celda que ocupa.
+	 *
+	 * @param evento evento a repartir
+	 * @param limites límites de las celdas
+	 * @param tramos tramos de cada celda (se crean las listas según hacen falta)
+	 */
+	private static void repartir(EventoResponseDto evento, long[] limites, List<TramoEventoDto>[] tramos)
+	{
+		long inicio = evento.getFechaInicio() ;
+		long fin    = evento.getFechaFin() != null ? Math.max(evento.getFechaFin(), inicio) : inicio ;
+
+		// Celda en la que empieza el evento (la primera si empieza antes del rango)
+		int posicion = Arrays.binarySearch(limites, inicio) ;
+		int celda    = posicion >= 0 ? posicion : -posicion - 2 ;
+		celda        = Math.max(0, Math.min(celda, tramos.length - 1)) ;
+
+		// Un evento sin duración ocupa solo la celda en la que empieza
+		int primera = celda ;
+		while (celda < tramos.length && (celda == primera || limites[celda] < fin))
+		{
+			long inicioCelda = limites[celda] ;
+			long finCelda    = limites[celda + 1] ;
+
+			if (tramos[celda] == null)
+			{
+				tramos[celda] = new ArrayList<>() ;
+			}
+			tramos[celda].add(new TramoEventoDto(evento.getTitulo(), evento.getNombre(), evento.getUsuarioEmail(), inicio, fin,
+												 Math.max(inicio, inicioCelda), Math.min(fin, finCelda),
+												 inicio < inicioCelda, fin > finCelda)) ;
+			celda++ ;
+		}
+	}
+}
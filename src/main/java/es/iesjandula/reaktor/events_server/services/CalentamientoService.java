@@ -0,0 +1,247 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Calentamiento de la aplicación tras el arranque.
+ *
+ * <p>Después de un reinicio la JVM aún no ha compilado el código más usado y MySQL tiene
+ * vacío el buffer pool, así que las primeras peticiones tardan mucho más de lo normal.
+ * Al arrancar se lanzan en paralelo las lecturas más habituales: las categorías, el
+ * listado de eventos (que queda en caché) y los eventos recientes y próximos, que además
+ * se serializan varias veces a JSON para calentar ese camino.</p>
+ *
+ * <p>Hasta que termina, la instancia no está lista: el control de admisión responde 503 y
+ * GET /events/admision/listo también. Si el calentamiento no termina dentro del
+ * presupuesto de tiempo la instancia se da por lista igualmente, para no quedarse fuera de
+ * servicio por un calentamiento lento.</p>
+ */
+@Slf4j
+@Service
+public class CalentamientoService
+{
+	@Autowired
+	private ICategoriaRepository categoriaRepository ;
+
+	@Autowired
+	private LecturaEventosService lecturaEventosService ;
+
+	@Autowired
+	private ObjectMapper objectMapper ;
+
+	/** Si se calienta la aplicación al arrancar; si no, está lista desde el principio */
+	@Value("${reaktor.calentamiento.activado:true}")
+	private boolean activado ;
+
+	/** Tiempo máximo que se espera al calentamiento antes de dar la instancia por lista */
+	@Value("${reaktor.calentamiento.presupuesto-ms:30000}")
+	private long presupuestoMs ;
+
+	/** Días hacia atrás de los eventos recientes que se leen */
+	@Value("${reaktor.calentamiento.dias-atras:7}")
+	private int diasAtras ;
+
+	/** Días hacia delante de los eventos próximos que se leen */
+	@Value("${reaktor.calentamiento.dias-adelante:30}")
+	private int diasAdelante ;
+
+	/** Veces que se serializan a JSON los eventos próximos */
+	@Value("${reaktor.calentamiento.serializaciones:20}")
+	private int serializaciones ;
+
+	/** Indica si la instancia está lista para recibir peticiones */
+	private volatile boolean listo ;
+
+	/** Duración del calentamiento, o -1 si no ha terminado */
+	private volatile long duracionMs = -1L ;
+
+	/** Indica si se ha agotado el presupuesto antes de terminar */
+	private volatile boolean presupuestoAgotado ;
+
+	/** Duración de cada tarea en milisegundos, o el error que ha producido */
+	private final Map<String, Object> tareas = new ConcurrentHashMap<>() ;
+
+	/**
+	 * Lanza el calentamiento una vez arrancada la aplicación. Se ejecuta después del resto
+	 * de tareas de arranque (índices, estadísticas, almacén en memoria) para no competir
+	 * con ellas y en un hilo aparte para no retener el arranque.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	@Order(Ordered.LOWEST_PRECEDENCE)
+	public void inicializar()
+	{
+		if (!this.activado)
+		{
+			this.listo = true ;
+			return ;
+		}
+
+		Thread hilo = new Thread(this::calentar, "calentamiento") ;
+		hilo.setDaemon(true) ;
+		hilo.start() ;
+	}
+
+	/**
+	 * Ejecuta las tareas de calentamiento en paralelo y espera como mucho el presupuesto.
+	 */
+	private void calentar()
+	{
+		long inicio = System.currentTimeMillis() ;
+
+		AtomicInteger contador = new AtomicInteger() ;
+		ExecutorService ejecutor = Executors.newFixedThreadPool(3, tarea ->
+		{
+			Thread hilo = new Thread(tarea, "calentamiento-" + contador.getAndIncrement()) ;
+			hilo.setDaemon(true) ;
+			return hilo ;
+		}) ;
+
+		try
+		{
+			CompletableFuture.allOf(this.lanzar(ejecutor, "categorias", this::calentarCategorias),
+									this.lanzar(ejecutor, "eventos", this::calentarEventos),
+									this.lanzar(ejecutor, "eventosProximos", this::calentarEventosProximos))
+							 .get(this.presupuestoMs, TimeUnit.MILLISECONDS) ;
+		}
+		catch (TimeoutException timeoutException)
+		{
+			this.presupuestoAgotado = true ;
+			log.warn("El calentamiento no ha terminado en {} ms; la instancia se da por lista igualmente", this.presupuestoMs) ;
+		}
+		catch (InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt() ;
+		}
+		catch (ExecutionException executionException)
+		{
+			// Cada tarea registra su propio error
+		}
+		finally
+		{
+			ejecutor.shutdownNow() ;
+
+			this.duracionMs = System.currentTimeMillis() - inicio ;
+			this.listo = true ;
+			log.info("Calentamiento terminado en {} ms: {}", this.duracionMs, this.tareas) ;
+		}
+	}
+
+	/**
+	 * Lanza una tarea y apunta su duración o su error.
+	 *
+	 * @param ejecutor hilos del calentamiento
+	 * @param nombre nombre de la tarea
+	 * @param tarea tarea a ejecutar
+	 * @return tarea en curso
+	 */
+	private CompletableFuture<Void> lanzar(ExecutorService ejecutor, String nombre, Runnable tarea)
+	{
+		return CompletableFuture.runAsync(() ->
+		{
+			long inicio = System.currentTimeMillis() ;
+			try
+			{
+				tarea.run() ;
+				this.tareas.put(nombre, System.currentTimeMillis() - inicio) ;
+			}
+			catch (RuntimeException runtimeException)
+			{
+				this.tareas.put(nombre, runtimeException.getClass().getSimpleName()) ;
+				log.warn("Error en la tarea de calentamiento {}", nombre, runtimeException) ;
+			}
+		}, ejecutor) ;
+	}
+
+	/**
+	 * Lee las categorías, que quedan en caché.
+	 */
+	private void calentarCategorias()
+	{
+		this.categoriaRepository.buscarCategorias() ;
+	}
+
+	/**
+	 * Lee el listado completo de eventos, que queda en caché.
+	 */
+	private void calentarEventos()
+	{
+		this.lecturaEventosService.buscarEventos() ;
+	}
+
+	/**
+	 * Lee los eventos recientes y próximos, los más consultados, y los serializa a JSON
+	 * como en las respuestas de la API.
+	 */
+	private void calentarEventosProximos()
+	{
+		Instant ahora = Instant.now() ;
+		List<EventoResponseDto> eventos = this.lecturaEventosService.buscarEventosEnRango(ahora.minus(this.diasAtras, ChronoUnit.DAYS),
+																							ahora.plus(this.diasAdelante, ChronoUnit.DAYS), null) ;
+
+		try
+		{
+			for (int i = 0 ; i < this.serializaciones ; i++)
+			{
+				this.objectMapper.writeValueAsBytes(eventos) ;
+				if (!eventos.isEmpty())
+				{
+					this.objectMapper.writeValueAsBytes(eventos.get(i % eventos.size())) ;
+				}
+			}
+		}
+		catch (JsonProcessingException jsonProcessingException)
+		{
+			throw new IllegalStateException(jsonProcessingException) ;
+		}
+	}
+
+	/**
+	 * @return true si la instancia está lista para recibir peticiones
+	 */
+	public boolean isListo()
+	{
+		return this.listo ;
+	}
+
+	/**
+	 * @return estado del calentamiento y duración de cada tarea
+	 */
+	public Map<String, Object> obtenerContadores()
+	{
+		Map<String, Object> resumen = new LinkedHashMap<>() ;
+		resumen.put("listo", this.listo) ;
+		resumen.put("activado", this.activado) ;
+		resumen.put("duracionMs", this.duracionMs) ;
+		resumen.put("presupuestoMs", this.presupuestoMs) ;
+		resumen.put("presupuestoAgotado", this.presupuestoAgotado) ;
+		resumen.put("tareas", new LinkedHashMap<>(this.tareas)) ;
+		return resumen ;
+	}
+}
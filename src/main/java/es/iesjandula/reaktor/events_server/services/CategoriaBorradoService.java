@@ -0,0 +1,140 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.CategoriaBorradoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ModoBorradoCategoria;
+import es.iesjandula.reaktor.events_server.dto.ProgresoLoteDto;
+import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio que elimina categorías tratando sus eventos mediante sentencias masivas.
+ *
+ * <p>Los eventos se reasignan o eliminan por lotes de tamaño fijo, cada uno en su
+ * propia transacción, de modo que ni se carga el grafo de eventos en el contexto de
+ * persistencia ni se mantiene abierta una única transacción gigante.</p>
+ *
+ * <p>Con los eventos repartidos en fragmentos, cada fragmento tiene su copia de las
+ * categorías: la operación se repite en todos y se suman los eventos afectados.</p>
+ */
+@Slf4j
+@Service
+public class CategoriaBorradoService
+{
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private ICategoriaRepository categoriaRepository ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	@Autowired
+	private ApplicationEventPublisher applicationEventPublisher ;
+
+	/** Número máximo de eventos modificados por cada sentencia */
+	@Value("${reaktor.categorias.borrado.tamanio-lote:1000}")
+	private int tamanioLote ;
+
+	/**
+	 * Elimina la categoría aplicando el modo indicado a sus eventos.
+	 *
+	 * <p>Las validaciones (existencia de la categoría y de la categoría destino)
+	 * corresponden al llamante.</p>
+	 *
+	 * @param nombre nombre de la categoría a eliminar
+	 * @param modo modo a aplicar a sus eventos (nulo si no tiene eventos)
+	 * @param categoriaDestino categoría destino si el modo es {@link ModoBorradoCategoria#REASIGNAR}
+	 * @param totalEventos número de eventos de la categoría, usado para informar del progreso
+	 * @return resumen de la operación con el progreso tras cada lote
+	 * @throws EventsServerException si se crean eventos en la categoría mientras se elimina
+	 */
+	public CategoriaBorradoResponseDto eliminar(String nombre, ModoBorradoCategoria modo, String categoriaDestino, long totalEventos) throws EventsServerException
+	{
+		List<ProgresoLoteDto> progreso = Collections.synchronizedList(new ArrayList<>()) ;
+		try
+		{
+			this.fragmentosEventos.enTodos(() -> this.eliminarEnFragmento(nombre, modo, categoriaDestino, totalEventos, progreso)) ;
+		}
+		finally
+		{
+			if (!progreso.isEmpty())
+			{
+				this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.masivo()) ;
+			}
+		}
+
+		long eventosAfectados = progreso.isEmpty() ? 0 : progreso.get(progreso.size() - 1).getEventosProcesados() ;
+
+		return new CategoriaBorradoResponseDto(nombre, modo, modo == ModoBorradoCategoria.REASIGNAR ? categoriaDestino : null, eventosAfectados, progreso.size(), progreso) ;
+	}
+
+	/**
+	 * Trata los eventos de la categoría y la elimina en la base de datos actual.
+	 *
+	 * <p>Si entre el último lote y el borrado de la categoría se crea un evento en ella, la
+	 * clave ajena impide borrarla y se responde con un conflicto en lugar de un error de
+	 * servidor: repetir la operación trata los eventos nuevos.</p>
+	 *
+	 * @param nombre nombre de la categoría a eliminar
+	 * @param modo modo a aplicar a sus eventos (nulo si no tiene eventos)
+	 * @param categoriaDestino categoría destino si el modo es {@link ModoBorradoCategoria#REASIGNAR}
+	 * @param totalEventos número total de eventos de la categoría, usado para informar del progreso
+	 * @param progreso progreso acumulado, al que se añade cada lote
+	 * @return null
+	 * @throws EventsServerException si se crean eventos en la categoría mientras se elimina
+	 */
+	private Void eliminarEnFragmento(String nombre, ModoBorradoCategoria modo, String categoriaDestino, long totalEventos,
+									 List<ProgresoLoteDto> progreso) throws EventsServerException
+	{
+		if (modo != null && totalEventos > 0)
+		{
+			int afectadosLote ;
+			do
+			{
+				if (modo == ModoBorradoCategoria.REASIGNAR)
+				{
+					afectadosLote = this.eventoRepository.reasignarCategoriaLote(nombre, categoriaDestino, this.tamanioLote) ;
+				}
+				else
+				{
+					afectadosLote = this.eventoRepository.eliminarPorCategoriaLote(nombre, this.tamanioLote) ;
+				}
+
+				if (afectadosLote > 0)
+				{
+					long procesados = (progreso.isEmpty() ? 0 : progreso.get(progreso.size() - 1).getEventosProcesados()) + afectadosLote ;
+					progreso.add(new ProgresoLoteDto(progreso.size() + 1, afectadosLote, procesados, totalEventos)) ;
+
+					log.info("Borrado de categoría {} ({}): lote {} con {} eventos, {}/{} eventos procesados",
+							 nombre, modo, progreso.size(), afectadosLote, procesados, totalEventos) ;
+				}
+			}
+			while (afectadosLote == this.tamanioLote) ;
+		}
+
+		try
+		{
+			this.categoriaRepository.eliminarCategoria(nombre) ;
+		}
+		catch (DataIntegrityViolationException dataIntegrityViolationException)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_EVENTOS_NUEVOS_CODE, Constants.ERR_CATEGORIA_EVENTOS_NUEVOS) ;
+		}
+
+		return null ;
+	}
+}
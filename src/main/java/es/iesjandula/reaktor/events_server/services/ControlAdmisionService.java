@@ -0,0 +1,260 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Control de admisión de peticiones delante del pool de conexiones.
+ *
+ * <p>Aplica dos límites:</p>
+ * <ul>
+ *   <li>Un cubo de tokens por usuario (email), que limita su ritmo de peticiones y le
+ *   permite una pequeña ráfaga.</li>
+ *   <li>Un máximo de peticiones concurrentes contra la base de datos. Si no hay hueco
+ *   se rechaza al momento en lugar de esperar al timeout de conexión de Hikari.</li>
+ * </ul>
+ *
+ * <p>Las exportaciones tienen su propio máximo: ocupan una conexión mientras dura la
+ * descarga, que puede ser larga, y con el límite general dejarían sin hueco al resto de
+ * peticiones.</p>
+ *
+ * <p>Lleva la cuenta de los rechazos para poder ajustar los límites.</p>
+ */
+@Service
+public class ControlAdmisionService
+{
+	/** Tiempo sin peticiones tras el que se descarta el cubo de un usuario */
+	private static final long INACTIVIDAD_CUBO_MS = TimeUnit.MINUTES.toMillis(5) ;
+
+	/** Peticiones por segundo que se reponen en el cubo de cada usuario */
+	@Value("${reaktor.admision.peticiones-por-segundo:5}")
+	private double peticionesPorSegundo ;
+
+	/** Capacidad del cubo de cada usuario (ráfaga máxima) */
+	@Value("${reaktor.admision.rafaga:20}")
+	private int rafaga ;
+
+	/** Peticiones concurrentes máximas contra la base de datos */
+	@Value("${reaktor.admision.max-concurrentes:4}")
+	private int maxConcurrentes ;
+
+	/** Exportaciones concurrentes máximas */
+	@Value("${reaktor.admision.max-exportaciones:2}")
+	private int maxExportaciones ;
+
+	/** Tiempo máximo de espera por un hueco de concurrencia antes de rechazar */
+	@Value("${reaktor.admision.espera-concurrencia-ms:50}")
+	private long esperaConcurrenciaMs ;
+
+	/** Cubo de tokens de cada usuario */
+	private final Map<String, CuboTokens> cubos = new ConcurrentHashMap<>() ;
+
+	/** Rechazos por límite de usuario de cada usuario */
+	private final Map<String, LongAdder> rechazosPorUsuario = new ConcurrentHashMap<>() ;
+
+	/** Peticiones admitidas */
+	private final AtomicLong admitidas = new AtomicLong() ;
+
+	/** Peticiones rechazadas por superar el límite de usuario (429) */
+	private final AtomicLong rechazadasLimiteUsuario = new AtomicLong() ;
+
+	/** Peticiones rechazadas por falta de hueco de concurrencia (503) */
+	private final AtomicLong rechazadasSaturacion = new AtomicLong() ;
+
+	/** Exportaciones rechazadas por haber demasiadas en curso (503) */
+	private final AtomicLong rechazadasExportaciones = new AtomicLong() ;
+
+	/** Huecos de concurrencia contra la base de datos */
+	private Semaphore huecos ;
+
+	/** Huecos de las exportaciones */
+	private Semaphore huecosExportacion ;
+
+	/**
+	 * Crea los semáforos con los máximos de concurrencia configurados.
+	 */
+	@PostConstruct
+	public void inicializar()
+	{
+		this.huecos            = new Semaphore(this.maxConcurrentes) ;
+		this.huecosExportacion = new Semaphore(this.maxExportaciones) ;
+	}
+
+	/**
+	 * Consume un token del cubo del usuario.
+	 *
+	 * @param usuario clave del usuario (email o dirección remota)
+	 * @return 0 si se admite la petición, o los milisegundos a esperar hasta el siguiente token
+	 */
+	public long consumirToken(String usuario)
+	{
+		long ahora  = System.currentTimeMillis() ;
+		CuboTokens cubo = this.cubos.computeIfAbsent(usuario, clave -> new CuboTokens(this.rafaga, ahora)) ;
+		long espera = cubo.consumir(ahora, this.rafaga, this.peticionesPorSegundo) ;
+
+		if (espera > 0)
+		{
+			this.rechazadasLimiteUsuario.incrementAndGet() ;
+			this.rechazosPorUsuario.computeIfAbsent(usuario, clave -> new LongAdder()).increment() ;
+		}
+		return espera ;
+	}
+
+	/**
+	 * Intenta ocupar un hueco de concurrencia esperando como mucho el tiempo configurado.
+	 *
+	 * @return true si se ha ocupado el hueco (hay que liberarlo después)
+	 */
+	public boolean ocuparHueco()
+	{
+		boolean ocupado ;
+		try
+		{
+			ocupado = this.huecos.tryAcquire(this.esperaConcurrenciaMs, TimeUnit.MILLISECONDS) ;
+		}
+		catch (InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt() ;
+			ocupado = false ;
+		}
+
+		if (ocupado)
+		{
+			this.admitidas.incrementAndGet() ;
+		}
+		else
+		{
+			this.rechazadasSaturacion.incrementAndGet() ;
+		}
+		return ocupado ;
+	}
+
+	/**
+	 * Libera un hueco de concurrencia ocupado previamente.
+	 */
+	public void liberarHueco()
+	{
+		this.huecos.release() ;
+	}
+
+	/**
+	 * Intenta ocupar un hueco de exportación, sin esperar.
+	 *
+	 * @return true si se ha ocupado el hueco (hay que liberarlo después)
+	 */
+	public boolean ocuparHuecoExportacion()
+	{
+		boolean ocupado = this.huecosExportacion.tryAcquire() ;
+		if (ocupado)
+		{
+			this.admitidas.incrementAndGet() ;
+		}
+		else
+		{
+			this.rechazadasExportaciones.incrementAndGet() ;
+		}
+		return ocupado ;
+	}
+
+	/**
+	 * Libera un hueco de exportación ocupado previamente.
+	 */
+	public void liberarHuecoExportacion()
+	{
+		this.huecosExportacion.release() ;
+	}
+
+	/**
+	 * Descarta los cubos de los usuarios que llevan un tiempo sin hacer peticiones.
+	 */
+	@Scheduled(fixedDelay = 60000)
+	public void limpiarCubosInactivos()
+	{
+		long limite = System.currentTimeMillis() - INACTIVIDAD_CUBO_MS ;
+		this.cubos.values().removeIf(cubo -> cubo.getUltimoAcceso() < limite) ;
+	}
+
+	/**
+	 * @return contadores de admisión y límites configurados
+	 */
+	public Map<String, Object> obtenerContadores()
+	{
+		Map<String, Long> rechazosUsuarios = new LinkedHashMap<>() ;
+		this.rechazosPorUsuario.forEach((usuario, total) -> rechazosUsuarios.put(usuario, total.sum())) ;
+
+		Map<String, Object> contadores = new LinkedHashMap<>() ;
+		contadores.put("admitidas", this.admitidas.get()) ;
+		contadores.put("rechazadasLimiteUsuario", this.rechazadasLimiteUsuario.get()) ;
+		contadores.put("rechazadasSaturacion", this.rechazadasSaturacion.get()) ;
+		contadores.put("rechazadasExportaciones", this.rechazadasExportaciones.get()) ;
+		contadores.put("concurrentesEnCurso", this.maxConcurrentes - this.huecos.availablePermits()) ;
+		contadores.put("exportacionesEnCurso", this.maxExportaciones - this.huecosExportacion.availablePermits()) ;
+		contadores.put("usuariosActivos", this.cubos.size()) ;
+		contadores.put("rechazosPorUsuario", rechazosUsuarios) ;
+		contadores.put("peticionesPorSegundo", this.peticionesPorSegundo) ;
+		contadores.put("rafaga", this.rafaga) ;
+		contadores.put("maxConcurrentes", this.maxConcurrentes) ;
+		contadores.put("maxExportaciones", this.maxExportaciones) ;
+		return contadores ;
+	}
+
+	/**
+	 * Cubo de tokens de un usuario.
+	 */
+	private static class CuboTokens
+	{
+		/** Tokens disponibles */
+		private double tokens ;
+
+		/** Momento de la última reposición */
+		private long ultimaRecarga ;
+
+		/**
+		 * @param capacidad tokens iniciales
+		 * @param ahora momento actual
+		 */
+		private CuboTokens(int capacidad, long ahora)
+		{
+			this.tokens        = capacidad ;
+			this.ultimaRecarga = ahora ;
+		}
+
+		/**
+		 * @param ahora momento actual
+		 * @param capacidad capacidad máxima del cubo
+		 * @param porSegundo tokens repuestos por segundo
+		 * @return 0 si se ha consumido un token, o los milisegundos hasta el siguiente
+		 */
+		private synchronized long consumir(long ahora, int capacidad, double porSegundo)
+		{
+			this.tokens        = Math.min(capacidad, this.tokens + (ahora - this.ultimaRecarga) * porSegundo / 1000.0) ;
+			this.ultimaRecarga = ahora ;
+
+			if (this.tokens >= 1.0)
+			{
+				this.tokens -= 1.0 ;
+				return 0L ;
+			}
+			return Math.max(1L, (long) Math.ceil((1.0 - this.tokens) * 1000.0 / porSegundo)) ;
+		}
+
+		/**
+		 * @return momento de la última petición
+		 */
+		private synchronized long getUltimoAcceso()
+		{
+			return this.ultimaRecarga ;
+		}
+	}
+}
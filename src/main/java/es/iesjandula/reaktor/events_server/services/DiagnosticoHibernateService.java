@@ -0,0 +1,175 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.utils.MedicionSentencias;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Acumula por endpoint las sentencias SQL, entidades cargadas y flushes medidos en cada
+ * petición y los expone junto con las estadísticas globales de Hibernate (si están
+ * activadas con hibernate.generate_statistics, que solo lo están con el perfil
+ * "diagnostico").
+ */
+@Service
+public class DiagnosticoHibernateService
+{
+	@Autowired
+	private EntityManagerFactory entityManagerFactory ;
+
+	@Autowired
+	private CacheInvalidacionService cacheInvalidacionService ;
+
+	@Autowired
+	private VerificadorIndicesService verificadorIndicesService ;
+
+	@Autowired
+	private LecturasCoalescidasService lecturasCoalescidasService ;
+
+	@Autowired
+	private RegistroAccesoService registroAccesoService ;
+
+	@Autowired
+	private AlmacenColumnarEventos almacenColumnarEventos ;
+
+	@Autowired
+	private CalentamientoService calentamientoService ;
+
+	/** Acumulados de cada endpoint */
+	private final Map<String, AcumuladoEndpoint> endpoints = new ConcurrentHashMap<>() ;
+
+	/**
+	 * Registra la medición de una petición.
+	 *
+	 * @param endpoint nombre del endpoint (Controlador.metodo)
+	 * @param medicion medición de la petición
+	 * @param excedido true si ha superado el máximo de sentencias permitido
+	 */
+	public void registrar(String endpoint, MedicionSentencias medicion, boolean excedido)
+	{
+		AcumuladoEndpoint acumulado = this.endpoints.computeIfAbsent(endpoint, clave -> new AcumuladoEndpoint()) ;
+
+		acumulado.peticiones.increment() ;
+		acumulado.sentencias.add(medicion.getSentencias()) ;
+		acumulado.maximoSentencias.accumulate(medicion.getSentencias()) ;
+		acumulado.entidadesCargadas.add(medicion.getEntidadesCargadas()) ;
+		acumulado.maximoEntidadesCargadas.accumulate(medicion.getEntidadesCargadas()) ;
+		acumulado.flushes.add(medicion.getFlushes()) ;
+		if (excedido)
+		{
+			acumulado.excesos.increment() ;
+		}
+	}
+
+	/**
+	 * @return acumulados por endpoint, estadísticas globales de Hibernate, contadores de la caché
+	 *         y resultado de la verificación de índices
+	 */
+	public Map<String, Object> obtenerResumen()
+	{
+		Map<String, Object> porEndpoint = new TreeMap<>() ;
+		this.endpoints.forEach((endpoint, acumulado) -> porEndpoint.put(endpoint, acumulado.resumir())) ;
+
+		Map<String, Object> resumen = new LinkedHashMap<>() ;
+		resumen.put("endpoints", porEndpoint) ;
+		resumen.put("hibernate", this.resumirEstadisticasHibernate()) ;
+		resumen.put("invalidacionCache", this.cacheInvalidacionService.obtenerContadores()) ;
+		resumen.put("coalescencia", this.lecturasCoalescidasService.obtenerContadores()) ;
+		resumen.put("registroAcceso", this.registroAccesoService.obtenerContadores()) ;
+		resumen.put("almacenColumnar", this.almacenColumnarEventos.obtenerContadores()) ;
+		resumen.put("calentamiento", this.calentamientoService.obtenerContadores()) ;
+		resumen.put("indices", this.verificadorIndicesService.obtenerResultados()) ;
+		return resumen ;
+	}
+
+	/**
+	 * Vacía los acumulados por endpoint y las estadísticas globales de Hibernate.
+	 */
+	public void reiniciar()
+	{
+		this.endpoints.clear() ;
+		this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics().clear() ;
+	}
+
+	/**
+	 * @return estadísticas globales de Hibernate, o solo el indicador de activación si están desactivadas
+	 */
+	private Map<String, Object> resumirEstadisticasHibernate()
+	{
+		Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics() ;
+
+		Map<String, Object> resumen = new LinkedHashMap<>() ;
+		resumen.put("activadas", statistics.isStatisticsEnabled()) ;
+		if (statistics.isStatisticsEnabled())
+		{
+			resumen.put("sentenciasPreparadas", statistics.getPrepareStatementCount()) ;
+			resumen.put("consultas", statistics.getQueryExecutionCount()) ;
+			resumen.put("consultaMasLenta", statistics.getQueryExecutionMaxTimeQueryString()) ;
+			resumen.put("consultaMasLentaMs", statistics.getQueryExecutionMaxTime()) ;
+			resumen.put("entidadesCargadas", statistics.getEntityLoadCount()) ;
+			resumen.put("entidadesObtenidas", statistics.getEntityFetchCount()) ;
+			resumen.put("coleccionesCargadas", statistics.getCollectionLoadCount()) ;
+			resumen.put("coleccionesObtenidas", statistics.getCollectionFetchCount()) ;
+			resumen.put("flushes", statistics.getFlushCount()) ;
+			resumen.put("transacciones", statistics.getTransactionCount()) ;
+			resumen.put("conexiones", statistics.getConnectCount()) ;
+		}
+		return resumen ;
+	}
+
+	/**
+	 * Acumulados de un endpoint.
+	 */
+	private static class AcumuladoEndpoint
+	{
+		/** Peticiones medidas */
+		private final LongAdder peticiones = new LongAdder() ;
+
+		/** Sentencias SQL de todas las peticiones */
+		private final LongAdder sentencias = new LongAdder() ;
+
+		/** Máximo de sentencias en una petición */
+		private final LongAccumulator maximoSentencias = new LongAccumulator(Math::max, 0L) ;
+
+		/** Entidades cargadas en todas las peticiones */
+		private final LongAdder entidadesCargadas = new LongAdder() ;
+
+		/** Máximo de entidades cargadas en una petición */
+		private final LongAccumulator maximoEntidadesCargadas = new LongAccumulator(Math::max, 0L) ;
+
+		/** Flushes de todas las peticiones */
+		private final LongAdder flushes = new LongAdder() ;
+
+		/** Peticiones que han superado el máximo de sentencias */
+		private final LongAdder excesos = new LongAdder() ;
+
+		/**
+		 * @return valores acumulados
+		 */
+		private Map<String, Object> resumir()
+		{
+			long totalPeticiones = this.peticiones.sum() ;
+
+			Map<String, Object> resumen = new LinkedHashMap<>() ;
+			resumen.put("peticiones", totalPeticiones) ;
+			resumen.put("sentencias", this.sentencias.sum()) ;
+			resumen.put("mediaSentencias", totalPeticiones > 0 ? (double) this.sentencias.sum() / totalPeticiones : 0.0) ;
+			resumen.put("maximoSentencias", this.maximoSentencias.get()) ;
+			resumen.put("entidadesCargadas", this.entidadesCargadas.sum()) ;
+			resumen.put("maximoEntidadesCargadas", this.maximoEntidadesCargadas.get()) ;
+			resumen.put("flushes", this.flushes.sum()) ;
+			resumen.put("excesos", this.excesos.sum()) ;
+			return resumen ;
+		}
+	}
+}
@@ -0,0 +1,352 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.EstadisticaEventosDto;
+import es.iesjandula.reaktor.events_server.dto.EstadisticasEventosResponseDto;
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Contadores en memoria del número de eventos por categoría, por profesor y por mes.
+ *
+ * <p>Se actualizan de forma incremental con cada {@link EventoCambioNotificacion}, por lo
+ * que leer un contador cuesta una consulta a un mapa. Al arrancar, tras los cambios
+ * masivos y periódicamente se reconstruyen desde cero con consultas agregadas para
+ * corregir cualquier desviación.</p>
+ *
+ * <p>Un recuento agregado no dice qué cambios incluye, así que los que se notifican
+ * mientras se cuenta no se pueden aplicar encima sin arriesgarse a contarlos dos veces.
+ * Por eso cada cambio lleva un número de secuencia: si ha cambiado entre el inicio del
+ * recuento y un rato después de terminarlo, se espera a que las notificaciones se asienten
+ * y se vuelve a contar.</p>
+ */
+@Slf4j
+@Service
+public class EstadisticasEventosService
+{
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	/** Contadores en uso; se sustituyen completos al reconstruir */
+	private volatile Contadores contadores = new Contadores() ;
+
+	/** Cerrojo de los cambios incrementales y de la sustitución de los contadores */
+	private final Object cerrojo = new Object() ;
+
+	/** Número de cambios incrementales recibidos, para saber si alguno coincide con un recuento */
+	private long secuenciaCambios ;
+
+	/** Tiempo que se espera tras un recuento para que lleguen las notificaciones de lo ya confirmado */
+	@Value("${reaktor.estadisticas.espera-asentamiento-ms:500}")
+	private long esperaAsentamientoMs ;
+
+	/** Recuentos que se intentan antes de quedarse con el último aunque haya habido cambios */
+	@Value("${reaktor.estadisticas.max-intentos-reconstruccion:5}")
+	private int maxIntentosReconstruccion ;
+
+	/** Indica si hay una reconstrucción pedida que aún no ha empezado */
+	private final AtomicBoolean reconstruccionPendiente = new AtomicBoolean() ;
+
+	/** Hilo de las reconstrucciones provocadas por cambios masivos o remotos */
+	private final ExecutorService reconstructor = Executors.newSingleThreadExecutor(tarea ->
+	{
+		Thread hilo = new Thread(tarea, "estadisticas-eventos") ;
+		hilo.setDaemon(true) ;
+		return hilo ;
+	}) ;
+
+	/**
+	 * Construye los contadores una vez arrancada la aplicación.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void inicializar()
+	{
+		this.solicitarReconstruccion() ;
+	}
+
+	/**
+	 * Actualiza los contadores tras un cambio en los eventos.
+	 *
+	 * @param notificacion cambio producido
+	 */
+	@EventListener
+	public void onEventoCambio(EventoCambioNotificacion notificacion)
+	{
+		switch (notificacion.getTipo())
+		{
+			case CREADO:
+				this.sumar(notificacion.getEvento(), 1) ;
+				break ;
+			case ELIMINADO:
+				this.sumar(notificacion.getEvento(), -1) ;
+				break ;
+			default:
+				this.solicitarReconstruccion() ;
+				break ;
+		}
+	}
+
+	/**
+	 * Pide una reconstrucción en segundo plano. Si ya hay una pedida que no ha empezado,
+	 * esta se junta con ella.
+	 */
+	public void solicitarReconstruccion()
+	{
+		if (this.reconstruccionPendiente.compareAndSet(false, true))
+		{
+			this.reconstructor.execute(() ->
+			{
+				// Las peticiones que lleguen a partir de aquí necesitan otro recuento
+				this.reconstruccionPendiente.set(false) ;
+				try
+				{
+					this.reconstruir() ;
+				}
+				catch (RuntimeException runtimeException)
+				{
+					log.error("No se han podido reconstruir las estadísticas de eventos", runtimeException) ;
+				}
+			}) ;
+		}
+	}
+
+	/**
+	 * Reconstruye periódicamente los contadores desde base de datos.
+	 */
+	@Scheduled(cron = "${reaktor.estadisticas.cron-reconstruccion:0 0 4 * * *}")
+	public void reconstruccionProgramada()
+	{
+		this.reconstruir() ;
+	}
+
+	/**
+	 * Aplica un cambio a los contadores en uso y avanza la secuencia de cambios.
+	 *
+	 * @param evento evento creado o eliminado
+	 * @param incremento 1 si se ha creado, -1 si se ha eliminado
+	 */
+	private void sumar(EventoResponseDto evento, int incremento)
+	{
+		synchronized (this.cerrojo)
+		{
+			this.contadores.sumar(evento, incremento) ;
+			this.secuenciaCambios++ ;
+		}
+	}
+
+	/**
+	 * Recalcula todos los contadores con consultas agregadas y los sustituye de una vez.
+	 * Con fragmentos, los recuentos de cada uno se suman.
+	 *
+	 * <p>Si llega algún cambio desde que empieza el recuento hasta que pasa la espera de
+	 * asentamiento, no se sabe si el recuento lo incluye: se descarta y se vuelve a contar.
+	 * Tras el último intento se sustituyen igualmente y la siguiente reconstrucción
+	 * corrige la posible desviación.</p>
+	 */
+	public synchronized void reconstruir()
+	{
+		Contadores nuevos = null ;
+		boolean asentado = false ;
+		int intento = 0 ;
+
+		while (!asentado)
+		{
+			intento++ ;
+
+			long secuenciaInicial = this.leerSecuencia() ;
+
+			nuevos = new Contadores() ;
+			cargar(nuevos.porCategoria, this.fragmentosEventos.reunir(() -> this.eventoRepository.contarEventosAgrupadosPorCategoria())) ;
+			cargar(nuevos.porProfesor, this.fragmentosEventos.reunir(() -> this.eventoRepository.contarEventosAgrupadosPorUsuario())) ;
+			cargar(nuevos.porMes, this.fragmentosEventos.reunir(() -> this.eventoRepository.contarEventosAgrupadosPorMes())) ;
+
+			// Da tiempo a que se notifiquen los cambios confirmados antes o durante el recuento
+			esperar(this.esperaAsentamientoMs) ;
+
+			synchronized (this.cerrojo)
+			{
+				asentado = this.secuenciaCambios == secuenciaInicial || intento >= this.maxIntentosReconstruccion ;
+				if (asentado)
+				{
+					this.contadores = nuevos ;
+				}
+			}
+		}
+
+		log.info("Estadísticas de eventos reconstruidas en {} intentos: {} categorías, {} profesores, {} meses",
+				 intento, nuevos.porCategoria.size(), nuevos.porProfesor.size(), nuevos.porMes.size()) ;
+	}
+
+	/**
+	 * @return número de cambios incrementales recibidos hasta ahora
+	 */
+	private long leerSecuencia()
+	{
+		synchronized (this.cerrojo)
+		{
+			return this.secuenciaCambios ;
+		}
+	}
+
+	/**
+	 * @param milisegundos tiempo de espera
+	 */
+	private static void esperar(long milisegundos)
+	{
+		try
+		{
+			Thread.sleep(milisegundos) ;
+		}
+		catch (InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt() ;
+		}
+	}
+
+	/**
+	 * @param categoria nombre de la categoría
+	 * @return número de eventos de la categoría
+	 */
+	public long contarPorCategoria(String categoria)
+	{
+		return valor(this.contadores.porCategoria, categoria) ;
+	}
+
+	/**
+	 * @param usuarioEmail email del profesor
+	 * @return número de eventos del profesor
+	 */
+	public long contarPorProfesor(String usuarioEmail)
+	{
+		return valor(this.contadores.porProfesor, usuarioEmail) ;
+	}
+
+	/**
+	 * @param mes mes en formato yyyy-MM
+	 * @return número de eventos que empiezan en ese mes
+	 */
+	public long contarPorMes(String mes)
+	{
+		return valor(this.contadores.porMes, mes) ;
+	}
+
+	/**
+	 * @return copia de todos los contadores, ordenados por clave
+	 */
+	public EstadisticasEventosResponseDto obtenerTodas()
+	{
+		Contadores actuales = this.contadores ;
+
+		return new EstadisticasEventosResponseDto(copiar(actuales.porCategoria), copiar(actuales.porProfesor), copiar(actuales.porMes)) ;
+	}
+
+	/**
+	 * @param fechaInicio fecha de inicio del evento en milisegundos
+	 * @return clave del mes en formato yyyy-MM en la zona horaria del servidor
+	 */
+	private static String claveMes(long fechaInicio)
+	{
+		return YearMonth.from(Instant.ofEpochMilli(fechaInicio).atZone(ZoneId.systemDefault())).toString() ;
+	}
+
+	/**
+	 * @param destino contadores a rellenar
+	 * @param grupos resultado de una consulta agregada
+	 */
+	private static void cargar(Map<String, LongAdder> destino, List<EstadisticaEventosDto> grupos)
+	{
+		for (EstadisticaEventosDto grupo : grupos)
+		{
+			if (grupo.getClave() != null)
+			{
+				destino.computeIfAbsent(grupo.getClave(), clave -> new LongAdder()).add(grupo.getTotal()) ;
+			}
+		}
+	}
+
+	/**
+	 * @param mapa contadores
+	 * @param clave clave buscada
+	 * @return valor del contador, o 0 si no existe
+	 */
+	private static long valor(Map<String, LongAdder> mapa, String clave)
+	{
+		LongAdder contador = clave != null ? mapa.get(clave) : null ;
+		return contador != null ? contador.sum() : 0L ;
+	}
+
+	/**
+	 * @param mapa contadores
+	 * @return copia ordenada sin los contadores a cero
+	 */
+	private static Map<String, Long> copiar(Map<String, LongAdder> mapa)
+	{
+		Map<String, Long> copia = new TreeMap<>() ;
+		mapa.forEach((clave, contador) ->
+		{
+			long total = contador.sum() ;
+			if (total > 0)
+			{
+				copia.put(clave, total) ;
+			}
+		}) ;
+		return copia ;
+	}
+
+	/**
+	 * Conjunto de contadores por categoría, profesor y mes.
+	 */
+	private static class Contadores
+	{
+		/** Eventos por categoría */
+		private final Map<String, LongAdder> porCategoria = new ConcurrentHashMap<>() ;
+
+		/** Eventos por email del profesor */
+		private final Map<String, LongAdder> porProfesor = new ConcurrentHashMap<>() ;
+
+		/** Eventos por mes de inicio */
+		private final Map<String, LongAdder> porMes = new ConcurrentHashMap<>() ;
+
+		/**
+		 * @param evento evento creado o eliminado
+		 * @param incremento 1 al crear, -1 al eliminar
+		 */
+		private void sumar(EventoResponseDto evento, int incremento)
+		{
+			if (evento.getNombre() != null)
+			{
+				this.porCategoria.computeIfAbsent(evento.getNombre(), clave -> new LongAdder()).add(incremento) ;
+			}
+			if (evento.getUsuarioEmail() != null)
+			{
+				this.porProfesor.computeIfAbsent(evento.getUsuarioEmail(), clave -> new LongAdder()).add(incremento) ;
+			}
+			if (evento.getFechaInicio() > 0)
+			{
+				this.porMes.computeIfAbsent(claveMes(evento.getFechaInicio()), clave -> new LongAdder()).add(incremento) ;
+			}
+		}
+	}
+}
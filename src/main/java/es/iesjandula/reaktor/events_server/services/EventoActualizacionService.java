@@ -0,0 +1,156 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.dto.EventoRequestDto;
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.models.Evento;
+import es.iesjandula.reaktor.events_server.models.ids.EventoId;
+import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventoValidador;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de modificación de eventos con control de concurrencia optimista.
+ *
+ * <p>El título y la fecha de inicio forman parte de la clave del evento, así que cambiarlos
+ * es reescribir la clave. La modificación se hace con una única sentencia UPDATE que
+ * comprueba la versión leída por el cliente: si otro usuario ha modificado el evento entre
+ * medias no se actualiza nada y se responde con un conflicto en lugar de perder su cambio.</p>
+ */
+@Slf4j
+@Service
+public class EventoActualizacionService
+{
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private ICategoriaRepository categoriaRepository ;
+
+	@Autowired
+	private ApplicationEventPublisher applicationEventPublisher ;
+
+	/**
+	 * Modifica un evento. Los campos nulos de la petición conservan su valor actual.
+	 *
+	 * @param titulo título actual del evento
+	 * @param fechaInicio fecha de inicio actual del evento en milisegundos
+	 * @param usuarioEmail propietario del evento (opcional; por defecto, el usuario autenticado)
+	 * @param cambios nuevos valores y versión leída por el cliente
+	 * @param usuario usuario que hace la modificación
+	 * @return evento modificado con su nueva versión
+	 * @throws EventsServerException si los datos no son válidos, no hay permiso, el evento no existe o hay un conflicto de versión
+	 */
+	public EventoResponseDto actualizar(String titulo, Long fechaInicio, String usuarioEmail, EventoRequestDto cambios, DtoUsuarioExtended usuario) throws EventsServerException
+	{
+		if (titulo == null || titulo.isEmpty())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_TITULO_NULO_VACIO_CODE, Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
+		}
+		if (fechaInicio == null || fechaInicio <= 0)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
+		}
+		if (cambios == null || cambios.getVersion() == null)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_VERSION_NULA_CODE, Constants.ERR_EVENTO_VERSION_NULA) ;
+		}
+
+		// Control de permisos
+		// ADMIN puede modificar cualquier evento
+		// PROFESOR solo los suyos
+		String propietario = usuarioEmail != null ? usuarioEmail : usuario.getEmail() ;
+		if (!usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR) && !usuario.getEmail().equals(propietario))
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_CODE, Constants.ERR_EVENTO_USUARIO_NO_PERMITIDO_DESC) ;
+		}
+
+		EventoId eventoId = new EventoId(titulo, Instant.ofEpochMilli(fechaInicio), propietario) ;
+		Optional<Evento> optionalEvento = this.eventoRepository.findById(eventoId) ;
+		if (!optionalEvento.isPresent())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_NO_EXISTE) ;
+		}
+
+		Evento evento = optionalEvento.get() ;
+		if (evento.getVersion() != cambios.getVersion())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_CONFLICTO_VERSION_CODE, Constants.ERR_EVENTO_CONFLICTO_VERSION) ;
+		}
+
+		EventoResponseDto anterior = toResponseDto(evento) ;
+
+		// Los campos que no llegan conservan su valor actual
+		String nuevoTitulo     = cambios.getTitulo() != null ? cambios.getTitulo() : anterior.getTitulo() ;
+		Long nuevaFechaInicio  = cambios.getFechaInicio() != null ? cambios.getFechaInicio() : anterior.getFechaInicio() ;
+		Long nuevaFechaFin     = cambios.getFechaFin() != null ? cambios.getFechaFin() : anterior.getFechaFin() ;
+		String nuevaCategoria  = cambios.getNombre() != null ? cambios.getNombre() : anterior.getNombre() ;
+
+		EventoValidador.validarCrearEvento(nuevoTitulo, nuevaFechaInicio, nuevaFechaFin, nuevaCategoria) ;
+
+		if (!nuevaCategoria.equals(anterior.getNombre()) && !this.categoriaRepository.existsById(nuevaCategoria))
+		{
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NO_EXISTE) ;
+		}
+
+		EventoId nuevoEventoId = new EventoId(nuevoTitulo, Instant.ofEpochMilli(nuevaFechaInicio), propietario) ;
+
+		// MySQL compara la clave sin distinguir mayúsculas ni tildes: cambiar solo eso no choca con el propio evento
+		boolean cambiaClave = !EventoValidador.claveNormalizada(nuevoTitulo, nuevaFechaInicio).equals(EventoValidador.claveNormalizada(titulo, fechaInicio)) ;
+		if (cambiaClave && this.eventoRepository.existsById(nuevoEventoId))
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_EXISTE) ;
+		}
+
+		int modificados ;
+		try
+		{
+			modificados = this.eventoRepository.actualizarEvento(titulo, eventoId.getFechaInicio(), propietario, cambios.getVersion(),
+																  nuevoTitulo, nuevoEventoId.getFechaInicio(), Instant.ofEpochMilli(nuevaFechaFin), nuevaCategoria) ;
+		}
+		catch (DataIntegrityViolationException dataIntegrityViolationException)
+		{
+			// Otro usuario ha creado un evento con la nueva clave entre la comprobación y la modificación
+			throw new EventsServerException(Constants.ERR_EVENTO_CODE, Constants.ERR_EVENTO_EXISTE, dataIntegrityViolationException) ;
+		}
+
+		if (modificados == 0)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_CONFLICTO_VERSION_CODE, Constants.ERR_EVENTO_CONFLICTO_VERSION) ;
+		}
+
+		EventoResponseDto actualizado = new EventoResponseDto(nuevoTitulo, nuevoEventoId.getFechaInicio(), Instant.ofEpochMilli(nuevaFechaFin), nuevaCategoria,
+															  propietario, anterior.getUsuarioNombre(), anterior.getUsuarioApellidos(), cambios.getVersion() + 1) ;
+
+		// Las estructuras en memoria se actualizan como un borrado del evento anterior y una creación del nuevo
+		this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.eliminado(anterior)) ;
+		this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.creado(actualizado)) ;
+
+		log.info("Evento modificado: {} -> {} (versión {})", eventoId, nuevoEventoId, actualizado.getVersion()) ;
+		return actualizado ;
+	}
+
+	/**
+	 * @param evento evento cargado
+	 * @return DTO del evento con su versión
+	 */
+	private static EventoResponseDto toResponseDto(Evento evento)
+	{
+		String nombreCategoria = evento.getCategoria() != null ? evento.getCategoria().getNombre() : null ;
+
+		return new EventoResponseDto(evento.getEventoId().getTitulo(), evento.getEventoId().getFechaInicio(), evento.getFechaFin(), nombreCategoria,
+									 evento.getEventoId().getUsuarioEmail(), evento.getUsuarioNombre(), evento.getUsuarioApellidos(), evento.getVersion()) ;
+	}
+}
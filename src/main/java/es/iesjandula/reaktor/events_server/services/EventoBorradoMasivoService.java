@@ -0,0 +1,111 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.BorradoMasivoResponseDto;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio que elimina eventos en bloque mediante sentencias masivas por lotes.
+ *
+ * <p>Cada lote es una única sentencia DELETE con LIMIT en su propia transacción, de modo
+ * que no se cargan entidades ni se mantiene una transacción gigante.</p>
+ *
+ * <p>Con los eventos repartidos en fragmentos, el borrado de un propietario se ejecuta en
+ * su fragmento y el de todos los propietarios en cada fragmento, sumando los resultados.</p>
+ */
+@Slf4j
+@Service
+public class EventoBorradoMasivoService
+{
+	/** Fecha usada cuando no se indica inicio del rango */
+	private static final Instant FECHA_MINIMA = Instant.ofEpochMilli(1L) ;
+
+	/** Fecha usada cuando no se indica fin del rango (9999-12-31) */
+	private static final Instant FECHA_MAXIMA = Instant.ofEpochMilli(253402214400000L) ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	@Autowired
+	private ApplicationEventPublisher applicationEventPublisher ;
+
+	/** Número máximo de eventos eliminados por cada sentencia */
+	@Value("${reaktor.eventos.borrado.tamanio-lote:1000}")
+	private int tamanioLote ;
+
+	/**
+	 * Elimina los eventos que cumplen los filtros. Los permisos los valida el llamante.
+	 *
+	 * @param usuarioEmail propietario de los eventos (opcional)
+	 * @param categoria categoría de los eventos (opcional)
+	 * @param desde los eventos empiezan en o después de esta fecha en milisegundos (opcional)
+	 * @param hasta los eventos empiezan antes de esta fecha en milisegundos (opcional)
+	 * @return número de eventos eliminados y lotes ejecutados
+	 */
+	public BorradoMasivoResponseDto eliminar(String usuarioEmail, String categoria, Long desde, Long hasta)
+	{
+		Instant fechaDesde = desde != null ? Instant.ofEpochMilli(desde) : FECHA_MINIMA ;
+		Instant fechaHasta = hasta != null ? Instant.ofEpochMilli(hasta) : FECHA_MAXIMA ;
+
+		BorradoMasivoResponseDto resultado ;
+		if (usuarioEmail != null)
+		{
+			resultado = this.fragmentosEventos.enFragmentoDe(usuarioEmail, () -> this.eliminarPorLotes(usuarioEmail, categoria, fechaDesde, fechaHasta)) ;
+		}
+		else
+		{
+			resultado = new BorradoMasivoResponseDto() ;
+			for (BorradoMasivoResponseDto parcial : this.fragmentosEventos.enTodos(() -> this.eliminarPorLotes(null, categoria, fechaDesde, fechaHasta)))
+			{
+				resultado.setEventosEliminados(resultado.getEventosEliminados() + parcial.getEventosEliminados()) ;
+				resultado.setLotes(resultado.getLotes() + parcial.getLotes()) ;
+			}
+		}
+
+		if (resultado.getEventosEliminados() > 0)
+		{
+			this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.masivo()) ;
+		}
+
+		return resultado ;
+	}
+
+	/**
+	 * Elimina por lotes los eventos que cumplen los filtros en la base de datos actual.
+	 *
+	 * @param usuarioEmail propietario de los eventos (opcional)
+	 * @param categoria categoría de los eventos (opcional)
+	 * @param fechaDesde los eventos empiezan en o después de esta fecha
+	 * @param fechaHasta los eventos empiezan antes de esta fecha
+	 * @return número de eventos eliminados y lotes ejecutados
+	 */
+	private BorradoMasivoResponseDto eliminarPorLotes(String usuarioEmail, String categoria, Instant fechaDesde, Instant fechaHasta)
+	{
+		long eliminados = 0 ;
+		int lotes       = 0 ;
+		int eliminadosLote ;
+		do
+		{
+			eliminadosLote = this.eventoRepository.eliminarEventosLote(usuarioEmail, categoria, fechaDesde, fechaHasta, this.tamanioLote) ;
+			if (eliminadosLote > 0)
+			{
+				eliminados += eliminadosLote ;
+				lotes++ ;
+				log.info("Borrado masivo de eventos: lote {} con {} eventos, {} eliminados en total", lotes, eliminadosLote, eliminados) ;
+			}
+		}
+		while (eliminadosLote == this.tamanioLote) ;
+
+		return new BorradoMasivoResponseDto(eliminados, lotes) ;
+	}
+}
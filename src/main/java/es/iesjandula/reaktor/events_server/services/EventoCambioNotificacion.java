@@ -0,0 +1,79 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Notificación interna que se publica cada vez que cambian los eventos almacenados.
+ *
+ * <p>Los controladores la publican tras confirmar la operación en base de datos y
+ * los componentes que mantienen estructuras en memoria (índices, contadores...)
+ * la escuchan para actualizarse de forma incremental. Los cambios hechos en otras
+ * instancias llegan como {@link Tipo#REMOTO}.</p>
+ */
+@Getter
+@AllArgsConstructor
+public class EventoCambioNotificacion
+{
+	/**
+	 * Tipos de cambio posibles sobre los eventos.
+	 */
+	public enum Tipo
+	{
+		/** Se ha creado un único evento */
+		CREADO,
+
+		/** Se ha eliminado un único evento */
+		ELIMINADO,
+
+		/** Se han modificado muchos eventos a la vez y hay que reconstruir desde base de datos */
+		MASIVO,
+
+		/**
+		 * Otra instancia ha modificado eventos: hay que reconstruir desde base de datos, pero
+		 * el cambio no se vuelve a difundir
+		 */
+		REMOTO
+	}
+
+	/** Tipo de cambio producido */
+	private Tipo tipo ;
+
+	/** Evento afectado (nulo en los cambios masivos) */
+	private EventoResponseDto evento ;
+
+	/**
+	 * @param evento evento creado
+	 * @return notificación de creación
+	 */
+	public static EventoCambioNotificacion creado(EventoResponseDto evento)
+	{
+		return new EventoCambioNotificacion(Tipo.CREADO, evento) ;
+	}
+
+	/**
+	 * @param evento evento eliminado
+	 * @return notificación de eliminación
+	 */
+	public static EventoCambioNotificacion eliminado(EventoResponseDto evento)
+	{
+		return new EventoCambioNotificacion(Tipo.ELIMINADO, evento) ;
+	}
+
+	/**
+	 * @return notificación de cambio masivo
+	 */
+	public static EventoCambioNotificacion masivo()
+	{
+		return new EventoCambioNotificacion(Tipo.MASIVO, null) ;
+	}
+
+	/**
+	 * @return notificación de cambio hecho en otra instancia
+	 */
+	public static EventoCambioNotificacion remoto()
+	{
+		return new EventoCambioNotificacion(Tipo.REMOTO, null) ;
+	}
+}
@@ -0,0 +1,126 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.dto.EstadoConsultaEvento;
+import es.iesjandula.reaktor.events_server.dto.EventoClaveDto;
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ResultadoConsultaEventoDto;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+
+/**
+ * Servicio de consulta de varios eventos por su clave en una sola petición.
+ *
+ * <p>Se validan las claves y se aplican las mismas reglas de permisos que en la consulta
+ * individual: administración y dirección ven cualquier evento y el profesorado solo los
+ * suyos. Las claves permitidas se resuelven con una única consulta y el resultado se
+ * devuelve en el mismo orden que las claves, con el estado de cada una.</p>
+ */
+@Service
+public class EventoConsultaMultipleService
+{
+	/** Separador de los campos de la clave en el mapa de resultados */
+	private static final char SEPARADOR_CLAVE = '\u0000' ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	/**
+	 * Busca los eventos de las claves indicadas.
+	 *
+	 * @param claves claves de los eventos
+	 * @param usuario usuario que hace la consulta
+	 * @return un resultado por clave, en el mismo orden
+	 * @throws EventsServerException si no hay claves o hay más de las permitidas
+	 */
+	public List<ResultadoConsultaEventoDto> consultar(List<EventoClaveDto> claves, DtoUsuarioExtended usuario) throws EventsServerException
+	{
+		if (claves == null || claves.isEmpty() || claves.size() > Constants.MAX_CLAVES_CONSULTA_MULTIPLE)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_CONSULTA_MULTIPLE_CODE, Constants.ERR_EVENTO_CONSULTA_MULTIPLE) ;
+		}
+
+		boolean veTodos = usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR) || usuario.getRoles().contains(BaseConstants.ROLE_DIRECCION) ;
+
+		List<ResultadoConsultaEventoDto> resultados = new ArrayList<>(claves.size()) ;
+		Set<String> titulos = new HashSet<>() ;
+		Set<Instant> fechasInicio = new HashSet<>() ;
+		Set<String> emails = new HashSet<>() ;
+
+		for (EventoClaveDto clave : claves)
+		{
+			EventoClaveDto claveCompleta = new EventoClaveDto(clave != null ? clave.getTitulo() : null,
+															  clave != null ? clave.getFechaInicio() : null,
+															  clave != null && clave.getUsuarioEmail() != null ? clave.getUsuarioEmail() : usuario.getEmail()) ;
+
+			EstadoConsultaEvento estado = null ;
+			if (claveCompleta.getTitulo() == null || claveCompleta.getTitulo().isEmpty() ||
+				claveCompleta.getFechaInicio() == null || claveCompleta.getFechaInicio() <= 0)
+			{
+				estado = EstadoConsultaEvento.CLAVE_INVALIDA ;
+			}
+			else if (!veTodos && !usuario.getEmail().equals(claveCompleta.getUsuarioEmail()))
+			{
+				estado = EstadoConsultaEvento.NO_PERMITIDO ;
+			}
+			else
+			{
+				titulos.add(claveCompleta.getTitulo()) ;
+				fechasInicio.add(Instant.ofEpochMilli(claveCompleta.getFechaInicio())) ;
+				emails.add(claveCompleta.getUsuarioEmail()) ;
+			}
+
+			resultados.add(new ResultadoConsultaEventoDto(claveCompleta, estado, null)) ;
+		}
+
+		Map<String, EventoResponseDto> encontrados = new HashMap<>() ;
+		if (!titulos.isEmpty())
+		{
+			for (EventoResponseDto evento : this.fragmentosEventos.reunir(() -> this.eventoRepository.buscarEventosPorClaves(titulos, fechasInicio, emails)))
+			{
+				encontrados.put(claveMapa(evento.getTitulo(), evento.getFechaInicio(), evento.getUsuarioEmail()), evento) ;
+			}
+		}
+
+		for (ResultadoConsultaEventoDto resultado : resultados)
+		{
+			if (resultado.getEstado() == null)
+			{
+				EventoClaveDto clave = resultado.getClave() ;
+				EventoResponseDto evento = encontrados.get(claveMapa(clave.getTitulo(), clave.getFechaInicio(), clave.getUsuarioEmail())) ;
+
+				resultado.setEstado(evento != null ? EstadoConsultaEvento.ENCONTRADO : EstadoConsultaEvento.NO_ENCONTRADO) ;
+				resultado.setEvento(evento) ;
+			}
+		}
+
+		return resultados ;
+	}
+
+	/**
+	 * @param titulo título del evento
+	 * @param fechaInicio fecha de inicio en milisegundos
+	 * @param usuarioEmail email del propietario
+	 * @return clave exacta del evento para el mapa de resultados
+	 */
+	private static String claveMapa(String titulo, long fechaInicio, String usuarioEmail)
+	{
+		return usuarioEmail + SEPARADOR_CLAVE + fechaInicio + SEPARADOR_CLAVE + titulo ;
+	}
+}
@@ -0,0 +1,443 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de exportación de eventos a CSV.
+ *
+ * <p>Los eventos se leen con un cursor de solo avance y cada fila se escribe en la salida
+ * según llega, por lo que la memoria usada no depende del número de eventos exportados.
+ * La lectura se hace en una transacción de solo lectura que dura lo mismo que la
+ * escritura: la conexión solo se ocupa mientras el cursor está abierto. Con fragmentos se
+ * abre un cursor en cada uno, en hilos propios que dejan las filas en colas acotadas, y
+ * las filas se mezclan por fecha de inicio según se escriben; tampoco así se carga el
+ * rango completo en memoria.</p>
+ *
+ * <p>Las fechas se escriben en ISO-8601 con segundos, milisegundos y desfase horario, para
+ * que al volver a importarse den el mismo instante y, por tanto, la misma clave. Un evento
+ * sin fecha de fin deja esa celda vacía.</p>
+ *
+ * <p>El fichero usa ';' como separador, empieza con BOM para que las hojas de cálculo
+ * reconozcan UTF-8 y tiene las mismas columnas que acepta la importación, de modo que un
+ * fichero exportado puede volver a importarse. Los valores con separadores, comillas o
+ * saltos de línea van entre comillas (RFC 4180), y los que empiezan por '=', '+', '-' o
+ * '@' llevan delante un apóstrofo para que la hoja de cálculo no los ejecute como fórmula;
+ * la importación quita ese apóstrofo.</p>
+ */
+@Slf4j
+@Service
+public class EventoExportacionService
+{
+	/** Marca de orden de bytes de UTF-8 */
+	private static final String BOM = "\uFEFF" ;
+
+	/** Separador de columnas */
+	private static final char SEPARADOR = ';' ;
+
+	/** Caracteres con los que una hoja de cálculo interpreta una celda como fórmula */
+	public static final String INICIO_FORMULA = "=+-@" ;
+
+	/** Prefijo que neutraliza las celdas que empiezan como una fórmula */
+	public static final char PREFIJO_FORMULA = '\'' ;
+
+	/** Cabecera del fichero */
+	private static final String CABECERA = "titulo;categoria;fechaInicio;fechaFin;usuarioEmail;usuarioNombre;usuarioApellidos" ;
+
+	/** Filas escritas entre volcados de la salida */
+	private static final int FILAS_POR_VOLCADO = 500 ;
+
+	/** Fecha mínima cuando no se indica el inicio del rango */
+	private static final Instant FECHA_MINIMA = Instant.ofEpochMilli(1L) ;
+
+	/** Fecha máxima cuando no se indica el fin del rango (año 9999) */
+	private static final Instant FECHA_MAXIMA = Instant.ofEpochMilli(253402214400000L) ;
+
+	/** Filas leídas de cada fragmento que pueden esperar a ser escritas */
+	private static final int CAPACIDAD_COLA_FRAGMENTO = FILAS_POR_VOLCADO ;
+
+	/** Marca de fin del cursor de un fragmento */
+	private static final Object FIN_FRAGMENTO = new Object() ;
+
+	/** Espera máxima para dejar una fila en la cola antes de comprobar si se ha cancelado */
+	private static final long ESPERA_COLA_MS = 1000L ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	/** Zona horaria en la que se escriben las fechas */
+	@Value("${reaktor.importacion.zona:Europe/Madrid}")
+	private String zona ;
+
+	/** Transacción de solo lectura que envuelve cada exportación */
+	private TransactionTemplate transaccionLectura ;
+
+	/** Formato de las fechas exportadas */
+	private DateTimeFormatter formatoFecha ;
+
+	/** Hilos que recorren los cursores de los fragmentos */
+	private final ExecutorService lectoresFragmentos = Executors.newCachedThreadPool(tarea ->
+	{
+		Thread hilo = new Thread(tarea, "exportacion-fragmentos") ;
+		hilo.setDaemon(true) ;
+		return hilo ;
+	}) ;
+
+	/**
+	 * Prepara la transacción de lectura y el formato de fechas.
+	 */
+	@PostConstruct
+	public void inicializar()
+	{
+		this.transaccionLectura = new TransactionTemplate(this.transactionManager) ;
+		this.transaccionLectura.setReadOnly(true) ;
+
+		this.formatoFecha = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX").withZone(ZoneId.of(this.zona)) ;
+	}
+
+	/**
+	 * Escribe en CSV los eventos que se solapan con el rango indicado.
+	 *
+	 * @param salida destino del fichero (no se cierra)
+	 * @param desde inicio del rango en milisegundos (opcional)
+	 * @param hasta fin del rango en milisegundos, excluido (opcional)
+	 * @param categoria nombre de la categoría (opcional)
+	 * @return número de eventos exportados
+	 * @throws IOException si no se puede escribir la salida
+	 */
+	public long exportarCsv(OutputStream salida, Long desde, Long hasta, String categoria) throws IOException
+	{
+		Instant fechaDesde = desde != null ? Instant.ofEpochMilli(desde) : FECHA_MINIMA ;
+		Instant fechaHasta = hasta != null ? Instant.ofEpochMilli(hasta) : FECHA_MAXIMA ;
+
+		Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8)) ;
+		escritor.write(BOM) ;
+		escritor.write(CABECERA) ;
+		escritor.write("\r\n") ;
+
+		long inicio = System.currentTimeMillis() ;
+		long filas ;
+		if (this.fragmentosEventos.isActivo())
+		{
+			filas = this.escribirFilasFragmentos(escritor, fechaDesde, fechaHasta, categoria) ;
+		}
+		else
+		{
+			try
+			{
+				filas = this.transaccionLectura.execute(status ->
+				{
+					try (Stream<EventoResponseDto> eventos = this.eventoRepository.recorrerEventosEnRango(fechaDesde, fechaHasta, categoria))
+					{
+						return this.escribirFilas(escritor, eventos::iterator) ;
+					}
+					catch (IOException ioException)
+					{
+						throw new UncheckedIOException(ioException) ;
+					}
+				}) ;
+			}
+			catch (UncheckedIOException uncheckedIOException)
+			{
+				throw uncheckedIOException.getCause() ;
+			}
+		}
+
+		escritor.flush() ;
+
+		log.info("Exportación CSV: {} eventos en {} ms", filas, System.currentTimeMillis() - inicio) ;
+		return filas ;
+	}
+
+	/**
+	 * Escribe las filas volcando la salida cada {@link #FILAS_POR_VOLCADO} filas.
+	 *
+	 * @param escritor destino
+	 * @param eventos eventos a escribir
+	 * @return número de filas escritas
+	 * @throws IOException si no se puede escribir
+	 */
+	private long escribirFilas(Writer escritor, Iterable<EventoResponseDto> eventos) throws IOException
+	{
+		long total = 0 ;
+		for (EventoResponseDto evento : eventos)
+		{
+			this.escribirFila(escritor, evento) ;
+			total++ ;
+			if (total % FILAS_POR_VOLCADO == 0)
+			{
+				escritor.flush() ;
+			}
+		}
+		return total ;
+	}
+
+	/**
+	 * Escribe las filas de todos los fragmentos mezcladas por fecha de inicio. Cada fragmento
+	 * recorre su cursor en un hilo propio y deja las filas en una cola acotada; aquí se
+	 * escribe siempre la fila más temprana de entre las primeras de cada cola.
+	 *
+	 * @param escritor destino
+	 * @param desde los eventos terminan en o después de esta fecha
+	 * @param hasta los eventos empiezan antes de esta fecha
+	 * @param categoria nombre de la categoría (opcional)
+	 * @return número de filas escritas
+	 * @throws IOException si no se puede escribir o falla la lectura de algún fragmento
+	 */
+	private long escribirFilasFragmentos(Writer escritor, Instant desde, Instant hasta, String categoria) throws IOException
+	{
+		int numero = this.fragmentosEventos.getNumero() ;
+		AtomicBoolean cancelada = new AtomicBoolean() ;
+
+		List<BlockingQueue<Object>> colas = new ArrayList<>(numero) ;
+		for (int i = 0 ; i < numero ; i++)
+		{
+			BlockingQueue<Object> cola = new ArrayBlockingQueue<>(CAPACIDAD_COLA_FRAGMENTO) ;
+			colas.add(cola) ;
+
+			int fragmento = i ;
+			this.lectoresFragmentos.execute(() -> this.leerFragmento(fragmento, cola, cancelada, desde, hasta, categoria)) ;
+		}
+
+		try
+		{
+			PriorityQueue<FilaFragmento> primeras = new PriorityQueue<>(Comparator.comparingLong(fila -> fila.evento().getFechaInicio())) ;
+			for (int i = 0 ; i < numero ; i++)
+			{
+				avanzar(colas.get(i), i, primeras) ;
+			}
+
+			long total = 0 ;
+			while (!primeras.isEmpty())
+			{
+				FilaFragmento fila = primeras.poll() ;
+				this.escribirFila(escritor, fila.evento()) ;
+				total++ ;
+				if (total % FILAS_POR_VOLCADO == 0)
+				{
+					escritor.flush() ;
+				}
+				avanzar(colas.get(fila.fragmento()), fila.fragmento(), primeras) ;
+			}
+			return total ;
+		}
+		finally
+		{
+			// Si la escritura falla (el cliente se desconecta) los lectores dejan de esperar y cierran sus cursores
+			cancelada.set(true) ;
+		}
+	}
+
+	/**
+	 * Recorre el cursor de un fragmento dejando cada fila en su cola, y después la marca de
+	 * fin o la excepción con la que ha fallado.
+	 *
+	 * @param fragmento fragmento leído
+	 * @param cola cola del fragmento
+	 * @param cancelada se activa si la exportación termina antes de leer todas las filas
+	 * @param desde los eventos terminan en o después de esta fecha
+	 * @param hasta los eventos empiezan antes de esta fecha
+	 * @param categoria nombre de la categoría (opcional)
+	 */
+	private void leerFragmento(int fragmento, BlockingQueue<Object> cola, AtomicBoolean cancelada, Instant desde, Instant hasta, String categoria)
+	{
+		Object ultimo = FIN_FRAGMENTO ;
+		try
+		{
+			this.fragmentosEventos.enFragmento(fragmento, () -> this.transaccionLectura.execute(status ->
+			{
+				try (Stream<EventoResponseDto> eventos = this.eventoRepository.recorrerEventosEnRango(desde, hasta, categoria))
+				{
+					Iterator<EventoResponseDto> iterador = eventos.iterator() ;
+					while (iterador.hasNext() && poner(cola, iterador.next(), cancelada))
+					{
+						// La fila ya está en la cola
+					}
+				}
+				return null ;
+			})) ;
+		}
+		catch (RuntimeException runtimeException)
+		{
+			ultimo = runtimeException ;
+		}
+		poner(cola, ultimo, cancelada) ;
+	}
+
+	/**
+	 * @param cola cola de un fragmento
+	 * @param elemento fila, marca de fin o excepción
+	 * @param cancelada indica si la exportación ha terminado
+	 * @return true si se ha dejado en la cola, false si la exportación ha terminado antes
+	 */
+	private static boolean poner(BlockingQueue<Object> cola, Object elemento, AtomicBoolean cancelada)
+	{
+		try
+		{
+			while (!cancelada.get())
+			{
+				if (cola.offer(elemento, ESPERA_COLA_MS, TimeUnit.MILLISECONDS))
+				{
+					return true ;
+				}
+			}
+		}
+		catch (InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt() ;
+		}
+		return false ;
+	}
+
+	/**
+	 * Toma la siguiente fila de un fragmento y la añade a las primeras pendientes, salvo que
+	 * el fragmento haya terminado.
+	 *
+	 * @param cola cola del fragmento
+	 * @param fragmento fragmento
+	 * @param primeras primera fila pendiente de cada fragmento
+	 * @throws IOException si se interrumpe la espera
+	 */
+	private static void avanzar(BlockingQueue<Object> cola, int fragmento, PriorityQueue<FilaFragmento> primeras) throws IOException
+	{
+		Object elemento ;
+		try
+		{
+			elemento = cola.take() ;
+		}
+		catch (InterruptedException interruptedException)
+		{
+			Thread.currentThread().interrupt() ;
+			throw new InterruptedIOException("Exportación interrumpida") ;
+		}
+
+		if (elemento instanceof RuntimeException runtimeException)
+		{
+			throw runtimeException ;
+		}
+		if (elemento != FIN_FRAGMENTO)
+		{
+			primeras.add(new FilaFragmento((EventoResponseDto) elemento, fragmento)) ;
+		}
+	}
+
+	/**
+	 * @param escritor destino
+	 * @param evento evento a escribir
+	 * @throws IOException si no se puede escribir
+	 */
+	private void escribirFila(Writer escritor, EventoResponseDto evento) throws IOException
+	{
+		escritor.write(escapar(evento.getTitulo())) ;
+		escritor.write(SEPARADOR) ;
+		escritor.write(escapar(evento.getNombre())) ;
+		escritor.write(SEPARADOR) ;
+		escritor.write(this.formatear(evento.getFechaInicio())) ;
+		escritor.write(SEPARADOR) ;
+		escritor.write(evento.getFechaFin() != null ? this.formatear(evento.getFechaFin()) : "") ;
+		escritor.write(SEPARADOR) ;
+		escritor.write(escapar(evento.getUsuarioEmail())) ;
+		escritor.write(SEPARADOR) ;
+		escritor.write(escapar(evento.getUsuarioNombre())) ;
+		escritor.write(SEPARADOR) ;
+		escritor.write(escapar(evento.getUsuarioApellidos())) ;
+		escritor.write("\r\n") ;
+	}
+
+	/**
+	 * @param milisegundos fecha en milisegundos
+	 * @return fecha formateada en la zona configurada
+	 */
+	private String formatear(long milisegundos)
+	{
+		return this.formatoFecha.format(Instant.ofEpochMilli(milisegundos)) ;
+	}
+
+	/**
+	 * Indica si un valor empieza como una fórmula, saltando los apóstrofos iniciales. Así
+	 * también se protege un valor que ya empieza por apóstrofo y fórmula, y la importación
+	 * puede quitar siempre un solo apóstrofo sin perder los que eran del valor.
+	 *
+	 * @param valor valor de una columna
+	 * @return true si tras los apóstrofos iniciales viene '=', '+', '-' o '@'
+	 */
+	public static boolean empiezaComoFormula(String valor)
+	{
+		int i = 0 ;
+		while (i < valor.length() && valor.charAt(i) == PREFIJO_FORMULA)
+		{
+			i++ ;
+		}
+		return i < valor.length() && INICIO_FORMULA.indexOf(valor.charAt(i)) >= 0 ;
+	}
+
+	/**
+	 * @param valor valor de una columna
+	 * @return valor con apóstrofo delante si empieza como una fórmula, y entre comillas si
+	 * contiene separadores, comillas o saltos de línea
+	 */
+	private static String escapar(String valor)
+	{
+		if (valor == null)
+		{
+			return "" ;
+		}
+		if (empiezaComoFormula(valor))
+		{
+			valor = PREFIJO_FORMULA + valor ;
+		}
+		if (valor.indexOf(SEPARADOR) < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0)
+		{
+			return valor ;
+		}
+		return "\"" + valor.replace("\"", "\"\"") + "\"" ;
+	}
+
+	/**
+	 * Primera fila pendiente de escribir de un fragmento.
+	 *
+	 * @param evento evento leído
+	 * @param fragmento fragmento del que viene
+	 */
+	private record FilaFragmento(EventoResponseDto evento, int fragmento)
+	{
+	}
+}
@@ -0,0 +1,628 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.events_server.dto.CategoriaResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ErrorLineaImportacionDto;
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ImportacionResponseDto;
+import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventoValidador;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Servicio de importación de eventos desde ficheros CSV.
+ *
+ * <p>El fichero se lee en streaming por bloques de líneas: cada bloque se analiza y valida
+ * en paralelo (con las mismas reglas que la creación individual) y las filas válidas se
+ * insertan con un único lote JDBC en su propia transacción. Así la memoria usada depende
+ * del tamaño de bloque y no del tamaño del fichero.</p>
+ *
+ * <p>Los eventos que ya existen se detectan antes de insertar, consultando en la misma
+ * transacción las claves del bloque, y se informan como error. La inserción es normal, sin
+ * IGNORE, de modo que cualquier otro fallo (datos truncados, fechas inválidas, categoría
+ * borrada) interrumpe la importación en lugar de darse por evento repetido. Con
+ * rewriteBatchedStatements el driver no devuelve el número de filas de cada sentencia del
+ * lote, así que no se usa para contar los eventos creados.</p>
+ *
+ * <p>El fichero debe tener cabecera con las columnas titulo, categoria, fechaInicio y
+ * fechaFin (en cualquier orden), separadas por ';' o ','. Las fechas pueden indicarse en
+ * milisegundos, en ISO-8601 con desfase como las escribe la exportación
+ * (yyyy-MM-ddTHH:mm:ss.SSS+01:00) o como fecha y hora local (yyyy-MM-dd HH:mm o
+ * yyyy-MM-ddTHH:mm, con segundos opcionales). Los
+ * eventos se crean a nombre del usuario que importa el fichero. Un valor entre comillas
+ * puede contener saltos de línea (RFC 4180), como los que escribe la exportación, y el
+ * apóstrofo que la exportación añade delante de los valores que empiezan como una fórmula
+ * se quita.</p>
+ */
+@Slf4j
+@Service
+public class EventoImportacionService
+{
+	/** Sentencia de inserción; los eventos repetidos se descartan antes con una consulta */
+	private static final String SQL_INSERTAR_EVENTO = "INSERT INTO evento " +
+													  "(titulo, fecha_inicio, usuario_email, fecha_fin, usuario_nombre, usuario_apellidos, nombre) " +
+													  "VALUES (?, ?, ?, ?, ?, ?, ?)" ;
+
+	/** Número máximo de errores por línea devueltos al cliente */
+	private static final int MAX_ERRORES_DEVUELTOS = 1000 ;
+
+	/** Líneas máximas de un registro con saltos de línea entre comillas */
+	private static final int MAX_LINEAS_REGISTRO = 20 ;
+
+	/** Intentos de insertar un bloque si otra petición crea a la vez alguno de sus eventos */
+	private static final int MAX_INTENTOS_BLOQUE = 3 ;
+
+	/** Longitud máxima del título en base de datos */
+	private static final int MAX_LONGITUD_TITULO = 255 ;
+
+	/** Columnas obligatorias de la cabecera (en minúsculas) */
+	private static final String COLUMNA_TITULO = "titulo" ;
+	private static final String COLUMNA_CATEGORIA = "categoria" ;
+	private static final String COLUMNA_FECHA_INICIO = "fechainicio" ;
+	private static final String COLUMNA_FECHA_FIN = "fechafin" ;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate ;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate ;
+
+	@Autowired
+	private ICategoriaRepository categoriaRepository ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private ApplicationEventPublisher applicationEventPublisher ;
+
+	/** Número de líneas que se analizan e insertan de cada vez */
+	@Value("${reaktor.importacion.tamanio-bloque:2000}")
+	private int tamanioBloque ;
+
+	/** Zona horaria de las fechas indicadas como fecha y hora local */
+	@Value("${reaktor.importacion.zona:Europe/Madrid}")
+	private String zona ;
+
+	/** URL JDBC del primario */
+	@Value("${spring.datasource.url:}")
+	private String urlBaseDatos ;
+
+	/**
+	 * Avisa si el driver de MySQL no va a reescribir los lotes de inserción: sin
+	 * rewriteBatchedStatements cada fila del lote viaja como una sentencia aparte.
+	 */
+	@PostConstruct
+	public void comprobarLotes()
+	{
+		if (this.urlBaseDatos.startsWith("jdbc:mysql:") && !this.urlBaseDatos.contains("rewriteBatchedStatements=true"))
+		{
+			log.warn("spring.datasource.url no tiene rewriteBatchedStatements=true: la importación insertará fila a fila") ;
+		}
+	}
+
+	/**
+	 * Importa los eventos del fichero CSV a nombre del usuario indicado.
+	 *
+	 * @param entrada contenido del fichero
+	 * @param usuario usuario que importa los eventos
+	 * @return resumen de la importación con los errores por línea
+	 * @throws IOException si no se puede leer el fichero
+	 * @throws EventsServerException si la cabecera no es válida
+	 */
+	public ImportacionResponseDto importar(InputStream entrada, DtoUsuarioExtended usuario) throws IOException, EventsServerException
+	{
+		Set<String> categorias = new HashSet<>() ;
+		for (CategoriaResponseDto categoria : this.categoriaRepository.buscarCategorias())
+		{
+			categorias.add(categoria.getNombre()) ;
+		}
+
+		ImportacionResponseDto resultado = new ImportacionResponseDto(0, 0, 0, new ArrayList<>()) ;
+
+		try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8)))
+		{
+			Formato formato = this.leerCabecera(lector.readLine(), categorias) ;
+
+			List<String> lineas  = new ArrayList<>(this.tamanioBloque) ;
+			List<Long> numeros   = new ArrayList<>(this.tamanioBloque) ;
+			long numeroLinea     = 1 ;
+			String linea ;
+			while ((linea = lector.readLine()) != null)
+			{
+				numeroLinea++ ;
+				if (linea.isBlank())
+				{
+					continue ;
+				}
+
+				// Un valor entre comillas puede seguir en las líneas siguientes
+				long inicioRegistro = numeroLinea ;
+				boolean abierto     = comillasImpares(linea) ;
+				String siguiente ;
+				while (abierto && numeroLinea - inicioRegistro + 1 < MAX_LINEAS_REGISTRO && (siguiente = lector.readLine()) != null)
+				{
+					numeroLinea++ ;
+					linea   = linea + "\n" + siguiente ;
+					abierto = abierto != comillasImpares(siguiente) ;
+				}
+
+				lineas.add(linea) ;
+				numeros.add(inicioRegistro) ;
+				if (lineas.size() == this.tamanioBloque)
+				{
+					this.procesarBloque(lineas, numeros, formato, usuario, resultado) ;
+					lineas.clear() ;
+					numeros.clear() ;
+				}
+			}
+
+			if (!lineas.isEmpty())
+			{
+				this.procesarBloque(lineas, numeros, formato, usuario, resultado) ;
+			}
+		}
+
+		if (resultado.getEventosCreados() > 0)
+		{
+			this.applicationEventPublisher.publishEvent(EventoCambioNotificacion.masivo()) ;
+		}
+
+		log.info("Importación de {}: {} líneas leídas, {} eventos creados, {} líneas con error",
+				 usuario.getEmail(), resultado.getLineasLeidas(), resultado.getEventosCreados(), resultado.getLineasConError()) ;
+
+		return resultado ;
+	}
+
+	/**
+	 * Analiza en paralelo un bloque de líneas e inserta las válidas en un lote JDBC.
+	 *
+	 * @param lineas líneas del bloque
+	 * @param numeros número de línea de cada una
+	 * @param formato formato del fichero
+	 * @param usuario usuario que importa los eventos
+	 * @param resultado resumen a actualizar
+	 */
+	private void procesarBloque(List<String> lineas, List<Long> numeros, Formato formato, DtoUsuarioExtended usuario, ImportacionResponseDto resultado)
+	{
+		FilaImportada[] filas = IntStream.range(0, lineas.size())
+										 .parallel()
+										 .mapToObj(i -> formato.analizar(lineas.get(i), numeros.get(i)))
+										 .toArray(FilaImportada[]::new) ;
+
+		List<FilaImportada> validas = new ArrayList<>(filas.length) ;
+		for (FilaImportada fila : filas)
+		{
+			if (fila.error != null)
+			{
+				this.agregarError(resultado, fila.linea, fila.error) ;
+			}
+			else
+			{
+				validas.add(fila) ;
+			}
+		}
+
+		resultado.setLineasLeidas(resultado.getLineasLeidas() + filas.length) ;
+		if (validas.isEmpty())
+		{
+			return ;
+		}
+
+		Set<FilaImportada> repetidas = this.insertarBloque(validas, usuario) ;
+
+		for (FilaImportada fila : validas)
+		{
+			if (repetidas.contains(fila))
+			{
+				this.agregarError(resultado, fila.linea, Constants.ERR_EVENTO_EXISTE) ;
+			}
+			else
+			{
+				resultado.setEventosCreados(resultado.getEventosCreados() + 1) ;
+			}
+		}
+	}
+
+	/**
+	 * Inserta las filas válidas de un bloque en una transacción. Si otra petición crea alguno
+	 * de los eventos entre la consulta de claves y la inserción, se repite el bloque.
+	 *
+	 * @param validas filas válidas del bloque
+	 * @param usuario usuario que importa los eventos
+	 * @return filas no insertadas porque el evento ya existía
+	 */
+	private Set<FilaImportada> insertarBloque(List<FilaImportada> validas, DtoUsuarioExtended usuario)
+	{
+		for (int intento = 1 ; ; intento++)
+		{
+			try
+			{
+				return this.transactionTemplate.execute(status -> this.insertarNuevas(validas, usuario)) ;
+			}
+			catch (DuplicateKeyException duplicateKeyException)
+			{
+				if (intento == MAX_INTENTOS_BLOQUE)
+				{
+					throw duplicateKeyException ;
+				}
+				log.warn("Eventos creados a la vez que la importación de {}, se repite el bloque", usuario.getEmail()) ;
+			}
+		}
+	}
+
+	/**
+	 * Descarta las filas cuyo evento ya existe (en la base de datos o antes en el bloque) e
+	 * inserta el resto en un lote JDBC. Debe ejecutarse en una transacción de escritura, para
+	 * que la consulta de claves vaya al primario.
+	 *
+	 * @param validas filas válidas del bloque
+	 * @param usuario usuario que importa los eventos
+	 * @return filas no insertadas porque el evento ya existía
+	 */
+	private Set<FilaImportada> insertarNuevas(List<FilaImportada> validas, DtoUsuarioExtended usuario)
+	{
+		Set<String> titulos = new HashSet<>() ;
+		Set<Instant> fechas = new HashSet<>() ;
+		for (FilaImportada fila : validas)
+		{
+			titulos.add(fila.titulo) ;
+			fechas.add(Instant.ofEpochMilli(fila.fechaInicio)) ;
+		}
+
+		Set<String> claves = new HashSet<>() ;
+		for (EventoResponseDto existente : this.eventoRepository.buscarEventosPorClaves(titulos, fechas, List.of(usuario.getEmail())))
+		{
+			claves.add(EventoValidador.claveNormalizada(existente.getTitulo(), existente.getFechaInicio())) ;
+		}
+
+		List<FilaImportada> nuevas = new ArrayList<>(validas.size()) ;
+		Set<FilaImportada> repetidas = new HashSet<>() ;
+		for (FilaImportada fila : validas)
+		{
+			if (claves.add(EventoValidador.claveNormalizada(fila.titulo, fila.fechaInicio)))
+			{
+				nuevas.add(fila) ;
+			}
+			else
+			{
+				repetidas.add(fila) ;
+			}
+		}
+
+		if (nuevas.isEmpty())
+		{
+			return repetidas ;
+		}
+
+		this.jdbcTemplate.batchUpdate(SQL_INSERTAR_EVENTO, new BatchPreparedStatementSetter()
+		{
+			@Override
+			public void setValues(PreparedStatement preparedStatement, int i) throws SQLException
+			{
+				FilaImportada fila = nuevas.get(i) ;
+				preparedStatement.setString(1, fila.titulo) ;
+				preparedStatement.setTimestamp(2, new Timestamp(fila.fechaInicio)) ;
+				preparedStatement.setString(3, usuario.getEmail()) ;
+				preparedStatement.setTimestamp(4, new Timestamp(fila.fechaFin)) ;
+				preparedStatement.setString(5, usuario.getNombre()) ;
+				preparedStatement.setString(6, usuario.getApellidos()) ;
+				preparedStatement.setString(7, fila.categoria) ;
+			}
+
+			@Override
+			public int getBatchSize()
+			{
+				return nuevas.size() ;
+			}
+		}) ;
+
+		return repetidas ;
+	}
+
+	/**
+	 * @param resultado resumen a actualizar
+	 * @param linea número de línea
+	 * @param mensaje descripción del error
+	 */
+	private void agregarError(ImportacionResponseDto resultado, long linea, String mensaje)
+	{
+		resultado.setLineasConError(resultado.getLineasConError() + 1) ;
+		if (resultado.getErrores().size() < MAX_ERRORES_DEVUELTOS)
+		{
+			resultado.getErrores().add(new ErrorLineaImportacionDto(linea, mensaje)) ;
+		}
+	}
+
+	/**
+	 * Lee la cabecera y calcula el formato del fichero.
+	 *
+	 * @param cabecera primera línea del fichero
+	 * @param categorias categorías existentes
+	 * @return formato del fichero
+	 * @throws EventsServerException si falta la cabecera o alguna columna obligatoria
+	 */
+	private Formato leerCabecera(String cabecera, Set<String> categorias) throws EventsServerException
+	{
+		if (cabecera == null)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_IMPORTACION_CABECERA_CODE, Constants.ERR_EVENTO_IMPORTACION_CABECERA) ;
+		}
+
+		// Quitamos la marca BOM que añaden algunas hojas de cálculo
+		if (cabecera.startsWith("\uFEFF"))
+		{
+			cabecera = cabecera.substring(1) ;
+		}
+
+		char separador = cabecera.indexOf(';') >= 0 ? ';' : ',' ;
+
+		Map<String, Integer> columnas = new HashMap<>() ;
+		List<String> nombres = dividir(cabecera, separador) ;
+		for (int i = 0 ; i < nombres.size() ; i++)
+		{
+			columnas.put(nombres.get(i).trim().toLowerCase(Locale.ROOT), i) ;
+		}
+
+		if (!columnas.containsKey(COLUMNA_TITULO) || !columnas.containsKey(COLUMNA_CATEGORIA) ||
+			!columnas.containsKey(COLUMNA_FECHA_INICIO) || !columnas.containsKey(COLUMNA_FECHA_FIN))
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_IMPORTACION_CABECERA_CODE, Constants.ERR_EVENTO_IMPORTACION_CABECERA) ;
+		}
+
+		return new Formato(separador, columnas.get(COLUMNA_TITULO), columnas.get(COLUMNA_CATEGORIA),
+						   columnas.get(COLUMNA_FECHA_INICIO), columnas.get(COLUMNA_FECHA_FIN), categorias, ZoneId.of(this.zona)) ;
+	}
+
+	/**
+	 * @param linea línea del fichero
+	 * @return true si la línea tiene un número impar de comillas dobles, es decir, abre o
+	 * cierra un valor entre comillas que sigue en otra línea
+	 */
+	private static boolean comillasImpares(String linea)
+	{
+		boolean impares = false ;
+		for (int i = 0 ; i < linea.length() ; i++)
+		{
+			if (linea.charAt(i) == '"')
+			{
+				impares = !impares ;
+			}
+		}
+		return impares ;
+	}
+
+	/**
+	 * Quita el apóstrofo que la exportación añade delante de los valores que empiezan como
+	 * una fórmula. Un valor que solo empieza por apóstrofo se deja igual.
+	 *
+	 * @param valor valor de una columna
+	 * @return valor sin el apóstrofo de protección
+	 */
+	private static String quitarProteccionFormula(String valor)
+	{
+		if (!valor.isEmpty() && valor.charAt(0) == EventoExportacionService.PREFIJO_FORMULA &&
+			EventoExportacionService.empiezaComoFormula(valor.substring(1)))
+		{
+			return valor.substring(1) ;
+		}
+		return valor ;
+	}
+
+	/**
+	 * Divide una línea CSV en campos, respetando las comillas dobles.
+	 *
+	 * @param linea línea a dividir
+	 * @param separador separador de campos
+	 * @return campos de la línea
+	 */
+	private static List<String> dividir(String linea, char separador)
+	{
+		List<String> campos   = new ArrayList<>() ;
+		StringBuilder campo   = new StringBuilder() ;
+		boolean entreComillas = false ;
+
+		for (int i = 0 ; i < linea.length() ; i++)
+		{
+			char caracter = linea.charAt(i) ;
+			if (caracter == '"')
+			{
+				if (entreComillas && i + 1 < linea.length() && linea.charAt(i + 1) == '"')
+				{
+					campo.append('"') ;
+					i++ ;
+				}
+				else
+				{
+					entreComillas = !entreComillas ;
+				}
+			}
+			else if (caracter == separador && !entreComillas)
+			{
+				campos.add(campo.toString()) ;
+				campo.setLength(0) ;
+			}
+			else
+			{
+				campo.append(caracter) ;
+			}
+		}
+		campos.add(campo.toString()) ;
+
+		return campos ;
+	}
+
+	/**
+	 * Formato de un fichero: separador, posición de las columnas y datos de apoyo para validar.
+	 * Es inmutable, por lo que se puede usar desde varios hilos a la vez.
+	 */
+	private static class Formato
+	{
+		private final char separador ;
+		private final int columnaTitulo ;
+		private final int columnaCategoria ;
+		private final int columnaFechaInicio ;
+		private final int columnaFechaFin ;
+		private final int columnasMinimas ;
+		private final Set<String> categorias ;
+		private final ZoneId zona ;
+
+		private Formato(char separador, int columnaTitulo, int columnaCategoria, int columnaFechaInicio, int columnaFechaFin,
+						Set<String> categorias, ZoneId zona)
+		{
+			this.separador          = separador ;
+			this.columnaTitulo      = columnaTitulo ;
+			this.columnaCategoria   = columnaCategoria ;
+			this.columnaFechaInicio = columnaFechaInicio ;
+			this.columnaFechaFin    = columnaFechaFin ;
+			this.columnasMinimas    = Math.max(Math.max(columnaTitulo, columnaCategoria), Math.max(columnaFechaInicio, columnaFechaFin)) + 1 ;
+			this.categorias         = categorias ;
+			this.zona               = zona ;
+		}
+
+		/**
+		 * Analiza y valida una línea.
+		 *
+		 * @param linea contenido de la línea
+		 * @param numero número de línea
+		 * @return fila válida o con el error encontrado
+		 */
+		private FilaImportada analizar(String linea, long numero)
+		{
+			List<String> campos = dividir(linea, this.separador) ;
+			if (campos.size() < this.columnasMinimas)
+			{
+				return FilaImportada.conError(numero, Constants.ERR_EVENTO_IMPORTACION_FORMATO) ;
+			}
+
+			String titulo    = quitarProteccionFormula(campos.get(this.columnaTitulo).trim()) ;
+			String categoria = quitarProteccionFormula(campos.get(this.columnaCategoria).trim()) ;
+			Long fechaInicio ;
+			Long fechaFin ;
+			try
+			{
+				fechaInicio = this.leerFecha(campos.get(this.columnaFechaInicio)) ;
+				fechaFin    = this.leerFecha(campos.get(this.columnaFechaFin)) ;
+			}
+			catch (DateTimeParseException | NumberFormatException exception)
+			{
+				return FilaImportada.conError(numero, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
+			}
+
+			try
+			{
+				EventoValidador.validarCrearEvento(titulo, fechaInicio, fechaFin, categoria) ;
+			}
+			catch (EventsServerException exception)
+			{
+				return FilaImportada.conError(numero, exception.getMensaje()) ;
+			}
+
+			if (titulo.length() > MAX_LONGITUD_TITULO)
+			{
+				return FilaImportada.conError(numero, Constants.ERR_EVENTO_IMPORTACION_FORMATO) ;
+			}
+
+			if (!this.categorias.contains(categoria))
+			{
+				return FilaImportada.conError(numero, Constants.ERR_CATEGORIA_NO_EXISTE) ;
+			}
+
+			return new FilaImportada(numero, titulo, categoria, fechaInicio, fechaFin, null) ;
+		}
+
+		/**
+		 * @param valor fecha en milisegundos, en ISO-8601 con desfase o como fecha (y hora) local
+		 * @return fecha en milisegundos, o nulo si está vacía
+		 */
+		private Long leerFecha(String valor)
+		{
+			String texto = valor.trim() ;
+			if (texto.isEmpty())
+			{
+				return null ;
+			}
+			if (texto.chars().allMatch(Character::isDigit))
+			{
+				return Long.parseLong(texto) ;
+			}
+			if (texto.length() == 10)
+			{
+				return LocalDate.parse(texto).atStartOfDay(this.zona).toInstant().toEpochMilli() ;
+			}
+			// Con desfase (como las escribe la exportación) es un instante exacto; sin él, hora local de la zona
+			TemporalAccessor fecha = DateTimeFormatter.ISO_DATE_TIME.parseBest(texto.replace(' ', 'T'), OffsetDateTime::from, LocalDateTime::from) ;
+			if (fecha instanceof OffsetDateTime fechaConDesfase)
+			{
+				return fechaConDesfase.toInstant().toEpochMilli() ;
+			}
+			return ((LocalDateTime) fecha).atZone(this.zona).toInstant().toEpochMilli() ;
+		}
+	}
+
+	/**
+	 * Resultado de analizar una línea: datos del evento o error.
+	 */
+	private static class FilaImportada
+	{
+		private final long linea ;
+		private final String titulo ;
+		private final String categoria ;
+		private final long fechaInicio ;
+		private final long fechaFin ;
+		private final String error ;
+
+		private FilaImportada(long linea, String titulo, String categoria, long fechaInicio, long fechaFin, String error)
+		{
+			this.linea       = linea ;
+			this.titulo      = titulo ;
+			this.categoria   = categoria ;
+			this.fechaInicio = fechaInicio ;
+			this.fechaFin    = fechaFin ;
+			this.error       = error ;
+		}
+
+		private static FilaImportada conError(long linea, String error)
+		{
+			return new FilaImportada(linea, null, null, 0L, 0L, error) ;
+		}
+	}
+}
@@ -0,0 +1,321 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.utils.MedicionSentencias;
+import es.iesjandula.reaktor.events_server.utils.config.FragmentoRoutingDataSource;
+import es.iesjandula.reaktor.events_server.utils.config.MonitorSentenciasHibernate;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Reparto de los eventos en fragmentos según su propietario.
+ *
+ * <p>Cada evento vive en el fragmento que corresponde al hash del email de su propietario,
+ * así que las operaciones de un propietario se ejecutan en un único fragmento y las que
+ * abarcan a todos los propietarios se lanzan en paralelo en todos y se juntan los
+ * resultados. Si los fragmentos no están configurados todo se ejecuta directamente, sobre
+ * la única base de datos.</p>
+ *
+ * <p>Las sentencias que se ejecutan en los hilos del reparto se cuentan en la medición de
+ * sentencias del hilo que las lanza.</p>
+ */
+@Service
+public class FragmentosEventos
+{
+	/** DataSource que enruta entre los fragmentos (solo existe si están configurados) */
+	@Autowired(required = false)
+	private FragmentoRoutingDataSource fragmentoRoutingDataSource ;
+
+	/** Hilos de las consultas que se reparten entre todos los fragmentos */
+	private ExecutorService ejecutor ;
+
+	/**
+	 * Crea un hilo por fragmento para las consultas en paralelo
+	 */
+	@PostConstruct
+	public void iniciar()
+	{
+		if (this.isActivo())
+		{
+			AtomicInteger contador = new AtomicInteger() ;
+			this.ejecutor = Executors.newFixedThreadPool(this.getNumero(), tarea ->
+			{
+				Thread hilo = new Thread(tarea, "fragmentos-" + contador.getAndIncrement()) ;
+				hilo.setDaemon(true) ;
+				return hilo ;
+			}) ;
+		}
+	}
+
+	/**
+	 * Para los hilos de las consultas en paralelo
+	 */
+	@PreDestroy
+	public void detener()
+	{
+		if (this.ejecutor != null)
+		{
+			this.ejecutor.shutdownNow() ;
+		}
+	}
+
+	/**
+	 * @return true si los eventos están repartidos en varios fragmentos
+	 */
+	public boolean isActivo()
+	{
+		return this.fragmentoRoutingDataSource != null ;
+	}
+
+	/**
+	 * @return número de fragmentos (1 si no están configurados)
+	 */
+	public int getNumero()
+	{
+		return this.isActivo() ? this.fragmentoRoutingDataSource.getNumeroFragmentos() : 1 ;
+	}
+
+	/**
+	 * @param usuarioEmail email del propietario
+	 * @return fragmento en el que viven los eventos del propietario
+	 */
+	public int fragmentoDe(String usuarioEmail)
+	{
+		if (!this.isActivo())
+		{
+			return 0 ;
+		}
+		return Math.floorMod(usuarioEmail.toLowerCase(Locale.ROOT).hashCode(), this.getNumero()) ;
+	}
+
+	/**
+	 * Ejecuta una operación en el fragmento de un propietario.
+	 *
+	 * @param usuarioEmail email del propietario
+	 * @param operacion operación a ejecutar; si es transaccional debe empezar dentro de ella
+	 * @param <T> tipo del resultado
+	 * @param <E> excepción que puede lanzar la operación
+	 * @return resultado de la operación
+	 * @throws E si falla la operación
+	 */
+	public <T, E extends Exception> T enFragmentoDe(String usuarioEmail, Operacion<T, E> operacion) throws E
+	{
+		return this.enFragmento(this.fragmentoDe(usuarioEmail), operacion) ;
+	}
+
+	/**
+	 * Ejecuta una operación en un fragmento concreto y restaura después el que hubiera fijado.
+	 *
+	 * @param fragmento fragmento
+	 * @param operacion operación a ejecutar
+	 * @param <T> tipo del resultado
+	 * @param <E> excepción que puede lanzar la operación
+	 * @return resultado de la operación
+	 * @throws E si falla la operación
+	 */
+	public <T, E extends Exception> T enFragmento(int fragmento, Operacion<T, E> operacion) throws E
+	{
+		if (!this.isActivo())
+		{
+			return operacion.ejecutar() ;
+		}
+
+		Integer anterior = FragmentoRoutingDataSource.fijar(fragmento) ;
+		try
+		{
+			return operacion.ejecutar() ;
+		}
+		finally
+		{
+			FragmentoRoutingDataSource.fijar(anterior) ;
+		}
+	}
+
+	/**
+	 * Ejecuta una operación en todos los fragmentos, uno detrás de otro. Se usa para las
+	 * escrituras que afectan a todos los propietarios, que así no se solapan entre sí.
+	 *
+	 * <p>Cada fragmento se ejecuta en un hilo del reparto y no en el de la petición: con
+	 * open-in-view la petición conserva la primera conexión que obtiene y todas sus
+	 * consultas irían al mismo fragmento.</p>
+	 *
+	 * @param operacion operación a ejecutar
+	 * @param <T> tipo del resultado
+	 * @param <E> excepción que puede lanzar la operación
+	 * @return resultado de cada fragmento, en orden
+	 * @throws E si falla la operación en algún fragmento
+	 */
+	@SuppressWarnings("unchecked")
+	public <T, E extends Exception> List<T> enTodos(Operacion<T, E> operacion) throws E
+	{
+		if (!this.isActivo())
+		{
+			return Collections.singletonList(operacion.ejecutar()) ;
+		}
+
+		MedicionSentencias medicion = MonitorSentenciasHibernate.actual() ;
+		List<T> resultados = new ArrayList<>(this.getNumero()) ;
+		for (int i = 0 ; i < this.getNumero() ; i++)
+		{
+			int fragmento = i ;
+			try
+			{
+				resultados.add(CompletableFuture.supplyAsync(() ->
+				{
+					try (MedicionSentencias medicionHilo = MonitorSentenciasHibernate.iniciarDentroDe(medicion))
+					{
+						return this.enFragmento(fragmento, operacion) ;
+					}
+					catch (Exception exception)
+					{
+						throw new CompletionException(exception) ;
+					}
+				}, this.ejecutor).join()) ;
+			}
+			catch (CompletionException completionException)
+			{
+				if (completionException.getCause() instanceof RuntimeException runtimeException)
+				{
+					throw runtimeException ;
+				}
+				if (completionException.getCause() instanceof Error error)
+				{
+					throw error ;
+				}
+				throw (E) completionException.getCause() ;
+			}
+		}
+		return resultados ;
+	}
+
+	/**
+	 * Lanza una consulta en todos los fragmentos en paralelo y junta los resultados.
+	 *
+	 * @param consulta consulta a lanzar
+	 * @param <T> tipo de los elementos
+	 * @return resultados de todos los fragmentos, sin orden entre fragmentos
+	 */
+	public <T> List<T> reunir(Supplier<List<T>> consulta)
+	{
+		if (!this.isActivo())
+		{
+			return consulta.get() ;
+		}
+
+		List<List<T>> parciales = this.consultarEnParalelo(consulta) ;
+
+		List<T> resultado = new ArrayList<>(parciales.stream().mapToInt(List::size).sum()) ;
+		parciales.forEach(resultado::addAll) ;
+		return resultado ;
+	}
+
+	/**
+	 * Lanza una consulta en todos los fragmentos en paralelo y mezcla los resultados en orden.
+	 *
+	 * <p>Cada resultado parcial se ordena (si la consulta ya devuelve en orden el coste es
+	 * lineal) y después se mezclan con una cola de prioridad con la cabeza de cada uno. Sin
+	 * fragmentos se devuelve el resultado de la consulta tal cual.</p>
+	 *
+	 * @param consulta consulta a lanzar
+	 * @param orden orden del resultado
+	 * @param <T> tipo de los elementos
+	 * @return resultados de todos los fragmentos, en orden
+	 */
+	public <T> List<T> reunirOrdenado(Supplier<List<T>> consulta, Comparator<? super T> orden)
+	{
+		if (!this.isActivo())
+		{
+			return consulta.get() ;
+		}
+
+		List<List<T>> parciales = this.consultarEnParalelo(consulta) ;
+
+		// Cabezas de cada resultado parcial: {fragmento, posición}
+		PriorityQueue<int[]> cabezas = new PriorityQueue<>((a, b) -> orden.compare(parciales.get(a[0]).get(a[1]), parciales.get(b[0]).get(b[1]))) ;
+		int total = 0 ;
+		for (int i = 0 ; i < parciales.size() ; i++)
+		{
+			List<T> parcial = new ArrayList<>(parciales.get(i)) ;
+			parcial.sort(orden) ;
+			parciales.set(i, parcial) ;
+			total += parcial.size() ;
+			if (!parcial.isEmpty())
+			{
+				cabezas.add(new int[] { i, 0 }) ;
+			}
+		}
+
+		List<T> resultado = new ArrayList<>(total) ;
+		while (!cabezas.isEmpty())
+		{
+			int[] cabeza = cabezas.poll() ;
+			List<T> parcial = parciales.get(cabeza[0]) ;
+			resultado.add(parcial.get(cabeza[1])) ;
+			if (cabeza[1] + 1 < parcial.size())
+			{
+				cabezas.add(new int[] { cabeza[0], cabeza[1] + 1 }) ;
+			}
+		}
+		return resultado ;
+	}
+
+	/**
+	 * @param consulta consulta a lanzar
+	 * @param <T> tipo de los elementos
+	 * @return resultado de cada fragmento, en orden
+	 */
+	private <T> List<List<T>> consultarEnParalelo(Supplier<List<T>> consulta)
+	{
+		MedicionSentencias medicion = MonitorSentenciasHibernate.actual() ;
+		List<CompletableFuture<List<T>>> pendientes = new ArrayList<>(this.getNumero()) ;
+		for (int i = 0 ; i < this.getNumero() ; i++)
+		{
+			int fragmento = i ;
+			pendientes.add(CompletableFuture.supplyAsync(() ->
+			{
+				try (MedicionSentencias medicionHilo = MonitorSentenciasHibernate.iniciarDentroDe(medicion))
+				{
+					return this.enFragmento(fragmento, consulta::get) ;
+				}
+			}, this.ejecutor)) ;
+		}
+
+		List<List<T>> parciales = new ArrayList<>(pendientes.size()) ;
+		for (CompletableFuture<List<T>> pendiente : pendientes)
+		{
+			parciales.add(pendiente.join()) ;
+		}
+		return parciales ;
+	}
+
+	/**
+	 * Operación que se ejecuta en un fragmento
+	 *
+	 * @param <T> tipo del resultado
+	 * @param <E> excepción que puede lanzar
+	 */
+	@FunctionalInterface
+	public interface Operacion<T, E extends Exception>
+	{
+		/**
+		 * @return resultado de la operación
+		 * @throws E si falla la operación
+		 */
+		T ejecutar() throws E ;
+	}
+}
@@ -0,0 +1,363 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.HuecoLibreDto;
+import es.iesjandula.reaktor.events_server.dto.HuecosLibresRequestDto;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Búsqueda de huecos en los que varios usuarios están libres a la vez.
+ *
+ * <p>El rango se divide en intervalos de resolución fija y cada intervalo es un bit de una
+ * línea de tiempo guardada en un long[]. Se parte de la línea de tiempo del horario
+ * laboral (1 = disponible), se proyectan los eventos de cada usuario en su propia línea
+ * de tiempo de ocupación y se descuenta con operaciones sobre palabras de 64 bits. Los
+ * huecos de k intervalos seguidos se localizan también por palabras: desplazando la línea
+ * de tiempo sobre sí misma quedan marcados los bits en los que empiezan k unos seguidos.</p>
+ */
+@Slf4j
+@Service
+public class HuecosLibresService
+{
+	/** Bits por palabra */
+	private static final int BITS_PALABRA = 64 ;
+
+	/** Horario por defecto */
+	private static final LocalTime HORA_INICIO_DEFECTO = LocalTime.of(8, 0) ;
+	private static final LocalTime HORA_FIN_DEFECTO = LocalTime.of(15, 0) ;
+
+	/** Número de huecos devueltos por defecto */
+	private static final int MAX_RESULTADOS_DEFECTO = 10 ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	/** Duración de cada intervalo de la línea de tiempo en minutos */
+	@Value("${reaktor.huecos.resolucion-minutos:5}")
+	private int resolucionMinutos ;
+
+	/** Zona horaria por defecto del horario */
+	@Value("${reaktor.importacion.zona:Europe/Madrid}")
+	private String zonaDefecto ;
+
+	/**
+	 * Busca los primeros huecos en los que todos los usuarios están libres.
+	 *
+	 * @param peticion usuarios, rango, duración y horario
+	 * @return huecos ordenados por fecha, sin solaparse entre sí
+	 * @throws EventsServerException si los parámetros no son válidos o el rango es demasiado amplio
+	 */
+	public List<HuecoLibreDto> buscar(HuecosLibresRequestDto peticion) throws EventsServerException
+	{
+		Parametros parametros = this.validar(peticion) ;
+
+		long resolucionMs = this.resolucionMinutos * 60_000L ;
+
+		// Se alinea el rango a la rejilla de intervalos
+		long origen      = Math.floorDiv(peticion.getDesde(), resolucionMs) * resolucionMs ;
+		long fin         = Math.floorDiv(peticion.getHasta() + resolucionMs - 1, resolucionMs) * resolucionMs ;
+		long intervalos  = (fin - origen) / resolucionMs ;
+		if (intervalos > Constants.MAX_INTERVALOS_HUECOS)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_HUECOS_RANGO_CODE, Constants.ERR_EVENTO_HUECOS_RANGO) ;
+		}
+		int numeroBits = (int) intervalos ;
+		int palabras   = (numeroBits + BITS_PALABRA - 1) / BITS_PALABRA ;
+
+		// Disponibilidad: horario laboral recortado al rango pedido
+		long[] libre = new long[palabras] ;
+		for (LocalDate dia = Instant.ofEpochMilli(origen).atZone(parametros.zona).toLocalDate() ;
+			 !dia.atStartOfDay(parametros.zona).toInstant().isAfter(Instant.ofEpochMilli(fin)) ;
+			 dia = dia.plusDays(1))
+		{
+			if (parametros.dias.contains(dia.getDayOfWeek()))
+			{
+				long inicioJornada = dia.atTime(parametros.horaInicio).atZone(parametros.zona).toInstant().toEpochMilli() ;
+				long finJornada    = dia.atTime(parametros.horaFin).atZone(parametros.zona).toInstant().toEpochMilli() ;
+
+				// Solo intervalos completos dentro de la jornada y del rango
+				long desdeBit = Math.max(inicioJornada, peticion.getDesde()) ;
+				long hastaBit = Math.min(finJornada, peticion.getHasta()) ;
+				marcar(libre, bitTecho(desdeBit, origen, resolucionMs), bitSuelo(hastaBit, origen, resolucionMs), numeroBits) ;
+			}
+		}
+
+		// Ocupación de cada usuario: sus eventos proyectados en su propia línea de tiempo
+		Map<String, List<EventoResponseDto>> eventosPorUsuario = new HashMap<>() ;
+		Instant desdeConsulta = Instant.ofEpochMilli(origen) ;
+		Instant hastaConsulta = Instant.ofEpochMilli(fin) ;
+		for (EventoResponseDto evento : this.fragmentosEventos.reunir(() -> this.eventoRepository.buscarEventosDeUsuariosEnRango(parametros.usuarios, desdeConsulta, hastaConsulta)))
+		{
+			eventosPorUsuario.computeIfAbsent(evento.getUsuarioEmail(), clave -> new ArrayList<>()).add(evento) ;
+		}
+
+		long[] ocupado = new long[palabras] ;
+		for (List<EventoResponseDto> eventos : eventosPorUsuario.values())
+		{
+			Arrays.fill(ocupado, 0L) ;
+			for (EventoResponseDto evento : eventos)
+			{
+				// Un intervalo está ocupado aunque el evento solo cubra una parte
+				marcar(ocupado, bitSuelo(evento.getFechaInicio(), origen, resolucionMs), bitTecho(evento.getFechaFin(), origen, resolucionMs), numeroBits) ;
+			}
+			for (int i = 0 ; i < palabras ; i++)
+			{
+				libre[i] &= ~ocupado[i] ;
+			}
+		}
+
+		// Bits en los que empiezan k intervalos libres seguidos
+		int k = (int) ((parametros.duracionMinutos + this.resolucionMinutos - 1) / this.resolucionMinutos) ;
+		long[] inicios = iniciosDeRachas(libre, k) ;
+
+		List<HuecoLibreDto> huecos = new ArrayList<>() ;
+		int bit = siguienteBit(inicios, 0) ;
+		while (bit >= 0 && huecos.size() < parametros.maxResultados)
+		{
+			long inicio = origen + bit * resolucionMs ;
+			huecos.add(new HuecoLibreDto(inicio, inicio + parametros.duracionMinutos * 60_000L)) ;
+
+			// Los huecos devueltos no se solapan
+			bit = siguienteBit(inicios, bit + k) ;
+		}
+
+		log.debug("Huecos libres: {} usuarios, {} intervalos, {} huecos encontrados", parametros.usuarios.size(), numeroBits, huecos.size()) ;
+		return huecos ;
+	}
+
+	/**
+	 * Valida la petición y completa los valores por defecto.
+	 *
+	 * @param peticion petición recibida
+	 * @return parámetros validados
+	 * @throws EventsServerException si algún parámetro no es válido
+	 */
+	private Parametros validar(HuecosLibresRequestDto peticion) throws EventsServerException
+	{
+		try
+		{
+			Parametros parametros = new Parametros() ;
+
+			parametros.usuarios = new LinkedHashSet<>() ;
+			if (peticion.getUsuariosEmail() != null)
+			{
+				for (String email : peticion.getUsuariosEmail())
+				{
+					if (email != null && !email.isBlank())
+					{
+						parametros.usuarios.add(email.trim()) ;
+					}
+				}
+			}
+
+			parametros.horaInicio      = peticion.getHoraInicio() != null ? LocalTime.parse(peticion.getHoraInicio()) : HORA_INICIO_DEFECTO ;
+			parametros.horaFin         = peticion.getHoraFin() != null ? LocalTime.parse(peticion.getHoraFin()) : HORA_FIN_DEFECTO ;
+			parametros.zona            = ZoneId.of(peticion.getZona() != null ? peticion.getZona() : this.zonaDefecto) ;
+			parametros.dias            = peticion.getDias() != null && !peticion.getDias().isEmpty() ? EnumSet.copyOf(peticion.getDias()) :
+										 EnumSet.range(DayOfWeek.MONDAY, DayOfWeek.FRIDAY) ;
+			parametros.duracionMinutos = peticion.getDuracionMinutos() != null ? peticion.getDuracionMinutos() : 0 ;
+			parametros.maxResultados   = peticion.getMaxResultados() != null ?
+										 Math.max(1, Math.min(peticion.getMaxResultados(), Constants.MAX_RESULTADOS_BUSQUEDA)) : MAX_RESULTADOS_DEFECTO ;
+
+			if (!parametros.usuarios.isEmpty() && parametros.usuarios.size() <= Constants.MAX_USUARIOS_HUECOS &&
+				peticion.getDesde() != null && peticion.getHasta() != null && peticion.getDesde() < peticion.getHasta() &&
+				parametros.duracionMinutos > 0 && parametros.horaInicio.isBefore(parametros.horaFin))
+			{
+				return parametros ;
+			}
+		}
+		catch (DateTimeException exception)
+		{
+			throw new EventsServerException(Constants.ERR_EVENTO_HUECOS_PARAMETROS_CODE, Constants.ERR_EVENTO_HUECOS_PARAMETROS, exception) ;
+		}
+
+		throw EventsServerException.preasignada(Constants.ERR_EVENTO_HUECOS_PARAMETROS_CODE, Constants.ERR_EVENTO_HUECOS_PARAMETROS) ;
+	}
+
+	/**
+	 * @param instante momento en milisegundos
+	 * @param origen inicio de la línea de tiempo
+	 * @param resolucionMs duración de cada intervalo
+	 * @return intervalo que contiene el instante
+	 */
+	private static long bitSuelo(long instante, long origen, long resolucionMs)
+	{
+		return Math.floorDiv(instante - origen, resolucionMs) ;
+	}
+
+	/**
+	 * @param instante momento en milisegundos
+	 * @param origen inicio de la línea de tiempo
+	 * @param resolucionMs duración de cada intervalo
+	 * @return primer intervalo que empieza en o después del instante
+	 */
+	private static long bitTecho(long instante, long origen, long resolucionMs)
+	{
+		return Math.floorDiv(instante - origen + resolucionMs - 1, resolucionMs) ;
+	}
+
+	/**
+	 * Pone a 1 los bits [desde, hasta) recortados a la línea de tiempo, por palabras completas.
+	 *
+	 * @param bits línea de tiempo
+	 * @param desde primer bit (incluido)
+	 * @param hasta último bit (excluido)
+	 * @param numeroBits longitud de la línea de tiempo
+	 */
+	private static void marcar(long[] bits, long desde, long hasta, int numeroBits)
+	{
+		int inicio = (int) Math.max(0L, desde) ;
+		int fin    = (int) Math.min(numeroBits, hasta) ;
+		if (inicio >= fin)
+		{
+			return ;
+		}
+
+		int palabraInicio = inicio / BITS_PALABRA ;
+		int palabraFin    = (fin - 1) / BITS_PALABRA ;
+		long mascaraInicio = -1L << inicio ;
+		long mascaraFin    = -1L >>> (BITS_PALABRA - 1 - ((fin - 1) % BITS_PALABRA)) ;
+
+		if (palabraInicio == palabraFin)
+		{
+			bits[palabraInicio] |= mascaraInicio & mascaraFin ;
+			return ;
+		}
+
+		bits[palabraInicio] |= mascaraInicio ;
+		for (int i = palabraInicio + 1 ; i < palabraFin ; i++)
+		{
+			bits[i] = -1L ;
+		}
+		bits[palabraFin] |= mascaraFin ;
+	}
+
+	/**
+	 * Calcula los bits en los que empiezan k bits a 1 seguidos.
+	 *
+	 * <p>Se hace con desplazamientos dobles: tras combinar la línea de tiempo con ella misma
+	 * desplazada s bits, cada bit indica si hay 2s unos seguidos, así que bastan log2(k)
+	 * pasadas sobre las palabras.</p>
+	 *
+	 * @param bits línea de tiempo
+	 * @param k longitud de la racha
+	 * @return bits en los que empieza una racha de al menos k unos
+	 */
+	private static long[] iniciosDeRachas(long[] bits, int k)
+	{
+		long[] resultado = bits.clone() ;
+		int cubiertos = 1 ;
+		while (cubiertos < k)
+		{
+			int desplazamiento = Math.min(cubiertos, k - cubiertos) ;
+			long[] desplazado = desplazar(resultado, desplazamiento) ;
+			for (int i = 0 ; i < resultado.length ; i++)
+			{
+				resultado[i] &= desplazado[i] ;
+			}
+			cubiertos += desplazamiento ;
+		}
+		return resultado ;
+	}
+
+	/**
+	 * @param bits línea de tiempo
+	 * @param n número de bits
+	 * @return línea de tiempo en la que el bit i vale lo que valía el bit i + n
+	 */
+	private static long[] desplazar(long[] bits, int n)
+	{
+		long[] resultado = new long[bits.length] ;
+		int palabras = n / BITS_PALABRA ;
+		int resto    = n % BITS_PALABRA ;
+
+		for (int i = 0 ; i + palabras < bits.length ; i++)
+		{
+			long valor = bits[i + palabras] >>> resto ;
+			if (resto != 0 && i + palabras + 1 < bits.length)
+			{
+				valor |= bits[i + palabras + 1] << (BITS_PALABRA - resto) ;
+			}
+			resultado[i] = valor ;
+		}
+		return resultado ;
+	}
+
+	/**
+	 * @param bits línea de tiempo
+	 * @param desde primer bit a considerar
+	 * @return primer bit a 1 desde la posición indicada, o -1 si no hay ninguno
+	 */
+	private static int siguienteBit(long[] bits, int desde)
+	{
+		int palabra = desde / BITS_PALABRA ;
+		if (palabra >= bits.length)
+		{
+			return -1 ;
+		}
+
+		long valor = bits[palabra] & (-1L << (desde % BITS_PALABRA)) ;
+		while (true)
+		{
+			if (valor != 0)
+			{
+				return palabra * BITS_PALABRA + Long.numberOfTrailingZeros(valor) ;
+			}
+			if (++palabra == bits.length)
+			{
+				return -1 ;
+			}
+			valor = bits[palabra] ;
+		}
+	}
+
+	/**
+	 * Parámetros de la búsqueda ya validados.
+	 */
+	private static class Parametros
+	{
+		/** Usuarios sin repetir */
+		private Set<String> usuarios ;
+
+		/** Horario laboral */
+		private LocalTime horaInicio ;
+		private LocalTime horaFin ;
+
+		/** Días laborables */
+		private Set<DayOfWeek> dias ;
+
+		/** Zona horaria del horario */
+		private ZoneId zona ;
+
+		/** Duración del hueco */
+		private int duracionMinutos ;
+
+		/** Número máximo de huecos devueltos */
+		private int maxResultados ;
+	}
+}
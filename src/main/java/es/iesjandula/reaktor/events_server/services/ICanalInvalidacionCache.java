@@ -0,0 +1,25 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.function.Consumer;
+
+/**
+ * Canal por el que las instancias del servidor se envían mensajes de invalidación de caché.
+ *
+ * <p>Los mensajes son bytes opacos; su formato lo decide {@link CacheInvalidacionService}.</p>
+ */
+public interface ICanalInvalidacionCache
+{
+	/**
+	 * Envía un mensaje a todas las instancias (incluida, posiblemente, la propia).
+	 *
+	 * @param mensaje mensaje serializado
+	 */
+	void publicar(byte[] mensaje) ;
+
+	/**
+	 * Registra el receptor de los mensajes que lleguen por el canal.
+	 *
+	 * @param receptor receptor de los mensajes
+	 */
+	void suscribir(Consumer<byte[]> receptor) ;
+}
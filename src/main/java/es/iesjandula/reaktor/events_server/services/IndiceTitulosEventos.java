@@ -0,0 +1,553 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Índice invertido en memoria sobre los títulos de los eventos.
+ *
+ * <p>Los títulos se normalizan (sin tildes y en minúsculas) y se trocean en trigramas,
+ * de forma que una búsqueda por subcadena solo tiene que intersecar las listas de
+ * los trigramas de la consulta y verificar los candidatos. Para el autocompletado
+ * se mantiene además un árbol ordenado con los títulos a partir del inicio de cada
+ * palabra, lo que permite resolver un prefijo con un único recorrido de rango.</p>
+ *
+ * <p>El índice se construye al arrancar y se mantiene de forma incremental escuchando
+ * las notificaciones {@link EventoCambioNotificacion}. Las reconstrucciones completas se
+ * hacen en un hilo propio, fuera de la petición que las provoca; los cambios que llegan
+ * mientras se leen los eventos se guardan y se vuelven a aplicar sobre el índice nuevo,
+ * descartando por versión los que la lectura ya incluía.</p>
+ */
+@Slf4j
+@Service
+public class IndiceTitulosEventos
+{
+	/** Longitud de los n-gramas del índice */
+	private static final int TAMANIO_NGRAMA = 3 ;
+
+	/** Separador usado para montar la clave de cada evento */
+	private static final char SEPARADOR_CLAVE = '\u0000' ;
+
+	@Autowired
+	private LecturaEventosService lecturaEventosService ;
+
+	/** Cerrojo que protege todas las estructuras del índice */
+	private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock() ;
+
+	/** Entradas indexadas por su posición */
+	private final List<Entrada> entradas = new ArrayList<>() ;
+
+	/** Posiciones libres de entradas eliminadas, reutilizables */
+	private final List<Integer> posicionesLibres = new ArrayList<>() ;
+
+	/** Clave del evento → posición de su entrada */
+	private final Map<String, Integer> posicionPorClave = new HashMap<>() ;
+
+	/** Trigrama → posiciones de las entradas que lo contienen */
+	private final Map<String, Set<Integer>> listasInvertidas = new HashMap<>() ;
+
+	/** Título normalizado desde el inicio de cada palabra → títulos originales y número de eventos */
+	private final TreeMap<String, Map<String, Integer>> arbolPrefijos = new TreeMap<>() ;
+
+	/** Cambios recibidos durante la reconstrucción en curso, o null si no hay ninguna */
+	private List<EventoCambioNotificacion> cambiosDuranteReconstruccion ;
+
+	/** Indica si hay una reconstrucción pedida que aún no ha empezado */
+	private final AtomicBoolean reconstruccionPendiente = new AtomicBoolean() ;
+
+	/** Hilo en el que se hacen las reconstrucciones, una detrás de otra */
+	private final ExecutorService reconstructor = Executors.newSingleThreadExecutor(tarea ->
+	{
+		Thread hilo = new Thread(tarea, "indice-titulos") ;
+		hilo.setDaemon(true) ;
+		return hilo ;
+	}) ;
+
+	/**
+	 * Construye el índice completo una vez arrancada la aplicación.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void inicializar()
+	{
+		this.solicitarReconstruccion() ;
+	}
+
+	/**
+	 * Actualiza el índice tras un cambio en los eventos.
+	 *
+	 * @param notificacion cambio producido
+	 */
+	@EventListener
+	public void onEventoCambio(EventoCambioNotificacion notificacion)
+	{
+		switch (notificacion.getTipo())
+		{
+			case CREADO:
+				this.agregar(notificacion.getEvento()) ;
+				break ;
+			case ELIMINADO:
+				this.eliminar(notificacion.getEvento()) ;
+				break ;
+			default:
+				this.solicitarReconstruccion() ;
+				break ;
+		}
+	}
+
+	/**
+	 * Pide una reconstrucción en segundo plano. Si ya hay una pedida que no ha empezado,
+	 * esta se junta con ella.
+	 */
+	public void solicitarReconstruccion()
+	{
+		if (this.reconstruccionPendiente.compareAndSet(false, true))
+		{
+			this.reconstructor.execute(() ->
+			{
+				// Las peticiones que lleguen a partir de aquí necesitan otra lectura
+				this.reconstruccionPendiente.set(false) ;
+				try
+				{
+					this.reconstruir() ;
+				}
+				catch (RuntimeException runtimeException)
+				{
+					this.cambiarCambiosDuranteReconstruccion(null) ;
+					log.error("No se ha podido reconstruir el índice de títulos", runtimeException) ;
+				}
+			}) ;
+		}
+	}
+
+	/**
+	 * Vuelve a cargar todos los eventos desde base de datos y rehace el índice, aplicando
+	 * después los cambios recibidos durante la lectura.
+	 */
+	private void reconstruir()
+	{
+		// Desde aquí se guardan los cambios, porque la lectura puede no verlos
+		this.cambiarCambiosDuranteReconstruccion(new ArrayList<>()) ;
+
+		List<EventoResponseDto> eventos = this.lecturaEventosService.buscarEventosEnBaseDeDatos() ;
+
+		this.cerrojo.writeLock().lock() ;
+		try
+		{
+			this.entradas.clear() ;
+			this.posicionesLibres.clear() ;
+			this.posicionPorClave.clear() ;
+			this.listasInvertidas.clear() ;
+			this.arbolPrefijos.clear() ;
+
+			for (EventoResponseDto evento : eventos)
+			{
+				this.agregarSinBloqueo(evento) ;
+			}
+
+			for (EventoCambioNotificacion cambio : this.cambiosDuranteReconstruccion)
+			{
+				if (cambio.getTipo() == EventoCambioNotificacion.Tipo.CREADO)
+				{
+					this.agregarSinBloqueo(cambio.getEvento()) ;
+				}
+				else
+				{
+					this.eliminarSinBloqueo(cambio.getEvento()) ;
+				}
+			}
+			this.cambiosDuranteReconstruccion = null ;
+		}
+		finally
+		{
+			this.cerrojo.writeLock().unlock() ;
+		}
+
+		log.info("Índice de títulos reconstruido con {} eventos", eventos.size()) ;
+	}
+
+	/**
+	 * @param cambios lista en la que guardar los cambios, o null para dejar de guardarlos
+	 */
+	private void cambiarCambiosDuranteReconstruccion(List<EventoCambioNotificacion> cambios)
+	{
+		this.cerrojo.writeLock().lock() ;
+		try
+		{
+			this.cambiosDuranteReconstruccion = cambios ;
+		}
+		finally
+		{
+			this.cerrojo.writeLock().unlock() ;
+		}
+	}
+
+	/**
+	 * Añade un evento al índice.
+	 *
+	 * @param evento evento a indexar
+	 */
+	public void agregar(EventoResponseDto evento)
+	{
+		this.cerrojo.writeLock().lock() ;
+		try
+		{
+			this.agregarSinBloqueo(evento) ;
+			if (this.cambiosDuranteReconstruccion != null)
+			{
+				this.cambiosDuranteReconstruccion.add(EventoCambioNotificacion.creado(evento)) ;
+			}
+		}
+		finally
+		{
+			this.cerrojo.writeLock().unlock() ;
+		}
+	}
+
+	/**
+	 * Elimina un evento del índice.
+	 *
+	 * @param evento evento a eliminar (título, fecha de inicio, email y versión)
+	 */
+	public void eliminar(EventoResponseDto evento)
+	{
+		this.cerrojo.writeLock().lock() ;
+		try
+		{
+			this.eliminarSinBloqueo(evento) ;
+			if (this.cambiosDuranteReconstruccion != null)
+			{
+				this.cambiosDuranteReconstruccion.add(EventoCambioNotificacion.eliminado(evento)) ;
+			}
+		}
+		finally
+		{
+			this.cerrojo.writeLock().unlock() ;
+		}
+	}
+
+	/**
+	 * Elimina un evento del índice si no está en una versión posterior a la borrada. Se
+	 * llama con el cerrojo de escritura cogido.
+	 *
+	 * @param evento evento a eliminar
+	 */
+	private void eliminarSinBloqueo(EventoResponseDto evento)
+	{
+		Integer posicion = this.posicionPorClave.get(clave(evento)) ;
+		if (posicion == null || this.entradas.get(posicion).evento.getVersion() > evento.getVersion())
+		{
+			return ;
+		}
+		this.posicionPorClave.remove(clave(evento)) ;
+
+		Entrada entrada = this.entradas.get(posicion) ;
+		for (String ngrama : ngramas(entrada.tituloNormalizado))
+		{
+			Set<Integer> lista = this.listasInvertidas.get(ngrama) ;
+			if (lista != null)
+			{
+				lista.remove(posicion) ;
+				if (lista.isEmpty())
+				{
+					this.listasInvertidas.remove(ngrama) ;
+				}
+			}
+		}
+
+		for (String sufijo : sufijosPorPalabra(entrada.tituloNormalizado))
+		{
+			Map<String, Integer> titulos = this.arbolPrefijos.get(sufijo) ;
+			if (titulos != null)
+			{
+				titulos.computeIfPresent(entrada.evento.getTitulo(), (titulo, total) -> total > 1 ? total - 1 : null) ;
+				if (titulos.isEmpty())
+				{
+					this.arbolPrefijos.remove(sufijo) ;
+				}
+			}
+		}
+
+		this.entradas.set(posicion, null) ;
+		this.posicionesLibres.add(posicion) ;
+	}
+
+	/**
+	 * Busca los eventos cuyo título contiene el texto indicado, ignorando tildes y mayúsculas.
+	 *
+	 * @param texto texto a buscar
+	 * @param usuarioEmail si no es nulo, solo se devuelven los eventos de este usuario
+	 * @param desde si no es nulo, solo eventos que terminan en o después de este instante (ms)
+	 * @param hasta si no es nulo, solo eventos que empiezan en o antes de este instante (ms)
+	 * @param limite número máximo de resultados
+	 * @return eventos encontrados ordenados por fecha de inicio
+	 */
+	public List<EventoResponseDto> buscar(String texto, String usuarioEmail, Long desde, Long hasta, int limite)
+	{
+		String consulta = normalizar(texto) ;
+		List<EventoResponseDto> resultado = new ArrayList<>() ;
+
+		this.cerrojo.readLock().lock() ;
+		try
+		{
+			for (Integer posicion : this.candidatos(consulta))
+			{
+				Entrada entrada = this.entradas.get(posicion) ;
+				if (entrada != null && entrada.tituloNormalizado.contains(consulta) && cumpleFiltros(entrada.evento, usuarioEmail, desde, hasta))
+				{
+					resultado.add(entrada.evento) ;
+				}
+			}
+		}
+		finally
+		{
+			this.cerrojo.readLock().unlock() ;
+		}
+
+		resultado.sort(Comparator.comparingLong(EventoResponseDto::getFechaInicio)) ;
+		return resultado.size() > limite ? new ArrayList<>(resultado.subList(0, limite)) : resultado ;
+	}
+
+	/**
+	 * Sugiere títulos de eventos que tienen alguna palabra que empieza por el prefijo indicado.
+	 *
+	 * @param prefijo texto escrito por el usuario
+	 * @param limite número máximo de sugerencias
+	 * @return títulos originales sugeridos, sin repetir
+	 */
+	public List<String> autocompletar(String prefijo, int limite)
+	{
+		String inicio = normalizar(prefijo) ;
+		Set<String> sugerencias = new LinkedHashSet<>() ;
+
+		if (inicio.isEmpty())
+		{
+			return new ArrayList<>() ;
+		}
+
+		this.cerrojo.readLock().lock() ;
+		try
+		{
+			NavigableMap<String, Map<String, Integer>> rango = this.arbolPrefijos.subMap(inicio, true, inicio + Character.MAX_VALUE, false) ;
+			for (Map<String, Integer> titulos : rango.values())
+			{
+				for (String titulo : titulos.keySet())
+				{
+					sugerencias.add(titulo) ;
+					if (sugerencias.size() >= limite)
+					{
+						return new ArrayList<>(sugerencias) ;
+					}
+				}
+			}
+		}
+		finally
+		{
+			this.cerrojo.readLock().unlock() ;
+		}
+
+		return new ArrayList<>(sugerencias) ;
+	}
+
+	/**
+	 * Normaliza un texto para el índice: sin tildes, en minúsculas y con los separadores
+	 * reducidos a un único espacio.
+	 *
+	 * @param texto texto original
+	 * @return texto normalizado (nunca nulo)
+	 */
+	public static String normalizar(String texto)
+	{
+		if (texto == null)
+		{
+			return "" ;
+		}
+
+		String sinTildes = Normalizer.normalize(texto, Normalizer.Form.NFD).replaceAll("\\p{M}+", "") ;
+		return sinTildes.toLowerCase(Locale.ROOT).replaceAll("[^\\p{Alnum}]+", " ").trim() ;
+	}
+
+	/**
+	 * Añade la entrada sin tomar el cerrojo (el llamante ya lo tiene).
+	 *
+	 * @param evento evento a indexar
+	 */
+	private void agregarSinBloqueo(EventoResponseDto evento)
+	{
+		String clave = clave(evento) ;
+		Integer existente = this.posicionPorClave.get(clave) ;
+		if (existente != null)
+		{
+			// Con la misma versión o una posterior ya está indexado; con una anterior se sustituye
+			if (this.entradas.get(existente).evento.getVersion() >= evento.getVersion())
+			{
+				return ;
+			}
+			this.eliminarSinBloqueo(this.entradas.get(existente).evento) ;
+		}
+
+		Entrada entrada = new Entrada(evento, normalizar(evento.getTitulo())) ;
+
+		int posicion ;
+		if (this.posicionesLibres.isEmpty())
+		{
+			posicion = this.entradas.size() ;
+			this.entradas.add(entrada) ;
+		}
+		else
+		{
+			posicion = this.posicionesLibres.remove(this.posicionesLibres.size() - 1) ;
+			this.entradas.set(posicion, entrada) ;
+		}
+		this.posicionPorClave.put(clave, posicion) ;
+
+		for (String ngrama : ngramas(entrada.tituloNormalizado))
+		{
+			this.listasInvertidas.computeIfAbsent(ngrama, ng -> new HashSet<>()).add(posicion) ;
+		}
+
+		for (String sufijo : sufijosPorPalabra(entrada.tituloNormalizado))
+		{
+			this.arbolPrefijos.computeIfAbsent(sufijo, s -> new TreeMap<>()).merge(evento.getTitulo(), 1, Integer::sum) ;
+		}
+	}
+
+	/**
+	 * Calcula las posiciones candidatas para una consulta intersecando las listas
+	 * de sus trigramas, empezando por la más corta.
+	 *
+	 * @param consulta consulta normalizada
+	 * @return posiciones candidatas (pendientes de verificar)
+	 */
+	private Set<Integer> candidatos(String consulta)
+	{
+		// Con consultas más cortas que un n-grama no hay listas que intersecar
+		if (consulta.length() < TAMANIO_NGRAMA)
+		{
+			return new HashSet<>(this.posicionPorClave.values()) ;
+		}
+
+		List<Set<Integer>> listas = new ArrayList<>() ;
+		for (String ngrama : ngramas(consulta))
+		{
+			Set<Integer> lista = this.listasInvertidas.get(ngrama) ;
+			if (lista == null)
+			{
+				return new HashSet<>() ;
+			}
+			listas.add(lista) ;
+		}
+		listas.sort(Comparator.comparingInt(Set::size)) ;
+
+		Set<Integer> interseccion = new HashSet<>(listas.get(0)) ;
+		for (int i = 1 ; i < listas.size() && !interseccion.isEmpty() ; i++)
+		{
+			interseccion.retainAll(listas.get(i)) ;
+		}
+		return interseccion ;
+	}
+
+	/**
+	 * @param evento evento
+	 * @param usuarioEmail filtro de propietario (opcional)
+	 * @param desde inicio del rango (opcional)
+	 * @param hasta fin del rango (opcional)
+	 * @return true si el evento cumple todos los filtros indicados
+	 */
+	private static boolean cumpleFiltros(EventoResponseDto evento, String usuarioEmail, Long desde, Long hasta)
+	{
+		if (usuarioEmail != null && !usuarioEmail.equals(evento.getUsuarioEmail()))
+		{
+			return false ;
+		}
+		// Sin fecha de fin no cumple fecha_fin >= desde, igual que en la base de datos
+		if (desde != null && (evento.getFechaFin() == null || evento.getFechaFin() < desde))
+		{
+			return false ;
+		}
+		return hasta == null || evento.getFechaInicio() <= hasta ;
+	}
+
+	/**
+	 * @param texto texto normalizado
+	 * @return trigramas distintos del texto
+	 */
+	private static Set<String> ngramas(String texto)
+	{
+		Set<String> ngramas = new HashSet<>() ;
+		for (int i = 0 ; i + TAMANIO_NGRAMA <= texto.length() ; i++)
+		{
+			ngramas.add(texto.substring(i, i + TAMANIO_NGRAMA)) ;
+		}
+		return ngramas ;
+	}
+
+	/**
+	 * @param texto texto normalizado
+	 * @return el texto a partir del comienzo de cada una de sus palabras
+	 */
+	private static Set<String> sufijosPorPalabra(String texto)
+	{
+		Set<String> sufijos = new HashSet<>() ;
+		for (int i = 0 ; i < texto.length() ; i++)
+		{
+			if (i == 0 || texto.charAt(i - 1) == ' ')
+			{
+				sufijos.add(texto.substring(i)) ;
+			}
+		}
+		return sufijos ;
+	}
+
+	/**
+	 * @param evento evento
+	 * @return clave única del evento (email, fecha de inicio y título)
+	 */
+	private static String clave(EventoResponseDto evento)
+	{
+		return evento.getUsuarioEmail() + SEPARADOR_CLAVE + evento.getFechaInicio() + SEPARADOR_CLAVE + evento.getTitulo() ;
+	}
+
+	/**
+	 * Evento indexado junto con su título normalizado.
+	 */
+	private static class Entrada
+	{
+		/** Datos del evento tal y como se devuelven al cliente */
+		private final EventoResponseDto evento ;
+
+		/** Título normalizado */
+		private final String tituloNormalizado ;
+
+		/**
+		 * @param evento evento indexado
+		 * @param tituloNormalizado título normalizado
+		 */
+		private Entrada(EventoResponseDto evento, String tituloNormalizado)
+		{
+			this.evento            = evento ;
+			this.tituloNormalizado = tituloNormalizado ;
+		}
+	}
+}
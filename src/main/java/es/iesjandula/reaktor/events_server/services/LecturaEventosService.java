@@ -0,0 +1,129 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.models.Evento;
+import es.iesjandula.reaktor.events_server.models.ids.EventoId;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+
+/**
+ * Punto único de las lecturas de eventos de los endpoints GET.
+ *
+ * <p>Si el {@link AlmacenColumnarEventos} está activado y construido las lecturas se
+ * sirven desde memoria; si no, desde el repositorio como hasta ahora. Las escrituras no
+ * pasan por aquí: van a la base de datos y el almacén se actualiza con sus notificaciones.</p>
+ *
+ * <p>Con los eventos repartidos en fragmentos, las lecturas de un propietario van a su
+ * fragmento y las de todos los propietarios se lanzan en todos y se mezclan por fecha de
+ * inicio.</p>
+ */
+@Service
+public class LecturaEventosService
+{
+	/** Orden de los listados que juntan varios fragmentos */
+	private static final Comparator<EventoResponseDto> POR_FECHA_INICIO = Comparator.comparingLong(EventoResponseDto::getFechaInicio) ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private AlmacenColumnarEventos almacenColumnarEventos ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	/**
+	 * @return true si las lecturas se están sirviendo desde memoria
+	 */
+	public boolean isEnMemoria()
+	{
+		return this.almacenColumnarEventos.isDisponible() ;
+	}
+
+	/**
+	 * @return todos los eventos
+	 */
+	public List<EventoResponseDto> buscarEventos()
+	{
+		if (this.isEnMemoria())
+		{
+			return this.almacenColumnarEventos.buscarEventos() ;
+		}
+		return this.buscarEventosEnBaseDeDatos() ;
+	}
+
+	/**
+	 * Lee todos los eventos de la base de datos, sin pasar por el almacén en memoria. Lo
+	 * usan también las estructuras en memoria para construirse.
+	 *
+	 * @return todos los eventos
+	 */
+	public List<EventoResponseDto> buscarEventosEnBaseDeDatos()
+	{
+		if (this.fragmentosEventos.isActivo())
+		{
+			return this.fragmentosEventos.reunirOrdenado(() -> this.eventoRepository.buscarEventosOrdenados(), POR_FECHA_INICIO) ;
+		}
+		return this.eventoRepository.buscarEventos() ;
+	}
+
+	/**
+	 * @param email email del propietario
+	 * @return eventos del propietario
+	 */
+	public List<EventoResponseDto> buscarEventosPorUsuario(String email)
+	{
+		if (this.isEnMemoria())
+		{
+			return this.almacenColumnarEventos.buscarEventosPorUsuario(email) ;
+		}
+		return this.fragmentosEventos.enFragmentoDe(email, () -> this.eventoRepository.buscarEventosPorUsuario(email)) ;
+	}
+
+	/**
+	 * @param eventoId clave del evento
+	 * @return el evento, si existe
+	 */
+	public Optional<EventoResponseDto> buscarEvento(EventoId eventoId)
+	{
+		if (this.isEnMemoria())
+		{
+			return Optional.ofNullable(this.almacenColumnarEventos.buscarEvento(eventoId.getTitulo(), eventoId.getFechaInicio().toEpochMilli(), eventoId.getUsuarioEmail())) ;
+		}
+		return this.fragmentosEventos.enFragmentoDe(eventoId.getUsuarioEmail(), () -> this.eventoRepository.findById(eventoId).map(LecturaEventosService::toResponseDto)) ;
+	}
+
+	/**
+	 * @param desde los eventos terminan en o después de esta fecha
+	 * @param hasta los eventos empiezan antes de esta fecha
+	 * @param categoria nombre de la categoría (opcional)
+	 * @return eventos que se solapan con el rango, ordenados por fecha de inicio
+	 */
+	public List<EventoResponseDto> buscarEventosEnRango(Instant desde, Instant hasta, String categoria)
+	{
+		if (this.isEnMemoria())
+		{
+			return this.almacenColumnarEventos.buscarEventosEnRango(desde.toEpochMilli(), hasta.toEpochMilli(), categoria) ;
+		}
+		return this.fragmentosEventos.reunirOrdenado(() -> this.eventoRepository.buscarEventosEnRango(desde, hasta, categoria), POR_FECHA_INICIO) ;
+	}
+
+	/**
+	 * @param evento entidad
+	 * @return DTO de respuesta con todos los campos de la entidad
+	 */
+	private static EventoResponseDto toResponseDto(Evento evento)
+	{
+		String nombreCategoria = evento.getCategoria() != null ? evento.getCategoria().getNombre() : null ;
+
+		return new EventoResponseDto(evento.getEventoId().getTitulo(), evento.getEventoId().getFechaInicio(), evento.getFechaFin(),
+									 nombreCategoria, evento.getEventoId().getUsuarioEmail(), evento.getUsuarioNombre(), evento.getUsuarioApellidos(), evento.getVersion()) ;
+	}
+}
@@ -0,0 +1,158 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.base.utils.BaseConstants;
+import es.iesjandula.reaktor.events_server.dto.CategoriaResponseDto;
+import es.iesjandula.reaktor.events_server.dto.EventoClaveDto;
+import es.iesjandula.reaktor.events_server.dto.EventoResponseDto;
+import es.iesjandula.reaktor.events_server.dto.ResultadoConsultaEventoDto;
+import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Lectura de eventos y categorías como flujos reactivos.
+ *
+ * <p>El acceso a base de datos sigue siendo JDBC, así que cada consulta se ejecuta en el
+ * planificador boundedElastic y no en el hilo de la petición. Los listados se leen por
+ * páginas con paginación por clave (sin OFFSET) y la siguiente página solo se pide cuando
+ * el cliente ha consumido la anterior, por lo que un cliente lento no obliga a tener todo
+ * el listado en memoria ni retiene una conexión entre páginas.</p>
+ *
+ * <p>El contexto de seguridad de la petición se recoge al montar el flujo y se fija en el
+ * hilo de cada consulta: sin él, el enrutado a la réplica no sabe qué usuario lee y no le
+ * garantiza ver sus propias escrituras recientes.</p>
+ */
+@Service
+public class LecturaReactivaEventosService
+{
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private ICategoriaRepository categoriaRepository ;
+
+	@Autowired
+	private EventoConsultaMultipleService eventoConsultaMultipleService ;
+
+	@Autowired
+	private LecturaEventosService lecturaEventosService ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	/** Eventos por página */
+	@Value("${reaktor.reactivo.tamanio-pagina:500}")
+	private int tamanioPagina ;
+
+	/**
+	 * Eventos visibles para el usuario: todos para administración y solo los suyos para el
+	 * resto, igual que en GET /events/{email}.
+	 *
+	 * <p>Con los eventos repartidos en fragmentos la paginación por clave no recorre todos
+	 * los fragmentos a la vez, así que el listado completo se lee mezclado de una vez.</p>
+	 *
+	 * @param usuario usuario que hace la consulta
+	 * @return eventos visibles para el usuario
+	 */
+	public Flux<EventoResponseDto> listarEventos(DtoUsuarioExtended usuario)
+	{
+		SecurityContext contexto = SecurityContextHolder.getContext() ;
+
+		if (usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR) && this.fragmentosEventos.isActivo())
+		{
+			return this.leer(contexto, () -> this.lecturaEventosService.buscarEventos())
+					   .flatMapIterable(eventos -> eventos) ;
+		}
+
+		if (usuario.getRoles().contains(BaseConstants.ROLE_ADMINISTRADOR))
+		{
+			return this.leerPagina(contexto, Instant.EPOCH, "", "")
+					   .expand(pagina -> pagina.size() < this.tamanioPagina ? Mono.empty() : this.leerPaginaSiguiente(contexto, pagina))
+					   .concatMapIterable(pagina -> pagina) ;
+		}
+
+		return this.leer(contexto, () -> this.lecturaEventosService.buscarEventosPorUsuario(usuario.getEmail()))
+				   .flatMapIterable(eventos -> eventos) ;
+	}
+
+	/**
+	 * @param clave clave del evento
+	 * @param usuario usuario que hace la consulta
+	 * @return resultado de la búsqueda con las mismas reglas de permisos que /filtro
+	 */
+	public Mono<ResultadoConsultaEventoDto> obtenerEvento(EventoClaveDto clave, DtoUsuarioExtended usuario)
+	{
+		return this.leer(SecurityContextHolder.getContext(), () -> this.eventoConsultaMultipleService.consultar(List.of(clave), usuario).get(0)) ;
+	}
+
+	/**
+	 * @return todas las categorías
+	 */
+	public Flux<CategoriaResponseDto> listarCategorias()
+	{
+		return this.leer(SecurityContextHolder.getContext(), () -> this.categoriaRepository.buscarCategorias())
+				   .flatMapIterable(categorias -> categorias) ;
+	}
+
+	/**
+	 * @param contexto contexto de seguridad de la petición
+	 * @param pagina página anterior (completa)
+	 * @return página que empieza tras el último evento de la anterior
+	 */
+	private Mono<List<EventoResponseDto>> leerPaginaSiguiente(SecurityContext contexto, List<EventoResponseDto> pagina)
+	{
+		EventoResponseDto ultimo = pagina.get(pagina.size() - 1) ;
+		return this.leerPagina(contexto, Instant.ofEpochMilli(ultimo.getFechaInicio()), ultimo.getTitulo(), ultimo.getUsuarioEmail()) ;
+	}
+
+	/**
+	 * @param contexto contexto de seguridad de la petición
+	 * @param fechaInicio fecha de inicio de la última clave leída
+	 * @param titulo título de la última clave leída
+	 * @param usuarioEmail email de la última clave leída
+	 * @return página de eventos posterior a la clave, leída en el planificador boundedElastic
+	 */
+	private Mono<List<EventoResponseDto>> leerPagina(SecurityContext contexto, Instant fechaInicio, String titulo, String usuarioEmail)
+	{
+		return this.leer(contexto, () -> this.eventoRepository.buscarEventosDespuesDe(fechaInicio, titulo, usuarioEmail, PageRequest.of(0, this.tamanioPagina))) ;
+	}
+
+	/**
+	 * Ejecuta una lectura bloqueante en el planificador boundedElastic con el contexto de
+	 * seguridad de la petición, que se quita al terminar para no dejarlo en el hilo.
+	 *
+	 * @param contexto contexto de seguridad de la petición
+	 * @param lectura lectura a ejecutar
+	 * @param <T> tipo del resultado
+	 * @return resultado de la lectura
+	 */
+	private <T> Mono<T> leer(SecurityContext contexto, Callable<T> lectura)
+	{
+		return Mono.fromCallable(() ->
+		{
+			SecurityContextHolder.setContext(contexto) ;
+			try
+			{
+				return lectura.call() ;
+			}
+			finally
+			{
+				SecurityContextHolder.clearContext() ;
+			}
+		}).subscribeOn(Schedulers.boundedElastic()) ;
+	}
+}
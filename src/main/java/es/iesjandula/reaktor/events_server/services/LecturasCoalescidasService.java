@@ -0,0 +1,201 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import es.iesjandula.reaktor.events_server.utils.config.RegistroAccesoInterceptor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Agrupa las lecturas idénticas que llegan a la vez para que compartan una sola consulta
+ * y una sola serialización.
+ *
+ * <p>La primera petición de una clave (endpoint y alcance del usuario) hace la lectura y
+ * serializa el resultado a JSON; las que llegan mientras tanto con la misma clave esperan
+ * ese resultado en lugar de repetir la consulta. La clave se libera al terminar, así que no
+ * se guarda nada entre lecturas: esto no es una caché.</p>
+ *
+ * <p>Cuando cambian los eventos se olvidan las lecturas en curso, de modo que una petición
+ * posterior al cambio nunca se une a una lectura que empezó antes.</p>
+ *
+ * <p>Solo la petición que consulta ocupa un hueco de concurrencia del control de admisión,
+ * y solo mientras dura la consulta; las que esperan su resultado no ocupan ninguno. La
+ * espera máxima debe cubrir la latencia de la lectura en los picos de carga, no la habitual:
+ * si se agota, cada petición que esperaba lanza su propia consulta justo cuando la base de
+ * datos va más lenta.</p>
+ */
+@Slf4j
+@Service
+public class LecturasCoalescidasService
+{
+	@Autowired
+	private ObjectMapper objectMapper ;
+
+	@Autowired
+	private ControlAdmisionService controlAdmisionService ;
+
+	/** Tiempo máximo que una petición espera la lectura de otra antes de hacer la suya */
+	@Value("${reaktor.coalescencia.espera-maxima-ms:10000}")
+	private long esperaMaximaMs ;
+
+	/** Lecturas en curso por clave */
+	private final Map<String, CompletableFuture<Lectura>> enCurso = new ConcurrentHashMap<>() ;
+
+	/** Lecturas hechas contra la base de datos */
+	private final AtomicLong lecturas = new AtomicLong() ;
+
+	/** Peticiones que han reutilizado una lectura en curso */
+	private final AtomicLong coalescidas = new AtomicLong() ;
+
+	/** Lecturas que han terminado con error */
+	private final AtomicLong errores = new AtomicLong() ;
+
+	/** Peticiones que se cansaron de esperar e hicieron su propia lectura */
+	private final AtomicLong esperasAgotadas = new AtomicLong() ;
+
+	/**
+	 * Devuelve el resultado serializado de la lectura, compartiéndolo con las peticiones
+	 * simultáneas con la misma clave.
+	 *
+	 * @param clave endpoint y alcance del usuario; dos peticiones con la misma clave deben recibir lo mismo
+	 * @param lectura consulta que se ejecuta si no hay otra en curso con la misma clave
+	 * @return resultado en JSON
+	 * @throws Exception el error de la lectura, también para las peticiones que la esperaban
+	 */
+	public byte[] leer(String clave, Callable<?> lectura) throws Exception
+	{
+		CompletableFuture<Lectura> nueva     = new CompletableFuture<>() ;
+		CompletableFuture<Lectura> existente = this.enCurso.putIfAbsent(clave, nueva) ;
+
+		if (existente != null)
+		{
+			this.coalescidas.incrementAndGet() ;
+			return this.esperar(clave, existente, lectura).json() ;
+		}
+
+		this.lecturas.incrementAndGet() ;
+		try
+		{
+			Lectura resultado = this.ejecutar(lectura) ;
+			nueva.complete(resultado) ;
+			return resultado.json() ;
+		}
+		catch (Exception exception)
+		{
+			this.errores.incrementAndGet() ;
+			nueva.completeExceptionally(exception) ;
+			throw exception ;
+		}
+		finally
+		{
+			this.enCurso.remove(clave, nueva) ;
+		}
+	}
+
+	/**
+	 * Olvida las lecturas en curso cuando cambian los eventos. Las peticiones que ya las
+	 * esperaban siguen recibiendo su resultado.
+	 *
+	 * @param notificacion cambio producido
+	 */
+	@EventListener
+	public void alCambiarEventos(EventoCambioNotificacion notificacion)
+	{
+		this.enCurso.clear() ;
+	}
+
+	/**
+	 * @return contadores de lecturas hechas, peticiones coalescidas, errores y esperas agotadas
+	 */
+	public Map<String, Long> obtenerContadores()
+	{
+		return Map.of("lecturas", this.lecturas.get(),
+					  "coalescidas", this.coalescidas.get(),
+					  "errores", this.errores.get(),
+					  "esperasAgotadas", this.esperasAgotadas.get(),
+					  "enCurso", (long) this.enCurso.size()) ;
+	}
+
+	/**
+	 * @param clave clave de la lectura
+	 * @param enCurso lectura de otra petición
+	 * @param lectura consulta propia si la espera se agota
+	 * @return resultado de la lectura
+	 * @throws Exception el error de la lectura
+	 */
+	private Lectura esperar(String clave, CompletableFuture<Lectura> enCurso, Callable<?> lectura) throws Exception
+	{
+		try
+		{
+			Lectura resultado = enCurso.get(this.esperaMaximaMs, TimeUnit.MILLISECONDS) ;
+			RegistroAccesoInterceptor.anotarFilas(resultado.filas()) ;
+			return resultado ;
+		}
+		catch (ExecutionException executionException)
+		{
+			throw executionException.getCause() instanceof Exception exception ? exception : executionException ;
+		}
+		catch (TimeoutException timeoutException)
+		{
+			this.esperasAgotadas.incrementAndGet() ;
+			log.warn("Lectura coalescida {}: espera agotada tras {} ms, se consulta de nuevo", clave, this.esperaMaximaMs) ;
+			return this.ejecutar(lectura) ;
+		}
+	}
+
+	/**
+	 * Ejecuta la consulta ocupando un hueco de concurrencia mientras dura.
+	 *
+	 * @param lectura consulta
+	 * @return resultado de la consulta en JSON y su número de elementos
+	 * @throws Exception el error de la consulta, o EventsServerException si no hay hueco
+	 */
+	private Lectura ejecutar(Callable<?> lectura) throws Exception
+	{
+		if (!this.controlAdmisionService.ocuparHueco())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_ADMISION_SATURADO_CODE, Constants.ERR_ADMISION_SATURADO) ;
+		}
+
+		Object resultado ;
+		try
+		{
+			resultado = lectura.call() ;
+		}
+		finally
+		{
+			this.controlAdmisionService.liberarHueco() ;
+		}
+
+		int filas = resultado instanceof Collection<?> coleccion ? coleccion.size() : -1 ;
+		RegistroAccesoInterceptor.anotarFilas(filas) ;
+		return new Lectura(this.objectMapper.writeValueAsBytes(resultado), filas) ;
+	}
+
+	/**
+	 * Resultado compartido de una lectura.
+	 *
+	 * @param json resultado en JSON
+	 * @param filas número de elementos, o -1 si no es una lista
+	 */
+	private record Lectura(byte[] json, int filas)
+	{
+	}
+}
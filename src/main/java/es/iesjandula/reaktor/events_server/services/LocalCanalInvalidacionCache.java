@@ -0,0 +1,46 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Canal de invalidación de caché dentro de la propia JVM, sustituto del broker.
+ *
+ * <p>Todos los contextos de Spring levantados en la misma JVM comparten los receptores,
+ * de modo que varias instancias del servidor arrancadas en un mismo proceso (por ejemplo
+ * en pruebas) se invalidan entre sí sin necesidad de RabbitMQ.</p>
+ */
+@Component
+@ConditionalOnProperty(name = "reaktor.cache.invalidacion.canal", havingValue = "local")
+public class LocalCanalInvalidacionCache implements ICanalInvalidacionCache
+{
+	/** Receptores de todas las instancias de la JVM */
+	private static final List<Consumer<byte[]>> RECEPTORES = new CopyOnWriteArrayList<>() ;
+
+	@Override
+	public void publicar(byte[] mensaje)
+	{
+		for (Consumer<byte[]> receptor : RECEPTORES)
+		{
+			receptor.accept(mensaje.clone()) ;
+		}
+	}
+
+	@Override
+	public void suscribir(Consumer<byte[]> receptor)
+	{
+		RECEPTORES.add(receptor) ;
+	}
+
+	/**
+	 * Elimina todos los receptores registrados (útil entre pruebas).
+	 */
+	public static void reiniciar()
+	{
+		RECEPTORES.clear() ;
+	}
+}
@@ -0,0 +1,99 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.function.Consumer;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Canal de invalidación de caché sobre la conexión RabbitMQ de spring.rabbitmq.
+ *
+ * <p>Usa un exchange de tipo fanout y una cola anónima (exclusiva y autoborrable) por
+ * instancia, de forma que cada mensaje llega a todas las instancias levantadas.</p>
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "reaktor.cache.invalidacion.canal", havingValue = "rabbit", matchIfMissing = true)
+public class RabbitCanalInvalidacionCache implements ICanalInvalidacionCache
+{
+	@Autowired
+	private RabbitTemplate rabbitTemplate ;
+
+	/** Nombre del exchange de invalidaciones */
+	@Value("${reaktor.cache.invalidacion.exchange:events.cache.invalidacion}")
+	private String exchange ;
+
+	/** Receptor de los mensajes recibidos */
+	private volatile Consumer<byte[]> receptor ;
+
+	/**
+	 * @return exchange fanout de invalidaciones
+	 */
+	@Bean
+	public FanoutExchange exchangeInvalidacionCache()
+	{
+		return new FanoutExchange(this.exchange, false, false) ;
+	}
+
+	/**
+	 * @return cola propia de esta instancia
+	 */
+	@Bean
+	public AnonymousQueue colaInvalidacionCache()
+	{
+		return new AnonymousQueue() ;
+	}
+
+	/**
+	 * @param exchangeInvalidacionCache exchange de invalidaciones
+	 * @param colaInvalidacionCache cola de esta instancia
+	 * @return enlace entre ambos
+	 */
+	@Bean
+	public Binding bindingInvalidacionCache(FanoutExchange exchangeInvalidacionCache, AnonymousQueue colaInvalidacionCache)
+	{
+		return BindingBuilder.bind(colaInvalidacionCache).to(exchangeInvalidacionCache) ;
+	}
+
+	@Override
+	public void publicar(byte[] mensaje)
+	{
+		this.rabbitTemplate.send(this.exchange, "", new Message(mensaje, new MessageProperties())) ;
+	}
+
+	@Override
+	public void suscribir(Consumer<byte[]> receptor)
+	{
+		this.receptor = receptor ;
+	}
+
+	/**
+	 * @param mensaje mensaje recibido de RabbitMQ
+	 */
+	@RabbitListener(queues = "#{colaInvalidacionCache.name}")
+	public void recibir(Message mensaje)
+	{
+		Consumer<byte[]> receptorActual = this.receptor ;
+		if (receptorActual != null)
+		{
+			receptorActual.accept(mensaje.getBody()) ;
+		}
+		else
+		{
+			log.warn("Mensaje de invalidación de caché recibido antes de registrar el receptor") ;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import es.iesjandula.reaktor.events_server.utils.BufferCircularMpsc;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registro de accesos estructurado y asíncrono.
+ *
+ * <p>Los hilos de las peticiones solo dejan su entrada en un buffer circular sin bloqueos;
+ * un hilo de fondo la recoge por lotes, la serializa a JSON (una línea por acceso) y la
+ * escribe en el logger {@value #LOGGER_ACCESO} con una sola llamada por lote. Si el buffer
+ * está lleno la entrada se descarta y se cuenta: los descartes se escriben en el propio
+ * registro y se exponen en el diagnóstico.</p>
+ */
+@Slf4j
+@Service
+public class RegistroAccesoService
+{
+	/** Nombre del logger en el que se escriben los accesos */
+	public static final String LOGGER_ACCESO = "reaktor.acceso" ;
+
+	/** Logger de los accesos */
+	private static final Logger LOG_ACCESO = LoggerFactory.getLogger(LOGGER_ACCESO) ;
+
+	@Autowired
+	private ObjectMapper objectMapper ;
+
+	/** Si se registran los accesos */
+	@Value("${reaktor.acceso.activado:true}")
+	private boolean activado ;
+
+	/** Capacidad del buffer (se redondea a potencia de dos) */
+	@Value("${reaktor.acceso.capacidad:8192}")
+	private int capacidad ;
+
+	/** Entradas escritas como mucho en cada lote */
+	@Value("${reaktor.acceso.tamanio-lote:256}")
+	private int tamanioLote ;
+
+	/** Espera del escritor cuando el buffer está vacío */
+	@Value("${reaktor.acceso.espera-ms:50}")
+	private long esperaMs ;
+
+	/** Buffer entre las peticiones y el escritor */
+	private BufferCircularMpsc<EntradaAcceso> buffer ;
+
+	/** Hilo escritor */
+	private Thread escritor ;
+
+	/** Indica al escritor que debe terminar */
+	private volatile boolean detenido ;
+
+	/** Entradas aceptadas */
+	private final LongAdder aceptadas = new LongAdder() ;
+
+	/** Entradas descartadas por buffer lleno */
+	private final LongAdder descartadas = new LongAdder() ;
+
+	/** Entradas escritas */
+	private final LongAdder escritas = new LongAdder() ;
+
+	/** Lotes escritos */
+	private final LongAdder lotes = new LongAdder() ;
+
+	/**
+	 * Crea el buffer y arranca el escritor.
+	 */
+	@PostConstruct
+	public void iniciar()
+	{
+		if (!this.activado)
+		{
+			return ;
+		}
+
+		this.buffer   = new BufferCircularMpsc<>(this.capacidad) ;
+		this.escritor = new Thread(this::escribir, "registro-acceso") ;
+		this.escritor.setDaemon(true) ;
+		this.escritor.start() ;
+	}
+
+	/**
+	 * Detiene el escritor tras escribir lo pendiente.
+	 *
+	 * @throws InterruptedException si se interrumpe la espera
+	 */
+	@PreDestroy
+	public void detener() throws InterruptedException
+	{
+		if (this.escritor != null)
+		{
+			this.detenido = true ;
+			LockSupport.unpark(this.escritor) ;
+			this.escritor.join(TimeUnit.SECONDS.toMillis(5)) ;
+		}
+	}
+
+	/**
+	 * Encola un acceso. No espera nunca: si el buffer está lleno el acceso se descarta.
+	 *
+	 * @param entrada acceso a registrar
+	 */
+	public void registrar(EntradaAcceso entrada)
+	{
+		if (this.buffer == null)
+		{
+			return ;
+		}
+
+		if (this.buffer.ofrecer(entrada))
+		{
+			this.aceptadas.increment() ;
+		}
+		else
+		{
+			this.descartadas.increment() ;
+		}
+	}
+
+	/**
+	 * @return contadores de entradas aceptadas, descartadas y escritas, y lotes escritos
+	 */
+	public Map<String, Long> obtenerContadores()
+	{
+		return Map.of("aceptadas", this.aceptadas.sum(),
+					  "descartadas", this.descartadas.sum(),
+					  "escritas", this.escritas.sum(),
+					  "lotes", this.lotes.sum(),
+					  "capacidad", this.buffer != null ? (long) this.buffer.getCapacidad() : 0L) ;
+	}
+
+	/**
+	 * Bucle del escritor: recoge lotes del buffer y los escribe hasta que se detiene y no
+	 * queda nada pendiente.
+	 */
+	private void escribir()
+	{
+		List<EntradaAcceso> lote = new ArrayList<>(this.tamanioLote) ;
+		StringBuilder texto      = new StringBuilder(this.tamanioLote * 200) ;
+		long descartesInformados = 0 ;
+
+		while (true)
+		{
+			int extraidas = this.buffer.drenar(lote::add, this.tamanioLote) ;
+			if (extraidas > 0)
+			{
+				this.escribirLote(lote, texto) ;
+				lote.clear() ;
+			}
+
+			long descartes = this.descartadas.sum() ;
+			if (descartes != descartesInformados)
+			{
+				LOG_ACCESO.warn("{\"descartadas\":{},\"descartadasTotal\":{}}", descartes - descartesInformados, descartes) ;
+				descartesInformados = descartes ;
+			}
+
+			if (extraidas == 0)
+			{
+				if (this.detenido)
+				{
+					return ;
+				}
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(this.esperaMs)) ;
+			}
+		}
+	}
+
+	/**
+	 * @param lote entradas a escribir
+	 * @param texto buffer de texto reutilizado entre lotes
+	 */
+	private void escribirLote(List<EntradaAcceso> lote, StringBuilder texto)
+	{
+		texto.setLength(0) ;
+		for (EntradaAcceso entrada : lote)
+		{
+			try
+			{
+				if (texto.length() > 0)
+				{
+					texto.append(System.lineSeparator()) ;
+				}
+				texto.append(this.objectMapper.writeValueAsString(entrada)) ;
+			}
+			catch (JsonProcessingException jsonProcessingException)
+			{
+				log.warn("No se ha podido serializar un acceso", jsonProcessingException) ;
+			}
+		}
+
+		LOG_ACCESO.info(texto.toString()) ;
+		this.escritas.add(lote.size()) ;
+		this.lotes.increment() ;
+	}
+
+	/**
+	 * Un acceso al servidor.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class EntradaAcceso
+	{
+		/** Momento de la petición en milisegundos */
+		private long momento ;
+
+		/** Email del usuario, o null si no está autenticado */
+		private String usuario ;
+
+		/** Método HTTP */
+		private String metodo ;
+
+		/** Ruta pedida */
+		private String ruta ;
+
+		/** Método del controlador que la ha atendido (Controlador.metodo) */
+		private String endpoint ;
+
+		/** Estado HTTP de la respuesta */
+		private int estado ;
+
+		/** Duración de la petición en milisegundos */
+		private double latenciaMs ;
+
+		/** Elementos devueltos, o -1 si no se conocen */
+		private int filas ;
+	}
+}
@@ -0,0 +1,196 @@
+package es.iesjandula.reaktor.events_server.services;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Comprueba con EXPLAIN que las consultas de los repositorios pueden usar los índices
+ * definidos en las migraciones.
+ *
+ * <p>Cada consulta de {@code IEventoRepository} tiene aquí su equivalente en SQL y los
+ * índices con los que debe resolverse. Se considera correcta si alguno de ellos aparece
+ * entre los índices candidatos del plan: en una base de datos de desarrollo con pocas
+ * filas el optimizador puede preferir recorrer la tabla, pero si el índice no aparece
+ * como candidato es que falta o que la consulta ha dejado de poder usarlo. La clave
+ * primaria solo se espera en la búsqueda por claves: empieza por fecha_inicio y MySQL la
+ * propone como candidata en cualquier consulta que filtre por esa fecha.</p>
+ *
+ * <p>En H2 (la base de datos de la prueba de escala) EXPLAIN no lista candidatos sino el
+ * plan elegido, así que allí se exige que el índice elegido sea uno de los esperados.</p>
+ *
+ * <p>Se ejecuta al arrancar si reaktor.indices.verificar está activado y el resultado se
+ * incluye en el diagnóstico.</p>
+ */
+@Slf4j
+@Service
+public class VerificadorIndicesService
+{
+	/** Columnas de la proyección EventoResponseDto */
+	private static final String COLUMNAS_EVENTO = "titulo, fecha_inicio, fecha_fin, nombre, usuario_email, usuario_nombre, usuario_apellidos, version" ;
+
+	/** Fecha de ejemplo para los parámetros de las consultas */
+	private static final Timestamp FECHA_EJEMPLO = Timestamp.valueOf("2025-01-01 00:00:00") ;
+
+	/** Consultas verificadas */
+	private static final List<ConsultaVerificada> CONSULTAS = List.of(
+		new ConsultaVerificada("buscarEventosPorUsuario",
+							   "SELECT " + COLUMNAS_EVENTO + " FROM evento WHERE usuario_email = ?",
+							   List.of("idx_evento_usuario_inicio"), "profesor@iesjandula.es"),
+		new ConsultaVerificada("buscarEventosEnRango",
+							   "SELECT " + COLUMNAS_EVENTO + " FROM evento WHERE fecha_inicio < ? AND fecha_fin >= ? AND nombre = ? ORDER BY fecha_inicio",
+							   List.of("idx_evento_fin_inicio", "idx_evento_categoria_inicio"), FECHA_EJEMPLO, FECHA_EJEMPLO, "Excursión"),
+		new ConsultaVerificada("buscarEventosPorClaves",
+							   "SELECT " + COLUMNAS_EVENTO + " FROM evento WHERE usuario_email IN (?) AND fecha_inicio IN (?) AND titulo IN (?)",
+							   List.of("PRIMARY"), "profesor@iesjandula.es", FECHA_EJEMPLO, "Evento"),
+		new ConsultaVerificada("contarEventosPorCategoria",
+							   "SELECT COUNT(*) FROM evento WHERE nombre = ?",
+							   List.of("idx_evento_categoria_inicio"), "Excursión"),
+		new ConsultaVerificada("eliminarEventosLote (categoría)",
+							   "SELECT titulo FROM evento WHERE nombre = ? AND fecha_inicio >= ? AND fecha_inicio < ?",
+							   List.of("idx_evento_categoria_inicio"), "Excursión", FECHA_EJEMPLO, FECHA_EJEMPLO),
+		new ConsultaVerificada("eliminarEventosLote (propietario)",
+							   "SELECT titulo FROM evento WHERE usuario_email = ? AND fecha_inicio >= ? AND fecha_inicio < ?",
+							   List.of("idx_evento_usuario_inicio"), "profesor@iesjandula.es", FECHA_EJEMPLO, FECHA_EJEMPLO)) ;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate ;
+
+	/** Indica si se verifican los índices al arrancar */
+	@Value("${reaktor.indices.verificar:false}")
+	private boolean verificarAlArrancar ;
+
+	/** Resultado de la última verificación */
+	private volatile List<Map<String, Object>> resultados = Collections.emptyList() ;
+
+	/**
+	 * Verifica los índices una vez arrancada la aplicación, si está activado.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void inicializar()
+	{
+		if (this.verificarAlArrancar)
+		{
+			this.verificar() ;
+		}
+	}
+
+	/**
+	 * Ejecuta EXPLAIN sobre cada consulta y comprueba que puede usar alguno de sus índices.
+	 *
+	 * @return resultado de cada consulta
+	 */
+	public List<Map<String, Object>> verificar()
+	{
+		List<Map<String, Object>> nuevos = new ArrayList<>() ;
+		int incorrectas = 0 ;
+
+		for (ConsultaVerificada consulta : CONSULTAS)
+		{
+			Map<String, Object> resultado = new LinkedHashMap<>() ;
+			resultado.put("consulta", consulta.nombre) ;
+			resultado.put("indicesEsperados", consulta.indices) ;
+			try
+			{
+				Map<String, Object> plan = this.jdbcTemplate.queryForList("EXPLAIN " + consulta.sql, consulta.parametros).get(0) ;
+
+				boolean correcta = false ;
+				String candidatos ;
+				if (plan.containsKey("PLAN"))
+				{
+					// H2: plan en texto con el índice elegido (PRIMARY_KEY_... para la clave primaria)
+					candidatos = plan.get("PLAN").toString() ;
+					for (String indice : consulta.indices)
+					{
+						correcta = correcta || candidatos.toLowerCase(Locale.ROOT).contains(indice.toLowerCase(Locale.ROOT)) ;
+					}
+				}
+				else
+				{
+					candidatos = plan.get("possible_keys") != null ? plan.get("possible_keys").toString() : "" ;
+					Object usado = plan.get("key") ;
+					for (String indice : consulta.indices)
+					{
+						correcta = correcta || Arrays.asList(candidatos.split(",")).contains(indice) || indice.equals(usado) ;
+					}
+					resultado.put("tipo", plan.get("type")) ;
+					resultado.put("indiceUsado", usado) ;
+				}
+
+				resultado.put("indicesCandidatos", candidatos) ;
+				resultado.put("correcta", correcta) ;
+				if (!correcta)
+				{
+					incorrectas++ ;
+					log.error("La consulta {} no puede usar ninguno de los índices {} (candidatos: {})", consulta.nombre, consulta.indices, candidatos) ;
+				}
+			}
+			catch (Exception exception)
+			{
+				incorrectas++ ;
+				resultado.put("correcta", false) ;
+				resultado.put("error", exception.getMessage()) ;
+				log.error("No se ha podido obtener el plan de la consulta " + consulta.nombre, exception) ;
+			}
+			nuevos.add(resultado) ;
+		}
+
+		this.resultados = nuevos ;
+		log.info("Verificación de índices: {} consultas, {} incorrectas", CONSULTAS.size(), incorrectas) ;
+		return nuevos ;
+	}
+
+	/**
+	 * @return resultado de la última verificación (vacío si no se ha ejecutado)
+	 */
+	public List<Map<String, Object>> obtenerResultados()
+	{
+		return this.resultados ;
+	}
+
+	/**
+	 * Consulta de un repositorio expresada en SQL, con los índices que debe poder usar.
+	 */
+	private static class ConsultaVerificada
+	{
+		/** Método del repositorio */
+		private final String nombre ;
+
+		/** SQL equivalente */
+		private final String sql ;
+
+		/** Índices con los que puede resolverse */
+		private final List<String> indices ;
+
+		/** Parámetros de ejemplo */
+		private final Object[] parametros ;
+
+		/**
+		 * @param nombre método del repositorio
+		 * @param sql SQL equivalente
+		 * @param indices índices con los que puede resolverse
+		 * @param parametros parámetros de ejemplo
+		 */
+		private ConsultaVerificada(String nombre, String sql, List<String> indices, Object... parametros)
+		{
+			this.nombre     = nombre ;
+			this.sql        = sql ;
+			this.indices    = indices ;
+			this.parametros = parametros ;
+		}
+	}
+}
@@ -0,0 +1,125 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Buffer circular acotado sin bloqueos para muchos productores y un único consumidor.
+ *
+ * <p>Cada posición tiene un número de secuencia que indica si está libre para el productor
+ * de esa vuelta o lista para el consumidor. Los productores reservan posición con una
+ * operación CAS sobre la cola y nunca esperan: si el buffer está lleno, {@link #ofrecer}
+ * devuelve false y el llamante decide qué hacer con el elemento. Solo un hilo puede
+ * consumir.</p>
+ *
+ * @param <T> tipo de los elementos
+ */
+public class BufferCircularMpsc<T>
+{
+	/** Máscara para calcular la posición (la capacidad es potencia de dos) */
+	private final int mascara ;
+
+	/** Capacidad del buffer */
+	private final int capacidad ;
+
+	/** Elementos */
+	private final AtomicReferenceArray<T> elementos ;
+
+	/** Secuencia de cada posición */
+	private final AtomicLongArray secuencias ;
+
+	/** Siguiente posición a reservar por los productores */
+	private final AtomicLong cola = new AtomicLong() ;
+
+	/** Siguiente posición a leer (solo la usa el consumidor) */
+	private long cabeza ;
+
+	/**
+	 * @param capacidadMinima capacidad mínima; se redondea a la siguiente potencia de dos
+	 */
+	public BufferCircularMpsc(int capacidadMinima)
+	{
+		int capacidadReal = Integer.highestOneBit(Math.max(2, capacidadMinima - 1)) << 1 ;
+
+		this.capacidad  = capacidadReal ;
+		this.mascara    = capacidadReal - 1 ;
+		this.elementos  = new AtomicReferenceArray<>(capacidadReal) ;
+		this.secuencias = new AtomicLongArray(capacidadReal) ;
+		for (int i = 0 ; i < capacidadReal ; i++)
+		{
+			this.secuencias.set(i, i) ;
+		}
+	}
+
+	/**
+	 * Añade un elemento sin esperar.
+	 *
+	 * @param elemento elemento a añadir
+	 * @return false si el buffer está lleno
+	 */
+	public boolean ofrecer(T elemento)
+	{
+		while (true)
+		{
+			long posicion   = this.cola.get() ;
+			int indice      = (int) (posicion & this.mascara) ;
+			long diferencia = this.secuencias.get(indice) - posicion ;
+
+			if (diferencia == 0)
+			{
+				if (this.cola.compareAndSet(posicion, posicion + 1))
+				{
+					this.elementos.lazySet(indice, elemento) ;
+					// La escritura de la secuencia publica el elemento al consumidor
+					this.secuencias.set(indice, posicion + 1) ;
+					return true ;
+				}
+			}
+			else if (diferencia < 0)
+			{
+				// El consumidor aún no ha liberado esta posición de la vuelta anterior
+				return false ;
+			}
+		}
+	}
+
+	/**
+	 * Extrae elementos en orden de llegada. Solo puede llamarlo el hilo consumidor.
+	 *
+	 * @param destino receptor de cada elemento
+	 * @param maximo número máximo de elementos a extraer
+	 * @return número de elementos extraídos
+	 */
+	public int drenar(Consumer<T> destino, int maximo)
+	{
+		int extraidos = 0 ;
+		while (extraidos < maximo)
+		{
+			int indice = (int) (this.cabeza & this.mascara) ;
+			if (this.secuencias.get(indice) != this.cabeza + 1)
+			{
+				// El productor de esta posición aún no la ha publicado
+				break ;
+			}
+
+			T elemento = this.elementos.get(indice) ;
+			this.elementos.lazySet(indice, null) ;
+			this.secuencias.set(indice, this.cabeza + this.capacidad) ;
+			this.cabeza++ ;
+
+			destino.accept(elemento) ;
+			extraidos++ ;
+		}
+		return extraidos ;
+	}
+
+	/**
+	 * @return capacidad del buffer
+	 */
+	public int getCapacidad()
+	{
+		return this.capacidad ;
+	}
+}
@@ -24,6 +24,31 @@ public class Constants
     
     /** Mensaje al mostrar un elemento correctamente */
     public static final String ELEMENTO_MOSTRADO = "Elemento mostrado correctamente." ;
+    
+    /** Número máximo de resultados que devuelven la búsqueda y el autocompletado */
+    public static final int MAX_RESULTADOS_BUSQUEDA = 200 ;
+    
+    /** Número máximo de celdas (días, semanas o meses) que devuelve la vista de calendario */
+    public static final int MAX_CELDAS_CALENDARIO = 400 ;
+    
+    /** Número máximo de claves que admite la consulta múltiple de eventos */
+    public static final int MAX_CLAVES_CONSULTA_MULTIPLE = 200 ;
+    
+    /** Número máximo de usuarios en una búsqueda de huecos libres comunes */
+    public static final int MAX_USUARIOS_HUECOS = 100 ;
+    
+    /** Número máximo de intervalos (bits) de la línea de tiempo de una búsqueda de huecos libres */
+    public static final int MAX_INTERVALOS_HUECOS = 1 << 18 ;
+    
+    // --- Cachés ---
+    /** Caché con el listado de categorías */
+    public static final String CACHE_CATEGORIAS = "categorias" ;
+    
+    /** Caché con los listados de eventos (todos y por usuario) */
+    public static final String CACHE_EVENTOS = "eventos" ;
+    
+    /** Clave de las entradas de caché que contienen todos los elementos */
+    public static final String CACHE_CLAVE_TODOS = "todos" ;
 
 
     // --- Errores de Categoría ---
@@ -42,6 +67,23 @@ public class Constants
     /** Código y mensaje cuando la categoría no existe */
     public static final Integer ERR_CATEGORIA_NO_EXISTE_CODE = 8 ;
     public static final String ERR_CATEGORIA_NO_EXISTE = "La categoría no existe en el sistema." ;
+    
+    /** Código y mensaje cuando se elimina una categoría con eventos sin indicar qué hacer con ellos */
+    public static final Integer ERR_CATEGORIA_CON_EVENTOS_CODE = 23 ;
+    public static final String ERR_CATEGORIA_CON_EVENTOS = "La categoría tiene eventos: indique si deben reasignarse o eliminarse." ;
+    
+    /** Código y mensaje cuando la categoría destino de la reasignación no es válida */
+    public static final Integer ERR_CATEGORIA_DESTINO_INVALIDA_CODE = 24 ;
+    public static final String ERR_CATEGORIA_DESTINO_INVALIDA = "La categoría destino debe existir y ser distinta de la que se elimina." ;
+    
+    /** Código y mensaje cuando se crean eventos en la categoría mientras se elimina (se responde 409) */
+    public static final Integer ERR_CATEGORIA_EVENTOS_NUEVOS_CODE = 39 ;
+    public static final String ERR_CATEGORIA_EVENTOS_NUEVOS = "Se han creado eventos en la categoría mientras se eliminaba; repita la operación." ;
+
+    // --- Errores de Estadísticas ---
+    /** Código y mensaje cuando no se indica qué contador consultar */
+    public static final Integer ERR_ESTADISTICAS_CONTADOR_CODE = 25 ;
+    public static final String ERR_ESTADISTICAS_CONTADOR = "Debe indicarse una categoría, un profesor o un mes (yyyy-MM)." ;
 
     // --- Errores de Evento ---
     /** Código de error genérico para Evento */
@@ -72,6 +114,53 @@ public class Constants
     public static final Integer ERR_EVENTO_FECHA_INICIO_ANTERIOR_HOY_CODE = 21 ;
     public static final String ERR_EVENTO_FECHA_INICIO_ANTERIOR_HOY_DESC = "La fecha de inicio no puede ser anterior a la fecha actual";
     
+    /** Código y mensaje cuando el texto de búsqueda es nulo o vacío */
+    public static final Integer ERR_EVENTO_BUSQUEDA_VACIA_CODE = 22 ;
+    public static final String ERR_EVENTO_BUSQUEDA_VACIA = "El texto de búsqueda no puede ser nulo ni vacío." ;
+    
+    /** Código y mensaje cuando el borrado masivo no indica ningún filtro */
+    public static final Integer ERR_EVENTO_BORRADO_SIN_FILTROS_CODE = 28 ;
+    public static final String ERR_EVENTO_BORRADO_SIN_FILTROS = "El borrado masivo necesita al menos un filtro (fechas, propietario o categoría)." ;
+    
+    /** Código y mensaje cuando el fichero a importar no tiene una cabecera válida */
+    public static final Integer ERR_EVENTO_IMPORTACION_CABECERA_CODE = 29 ;
+    public static final String ERR_EVENTO_IMPORTACION_CABECERA = "El fichero debe tener una cabecera con las columnas titulo, categoria, fechaInicio y fechaFin." ;
+    
+    /** Mensaje cuando una línea del fichero a importar no tiene el formato esperado */
+    public static final String ERR_EVENTO_IMPORTACION_FORMATO = "La línea no tiene el formato esperado." ;
+    
+    /** Código y mensaje cuando se pide una exportación en un formato no soportado */
+    public static final Integer ERR_EVENTO_EXPORTACION_FORMATO_CODE = 30 ;
+    public static final String ERR_EVENTO_EXPORTACION_FORMATO = "Formato de exportación no soportado (formatos disponibles: csv)." ;
+    
+    /** Código y mensaje cuando la vista de calendario recibe un rango, granularidad o zona no válidos */
+    public static final Integer ERR_EVENTO_CALENDARIO_PARAMETROS_CODE = 31 ;
+    public static final String ERR_EVENTO_CALENDARIO_PARAMETROS = "El calendario necesita un rango válido (desde anterior a hasta), una granularidad (DIA, SEMANA o MES) y una zona horaria válida." ;
+    
+    /** Código y mensaje cuando el rango del calendario genera demasiadas celdas */
+    public static final Integer ERR_EVENTO_CALENDARIO_RANGO_CODE = 32 ;
+    public static final String ERR_EVENTO_CALENDARIO_RANGO = "El rango del calendario es demasiado amplio para la granularidad indicada." ;
+    
+    /** Código y mensaje cuando la consulta múltiple no trae claves o trae demasiadas */
+    public static final Integer ERR_EVENTO_CONSULTA_MULTIPLE_CODE = 33 ;
+    public static final String ERR_EVENTO_CONSULTA_MULTIPLE = "La consulta múltiple debe incluir entre 1 y " + Constants.MAX_CLAVES_CONSULTA_MULTIPLE + " claves." ;
+    
+    /** Código y mensaje cuando la búsqueda de huecos libres recibe parámetros no válidos */
+    public static final Integer ERR_EVENTO_HUECOS_PARAMETROS_CODE = 34 ;
+    public static final String ERR_EVENTO_HUECOS_PARAMETROS = "La búsqueda de huecos necesita entre 1 y " + Constants.MAX_USUARIOS_HUECOS + " usuarios, un rango válido, una duración positiva, un horario (horaInicio anterior a horaFin) y una zona horaria válida." ;
+    
+    /** Código y mensaje cuando el rango de la búsqueda de huecos libres es demasiado amplio */
+    public static final Integer ERR_EVENTO_HUECOS_RANGO_CODE = 35 ;
+    public static final String ERR_EVENTO_HUECOS_RANGO = "El rango de la búsqueda de huecos es demasiado amplio para la resolución configurada." ;
+    
+    /** Código y mensaje cuando la modificación de un evento no indica la versión leída */
+    public static final Integer ERR_EVENTO_VERSION_NULA_CODE = 36 ;
+    public static final String ERR_EVENTO_VERSION_NULA = "La modificación de un evento debe indicar la versión del evento que se ha leído." ;
+    
+    /** Código y mensaje cuando otro usuario ha modificado el evento antes (se responde 409) */
+    public static final Integer ERR_EVENTO_CONFLICTO_VERSION_CODE = 37 ;
+    public static final String ERR_EVENTO_CONFLICTO_VERSION = "El evento ha sido modificado por otro usuario; vuelva a consultarlo y repita el cambio." ;
+    
     // --- Errores de Recordatorio ---
     /** Código de error genérico para Recordatorio */
     public static final Integer ERR_RECORDATORIO_CODE = 15 ;
@@ -95,6 +184,22 @@ public class Constants
     
     
 
+    // --- Errores de Control de Admisión ---
+    /** Código y mensaje cuando un usuario supera su límite de peticiones */
+    public static final Integer ERR_ADMISION_LIMITE_USUARIO_CODE = 26 ;
+    public static final String ERR_ADMISION_LIMITE_USUARIO = "Demasiadas peticiones, inténtelo de nuevo más tarde." ;
+    
+    /** Código y mensaje cuando el servidor no admite más peticiones concurrentes contra la base de datos */
+    public static final Integer ERR_ADMISION_SATURADO_CODE = 27 ;
+    public static final String ERR_ADMISION_SATURADO = "El servidor está saturado, inténtelo de nuevo en unos segundos." ;
+    
+    /** Código y mensaje cuando la instancia aún no ha terminado el calentamiento tras arrancar */
+    public static final Integer ERR_ADMISION_CALENTANDO_CODE = 38 ;
+    public static final String ERR_ADMISION_CALENTANDO = "El servidor está arrancando, inténtelo de nuevo en unos segundos." ;
+    
+    /** Código y mensaje cuando se ha alcanzado el máximo de exportaciones simultáneas */
+    public static final Integer ERR_ADMISION_EXPORTACIONES_CODE = 40 ;
+    public static final String ERR_ADMISION_EXPORTACIONES = "Hay demasiadas exportaciones en curso, inténtelo de nuevo en unos segundos." ;
 	
  	// --- Error de Servidor---
     /** Código y mensaje para errores generales del servidor */
@@ -0,0 +1,61 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Reglas de validación de los datos de un evento.
+ * 
+ * <p>Se comparten entre la creación individual de eventos y la importación desde CSV.</p>
+ */
+public class EventoValidador
+{
+	/**
+	 * Clave de un evento de un mismo propietario, comparada como la compara MySQL en la
+	 * clave primaria: sin distinguir mayúsculas ni tildes.
+	 *
+	 * @param titulo título del evento
+	 * @param fechaInicio fecha de inicio en milisegundos
+	 * @return clave normalizada
+	 */
+	public static String claveNormalizada(String titulo, long fechaInicio)
+	{
+		String normalizado = Normalizer.normalize(titulo, Normalizer.Form.NFD).replaceAll("\\p{M}", "") ;
+		return normalizado.toLowerCase(Locale.ROOT) + "|" + fechaInicio ;
+	}
+
+	/**
+	 * Valida los datos necesarios para crear un evento.
+	 *
+	 * @param titulo        Título del evento
+	 * @param fechaInicio   Fecha de inicio en milisegundos
+	 * @param fechaFin      Fecha de fin en milisegundos
+	 * @param nombreCategoria Nombre de la categoría
+	 * @throws EventsServerException si los datos no son válidos
+	 */
+	public static void validarCrearEvento(String titulo, Long fechaInicio, Long fechaFin, String nombreCategoria) throws EventsServerException
+	{
+		// Validamos el título
+		if (titulo == null || titulo.isEmpty())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_TITULO_NULO_VACIO_CODE, Constants.ERR_EVENTO_TITULO_NULO_VACIO) ;
+		}
+
+		// Validamos fechas
+		if (fechaInicio == null || fechaInicio <= 0 || fechaFin == null || fechaFin <= 0)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
+		}
+
+		// Validamos orden de fechas
+		if (fechaFin < fechaInicio)
+		{
+			throw EventsServerException.preasignada(Constants.ERR_EVENTO_FECHAS_INVALIDAS_CODE, Constants.ERR_EVENTO_FECHAS_INVALIDAS) ;
+		}
+		// Validamos categoría
+		if (nombreCategoria == null || nombreCategoria.isEmpty())
+		{
+			throw EventsServerException.preasignada(Constants.ERR_CATEGORIA_CODE, Constants.ERR_CATEGORIA_NO_EXISTE) ;
+		}
+	}
+}
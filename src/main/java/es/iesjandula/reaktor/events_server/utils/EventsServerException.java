@@ -1,30 +1,41 @@
 package es.iesjandula.reaktor.events_server.utils;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
-
-import org.apache.commons.lang3.exception.ExceptionUtils;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Excepción personalizada para el sistema de calendario.
  * 
  * <p>Permite manejar errores con un código y mensaje específicos,
  * y opcionalmente almacenar la excepción original.</p>
+ * 
+ * <p>Representa errores esperados (validaciones, permisos, recursos que no existen), así que
+ * no captura la traza de la pila: es la parte cara de crear una excepción y no aporta nada
+ * para estos errores. Si hay una excepción original, su traza se conserva en ella. Al ser
+ * inmutable, las excepciones sin causa se crean una sola vez por mensaje con
+ * {@link #preasignada(Integer, String)} y se reutilizan, igual que su cuerpo de respuesta.</p>
  */
 public class EventsServerException extends Exception
 {
 
 	private static final long serialVersionUID = -9080070553502409936L;
 	
+	/** Número máximo de excepciones preasignadas (los mensajes son constantes, sobra con esto) */
+	private static final int MAX_PREASIGNADAS = 512 ;
+	
+	/** Excepciones sin causa ya creadas, por mensaje */
+	private static final Map<String, EventsServerException> PREASIGNADAS = new ConcurrentHashMap<>() ;
+	
 	/** Código de error asociado a la excepción */
-	private Integer codigo;
+	private final Integer codigo;
 	
 	/** Mensaje de error asociado a la excepción */
-	private String mensaje;
+	private final String mensaje;
 	
-
-    /** Excepción original (opcional) */
-	private Throwable excepcion ;
+	/** Cuerpo de la respuesta, inmutable, creado una sola vez */
+	private final Map<String, Object> cuerpo ;
 	
     /**
      * Constructor principal sin excepción original.
@@ -34,10 +45,7 @@ public class EventsServerException extends Exception
      */
 	public EventsServerException(Integer codigo, String mensaje)
 	{
-		super();
-		
-		this.codigo=codigo;
-		this.mensaje= mensaje;
+		this(codigo, mensaje, null);
 	}
 	
     /**
@@ -47,36 +55,51 @@ public class EventsServerException extends Exception
      * @param mensaje Mensaje de error
      * @param excepcion Excepción original asociada
      */
-	public EventsServerException(Integer movieErrorId, String message, Throwable excepcion)
+	public EventsServerException(Integer codigo, String mensaje, Throwable excepcion)
 	{
-		super(message, excepcion);
+		super(mensaje, excepcion, false, false);
 		
-		this.codigo=movieErrorId;
-		this.mensaje= message;
-		this.excepcion= excepcion ;
+		this.codigo=codigo;
+		this.mensaje= mensaje;
+		
+		Map<String, Object> mapBodyException = new LinkedHashMap<>() ;
+		mapBodyException.put("codigo", codigo) ;
+		mapBodyException.put("message", mensaje) ;
+		this.cuerpo = Collections.unmodifiableMap(mapBodyException) ;
+	}
+	
+    /**
+     * Devuelve la excepción sin causa para el código y mensaje indicados, creándola solo la
+     * primera vez.
+     * 
+     * @param codigo Código de error
+     * @param mensaje Mensaje de error (una constante de {@link Constants})
+     * @return excepción compartida
+     */
+	public static EventsServerException preasignada(Integer codigo, String mensaje)
+	{
+		EventsServerException excepcion = PREASIGNADAS.get(mensaje) ;
+		if (excepcion == null || !excepcion.codigo.equals(codigo))
+		{
+			excepcion = new EventsServerException(codigo, mensaje) ;
+			if (PREASIGNADAS.size() < MAX_PREASIGNADAS)
+			{
+				PREASIGNADAS.putIfAbsent(mensaje, excepcion) ;
+			}
+		}
+		return excepcion ;
 	}
 	
 	 /**
-     * Construye un cuerpo de respuesta para enviar al cliente con detalles de la excepción.
+     * Devuelve el cuerpo de respuesta para enviar al cliente con el código y el mensaje de error.
      * 
-     * <p>Incluye el código de error, mensaje y, si existe, el stack trace de la excepción original.</p>
+     * <p>La excepción original, si existe, no se envía al cliente: se registra en el log.</p>
      * 
-     * @return Mapa con los datos de la excepción listo para serializar en JSON
+     * @return Mapa inmutable con los datos de la excepción listo para serializar en JSON
      */
 	public Object getBodyExceptionMessage()
 	{
-		Map<String, Object> mapBodyException = new HashMap<>() ;
-		
-		mapBodyException.put("codigo", this.codigo) ;
-		mapBodyException.put("message", this.mensaje) ;
-		
-		if (this.excepcion != null)
-		{
-			String stackTrace = ExceptionUtils.getStackTrace(this.excepcion);
-			mapBodyException.put("excepcion", stackTrace) ;
-		}
-		
-		return mapBodyException ;
+		return this.cuerpo ;
 	}
 
     /**
@@ -89,4 +112,14 @@ public class EventsServerException extends Exception
 		return this.codigo ;
 	}
 	
+    /**
+     * Devuelve el mensaje de error de la excepción.
+     * 
+     * @return Mensaje de error
+     */
+	public String getMensaje()
+	{
+		return this.mensaje ;
+	}
+	
 }
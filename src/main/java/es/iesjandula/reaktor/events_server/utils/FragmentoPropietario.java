@@ -0,0 +1,27 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca los endpoints que solo trabajan con los eventos de un propietario.
+ *
+ * <p>Con los eventos repartidos en fragmentos, el interceptor de fragmentos fija el
+ * fragmento del propietario antes de que la petición haga ninguna consulta. El propietario
+ * es el usuario autenticado, que es el mismo que los endpoints usan para montar la clave
+ * de los eventos.</p>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface FragmentoPropietario
+{
+	/**
+	 * @return true si el endpoint recibe el propietario en la cabecera o el parámetro
+	 *         usuarioEmail y este, cuando viene, elige el fragmento
+	 */
+	boolean propietarioEnPeticion() default false ;
+}
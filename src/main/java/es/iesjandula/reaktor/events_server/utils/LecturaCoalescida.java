@@ -0,0 +1,21 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca los endpoints que leen a través de las lecturas coalescidas.
+ *
+ * <p>El control de admisión no les asigna hueco de concurrencia al entrar: lo ocupa la
+ * lectura coalescida solo mientras consulta la base de datos, de modo que las peticiones
+ * que esperan el resultado de otra no ocupan hueco.</p>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface LecturaCoalescida
+{
+}
@@ -0,0 +1,26 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Número máximo de sentencias SQL que puede ejecutar un endpoint en una petición.
+ *
+ * <p>Lo comprueba el interceptor de diagnóstico de Hibernate: si una petición lo supera
+ * se escribe un aviso en el log y se cuenta como exceso en el endpoint de diagnóstico.
+ * Sirve para detectar regresiones del tipo N+1 (relaciones que empiezan a cargarse una
+ * a una).</p>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MaximoSentencias
+{
+	/**
+	 * @return número máximo de sentencias por petición
+	 */
+	int value() ;
+}
@@ -0,0 +1,138 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contadores de la actividad de Hibernate en un hilo mientras dura una medición.
+ *
+ * <p>Se obtiene con {@link es.iesjandula.reaktor.events_server.utils.config.MonitorSentenciasHibernate#iniciar()}
+ * y se cierra al terminar. También puede usarse fuera de las peticiones, por ejemplo
+ * desde un test, para comprobar que un método no supera un número de sentencias:</p>
+ *
+ * <pre>
+ * try (MedicionSentencias medicion = MonitorSentenciasHibernate.iniciar())
+ * {
+ *     controlador.obtenerEventos() ;
+ *     medicion.comprobarMaximoSentencias(1) ;
+ * }
+ * </pre>
+ *
+ * <p>Los contadores admiten sumas desde varios hilos: las mediciones de los hilos en los
+ * que una petición reparte su trabajo se anidan en la de la petición.</p>
+ */
+public class MedicionSentencias implements AutoCloseable
+{
+	/** Medición que había en el hilo antes de esta (se restaura al cerrar) */
+	private final MedicionSentencias anterior ;
+
+	/** Acción que restaura la medición anterior en el hilo */
+	private final Runnable restaurar ;
+
+	/** Sentencias SQL preparadas */
+	private final AtomicInteger sentencias = new AtomicInteger() ;
+
+	/** Entidades cargadas desde base de datos */
+	private final AtomicInteger entidadesCargadas = new AtomicInteger() ;
+
+	/** Flushes de la sesión */
+	private final AtomicInteger flushes = new AtomicInteger() ;
+
+	/** Indica si la medición ya se ha cerrado */
+	private volatile boolean cerrada ;
+
+	/**
+	 * @param anterior medición previa del hilo, o null
+	 * @param restaurar acción que restaura la medición anterior en el hilo
+	 */
+	public MedicionSentencias(MedicionSentencias anterior, Runnable restaurar)
+	{
+		this.anterior  = anterior ;
+		this.restaurar = restaurar ;
+	}
+
+	/**
+	 * Cuenta una sentencia SQL, también en las mediciones que envuelven a esta.
+	 */
+	public void sumarSentencia()
+	{
+		this.sentencias.incrementAndGet() ;
+		if (this.anterior != null)
+		{
+			this.anterior.sumarSentencia() ;
+		}
+	}
+
+	/**
+	 * Cuenta una entidad cargada, también en las mediciones que envuelven a esta.
+	 */
+	public void sumarEntidadCargada()
+	{
+		this.entidadesCargadas.incrementAndGet() ;
+		if (this.anterior != null)
+		{
+			this.anterior.sumarEntidadCargada() ;
+		}
+	}
+
+	/**
+	 * Cuenta un flush, también en las mediciones que envuelven a esta.
+	 */
+	public void sumarFlush()
+	{
+		this.flushes.incrementAndGet() ;
+		if (this.anterior != null)
+		{
+			this.anterior.sumarFlush() ;
+		}
+	}
+
+	/**
+	 * @return sentencias SQL preparadas
+	 */
+	public int getSentencias()
+	{
+		return this.sentencias.get() ;
+	}
+
+	/**
+	 * @return entidades cargadas desde base de datos
+	 */
+	public int getEntidadesCargadas()
+	{
+		return this.entidadesCargadas.get() ;
+	}
+
+	/**
+	 * @return flushes de la sesión
+	 */
+	public int getFlushes()
+	{
+		return this.flushes.get() ;
+	}
+
+	/**
+	 * @param maximo número máximo de sentencias permitidas
+	 * @throws IllegalStateException si se ha superado el máximo
+	 */
+	public void comprobarMaximoSentencias(int maximo)
+	{
+		if (this.getSentencias() > maximo)
+		{
+			throw new IllegalStateException("Se han ejecutado " + this.getSentencias() + " sentencias SQL y el máximo es " + maximo) ;
+		}
+	}
+
+	/**
+	 * Termina la medición y restaura la anterior en el hilo. Debe llamarse desde el hilo
+	 * en el que se empezó; las llamadas siguientes no hacen nada.
+	 */
+	@Override
+	public void close()
+	{
+		if (!this.cerrada)
+		{
+			this.cerrada = true ;
+			this.restaurar.run() ;
+		}
+	}
+}
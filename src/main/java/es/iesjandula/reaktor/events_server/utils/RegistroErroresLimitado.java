@@ -0,0 +1,80 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limita el registro en el log de errores repetidos.
+ *
+ * <p>Para cada clave (endpoint y error) se registra la primera aparición y, después, como
+ * mucho una por intervalo indicando cuántas se han omitido desde la anterior. Así un cliente
+ * que repite la misma petición errónea no llena el log ni lo convierte en un cuello de
+ * botella.</p>
+ */
+public class RegistroErroresLimitado
+{
+	/** Número máximo de claves; al superarlo se empieza de cero */
+	private static final int MAX_CLAVES = 1024 ;
+
+	/** Intervalo mínimo entre dos registros de la misma clave */
+	private final long intervaloNanos ;
+
+	/** Ventanas de registro por clave */
+	private final Map<String, Ventana> ventanas = new ConcurrentHashMap<>() ;
+
+	/**
+	 * @param intervaloMs milisegundos mínimos entre dos registros del mismo error
+	 */
+	public RegistroErroresLimitado(long intervaloMs)
+	{
+		this.intervaloNanos = intervaloMs * 1_000_000L ;
+	}
+
+	/**
+	 * Indica si hay que registrar ahora el error de la clave.
+	 *
+	 * @param clave endpoint y error
+	 * @return -1 si no hay que registrarlo; si hay que registrarlo, las repeticiones omitidas desde el último registro
+	 */
+	public long comprobar(String clave)
+	{
+		if (this.ventanas.size() > MAX_CLAVES)
+		{
+			this.ventanas.clear() ;
+		}
+
+		long ahora     = System.nanoTime() ;
+		Ventana ventana = this.ventanas.computeIfAbsent(clave, k -> new Ventana(ahora - this.intervaloNanos)) ;
+		long ultimo    = ventana.ultimoRegistro.get() ;
+
+		if (ahora - ultimo >= this.intervaloNanos && ventana.ultimoRegistro.compareAndSet(ultimo, ahora))
+		{
+			return ventana.omitidas.sumThenReset() ;
+		}
+
+		ventana.omitidas.increment() ;
+		return -1L ;
+	}
+
+	/**
+	 * Estado del registro de una clave.
+	 */
+	private static final class Ventana
+	{
+		/** Momento del último registro en nanosegundos */
+		private final AtomicLong ultimoRegistro ;
+
+		/** Repeticiones omitidas desde el último registro */
+		private final LongAdder omitidas = new LongAdder() ;
+
+		/**
+		 * @param ultimoRegistro momento inicial del último registro
+		 */
+		private Ventana(long ultimoRegistro)
+		{
+			this.ultimoRegistro = new AtomicLong(ultimoRegistro) ;
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.lang.reflect.Method;
+
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Configuración del modo de arranque rápido (perfil "faststart").
+ *
+ * <p>En ese perfil los beans se crean de forma perezosa, la primera vez que se usan. Los
+ * beans con tareas programadas o receptores de RabbitMQ no pueden esperar a que alguien
+ * los pida, porque sus anotaciones solo se procesan al crearlos, así que se excluyen de
+ * la inicialización perezosa.</p>
+ */
+@Configuration
+public class ArranqueRapidoConfig
+{
+	/**
+	 * @return filtro que mantiene la creación inmediata de los beans con @Scheduled o @RabbitListener
+	 */
+	@Bean
+	public static LazyInitializationExcludeFilter beansConTareasNoPerezosos()
+	{
+		return (beanName, beanDefinition, beanType) -> tieneTareasOReceptores(beanType) ;
+	}
+
+	/**
+	 * @param tipo clase del bean
+	 * @return true si la clase o alguno de sus métodos tiene @Scheduled o @RabbitListener
+	 */
+	private static boolean tieneTareasOReceptores(Class<?> tipo)
+	{
+		if (AnnotatedElementUtils.hasAnnotation(tipo, RabbitListener.class))
+		{
+			return true ;
+		}
+		for (Method metodo : ReflectionUtils.getUniqueDeclaredMethods(tipo))
+		{
+			if (AnnotatedElementUtils.hasAnnotation(metodo, Scheduled.class) || AnnotatedElementUtils.hasAnnotation(metodo, RabbitListener.class))
+			{
+				return true ;
+			}
+		}
+		return false ;
+	}
+}
@@ -25,7 +25,7 @@ public class CORSConfig implements WebMvcConfigurer
 	{
 		registry.addMapping("/**")
 				.allowedOrigins(urlCors)
-				.allowedMethods("GET","POST","PUT","DELETE", "OPTIONS")
+				.allowedMethods("GET","POST","PUT","PATCH","DELETE", "OPTIONS")
 				.allowedHeaders("*");
 	}
 }
\ No newline at end of file
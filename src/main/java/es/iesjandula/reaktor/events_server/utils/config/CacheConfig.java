@@ -0,0 +1,52 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import es.iesjandula.reaktor.events_server.utils.Constants;
+
+/**
+ * Esta clase habilita las cachés en memoria de categorías y listados de eventos.
+ *
+ * <p>Al haber varias instancias del servidor, las entradas se invalidan también en el
+ * resto de instancias a través de CacheInvalidacionService. La invalidación no cubre
+ * todos los casos: una lectura en curso puede volver a guardar el listado que se acaba de
+ * invalidar, o otra instancia puede releerlo de una réplica con retraso. Por eso cada
+ * entrada caduca además a los pocos segundos de guardarse, lo que acota el tiempo que se
+ * puede servir un dato antiguo, y el número de entradas está limitado.</p>
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig
+{
+	/** Tiempo que vive cada entrada desde que se guarda */
+	@Value("${reaktor.cache.ttl-ms:30000}")
+	private long ttlMs ;
+
+	/** Número máximo de entradas de cada caché */
+	@Value("${reaktor.cache.maximo-entradas:10000}")
+	private long maximoEntradas ;
+
+	/**
+	 * @return gestor de cachés en memoria con caducidad con las cachés de la aplicación
+	 */
+	@Bean
+	public CacheManager cacheManager()
+	{
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager() ;
+		cacheManager.setCaffeine(Caffeine.newBuilder()
+										 .expireAfterWrite(Duration.ofMillis(this.ttlMs))
+										 .maximumSize(this.maximoEntradas)) ;
+		cacheManager.setCacheNames(List.of(Constants.CACHE_CATEGORIAS, Constants.CACHE_EVENTOS)) ;
+		return cacheManager ;
+	}
+}
@@ -0,0 +1,35 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.util.Collection;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Anota en el registro de accesos el número de elementos de las respuestas que son listas.
+ */
+@ControllerAdvice
+public class ContadorFilasRespuesta implements ResponseBodyAdvice<Object>
+{
+	@Override
+	public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType)
+	{
+		return true ;
+	}
+
+	@Override
+	public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+								  Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response)
+	{
+		if (body instanceof Collection<?> coleccion)
+		{
+			RegistroAccesoInterceptor.anotarFilas(coleccion.size()) ;
+		}
+		return body ;
+	}
+}
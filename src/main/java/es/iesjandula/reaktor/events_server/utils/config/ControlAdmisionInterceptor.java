@@ -0,0 +1,202 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.events_server.services.CalentamientoService;
+import es.iesjandula.reaktor.events_server.services.ControlAdmisionService;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import es.iesjandula.reaktor.events_server.utils.EventsServerException;
+import es.iesjandula.reaktor.events_server.utils.LecturaCoalescida;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Interceptor que aplica el control de admisión a las peticiones de /events.
+ *
+ * <p>Mientras la instancia no ha terminado el calentamiento responde 503, salvo en las
+ * rutas de admisión y diagnóstico. Después consume un token del cubo del usuario
+ * autenticado (429 si lo ha agotado) y, salvo en las rutas que no tocan la base de datos,
+ * ocupa un hueco de concurrencia (503 si no lo hay). Las exportaciones, que se envían en
+ * streaming y retienen el hueco durante toda la descarga, ocupan un hueco de su propio
+ * límite en lugar del general. Los endpoints con {@link LecturaCoalescida} no ocupan hueco
+ * al entrar: lo ocupa la lectura coalescida solo mientras consulta. Todas estas respuestas
+ * llevan la cabecera Retry-After. El hueco se libera al terminar la petición, también en
+ * las peticiones asíncronas.</p>
+ */
+@Slf4j
+@Component
+public class ControlAdmisionInterceptor implements AsyncHandlerInterceptor
+{
+	/** Atributo de la petición que indica que tiene un hueco de concurrencia ocupado */
+	private static final String ATRIBUTO_HUECO = ControlAdmisionInterceptor.class.getName() + ".HUECO" ;
+
+	/** Atributo de la petición que indica que tiene un hueco de exportación ocupado */
+	private static final String ATRIBUTO_HUECO_EXPORTACION = ControlAdmisionInterceptor.class.getName() + ".HUECO_EXPORTACION" ;
+
+	@Autowired
+	private ControlAdmisionService controlAdmisionService ;
+
+	@Autowired
+	private CalentamientoService calentamientoService ;
+
+	@Autowired
+	private ObjectMapper objectMapper ;
+
+	/** Rutas que se sirven desde memoria y no ocupan hueco de concurrencia */
+	@Value("${reaktor.admision.rutas-sin-base-datos:/events/manager/buscar,/events/manager/autocompletar,/events/stats/,/events/stats/contador,/events/admision/**,/events/diagnostico/**}")
+	private List<String> rutasSinBaseDatos ;
+
+	/** Rutas de exportación, que ocupan un hueco de exportación en lugar del general */
+	@Value("${reaktor.admision.rutas-exportacion:/events/manager/exportar}")
+	private List<String> rutasExportacion ;
+
+	/** Rutas que se atienden aunque la instancia no haya terminado el calentamiento */
+	@Value("${reaktor.calentamiento.rutas-disponibles:/events/admision/**,/events/diagnostico/**}")
+	private List<String> rutasDisponiblesCalentando ;
+
+	/** Comparador de rutas */
+	private final AntPathMatcher antPathMatcher = new AntPathMatcher() ;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws IOException
+	{
+		// En el redespacho de una petición asíncrona ya se aplicó el control
+		if (request.getDispatcherType() == DispatcherType.ASYNC)
+		{
+			return true ;
+		}
+
+		if (!this.calentamientoService.isListo() && !this.coincide(request, this.rutasDisponiblesCalentando))
+		{
+			this.rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 5000L, Constants.ERR_ADMISION_CALENTANDO_CODE, Constants.ERR_ADMISION_CALENTANDO) ;
+			return false ;
+		}
+
+		long espera = this.controlAdmisionService.consumirToken(this.obtenerUsuario(request)) ;
+		if (espera > 0)
+		{
+			this.rechazar(response, HttpStatus.TOO_MANY_REQUESTS, espera, Constants.ERR_ADMISION_LIMITE_USUARIO_CODE, Constants.ERR_ADMISION_LIMITE_USUARIO) ;
+			return false ;
+		}
+
+		if (this.coincide(request, this.rutasExportacion))
+		{
+			if (!this.controlAdmisionService.ocuparHuecoExportacion())
+			{
+				this.rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 5000L, Constants.ERR_ADMISION_EXPORTACIONES_CODE, Constants.ERR_ADMISION_EXPORTACIONES) ;
+				return false ;
+			}
+			request.setAttribute(ATRIBUTO_HUECO_EXPORTACION, Boolean.TRUE) ;
+		}
+		else if (this.usaBaseDatos(request, handler))
+		{
+			if (!this.controlAdmisionService.ocuparHueco())
+			{
+				this.rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 1000L, Constants.ERR_ADMISION_SATURADO_CODE, Constants.ERR_ADMISION_SATURADO) ;
+				return false ;
+			}
+			request.setAttribute(ATRIBUTO_HUECO, Boolean.TRUE) ;
+		}
+
+		return true ;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception)
+	{
+		if (request.getAttribute(ATRIBUTO_HUECO) != null)
+		{
+			request.removeAttribute(ATRIBUTO_HUECO) ;
+			this.controlAdmisionService.liberarHueco() ;
+		}
+		if (request.getAttribute(ATRIBUTO_HUECO_EXPORTACION) != null)
+		{
+			request.removeAttribute(ATRIBUTO_HUECO_EXPORTACION) ;
+			this.controlAdmisionService.liberarHuecoExportacion() ;
+		}
+	}
+
+	/**
+	 * @param request petición
+	 * @return email del usuario autenticado o, si no lo hay, la dirección remota
+	 */
+	private String obtenerUsuario(HttpServletRequest request)
+	{
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication() ;
+		if (authentication != null && authentication.getPrincipal() instanceof DtoUsuarioExtended)
+		{
+			return ((DtoUsuarioExtended) authentication.getPrincipal()).getEmail() ;
+		}
+		return request.getRemoteAddr() ;
+	}
+
+	/**
+	 * @param request petición
+	 * @param handler manejador de la petición
+	 * @return true si la petición debe ocupar un hueco de concurrencia al entrar
+	 */
+	private boolean usaBaseDatos(HttpServletRequest request, Object handler)
+	{
+		if (handler instanceof HandlerMethod handlerMethod && handlerMethod.hasMethodAnnotation(LecturaCoalescida.class))
+		{
+			return false ;
+		}
+		return !this.coincide(request, this.rutasSinBaseDatos) ;
+	}
+
+	/**
+	 * @param request petición
+	 * @param patrones patrones de rutas
+	 * @return true si la ruta de la petición coincide con alguno de los patrones
+	 */
+	private boolean coincide(HttpServletRequest request, List<String> patrones)
+	{
+		String ruta = request.getRequestURI().substring(request.getContextPath().length()) ;
+		for (String patron : patrones)
+		{
+			if (this.antPathMatcher.match(patron.trim(), ruta))
+			{
+				return true ;
+			}
+		}
+		return false ;
+	}
+
+	/**
+	 * Escribe la respuesta de rechazo.
+	 *
+	 * @param response respuesta
+	 * @param estado estado HTTP
+	 * @param esperaMs milisegundos que debe esperar el cliente
+	 * @param codigo código de error
+	 * @param mensaje mensaje de error
+	 * @throws IOException si no se puede escribir la respuesta
+	 */
+	private void rechazar(HttpServletResponse response, HttpStatus estado, long esperaMs, Integer codigo, String mensaje) throws IOException
+	{
+		log.debug(mensaje) ;
+
+		response.setStatus(estado.value()) ;
+		response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1L, (esperaMs + 999L) / 1000L))) ;
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE) ;
+		this.objectMapper.writeValue(response.getOutputStream(), EventsServerException.preasignada(codigo, mensaje).getBodyExceptionMessage()) ;
+	}
+}
@@ -0,0 +1,28 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registra en Hibernate el {@link MonitorSentenciasHibernate} que cuenta las sentencias,
+ * las cargas de entidades y los flushes de cada petición.
+ */
+@Configuration
+public class DiagnosticoHibernateConfig
+{
+	/**
+	 * @return personalización de Hibernate con el monitor como StatementInspector e Interceptor
+	 */
+	@Bean
+	public HibernatePropertiesCustomizer monitorSentenciasHibernateCustomizer()
+	{
+		MonitorSentenciasHibernate monitor = new MonitorSentenciasHibernate() ;
+		return hibernateProperties ->
+		{
+			hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, monitor) ;
+			hibernateProperties.put(AvailableSettings.INTERCEPTOR, monitor) ;
+		} ;
+	}
+}
@@ -0,0 +1,108 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import es.iesjandula.reaktor.events_server.services.DiagnosticoHibernateService;
+import es.iesjandula.reaktor.events_server.utils.MaximoSentencias;
+import es.iesjandula.reaktor.events_server.utils.MedicionSentencias;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Interceptor que mide la actividad de Hibernate de cada petición.
+ *
+ * <p>Abre una {@link MedicionSentencias} al empezar la petición y, al terminar, escribe
+ * en el log (nivel debug) las sentencias, entidades cargadas y flushes, y los acumula por
+ * endpoint. Si el método tiene {@link MaximoSentencias}, o si no lo tiene y se supera el
+ * máximo general, se escribe un aviso.</p>
+ *
+ * <p>En las peticiones asíncronas la medición se quita del hilo de la petición cuando
+ * este queda libre y se registra al terminar la petición, para incluir el trabajo de los
+ * hilos que se anidan en ella (reparto entre fragmentos, exportación en streaming). El
+ * trabajo de otros hilos que no se anidan, como el de los endpoints reactivos, no se
+ * cuenta.</p>
+ */
+@Slf4j
+@Component
+public class DiagnosticoHibernateInterceptor implements AsyncHandlerInterceptor
+{
+	/** Atributo de la petición con la medición en curso */
+	private static final String ATRIBUTO_MEDICION = DiagnosticoHibernateInterceptor.class.getName() + ".MEDICION" ;
+
+	@Autowired
+	private DiagnosticoHibernateService diagnosticoHibernateService ;
+
+	/** Máximo de sentencias por petición para los métodos sin {@link MaximoSentencias} */
+	@Value("${reaktor.diagnostico.max-sentencias-por-peticion:50}")
+	private int maxSentenciasPorPeticion ;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+	{
+		if (request.getDispatcherType() != DispatcherType.ASYNC && handler instanceof HandlerMethod)
+		{
+			request.setAttribute(ATRIBUTO_MEDICION, MonitorSentenciasHibernate.iniciar()) ;
+		}
+		return true ;
+	}
+
+	@Override
+	public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler)
+	{
+		// El hilo vuelve al pool: se quita de él la medición, que se registra al terminar
+		MedicionSentencias medicion = (MedicionSentencias) request.getAttribute(ATRIBUTO_MEDICION) ;
+		if (medicion != null)
+		{
+			medicion.close() ;
+		}
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception)
+	{
+		this.terminar(request, handler) ;
+	}
+
+	/**
+	 * Cierra la medición de la petición, la registra y avisa si se ha superado el máximo.
+	 *
+	 * @param request petición
+	 * @param handler método que ha atendido la petición
+	 */
+	private void terminar(HttpServletRequest request, Object handler)
+	{
+		MedicionSentencias medicion = (MedicionSentencias) request.getAttribute(ATRIBUTO_MEDICION) ;
+		if (medicion == null)
+		{
+			return ;
+		}
+		request.removeAttribute(ATRIBUTO_MEDICION) ;
+		medicion.close() ;
+
+		HandlerMethod handlerMethod = (HandlerMethod) handler ;
+		String endpoint = handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName() ;
+
+		MaximoSentencias anotacion = handlerMethod.getMethodAnnotation(MaximoSentencias.class) ;
+		int maximo = anotacion != null ? anotacion.value() : this.maxSentenciasPorPeticion ;
+		boolean excedido = medicion.getSentencias() > maximo ;
+
+		this.diagnosticoHibernateService.registrar(endpoint, medicion, excedido) ;
+
+		if (excedido)
+		{
+			log.warn("{} ha ejecutado {} sentencias SQL (máximo {}), {} entidades cargadas, {} flushes",
+					 endpoint, medicion.getSentencias(), maximo, medicion.getEntidadesCargadas(), medicion.getFlushes()) ;
+		}
+		else if (log.isDebugEnabled())
+		{
+			log.debug("{}: {} sentencias SQL, {} entidades cargadas, {} flushes",
+					  endpoint, medicion.getSentencias(), medicion.getEntidadesCargadas(), medicion.getFlushes()) ;
+		}
+	}
+}
@@ -0,0 +1,82 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.events_server.services.FragmentosEventos;
+import es.iesjandula.reaktor.events_server.utils.FragmentoPropietario;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Interceptor que fija el fragmento del propietario en los endpoints con
+ * {@link FragmentoPropietario}.
+ *
+ * <p>El fragmento se fija al empezar la petición, antes de la primera consulta: con
+ * open-in-view la petición conserva la primera conexión que obtiene. Al terminar se
+ * quita para que el hilo vuelva al pool limpio. Sin fragmentos configurados no hace nada.</p>
+ */
+@Component
+public class FragmentoInterceptor implements HandlerInterceptor
+{
+	/** Cabecera o parámetro con el propietario de los eventos */
+	private static final String PROPIETARIO = "usuarioEmail" ;
+
+	@Autowired
+	private FragmentosEventos fragmentosEventos ;
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+	{
+		if (this.fragmentosEventos.isActivo() && handler instanceof HandlerMethod handlerMethod && handlerMethod.hasMethodAnnotation(FragmentoPropietario.class))
+		{
+			boolean propietarioEnPeticion = handlerMethod.getMethodAnnotation(FragmentoPropietario.class).propietarioEnPeticion() ;
+			String propietario = this.obtenerPropietario(request, propietarioEnPeticion) ;
+			if (propietario != null)
+			{
+				FragmentoRoutingDataSource.fijar(this.fragmentosEventos.fragmentoDe(propietario)) ;
+			}
+		}
+		return true ;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception)
+	{
+		FragmentoRoutingDataSource.fijar(null) ;
+	}
+
+	/**
+	 * @param request petición
+	 * @param propietarioEnPeticion si el endpoint recibe el propietario en la petición
+	 * @return propietario indicado en la petición, si el endpoint lo recibe y viene, o el
+	 *         usuario autenticado
+	 */
+	private String obtenerPropietario(HttpServletRequest request, boolean propietarioEnPeticion)
+	{
+		if (propietarioEnPeticion)
+		{
+			String propietario = request.getHeader(PROPIETARIO) ;
+			if (propietario == null || propietario.isBlank())
+			{
+				propietario = request.getParameter(PROPIETARIO) ;
+			}
+			if (propietario != null && !propietario.isBlank())
+			{
+				return propietario ;
+			}
+		}
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication() ;
+		if (authentication != null && authentication.getPrincipal() instanceof DtoUsuarioExtended usuario)
+		{
+			return usuario.getEmail() ;
+		}
+		return null ;
+	}
+}
@@ -0,0 +1,96 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+/**
+ * DataSource que enruta cada conexión a uno de los fragmentos en los que se reparten los
+ * eventos por propietario.
+ *
+ * <p>El fragmento se fija por hilo con {@link #fijar(Integer)}; sin fragmento fijado las
+ * conexiones van al fragmento 0, que es además el que guarda la copia de referencia de las
+ * categorías. Como el fragmento se decide al obtener la conexión, debe fijarse antes de
+ * empezar la transacción y el DataSource debe usarse envuelto en un
+ * LazyConnectionDataSourceProxy.</p>
+ */
+public class FragmentoRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable
+{
+	/** Fragmento fijado en el hilo actual */
+	private static final ThreadLocal<Integer> FRAGMENTO_ACTUAL = new ThreadLocal<>() ;
+
+	/** Pools de cada fragmento, por posición */
+	private final List<DataSource> fragmentos ;
+
+	/**
+	 * @param fragmentos pools de cada fragmento; el primero es el fragmento por defecto
+	 */
+	public FragmentoRoutingDataSource(List<DataSource> fragmentos)
+	{
+		this.fragmentos = List.copyOf(fragmentos) ;
+
+		Map<Object, Object> destinos = new HashMap<>() ;
+		for (int i = 0 ; i < this.fragmentos.size() ; i++)
+		{
+			destinos.put(i, this.fragmentos.get(i)) ;
+		}
+		this.setTargetDataSources(destinos) ;
+		this.setDefaultTargetDataSource(this.fragmentos.get(0)) ;
+	}
+
+	/**
+	 * Fija el fragmento de las conexiones que se obtengan desde el hilo actual.
+	 *
+	 * @param fragmento fragmento, o null para volver al fragmento por defecto
+	 * @return fragmento que estaba fijado, para restaurarlo después
+	 */
+	public static Integer fijar(Integer fragmento)
+	{
+		Integer anterior = FRAGMENTO_ACTUAL.get() ;
+		if (fragmento == null)
+		{
+			FRAGMENTO_ACTUAL.remove() ;
+		}
+		else
+		{
+			FRAGMENTO_ACTUAL.set(fragmento) ;
+		}
+		return anterior ;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey()
+	{
+		Integer fragmento = FRAGMENTO_ACTUAL.get() ;
+		return fragmento != null ? fragmento : 0 ;
+	}
+
+	/**
+	 * @return número de fragmentos
+	 */
+	public int getNumeroFragmentos()
+	{
+		return this.fragmentos.size() ;
+	}
+
+	/**
+	 * Cierra los pools de todos los fragmentos.
+	 *
+	 * @throws Exception si algún pool no se puede cerrar
+	 */
+	@Override
+	public void close() throws Exception
+	{
+		for (DataSource fragmento : this.fragmentos)
+		{
+			if (fragmento instanceof AutoCloseable cerrable)
+			{
+				cerrable.close() ;
+			}
+		}
+	}
+}
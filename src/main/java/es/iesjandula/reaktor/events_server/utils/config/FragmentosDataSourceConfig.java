@@ -0,0 +1,82 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuración del reparto de los eventos en varias bases de datos (fragmentos).
+ *
+ * <p>Solo se activa con reaktor.datasource.fragmentos.enabled=true y no se combina con la
+ * réplica de lectura. El fragmento 0 es la base de datos de spring.datasource y los demás
+ * son las URL de reaktor.datasource.fragmentos.urls, con el mismo usuario y contraseña.
+ * Los fragmentos pueden ser varias bases de datos locales. Flyway migra el fragmento 0 al
+ * arrancar, como siempre, y esta configuración migra los demás.</p>
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "reaktor.datasource.fragmentos.enabled", havingValue = "true")
+public class FragmentosDataSourceConfig
+{
+	/**
+	 * @param dataSourceProperties propiedades spring.datasource (fragmento 0)
+	 * @param urls URL JDBC del resto de fragmentos, en orden
+	 * @param username usuario de los fragmentos adicionales
+	 * @param password contraseña de los fragmentos adicionales
+	 * @param maximoConexiones tamaño del pool de cada fragmento
+	 * @return DataSource que enruta entre los fragmentos
+	 */
+	@Bean
+	public FragmentoRoutingDataSource fragmentoRoutingDataSource(DataSourceProperties dataSourceProperties,
+																 @Value("${reaktor.datasource.fragmentos.urls}") List<String> urls,
+																 @Value("${reaktor.datasource.fragmentos.username}") String username,
+																 @Value("${reaktor.datasource.fragmentos.password}") String password,
+																 @Value("${reaktor.datasource.fragmentos.hikari.maximum-pool-size:5}") int maximoConexiones)
+	{
+		List<DataSource> fragmentos = new ArrayList<>() ;
+
+		HikariDataSource principal = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build() ;
+		principal.setPoolName("events-fragmento-0") ;
+		principal.setMaximumPoolSize(maximoConexiones) ;
+		fragmentos.add(principal) ;
+
+		for (String url : urls)
+		{
+			HikariDataSource fragmento = DataSourceBuilder.create().type(HikariDataSource.class).url(url.trim()).username(username).password(password).build() ;
+			fragmento.setPoolName("events-fragmento-" + fragmentos.size()) ;
+			fragmento.setMaximumPoolSize(maximoConexiones) ;
+
+			Flyway.configure().dataSource(fragmento).locations("classpath:db/migration").baselineOnMigrate(true).baselineVersion("1").load().migrate() ;
+			fragmentos.add(fragmento) ;
+		}
+
+		log.info("Eventos repartidos por propietario en {} fragmentos", fragmentos.size()) ;
+		return new FragmentoRoutingDataSource(fragmentos) ;
+	}
+
+	/**
+	 * @param fragmentoRoutingDataSource DataSource que enruta entre los fragmentos
+	 * @return DataSource principal usado por JPA
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(FragmentoRoutingDataSource fragmentoRoutingDataSource)
+	{
+		return new LazyConnectionDataSourceProxy(fragmentoRoutingDataSource) ;
+	}
+}
@@ -0,0 +1,121 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Informe de tiempos del arranque.
+ *
+ * <p>Cuando la aplicación está lista escribe en el log el tiempo total hasta ese momento,
+ * la duración de las fases principales (preparación del entorno, refresco del contexto,
+ * post-procesado de definiciones...) y los beans que más han tardado en crearse. Así se
+ * puede comparar el tiempo de arranque entre versiones. Después se vacía el registro para
+ * no retener la memoria.</p>
+ */
+@Slf4j
+@Component
+public class InformeArranque
+{
+	/** Pasos del arranque que se consideran fases */
+	private static final List<String> FASES = List.of("spring.boot.application.starting",
+													  "spring.boot.application.environment-prepared",
+													  "spring.boot.application.context-prepared",
+													  "spring.boot.application.context-loaded",
+													  "spring.context.beans.post-process",
+													  "spring.context.refresh",
+													  "spring.boot.application.started") ;
+
+	/** Nombre de los pasos de creación de beans */
+	private static final String PASO_CREACION_BEAN = "spring.beans.instantiate" ;
+
+	/** Número de beans más lentos que se incluyen en el informe */
+	@Value("${reaktor.arranque.informe.beans-mas-lentos:10}")
+	private int beansMasLentos ;
+
+	/**
+	 * Escribe el informe una vez arrancada la aplicación.
+	 *
+	 * @param event evento de aplicación lista
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void informar(ApplicationReadyEvent event)
+	{
+		long hastaListaMs = ManagementFactory.getRuntimeMXBean().getUptime() ;
+
+		ApplicationStartup applicationStartup = event.getApplicationContext().getApplicationStartup() ;
+		if (!(applicationStartup instanceof BufferingApplicationStartup))
+		{
+			log.info("Arranque: aplicación lista en {} ms (sin registro de fases)", hastaListaMs) ;
+			return ;
+		}
+
+		StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).drainBufferedTimeline() ;
+
+		Map<String, Long> fases = new LinkedHashMap<>() ;
+		List<StartupTimeline.TimelineEvent> beans = new ArrayList<>() ;
+		for (StartupTimeline.TimelineEvent paso : timeline.getEvents())
+		{
+			String nombre = paso.getStartupStep().getName() ;
+			if (PASO_CREACION_BEAN.equals(nombre))
+			{
+				beans.add(paso) ;
+			}
+			else if (FASES.contains(nombre))
+			{
+				fases.merge(nombre, paso.getDuration().toMillis(), Long::sum) ;
+			}
+		}
+
+		StringBuilder informe = new StringBuilder() ;
+		informe.append("Arranque: aplicación lista en ").append(hastaListaMs).append(" ms (JVM)") ;
+		informe.append(", ").append(beans.size()).append(" beans creados") ;
+		for (String fase : FASES)
+		{
+			Long duracion = fases.get(fase) ;
+			if (duracion != null)
+			{
+				informe.append("\n  ").append(fase).append(": ").append(duracion).append(" ms") ;
+			}
+		}
+
+		beans.sort(Comparator.comparing(StartupTimeline.TimelineEvent::getDuration, Comparator.reverseOrder())) ;
+		informe.append("\n  Beans más lentos (incluye sus dependencias):") ;
+		for (StartupTimeline.TimelineEvent bean : beans.subList(0, Math.min(this.beansMasLentos, beans.size())))
+		{
+			informe.append("\n    ").append(nombreBean(bean.getStartupStep())).append(": ").append(bean.getDuration().toMillis()).append(" ms") ;
+		}
+
+		log.info(informe.toString()) ;
+	}
+
+	/**
+	 * @param paso paso de creación de un bean
+	 * @return nombre del bean
+	 */
+	private static String nombreBean(StartupStep paso)
+	{
+		for (StartupStep.Tag tag : paso.getTags())
+		{
+			if ("beanName".equals(tag.getKey()))
+			{
+				return tag.getValue() ;
+			}
+		}
+		return "?" ;
+	}
+}
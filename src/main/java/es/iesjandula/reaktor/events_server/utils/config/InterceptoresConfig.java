@@ -0,0 +1,42 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Esta clase registra los interceptores que se aplican a las peticiones del servidor
+ */
+@Configuration
+public class InterceptoresConfig implements WebMvcConfigurer
+{
+	/** Interceptor del registro de accesos */
+	@Autowired
+	private RegistroAccesoInterceptor registroAccesoInterceptor ;
+
+	/** Interceptor de control de admisión */
+	@Autowired
+	private ControlAdmisionInterceptor controlAdmisionInterceptor ;
+
+	/** Interceptor de diagnóstico de sentencias de Hibernate */
+	@Autowired
+	private DiagnosticoHibernateInterceptor diagnosticoHibernateInterceptor ;
+
+	/** Interceptor que fija el fragmento del propietario */
+	@Autowired
+	private FragmentoInterceptor fragmentoInterceptor ;
+
+	/**
+	 * @param registry registro de interceptores
+	 */
+	@Override
+	public void addInterceptors(InterceptorRegistry registry)
+	{
+		// El registro de accesos va primero para anotar también las peticiones rechazadas
+		registry.addInterceptor(this.registroAccesoInterceptor).addPathPatterns("/events/**") ;
+		registry.addInterceptor(this.controlAdmisionInterceptor).addPathPatterns("/events/**") ;
+		registry.addInterceptor(this.diagnosticoHibernateInterceptor).addPathPatterns("/events/**") ;
+		registry.addInterceptor(this.fragmentoInterceptor).addPathPatterns("/events/**") ;
+	}
+}
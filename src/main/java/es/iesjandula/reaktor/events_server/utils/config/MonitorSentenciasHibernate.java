@@ -0,0 +1,108 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.util.Iterator;
+
+import org.hibernate.Interceptor;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+
+import es.iesjandula.reaktor.events_server.utils.MedicionSentencias;
+
+/**
+ * Cuenta las sentencias SQL, las entidades cargadas y los flushes de Hibernate en la
+ * medición activa del hilo actual.
+ *
+ * <p>Se registra en Hibernate como StatementInspector (ve cada sentencia antes de
+ * prepararla) y como Interceptor (ve las cargas de entidades y los flushes). Si el hilo
+ * no tiene ninguna medición activa no hace nada.</p>
+ *
+ * <p>La medición es del hilo: el trabajo que una petición lanza en otros hilos solo se
+ * cuenta si ese hilo empieza una medición dentro de la de la petición con
+ * {@link #iniciarDentroDe(MedicionSentencias)}. Lo hacen el reparto entre fragmentos y la
+ * exportación en streaming; los endpoints reactivos no se cuentan.</p>
+ */
+public class MonitorSentenciasHibernate implements StatementInspector, Interceptor
+{
+	/** Serial version UID (StatementInspector es serializable) */
+	private static final long serialVersionUID = 1L ;
+
+	/** Medición activa en cada hilo */
+	private static final ThreadLocal<MedicionSentencias> MEDICION_ACTUAL = new ThreadLocal<>() ;
+
+	/**
+	 * Empieza una medición en el hilo actual. Si ya había una, la nueva se anida y sus
+	 * contadores también se suman a la anterior.
+	 *
+	 * @return medición, que hay que cerrar al terminar
+	 */
+	public static MedicionSentencias iniciar()
+	{
+		return iniciarDentroDe(MEDICION_ACTUAL.get()) ;
+	}
+
+	/**
+	 * Empieza una medición en el hilo actual anidada en la de otro hilo, de modo que sus
+	 * contadores también se suman a esa. Sirve para contar el trabajo que una petición
+	 * lanza en otros hilos.
+	 *
+	 * @param padre medición en la que se anida, o null para una medición independiente
+	 * @return medición, que hay que cerrar al terminar en este mismo hilo
+	 */
+	public static MedicionSentencias iniciarDentroDe(MedicionSentencias padre)
+	{
+		MedicionSentencias anterior = MEDICION_ACTUAL.get() ;
+		MedicionSentencias medicion = new MedicionSentencias(padre, () ->
+		{
+			if (anterior != null)
+			{
+				MEDICION_ACTUAL.set(anterior) ;
+			}
+			else
+			{
+				MEDICION_ACTUAL.remove() ;
+			}
+		}) ;
+		MEDICION_ACTUAL.set(medicion) ;
+		return medicion ;
+	}
+
+	/**
+	 * @return medición activa en el hilo actual, o null si no hay
+	 */
+	public static MedicionSentencias actual()
+	{
+		return MEDICION_ACTUAL.get() ;
+	}
+
+	@Override
+	public String inspect(String sql)
+	{
+		MedicionSentencias medicion = MEDICION_ACTUAL.get() ;
+		if (medicion != null)
+		{
+			medicion.sumarSentencia() ;
+		}
+		return sql ;
+	}
+
+	@Override
+	public boolean onLoad(Object entity, Object id, Object[] state, String[] propertyNames, Type[] types)
+	{
+		MedicionSentencias medicion = MEDICION_ACTUAL.get() ;
+		if (medicion != null)
+		{
+			medicion.sumarEntidadCargada() ;
+		}
+		return false ;
+	}
+
+	@Override
+	public void postFlush(Iterator<Object> entities)
+	{
+		MedicionSentencias medicion = MEDICION_ACTUAL.get() ;
+		if (medicion != null)
+		{
+			medicion.sumarFlush() ;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+import es.iesjandula.reaktor.events_server.services.RegistroAccesoService;
+import es.iesjandula.reaktor.events_server.services.RegistroAccesoService.EntradaAcceso;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Interceptor que registra cada acceso en el {@link RegistroAccesoService}: usuario,
+ * endpoint, estado, latencia y elementos devueltos.
+ *
+ * <p>En el hilo de la petición solo se toman los tiempos y se encola la entrada; la
+ * escritura la hace el hilo de fondo del servicio. En las peticiones asíncronas (streaming)
+ * el acceso se registra al terminar la respuesta.</p>
+ */
+@Component
+public class RegistroAccesoInterceptor implements AsyncHandlerInterceptor
+{
+	/** Atributo de la petición con los datos del acceso en curso */
+	private static final String ATRIBUTO_ACCESO = RegistroAccesoInterceptor.class.getName() + ".ACCESO" ;
+
+	@Autowired
+	private RegistroAccesoService registroAccesoService ;
+
+	/**
+	 * Anota los elementos devueltos por la petición en curso, si la hay.
+	 *
+	 * @param filas número de elementos de la respuesta
+	 */
+	public static void anotarFilas(int filas)
+	{
+		RequestAttributes atributos = RequestContextHolder.getRequestAttributes() ;
+		if (atributos != null && atributos.getAttribute(ATRIBUTO_ACCESO, RequestAttributes.SCOPE_REQUEST) instanceof AccesoEnCurso acceso)
+		{
+			acceso.filas = filas ;
+		}
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+	{
+		if (request.getDispatcherType() != DispatcherType.ASYNC)
+		{
+			request.setAttribute(ATRIBUTO_ACCESO, new AccesoEnCurso(System.currentTimeMillis(), System.nanoTime(), usuarioActual())) ;
+		}
+		return true ;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception exception)
+	{
+		if (!(request.getAttribute(ATRIBUTO_ACCESO) instanceof AccesoEnCurso acceso))
+		{
+			return ;
+		}
+		request.removeAttribute(ATRIBUTO_ACCESO) ;
+
+		String endpoint = handler instanceof HandlerMethod handlerMethod ?
+						  handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName() : null ;
+
+		this.registroAccesoService.registrar(new EntradaAcceso(acceso.momento, acceso.usuario, request.getMethod(), request.getRequestURI(), endpoint,
+															   response.getStatus(), (System.nanoTime() - acceso.inicioNanos) / 1_000_000.0, acceso.filas)) ;
+	}
+
+	/**
+	 * @return email del usuario autenticado, o null
+	 */
+	private static String usuarioActual()
+	{
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication() ;
+		if (authentication == null)
+		{
+			return null ;
+		}
+		return authentication.getPrincipal() instanceof DtoUsuarioExtended usuario ? usuario.getEmail() : authentication.getName() ;
+	}
+
+	/**
+	 * Datos del acceso mientras se atiende la petición.
+	 */
+	private static final class AccesoEnCurso
+	{
+		/** Momento de inicio en milisegundos */
+		private final long momento ;
+
+		/** Inicio para medir la latencia */
+		private final long inicioNanos ;
+
+		/** Email del usuario */
+		private final String usuario ;
+
+		/** Elementos devueltos, o -1 si no se conocen */
+		private volatile int filas = -1 ;
+
+		/**
+		 * @param momento momento de inicio en milisegundos
+		 * @param inicioNanos inicio para medir la latencia
+		 * @param usuario email del usuario
+		 */
+		private AccesoEnCurso(long momento, long inicioNanos, String usuario)
+		{
+			this.momento     = momento ;
+			this.inicioNanos = inicioNanos ;
+			this.usuario     = usuario ;
+		}
+	}
+}
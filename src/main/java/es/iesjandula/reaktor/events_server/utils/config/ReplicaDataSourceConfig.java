@@ -0,0 +1,193 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuración del enrutado de lecturas a una réplica.
+ *
+ * <p>Solo se activa con reaktor.datasource.replica.enabled=true. Crea un pool para el
+ * primario (spring.datasource) y otro independiente para la réplica
+ * (reaktor.datasource.replica), y expone como DataSource principal un
+ * {@link ReplicaRoutingDataSource} envuelto en un LazyConnectionDataSourceProxy.
+ * La réplica puede ser cualquier segunda base de datos local que haga de sustituta.</p>
+ *
+ * <p>Necesita spring.jpa.open-in-view=false: el destino se decide por conexión y, con
+ * open-in-view, la petición conserva la primera que obtiene. Si está activo no arranca.</p>
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "reaktor.datasource.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig
+{
+	/**
+	 * @param dataSourceProperties propiedades spring.datasource
+	 * @return pool de conexiones del primario
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primarioDataSource(DataSourceProperties dataSourceProperties)
+	{
+		HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build() ;
+		dataSource.setPoolName("events-primario") ;
+		return dataSource ;
+	}
+
+	/**
+	 * @param url URL JDBC de la réplica
+	 * @param username usuario de la réplica
+	 * @param password contraseña de la réplica
+	 * @return pool de conexiones de la réplica
+	 */
+	@Bean
+	@ConfigurationProperties("reaktor.datasource.replica.hikari")
+	public HikariDataSource replicaDataSource(@Value("${reaktor.datasource.replica.url}") String url,
+											  @Value("${reaktor.datasource.replica.username}") String username,
+											  @Value("${reaktor.datasource.replica.password}") String password)
+	{
+		HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class).url(url).username(username).password(password).build() ;
+		dataSource.setPoolName("events-replica") ;
+		dataSource.setReadOnly(true) ;
+		return dataSource ;
+	}
+
+	/**
+	 * @param primarioDataSource pool del primario
+	 * @param replicaDataSource pool de la réplica
+	 * @param toleranciaRetrasoMs tolerancia de retraso de la réplica
+	 * @param openInView si la petición conserva su primera conexión hasta terminar
+	 * @return DataSource que enruta entre primario y réplica
+	 */
+	@Bean
+	public ReplicaRoutingDataSource replicaRoutingDataSource(@Qualifier("primarioDataSource") HikariDataSource primarioDataSource,
+															 @Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+															 @Value("${reaktor.datasource.replica.tolerancia-retraso-ms:2000}") long toleranciaRetrasoMs,
+															 @Value("${spring.jpa.open-in-view:true}") boolean openInView)
+	{
+		// Con open-in-view la primera lectura de la petición fijaría la réplica para todas
+		// sus escrituras posteriores
+		if (openInView)
+		{
+			throw new IllegalStateException("La réplica de lectura necesita spring.jpa.open-in-view=false") ;
+		}
+
+		Map<Object, Object> destinos = new HashMap<>() ;
+		destinos.put(ReplicaRoutingDataSource.Destino.PRIMARIO, primarioDataSource) ;
+		destinos.put(ReplicaRoutingDataSource.Destino.REPLICA, replicaDataSource) ;
+
+		ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(toleranciaRetrasoMs) ;
+		routingDataSource.setTargetDataSources(destinos) ;
+		routingDataSource.setDefaultTargetDataSource(primarioDataSource) ;
+		return routingDataSource ;
+	}
+
+	/**
+	 * @param replicaRoutingDataSource DataSource que enruta entre primario y réplica
+	 * @return DataSource principal usado por JPA
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource)
+	{
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource) ;
+	}
+
+	/**
+	 * @param replicaDataSource pool de la réplica
+	 * @param replicaRoutingDataSource DataSource que enruta entre primario y réplica
+	 * @return monitor que comprueba periódicamente el retraso de la réplica
+	 */
+	@Bean
+	public ReplicaRetrasoMonitor replicaRetrasoMonitor(@Qualifier("replicaDataSource") HikariDataSource replicaDataSource,
+													   ReplicaRoutingDataSource replicaRoutingDataSource)
+	{
+		return new ReplicaRetrasoMonitor(new JdbcTemplate(replicaDataSource), replicaRoutingDataSource) ;
+	}
+
+	/**
+	 * Comprueba el retraso de la réplica y la retira de las lecturas si supera la tolerancia
+	 * o no responde. Si la base de datos no es una réplica real (no informa de estado de
+	 * replicación) se considera sin retraso.
+	 */
+	public static class ReplicaRetrasoMonitor
+	{
+		/** Acceso JDBC a la réplica */
+		private final JdbcTemplate replicaJdbcTemplate ;
+
+		/** DataSource que enruta entre primario y réplica */
+		private final ReplicaRoutingDataSource replicaRoutingDataSource ;
+
+		/**
+		 * @param replicaJdbcTemplate acceso JDBC a la réplica
+		 * @param replicaRoutingDataSource DataSource que enruta entre primario y réplica
+		 */
+		public ReplicaRetrasoMonitor(JdbcTemplate replicaJdbcTemplate, ReplicaRoutingDataSource replicaRoutingDataSource)
+		{
+			this.replicaJdbcTemplate      = replicaJdbcTemplate ;
+			this.replicaRoutingDataSource = replicaRoutingDataSource ;
+		}
+
+		/**
+		 * Consulta el estado de la réplica y actualiza su disponibilidad.
+		 */
+		@Scheduled(fixedDelayString = "${reaktor.datasource.replica.comprobacion-ms:5000}")
+		public void comprobar()
+		{
+			boolean disponible ;
+			try
+			{
+				Long retrasoSegundos = this.replicaJdbcTemplate.query("SHOW REPLICA STATUS", resultSet ->
+				{
+					if (!resultSet.next())
+					{
+						return 0L ;
+					}
+					// NULL: la replicación está parada o rota
+					long segundos = resultSet.getLong("Seconds_Behind_Source") ;
+					return resultSet.wasNull() ? null : segundos ;
+				}) ;
+
+				if (retrasoSegundos == null)
+				{
+					log.warn("Réplica con la replicación parada, las lecturas irán al primario") ;
+					disponible = false ;
+				}
+				else
+				{
+					// Se compara en segundos para no desbordar con retrasos muy grandes
+					disponible = retrasoSegundos <= this.replicaRoutingDataSource.getToleranciaRetrasoMs() / 1000L ;
+					if (!disponible)
+					{
+						log.warn("Réplica con retraso por encima de la tolerancia: {} s", retrasoSegundos) ;
+					}
+				}
+			}
+			catch (Exception exception)
+			{
+				log.warn("Réplica no disponible, las lecturas irán al primario: {}", exception.getMessage()) ;
+				disponible = false ;
+			}
+
+			this.replicaRoutingDataSource.setReplicaDisponible(disponible) ;
+		}
+	}
+}
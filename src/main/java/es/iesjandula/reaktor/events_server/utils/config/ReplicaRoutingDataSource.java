@@ -0,0 +1,169 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import es.iesjandula.reaktor.base.security.models.DtoUsuarioExtended;
+
+/**
+ * DataSource que enruta cada conexión al primario o a la réplica de lectura.
+ *
+ * <p>Las transacciones de solo lectura van a la réplica y el resto al primario, salvo que:</p>
+ * <ul>
+ *   <li>el mismo usuario haya escrito hace menos de la tolerancia de retraso configurada,
+ *   para que lea lo que acaba de escribir sin retener en el primario las lecturas del
+ *   resto de usuarios, o</li>
+ *   <li>la réplica esté marcada como no disponible (caída o con demasiado retraso).</li>
+ * </ul>
+ *
+ * <p>Sin usuario autenticado (tareas internas y hilos propios) se tiene en cuenta la
+ * última escritura del propio hilo.</p>
+ *
+ * <p>El destino se decide cada vez que se pide una conexión, así que debe usarse envuelto
+ * en un LazyConnectionDataSourceProxy, para que la conexión se obtenga cuando la
+ * transacción ya ha publicado si es de solo lectura, y con spring.jpa.open-in-view=false,
+ * para que cada transacción obtenga su propia conexión en lugar de reutilizar la primera
+ * de la petición.</p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource
+{
+	/**
+	 * Destinos posibles de una conexión.
+	 */
+	public enum Destino
+	{
+		/** Base de datos principal (lecturas y escrituras) */
+		PRIMARIO,
+
+		/** Réplica de solo lectura */
+		REPLICA
+	}
+
+	/** Número de usuarios apuntados a partir del cual se purgan las escrituras caducadas */
+	private static final int MAXIMO_USUARIOS_SIN_PURGAR = 1000 ;
+
+	/** Momento de la última escritura del hilo, para las conexiones sin usuario autenticado */
+	private static final ThreadLocal<Long> ULTIMA_ESCRITURA_HILO = new ThreadLocal<>() ;
+
+	/** Tiempo tras una escritura durante el que las lecturas siguen yendo al primario */
+	private final long toleranciaRetrasoMs ;
+
+	/** Momento de la última escritura de cada usuario */
+	private final Map<String, Long> ultimaEscrituraPorUsuario = new ConcurrentHashMap<>() ;
+
+	/** Indica si la réplica está disponible y con un retraso aceptable */
+	private volatile boolean replicaDisponible = true ;
+
+	/**
+	 * @param toleranciaRetrasoMs tiempo tras una escritura durante el que se lee del primario
+	 */
+	public ReplicaRoutingDataSource(long toleranciaRetrasoMs)
+	{
+		this.toleranciaRetrasoMs = toleranciaRetrasoMs ;
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey()
+	{
+		long ahora     = System.currentTimeMillis() ;
+		String usuario = this.obtenerUsuario() ;
+
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly())
+		{
+			this.registrarEscritura(usuario, ahora) ;
+			return Destino.PRIMARIO ;
+		}
+
+		if (!this.replicaDisponible || this.escrituraReciente(usuario, ahora))
+		{
+			return Destino.PRIMARIO ;
+		}
+
+		return Destino.REPLICA ;
+	}
+
+	/**
+	 * Apunta una escritura del usuario o, si no hay usuario, del hilo.
+	 *
+	 * @param usuario email del usuario autenticado o null
+	 * @param ahora momento de la escritura
+	 */
+	private void registrarEscritura(String usuario, long ahora)
+	{
+		if (usuario == null)
+		{
+			ULTIMA_ESCRITURA_HILO.set(ahora) ;
+			return ;
+		}
+
+		if (this.ultimaEscrituraPorUsuario.size() >= MAXIMO_USUARIOS_SIN_PURGAR)
+		{
+			this.ultimaEscrituraPorUsuario.values().removeIf(momento -> ahora - momento >= this.toleranciaRetrasoMs) ;
+		}
+		this.ultimaEscrituraPorUsuario.put(usuario, ahora) ;
+	}
+
+	/**
+	 * @param usuario email del usuario autenticado o null
+	 * @param ahora momento actual
+	 * @return true si el usuario (o el hilo) ha escrito hace menos de la tolerancia
+	 */
+	private boolean escrituraReciente(String usuario, long ahora)
+	{
+		Long momento = usuario == null ? ULTIMA_ESCRITURA_HILO.get() : this.ultimaEscrituraPorUsuario.get(usuario) ;
+		if (momento == null)
+		{
+			return false ;
+		}
+
+		if (ahora - momento < this.toleranciaRetrasoMs)
+		{
+			return true ;
+		}
+
+		// Caducada: se quita para que no se acumulen
+		if (usuario == null)
+		{
+			ULTIMA_ESCRITURA_HILO.remove() ;
+		}
+		else
+		{
+			this.ultimaEscrituraPorUsuario.remove(usuario, momento) ;
+		}
+		return false ;
+	}
+
+	/**
+	 * @return email del usuario autenticado en el hilo actual o null si no hay
+	 */
+	private String obtenerUsuario()
+	{
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication() ;
+		if (authentication != null && authentication.getPrincipal() instanceof DtoUsuarioExtended usuario)
+		{
+			return usuario.getEmail() ;
+		}
+		return null ;
+	}
+
+	/**
+	 * @param replicaDisponible true si las lecturas pueden ir a la réplica
+	 */
+	public void setReplicaDisponible(boolean replicaDisponible)
+	{
+		this.replicaDisponible = replicaDisponible ;
+	}
+
+	/**
+	 * @return tolerancia de retraso configurada en milisegundos
+	 */
+	public long getToleranciaRetrasoMs()
+	{
+		return this.toleranciaRetrasoMs ;
+	}
+}
@@ -0,0 +1,20 @@
+-- Esquema inicial de EventsServer: el mismo que generaba Hibernate a partir de las entidades.
+-- En las bases de datos que ya existían se marca como aplicada (baseline) y no se ejecuta.
+
+CREATE TABLE IF NOT EXISTS categoria (
+    nombre            VARCHAR(100) NOT NULL,
+    color             VARCHAR(10),
+    PRIMARY KEY (nombre)
+);
+
+CREATE TABLE IF NOT EXISTS evento (
+    fecha_inicio      DATETIME(6)  NOT NULL,
+    titulo            VARCHAR(255) NOT NULL,
+    usuario_email     VARCHAR(255) NOT NULL,
+    fecha_fin         DATETIME(6),
+    usuario_nombre    VARCHAR(100),
+    usuario_apellidos VARCHAR(100),
+    nombre            VARCHAR(100),
+    PRIMARY KEY (fecha_inicio, titulo, usuario_email),
+    CONSTRAINT fk_evento_categoria FOREIGN KEY (nombre) REFERENCES categoria (nombre)
+);
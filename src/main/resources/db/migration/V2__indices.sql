@@ -0,0 +1,16 @@
+-- Índices secundarios para los accesos reales a la tabla evento.
+-- La clave primaria (fecha_inicio, titulo, usuario_email) ya sirve las búsquedas por clave
+-- y los recorridos por fecha de inicio.
+
+-- Listado por propietario (buscarEventosPorUsuario) y borrado masivo por propietario.
+-- Incluye todas las columnas de la proyección EventoResponseDto (titulo va en la clave
+-- primaria, que InnoDB añade a cada índice secundario), así que la consulta no lee la tabla.
+CREATE INDEX idx_evento_usuario_inicio ON evento (usuario_email, fecha_inicio, fecha_fin, nombre, usuario_nombre, usuario_apellidos);
+
+-- Consultas de solapamiento con un rango (calendario, exportación, búsqueda por fechas):
+-- fecha_fin >= desde acota por la izquierda y fecha_inicio < hasta se filtra en el índice.
+CREATE INDEX idx_evento_fin_inicio ON evento (fecha_fin, fecha_inicio, nombre);
+
+-- Clave ajena a categoría: recuento, reasignación y borrado de los eventos de una categoría,
+-- también acotados por fecha de inicio.
+CREATE INDEX idx_evento_categoria_inicio ON evento (nombre, fecha_inicio);
@@ -0,0 +1,3 @@
+-- Versión de cada evento para el control de concurrencia optimista en las modificaciones.
+-- Los eventos existentes empiezan en la versión 0.
+ALTER TABLE evento ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,5 @@
+-- El listado por propietario (buscarEventosPorUsuario) devuelve también la versión del evento
+-- desde V3, así que idx_evento_usuario_inicio deja de cubrir la proyección EventoResponseDto
+-- y cada fila obliga a leer la tabla. Se vuelve a crear con la versión al final.
+DROP INDEX idx_evento_usuario_inicio ON evento;
+CREATE INDEX idx_evento_usuario_inicio ON evento (usuario_email, fecha_inicio, fecha_fin, nombre, usuario_nombre, usuario_apellidos, version);
@@ -0,0 +1,200 @@
+package es.iesjandula.reaktor.events_server.utils;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Generador determinista de datos sintéticos para las pruebas de escala.
+ *
+ * <p>Con la misma semilla produce siempre los mismos usuarios, categorías y eventos. Cada
+ * evento se calcula solo a partir de su posición, así que los eventos 0..n-1 son los mismos
+ * se generen de una vez o por tramos, y al pasar de un tamaño al siguiente basta con añadir
+ * los que faltan.</p>
+ *
+ * <p>Las distribuciones imitan las de un centro: pocos profesores y categorías concentran
+ * la mayoría de los eventos (Zipf), los eventos caen en días lectivos y en horario de
+ * mañana, empiezan en tramos de 15 minutos y duran sobre todo una o dos horas.</p>
+ */
+public class GeneradorEventosSinteticos
+{
+	/** Primer día del curso generado */
+	private static final LocalDate INICIO_CURSO = LocalDate.of(2024, 9, 9) ;
+
+	/** Días naturales del curso generado */
+	private static final int DIAS_CURSO = 290 ;
+
+	/** Títulos habituales; a cada uno se le añade la posición del evento para que la clave sea única */
+	private static final String[] TITULOS = { "Reunión de departamento", "Claustro", "Consejo escolar", "Sesión de evaluación",
+											  "Excursión", "Tutoría con familias", "Guardia", "Examen", "Charla", "Visita al museo",
+											  "Jornada deportiva", "Formación del profesorado", "Reunión de equipo educativo",
+											  "Actividad complementaria", "Salida al teatro", "Junta de delegados" } ;
+
+	/** Colores de las categorías */
+	private static final String[] COLORES = { "#e53935", "#8e24aa", "#3949ab", "#039be5", "#00897b", "#7cb342",
+											  "#fdd835", "#fb8c00", "#6d4c41", "#546e7a" } ;
+
+	/** Multiplicador para separar las semillas de eventos consecutivos */
+	private static final long SALTO_SEMILLA = 0x9E3779B97F4A7C15L ;
+
+	/** Semilla de la generación */
+	private final long semilla ;
+
+	/** Número de categorías */
+	private final int categorias ;
+
+	/** Distribución acumulada de eventos por usuario */
+	private final double[] acumuladoUsuarios ;
+
+	/** Distribución acumulada de eventos por categoría */
+	private final double[] acumuladoCategorias ;
+
+	/**
+	 * @param semilla semilla de la generación
+	 * @param usuarios número de usuarios
+	 * @param categorias número de categorías
+	 */
+	public GeneradorEventosSinteticos(long semilla, int usuarios, int categorias)
+	{
+		this.semilla             = semilla ;
+		this.categorias          = categorias ;
+		this.acumuladoUsuarios   = acumuladoZipf(usuarios, 1.1) ;
+		this.acumuladoCategorias = acumuladoZipf(categorias, 1.0) ;
+	}
+
+	/**
+	 * @param posicion posición del usuario
+	 * @return email del usuario
+	 */
+	public String email(int posicion)
+	{
+		return "profesor" + posicion + "@iesjandula.es" ;
+	}
+
+	/**
+	 * @param posicion posición de la categoría
+	 * @return nombre de la categoría
+	 */
+	public String categoria(int posicion)
+	{
+		return "Categoría " + posicion ;
+	}
+
+	/**
+	 * @return nombre y color de cada categoría
+	 */
+	public List<String[]> generarCategorias()
+	{
+		List<String[]> resultado = new ArrayList<>(this.categorias) ;
+		for (int i = 0 ; i < this.categorias ; i++)
+		{
+			resultado.add(new String[] { this.categoria(i), COLORES[i % COLORES.length] }) ;
+		}
+		return resultado ;
+	}
+
+	/**
+	 * @param posicion posición del evento
+	 * @return el evento de esa posición, siempre el mismo para la misma semilla
+	 */
+	public EventoSintetico generarEvento(long posicion)
+	{
+		SplittableRandom aleatorio = new SplittableRandom(this.semilla + posicion * SALTO_SEMILLA) ;
+
+		int usuario   = muestrear(this.acumuladoUsuarios, aleatorio.nextDouble()) ;
+		int categoria = muestrear(this.acumuladoCategorias, aleatorio.nextDouble()) ;
+
+		// Día lectivo: los fines de semana pasan al lunes siguiente
+		LocalDate dia = INICIO_CURSO.plusDays(aleatorio.nextInt(DIAS_CURSO)) ;
+		if (dia.getDayOfWeek() == DayOfWeek.SATURDAY)
+		{
+			dia = dia.plusDays(2) ;
+		}
+		else if (dia.getDayOfWeek() == DayOfWeek.SUNDAY)
+		{
+			dia = dia.plusDays(1) ;
+		}
+
+		// De 8:00 a 14:45 en tramos de 15 minutos, con algo de tarde (hasta las 19:45)
+		int tramo = aleatorio.nextInt(100) < 85 ? aleatorio.nextInt(28) : 28 + aleatorio.nextInt(20) ;
+		Instant fechaInicio = dia.atStartOfDay().plusMinutes(8 * 60 + tramo * 15).toInstant(ZoneOffset.UTC) ;
+
+		int probabilidad = aleatorio.nextInt(100) ;
+		long duracionMinutos = probabilidad < 10 ? 30 : probabilidad < 70 ? 60 : probabilidad < 92 ? 120 : probabilidad < 99 ? 6 * 60 : 3 * 24 * 60 ;
+
+		String titulo = TITULOS[aleatorio.nextInt(TITULOS.length)] + " " + Long.toString(posicion, 36) ;
+
+		return new EventoSintetico(titulo, fechaInicio, fechaInicio.plusMillis(TimeUnit.MINUTES.toMillis(duracionMinutos)),
+								   this.email(usuario), "Nombre" + usuario, "Apellidos" + usuario, this.categoria(categoria)) ;
+	}
+
+	/**
+	 * @param elementos número de elementos
+	 * @param exponente exponente de la distribución
+	 * @return distribución de Zipf acumulada y normalizada
+	 */
+	private static double[] acumuladoZipf(int elementos, double exponente)
+	{
+		double[] acumulado = new double[elementos] ;
+		double suma = 0 ;
+		for (int i = 0 ; i < elementos ; i++)
+		{
+			suma += 1.0 / Math.pow(i + 1, exponente) ;
+			acumulado[i] = suma ;
+		}
+		for (int i = 0 ; i < elementos ; i++)
+		{
+			acumulado[i] /= suma ;
+		}
+		return acumulado ;
+	}
+
+	/**
+	 * @param acumulado distribución acumulada
+	 * @param valor valor uniforme en [0, 1)
+	 * @return posición del elemento elegido
+	 */
+	private static int muestrear(double[] acumulado, double valor)
+	{
+		int posicion = Arrays.binarySearch(acumulado, valor) ;
+		return Math.min(posicion >= 0 ? posicion : -posicion - 1, acumulado.length - 1) ;
+	}
+
+	/**
+	 * Evento generado.
+	 */
+	@Getter
+	@AllArgsConstructor
+	public static class EventoSintetico
+	{
+		/** Título */
+		private String titulo ;
+
+		/** Fecha de inicio */
+		private Instant fechaInicio ;
+
+		/** Fecha de fin */
+		private Instant fechaFin ;
+
+		/** Email del propietario */
+		private String usuarioEmail ;
+
+		/** Nombre del propietario */
+		private String usuarioNombre ;
+
+		/** Apellidos del propietario */
+		private String usuarioApellidos ;
+
+		/** Nombre de la categoría */
+		private String categoria ;
+	}
+}
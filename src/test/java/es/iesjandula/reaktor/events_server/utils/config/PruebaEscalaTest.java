@@ -0,0 +1,441 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import es.iesjandula.reaktor.events_server.models.ids.EventoId;
+import es.iesjandula.reaktor.events_server.repository.ICategoriaRepository;
+import es.iesjandula.reaktor.events_server.repository.IEventoRepository;
+import es.iesjandula.reaktor.events_server.services.VerificadorIndicesService;
+import es.iesjandula.reaktor.events_server.utils.GeneradorEventosSinteticos;
+import es.iesjandula.reaktor.events_server.utils.GeneradorEventosSinteticos.EventoSintetico;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prueba de escala de las consultas de los repositorios (perfil "escala"). No se ejecuta
+ * con el resto de pruebas: se lanza con el perfil de Maven del mismo nombre,
+ * {@code mvn -P escala test}.
+ *
+ * <p>Carga eventos sintéticos en la base de datos hasta cada uno de los tamaños configurados
+ * y, con cada tamaño, mide la latencia mediana y la memoria que retiene el resultado de
+ * cada consulta de lectura. Al pasar de un tamaño al siguiente comprueba que ninguna
+ * consulta crece más de lo que le corresponde: las consultas por clave no deberían crecer,
+ * las que devuelven listas deberían hacerlo como su número de filas y los recuentos como la
+ * tabla. Con cada tamaño comprueba también con {@link VerificadorIndicesService} que las
+ * consultas usan sus índices. Falla si alguna medición o algún índice queda fuera de la
+ * tolerancia.</p>
+ *
+ * <p>No se miden las sentencias de modificación ni recorrerEventosEnRango, cuyo tamaño de
+ * fetch solo lo admite el driver de MySQL.</p>
+ */
+@Slf4j
+@Tag("escala")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("escala")
+public class PruebaEscalaTest
+{
+	/** Sentencia de inserción de categorías */
+	private static final String SQL_INSERTAR_CATEGORIA = "INSERT INTO categoria (nombre, color) VALUES (?, ?)" ;
+
+	/** Sentencia de inserción de eventos */
+	private static final String SQL_INSERTAR_EVENTO = "INSERT INTO evento " +
+													  "(titulo, fecha_inicio, usuario_email, fecha_fin, usuario_nombre, usuario_apellidos, nombre) " +
+													  "VALUES (?, ?, ?, ?, ?, ?, ?)" ;
+
+	/** Eventos insertados en cada transacción */
+	private static final int TAMANIO_BLOQUE = 10000 ;
+
+	/** Claves pedidas en la consulta por claves */
+	private static final int CLAVES_CONSULTADAS = 50 ;
+
+	/** Usuarios de la consulta de varios usuarios */
+	private static final int USUARIOS_CONSULTADOS = 10 ;
+
+	/** Semana de las consultas por rango */
+	private static final Instant SEMANA_DESDE = Instant.parse("2025-01-13T00:00:00Z") ;
+	private static final Instant SEMANA_HASTA = Instant.parse("2025-01-20T00:00:00Z") ;
+
+	@Autowired
+	private IEventoRepository eventoRepository ;
+
+	@Autowired
+	private ICategoriaRepository categoriaRepository ;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate ;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate ;
+
+	@Autowired
+	private CacheManager cacheManager ;
+
+	@Autowired
+	private VerificadorIndicesService verificadorIndicesService ;
+
+	/** Número de eventos de cada paso, de menor a mayor */
+	@Value("${reaktor.escala.tamanios:10000,100000,1000000}")
+	private long[] tamanios ;
+
+	/** Semilla del generador */
+	@Value("${reaktor.escala.semilla:20240901}")
+	private long semilla ;
+
+	/** Número de usuarios generados */
+	@Value("${reaktor.escala.usuarios:400}")
+	private int usuarios ;
+
+	/** Número de categorías generadas */
+	@Value("${reaktor.escala.categorias:12}")
+	private int categorias ;
+
+	/** Ejecuciones de cada consulta que no se miden */
+	@Value("${reaktor.escala.calentamiento:3}")
+	private int calentamiento ;
+
+	/** Ejecuciones medidas de cada consulta */
+	@Value("${reaktor.escala.iteraciones:5}")
+	private int iteraciones ;
+
+	/** Cuántas veces puede crecer la latencia por encima de lo esperado */
+	@Value("${reaktor.escala.tolerancia-latencia:2.0}")
+	private double toleranciaLatencia ;
+
+	/** Cuántas veces puede crecer la memoria por encima del número de filas */
+	@Value("${reaktor.escala.tolerancia-memoria:1.5}")
+	private double toleranciaMemoria ;
+
+	/** Latencia por debajo de la cual las diferencias se consideran ruido */
+	@Value("${reaktor.escala.latencia-minima-ms:2}")
+	private double latenciaMinimaMs ;
+
+	/** Memoria por debajo de la cual las diferencias se consideran ruido */
+	@Value("${reaktor.escala.memoria-minima-bytes:1048576}")
+	private long memoriaMinimaBytes ;
+
+	/**
+	 * Carga cada tamaño, mide las consultas y comprueba su crecimiento y sus índices.
+	 *
+	 * @throws Exception si falla la carga o alguna consulta
+	 */
+	@Test
+	public void consultasEscalanDentroDeLaTolerancia() throws Exception
+	{
+		GeneradorEventosSinteticos generador = new GeneradorEventosSinteticos(this.semilla, this.usuarios, this.categorias) ;
+		this.jdbcTemplate.batchUpdate(SQL_INSERTAR_CATEGORIA, new ArrayList<Object[]>(generador.generarCategorias())) ;
+
+		List<String> fallos = new ArrayList<>() ;
+		Map<String, Medicion> anteriores = null ;
+		long cargados = 0 ;
+
+		for (long tamanio : this.tamanios)
+		{
+			long inicio = System.nanoTime() ;
+			this.cargar(generador, cargados, tamanio) ;
+			log.info("Escala: {} eventos cargados en {} ms", tamanio, (System.nanoTime() - inicio) / 1_000_000) ;
+
+			Map<String, Medicion> mediciones = new LinkedHashMap<>() ;
+			StringBuilder informe = new StringBuilder("Escala: ").append(tamanio).append(" eventos") ;
+			informe.append(String.format("%n  %-36s %10s %14s %16s", "consulta", "filas", "latencia (ms)", "memoria (bytes)")) ;
+
+			for (Consulta consulta : this.consultas(generador, tamanio))
+			{
+				Medicion medicion = this.medir(consulta) ;
+				mediciones.put(consulta.nombre, medicion) ;
+				informe.append(String.format("%n  %-36s %10d %14.2f %16d", consulta.nombre, medicion.filas, medicion.latenciaMs, medicion.memoriaBytes)) ;
+
+				if (anteriores != null)
+				{
+					this.comprobar(consulta, anteriores.get(consulta.nombre), medicion, (double) tamanio / cargados, tamanio, fallos) ;
+				}
+			}
+			log.info(informe.toString()) ;
+
+			for (Map<String, Object> verificacion : this.verificadorIndicesService.verificar())
+			{
+				if (!Boolean.TRUE.equals(verificacion.get("correcta")))
+				{
+					fallos.add(String.format("%s con %d eventos: no usa ninguno de los índices %s (plan: %s)",
+											 verificacion.get("consulta"), tamanio, verificacion.get("indicesEsperados"), verificacion.get("indicesCandidatos"))) ;
+				}
+			}
+
+			anteriores = mediciones ;
+			cargados   = tamanio ;
+		}
+
+		Assertions.assertTrue(fallos.isEmpty(), () -> "Escala: " + fallos.size() + " mediciones o índices fuera de la tolerancia:\n  " + String.join("\n  ", fallos)) ;
+		log.info("Escala: todas las consultas escalan dentro de la tolerancia") ;
+	}
+
+	/**
+	 * Inserta los eventos de las posiciones [desde, hasta).
+	 *
+	 * @param generador generador de eventos
+	 * @param desde primera posición
+	 * @param hasta posición siguiente a la última
+	 */
+	private void cargar(GeneradorEventosSinteticos generador, long desde, long hasta)
+	{
+		for (long bloque = desde ; bloque < hasta ; bloque += TAMANIO_BLOQUE)
+		{
+			List<EventoSintetico> eventos = new ArrayList<>(TAMANIO_BLOQUE) ;
+			for (long posicion = bloque ; posicion < Math.min(hasta, bloque + TAMANIO_BLOQUE) ; posicion++)
+			{
+				eventos.add(generador.generarEvento(posicion)) ;
+			}
+
+			this.transactionTemplate.executeWithoutResult(status -> this.jdbcTemplate.batchUpdate(SQL_INSERTAR_EVENTO, eventos, TAMANIO_BLOQUE, (preparedStatement, evento) ->
+			{
+				preparedStatement.setString(1, evento.getTitulo()) ;
+				preparedStatement.setTimestamp(2, Timestamp.from(evento.getFechaInicio())) ;
+				preparedStatement.setString(3, evento.getUsuarioEmail()) ;
+				preparedStatement.setTimestamp(4, Timestamp.from(evento.getFechaFin())) ;
+				preparedStatement.setString(5, evento.getUsuarioNombre()) ;
+				preparedStatement.setString(6, evento.getUsuarioApellidos()) ;
+				preparedStatement.setString(7, evento.getCategoria()) ;
+			})) ;
+		}
+
+		// Estadísticas al día para que el optimizador elija los índices como en producción
+		this.jdbcTemplate.execute("ANALYZE") ;
+	}
+
+	/**
+	 * @param generador generador con el que se han cargado los eventos
+	 * @param tamanio número de eventos cargados
+	 * @return consultas de lectura de los repositorios, con parámetros que existen en los datos
+	 */
+	private List<Consulta> consultas(GeneradorEventosSinteticos generador, long tamanio)
+	{
+		EventoSintetico existente = generador.generarEvento(tamanio / 2) ;
+		EventoId claveExistente   = new EventoId(existente.getTitulo(), existente.getFechaInicio(), existente.getUsuarioEmail()) ;
+
+		Set<String> titulos       = new HashSet<>() ;
+		Set<Instant> fechasInicio = new HashSet<>() ;
+		Set<String> emails        = new HashSet<>() ;
+		for (int i = 0 ; i < CLAVES_CONSULTADAS ; i++)
+		{
+			EventoSintetico evento = generador.generarEvento(i * (tamanio / CLAVES_CONSULTADAS)) ;
+			titulos.add(evento.getTitulo()) ;
+			fechasInicio.add(evento.getFechaInicio()) ;
+			emails.add(evento.getUsuarioEmail()) ;
+		}
+
+		List<String> variosUsuarios = new ArrayList<>() ;
+		for (int i = 0 ; i < USUARIOS_CONSULTADOS ; i++)
+		{
+			variosUsuarios.add(generador.email(i)) ;
+		}
+
+		String usuarioPrincipal   = generador.email(0) ;
+		String categoriaPrincipal = generador.categoria(0) ;
+
+		return List.of(
+			new Consulta("buscarEventos", Escalado.RESULTADO, () -> this.eventoRepository.buscarEventos()),
+			new Consulta("buscarEventosPorUsuario", Escalado.RESULTADO, () -> this.eventoRepository.buscarEventosPorUsuario(usuarioPrincipal)),
+			new Consulta("buscarEventosPorClaves", Escalado.CONSTANTE, () -> this.eventoRepository.buscarEventosPorClaves(titulos, fechasInicio, emails)),
+			new Consulta("buscarEventosEnRango", Escalado.RESULTADO, () -> this.eventoRepository.buscarEventosEnRango(SEMANA_DESDE, SEMANA_HASTA, null)),
+			new Consulta("buscarEventosEnRango (categoría)", Escalado.RESULTADO, () -> this.eventoRepository.buscarEventosEnRango(SEMANA_DESDE, SEMANA_HASTA, categoriaPrincipal)),
+			new Consulta("buscarEventosDeUsuariosEnRango", Escalado.RESULTADO, () -> this.eventoRepository.buscarEventosDeUsuariosEnRango(variosUsuarios, SEMANA_DESDE, SEMANA_HASTA)),
+			new Consulta("buscarEventosDespuesDe", Escalado.CONSTANTE, () -> this.eventoRepository.buscarEventosDespuesDe(claveExistente.getFechaInicio(), claveExistente.getTitulo(),
+																										  claveExistente.getUsuarioEmail(), PageRequest.of(0, 500))),
+			new Consulta("existsById", Escalado.CONSTANTE, () -> this.eventoRepository.existsById(claveExistente)),
+			new Consulta("findById", Escalado.CONSTANTE, () -> this.eventoRepository.findById(claveExistente)),
+			new Consulta("count", Escalado.DATOS, () -> this.eventoRepository.count()),
+			new Consulta("contarEventosPorCategoria", Escalado.DATOS, () -> this.eventoRepository.contarEventosPorCategoria(categoriaPrincipal)),
+			new Consulta("contarEventosAgrupadosPorCategoria", Escalado.DATOS, () -> this.eventoRepository.contarEventosAgrupadosPorCategoria()),
+			new Consulta("contarEventosAgrupadosPorUsuario", Escalado.DATOS, () -> this.eventoRepository.contarEventosAgrupadosPorUsuario()),
+			new Consulta("contarEventosAgrupadosPorMes", Escalado.DATOS, () -> this.eventoRepository.contarEventosAgrupadosPorMes()),
+			new Consulta("buscarCategorias", Escalado.CONSTANTE, () -> this.categoriaRepository.buscarCategorias())) ;
+	}
+
+	/**
+	 * Mide una consulta. Antes de cada ejecución se vacían las cachés para medir la consulta
+	 * y no la caché.
+	 *
+	 * @param consulta consulta a medir
+	 * @return filas, latencia mediana y memoria retenida por el resultado
+	 * @throws Exception si falla la consulta
+	 */
+	private Medicion medir(Consulta consulta) throws Exception
+	{
+		for (int i = 0 ; i < this.calentamiento ; i++)
+		{
+			this.vaciarCaches() ;
+			consulta.ejecucion.call() ;
+		}
+
+		double[] latencias = new double[this.iteraciones] ;
+		for (int i = 0 ; i < this.iteraciones ; i++)
+		{
+			this.vaciarCaches() ;
+			long inicio  = System.nanoTime() ;
+			consulta.ejecucion.call() ;
+			latencias[i] = (System.nanoTime() - inicio) / 1_000_000.0 ;
+		}
+		Arrays.sort(latencias) ;
+
+		this.vaciarCaches() ;
+		long antes       = memoriaOcupada() ;
+		Object resultado = consulta.ejecucion.call() ;
+		long despues     = memoriaOcupada() ;
+		Reference.reachabilityFence(resultado) ;
+
+		long filas = resultado instanceof Collection<?> coleccion ? coleccion.size() : 1 ;
+		return new Medicion(filas, latencias[latencias.length / 2], Math.max(0L, despues - antes)) ;
+	}
+
+	/**
+	 * Compara la medición con la del tamaño anterior y anota el fallo si crece más de lo tolerado.
+	 *
+	 * @param consulta consulta medida
+	 * @param anterior medición con el tamaño anterior
+	 * @param actual medición con el tamaño actual
+	 * @param crecimientoDatos veces que ha crecido la tabla
+	 * @param tamanio tamaño actual
+	 * @param fallos fallos encontrados
+	 */
+	private void comprobar(Consulta consulta, Medicion anterior, Medicion actual, double crecimientoDatos, long tamanio, List<String> fallos)
+	{
+		double crecimientoFilas = (double) Math.max(1L, actual.filas) / Math.max(1L, anterior.filas) ;
+		double esperado = switch (consulta.escalado)
+		{
+			case CONSTANTE -> 1.0 ;
+			case RESULTADO -> crecimientoFilas ;
+			case DATOS -> crecimientoDatos ;
+		} ;
+
+		double crecimientoLatencia = Math.max(actual.latenciaMs, this.latenciaMinimaMs) / Math.max(anterior.latenciaMs, this.latenciaMinimaMs) ;
+		if (crecimientoLatencia > this.toleranciaLatencia * Math.max(1.0, esperado))
+		{
+			fallos.add(String.format("%s con %d eventos: la latencia crece x%.1f y se esperaba como mucho x%.1f",
+									 consulta.nombre, tamanio, crecimientoLatencia, Math.max(1.0, esperado))) ;
+		}
+
+		double crecimientoMemoria = (double) Math.max(actual.memoriaBytes, this.memoriaMinimaBytes) / Math.max(anterior.memoriaBytes, this.memoriaMinimaBytes) ;
+		if (crecimientoMemoria > this.toleranciaMemoria * Math.max(1.0, crecimientoFilas))
+		{
+			fallos.add(String.format("%s con %d eventos: la memoria crece x%.1f y las filas x%.1f",
+									 consulta.nombre, tamanio, crecimientoMemoria, crecimientoFilas)) ;
+		}
+	}
+
+	/**
+	 * Vacía las cachés de la aplicación.
+	 */
+	private void vaciarCaches()
+	{
+		for (String nombre : this.cacheManager.getCacheNames())
+		{
+			Cache cache = this.cacheManager.getCache(nombre) ;
+			if (cache != null)
+			{
+				cache.clear() ;
+			}
+		}
+	}
+
+	/**
+	 * @return memoria ocupada del heap tras una recolección
+	 */
+	private static long memoriaOcupada()
+	{
+		System.gc() ;
+		System.gc() ;
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() ;
+	}
+
+	/**
+	 * Cómo debería crecer la latencia de una consulta al crecer la tabla.
+	 */
+	private enum Escalado
+	{
+		/** No debería crecer: búsquedas por clave y páginas de tamaño fijo */
+		CONSTANTE,
+
+		/** Como el número de filas devueltas */
+		RESULTADO,
+
+		/** Como la tabla: recuentos y agrupaciones */
+		DATOS
+	}
+
+	/**
+	 * Consulta medida.
+	 */
+	private static class Consulta
+	{
+		/** Nombre en el informe */
+		private final String nombre ;
+
+		/** Crecimiento esperado */
+		private final Escalado escalado ;
+
+		/** Ejecución de la consulta */
+		private final Callable<Object> ejecucion ;
+
+		/**
+		 * @param nombre nombre en el informe
+		 * @param escalado crecimiento esperado
+		 * @param ejecucion ejecución de la consulta
+		 */
+		private Consulta(String nombre, Escalado escalado, Callable<Object> ejecucion)
+		{
+			this.nombre    = nombre ;
+			this.escalado  = escalado ;
+			this.ejecucion = ejecucion ;
+		}
+	}
+
+	/**
+	 * Resultado de medir una consulta con un tamaño.
+	 */
+	private static class Medicion
+	{
+		/** Filas devueltas (1 si el resultado no es una lista) */
+		private final long filas ;
+
+		/** Latencia mediana */
+		private final double latenciaMs ;
+
+		/** Memoria retenida por el resultado */
+		private final long memoriaBytes ;
+
+		/**
+		 * @param filas filas devueltas
+		 * @param latenciaMs latencia mediana
+		 * @param memoriaBytes memoria retenida por el resultado
+		 */
+		private Medicion(long filas, double latenciaMs, long memoriaBytes)
+		{
+			this.filas        = filas ;
+			this.latenciaMs   = latenciaMs ;
+			this.memoriaBytes = memoriaBytes ;
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package es.iesjandula.reaktor.events_server.utils.config;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import es.iesjandula.reaktor.events_server.services.CacheInvalidacionService;
+import es.iesjandula.reaktor.events_server.services.ICanalInvalidacionCache;
+import es.iesjandula.reaktor.events_server.utils.Constants;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Prueba de la invalidación de cachés entre instancias (perfil "invalidacion").
+ *
+ * <p>Usa el canal local como sustituto del broker y hace de segunda instancia: envía
+ * mensajes por el canal con otro origen y escucha los que envía esta instancia.
+ * Comprueba que las invalidaciones recibidas quitan solo las entradas afectadas, que los
+ * mensajes repetidos se descartan, que un hueco en las versiones vacía las cachés, que
+ * las invalidaciones locales se difunden y que las entradas caducan aunque no llegue
+ * ninguna invalidación. Falla si alguna comprobación no se cumple.</p>
+ */
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("invalidacion")
+public class PruebaInvalidacionCacheTest
+{
+	/** Usuario cuyos listados se invalidan */
+	private static final String USUARIO = "profesor1@iesjandula.es" ;
+
+	/** Usuario cuyos listados no deben verse afectados */
+	private static final String OTRO_USUARIO = "profesor2@iesjandula.es" ;
+
+	/** Valor guardado en las cachés */
+	private static final String VALOR = "listado" ;
+
+	@Autowired
+	private CacheManager cacheManager ;
+
+	@Autowired
+	private CacheInvalidacionService cacheInvalidacionService ;
+
+	@Autowired
+	private ICanalInvalidacionCache canalInvalidacionCache ;
+
+	/** Tiempo que vive cada entrada desde que se guarda */
+	@Value("${reaktor.cache.ttl-ms:30000}")
+	private long ttlMs ;
+
+	/** Identificador de la instancia simulada */
+	private final String origen = UUID.randomUUID().toString() ;
+
+	/** Mensajes recibidos por el canal */
+	private final List<String> recibidos = new CopyOnWriteArrayList<>() ;
+
+	/**
+	 * Ejecuta todas las comprobaciones de la invalidación.
+	 *
+	 * @throws Exception si se interrumpe la espera de la caducidad
+	 */
+	@Test
+	public void invalidacionEntreInstancias() throws Exception
+	{
+		this.canalInvalidacionCache.suscribir(mensaje -> this.recibidos.add(new String(mensaje, StandardCharsets.UTF_8))) ;
+
+		Cache eventos    = this.cacheManager.getCache(Constants.CACHE_EVENTOS) ;
+		Cache categorias = this.cacheManager.getCache(Constants.CACHE_CATEGORIAS) ;
+		List<String> fallos = new ArrayList<>() ;
+
+		// Invalidación de los listados de un usuario recibida de otra instancia
+		this.llenar(eventos, categorias) ;
+		this.enviar(1, "E:" + USUARIO) ;
+		this.comprobar(fallos, "evento recibido quita el listado del usuario", eventos.get(USUARIO) == null) ;
+		this.comprobar(fallos, "evento recibido quita el listado completo", eventos.get(Constants.CACHE_CLAVE_TODOS) == null) ;
+		this.comprobar(fallos, "evento recibido conserva el listado de otro usuario", eventos.get(OTRO_USUARIO) != null) ;
+		this.comprobar(fallos, "evento recibido conserva las categorías", categorias.get(Constants.CACHE_CLAVE_TODOS) != null) ;
+
+		// Mensaje repetido: se descarta
+		this.llenar(eventos, categorias) ;
+		long descartados = this.contador("descartados") ;
+		this.enviar(1, "E:" + OTRO_USUARIO) ;
+		this.comprobar(fallos, "mensaje repetido se descarta", this.contador("descartados") == descartados + 1) ;
+		this.comprobar(fallos, "mensaje repetido no quita nada", eventos.get(OTRO_USUARIO) != null) ;
+
+		// Mensaje con versión no válida: se descarta sin fallar
+		long malformados = this.contador("malformados") ;
+		String malformado = this.origen + "\nno-es-version\nE:" + OTRO_USUARIO ;
+		this.canalInvalidacionCache.publicar(malformado.getBytes(StandardCharsets.UTF_8)) ;
+		this.comprobar(fallos, "mensaje malformado se descarta", this.contador("malformados") == malformados + 1) ;
+		this.comprobar(fallos, "mensaje malformado no quita nada", eventos.get(OTRO_USUARIO) != null) ;
+
+		// Hueco en las versiones: se vacían todas las cachés
+		this.enviar(3, "C:otra") ;
+		this.comprobar(fallos, "hueco de versiones vacía los eventos", eventos.get(OTRO_USUARIO) == null) ;
+		this.comprobar(fallos, "hueco de versiones vacía las categorías", categorias.get(Constants.CACHE_CLAVE_TODOS) == null) ;
+
+		// Invalidación local: se aplica y se difunde
+		this.llenar(eventos, categorias) ;
+		this.recibidos.clear() ;
+		this.cacheInvalidacionService.invalidarCategoria("otra") ;
+		this.cacheInvalidacionService.enviarPendientes() ;
+		this.comprobar(fallos, "invalidación local quita las categorías", categorias.get(Constants.CACHE_CLAVE_TODOS) == null) ;
+		this.comprobar(fallos, "invalidación local se difunde", this.recibidos.stream().anyMatch(mensaje -> mensaje.endsWith("\nC:otra"))) ;
+
+		// Caducidad: la entrada desaparece sin ninguna invalidación
+		this.llenar(eventos, categorias) ;
+		Thread.sleep(this.ttlMs + 200L) ;
+		this.comprobar(fallos, "las entradas caducan", eventos.get(USUARIO) == null && categorias.get(Constants.CACHE_CLAVE_TODOS) == null) ;
+
+		Assertions.assertTrue(fallos.isEmpty(), () -> "Invalidación: " + fallos.size() + " comprobaciones fallidas:\n  " + String.join("\n  ", fallos)) ;
+		log.info("Invalidación: todas las comprobaciones se cumplen") ;
+	}
+
+	/**
+	 * Guarda una entrada en cada listado de las cachés.
+	 *
+	 * @param eventos caché de eventos
+	 * @param categorias caché de categorías
+	 */
+	private void llenar(Cache eventos, Cache categorias)
+	{
+		eventos.put(Constants.CACHE_CLAVE_TODOS, VALOR) ;
+		eventos.put(USUARIO, VALOR) ;
+		eventos.put(OTRO_USUARIO, VALOR) ;
+		categorias.put(Constants.CACHE_CLAVE_TODOS, VALOR) ;
+	}
+
+	/**
+	 * Envía por el canal un mensaje de la instancia simulada.
+	 *
+	 * @param version versión del mensaje
+	 * @param entrada entrada de invalidación
+	 */
+	private void enviar(long version, String entrada)
+	{
+		String mensaje = this.origen + "\n" + version + "\n" + entrada ;
+		this.canalInvalidacionCache.publicar(mensaje.getBytes(StandardCharsets.UTF_8)) ;
+	}
+
+	/**
+	 * @param nombre nombre del contador
+	 * @return valor del contador de mensajes de la invalidación
+	 */
+	private long contador(String nombre)
+	{
+		Map<String, Long> contadores = this.cacheInvalidacionService.obtenerContadores() ;
+		return contadores.get(nombre) ;
+	}
+
+	/**
+	 * @param fallos comprobaciones fallidas
+	 * @param descripcion descripción de la comprobación
+	 * @param cumplida si se cumple
+	 */
+	private void comprobar(List<String> fallos, String descripcion, boolean cumplida)
+	{
+		log.info("Invalidación: {} -> {}", descripcion, cumplida ? "ok" : "FALLO") ;
+		if (!cumplida)
+		{
+			fallos.add(descripcion) ;
+		}
+	}
+}